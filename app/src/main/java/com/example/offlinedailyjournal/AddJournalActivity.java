@@ -1,14 +1,19 @@
 package com.example.offlinedailyjournal;
 
-import android.content.ContentValues;
+import android.app.AlertDialog;
 import android.content.Intent;
-import android.database.Cursor;
-import android.database.sqlite.SQLiteDatabase;
 import android.graphics.Typeface;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.speech.RecognizerIntent;
 import android.speech.tts.TextToSpeech;
+import android.text.Editable;
 import android.text.TextUtils;
+import android.text.TextWatcher;
+import android.view.View;
+import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
 import android.widget.Button;
 import android.widget.EditText;
@@ -18,17 +23,13 @@ import android.widget.Toast;
 
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.core.content.res.ResourcesCompat;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.Locale;
 
 public class AddJournalActivity extends AppCompatActivity {
 
     private static final int SPEECH_REQUEST_CODE = 1001;
-    private static final String COLUMN_JOURNAL_MOOD = "mood";
 
     private TextView journalPageTitle;
     private EditText journalTitleInput, journalContentInput;
@@ -36,12 +37,14 @@ public class AddJournalActivity extends AppCompatActivity {
     private Button saveButton, speakButton, recordButton;
     private Spinner moodSpinner;
 
-    private DatabaseHelper dbHelper;
+    private JournalRepository repository;
     private long folderId;
     private long journalId = -1;
     private boolean isEditMode = false;
 
     private TextToSpeech tts;
+    private DraftAutosaver autosaver;
+    private JournalDraft shown;  // the entry as loaded (or the empty form), before any draft
 
     // Spinner data
     private final String[] moods = new String[]{
@@ -67,17 +70,16 @@ public class AddJournalActivity extends AppCompatActivity {
         moodSpinner         = findViewById(R.id.moodSpinner);
 
         // Fonts
-        Typeface poppinsRegular = ResourcesCompat.getFont(this, R.font.poppins);
-        Typeface poppinsLight   = ResourcesCompat.getFont(this, R.font.poppins_light);
-        if (poppinsRegular != null && poppinsLight != null) {
-            journalTitleInput.setTypeface(poppinsRegular);
-            journalContentInput.setTypeface(poppinsLight);
-            dateAddedText.setTypeface(poppinsLight);
-            dateModifiedText.setTypeface(poppinsLight);
-            saveButton.setTypeface(poppinsRegular);
-            speakButton.setTypeface(poppinsRegular);
-            recordButton.setTypeface(poppinsRegular);
-        }
+        Fonts fonts = Fonts.get(this);
+        Typeface poppinsRegular = fonts.regular();
+        Typeface poppinsLight   = fonts.light();
+        journalTitleInput.setTypeface(poppinsRegular);
+        journalContentInput.setTypeface(poppinsLight);
+        dateAddedText.setTypeface(poppinsLight);
+        dateModifiedText.setTypeface(poppinsLight);
+        saveButton.setTypeface(poppinsRegular);
+        speakButton.setTypeface(poppinsRegular);
+        recordButton.setTypeface(poppinsRegular);
 
         // Spinner adapter
         ArrayAdapter<String> moodAdapter = new ArrayAdapter<>(
@@ -86,8 +88,8 @@ public class AddJournalActivity extends AppCompatActivity {
         moodAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         moodSpinner.setAdapter(moodAdapter);
 
-        dbHelper = new DatabaseHelper(this);
-        ensureMoodColumn(); // add the column once if it doesn't exist
+        repository = new JournalRepository(this);
+        setupAutosave();
 
         Intent intent = getIntent();
         journalId = intent.getLongExtra("journalId", -1);
@@ -108,10 +110,10 @@ public class AddJournalActivity extends AppCompatActivity {
                 finish();
                 return;
             }
-            String now = new SimpleDateFormat("MMMM dd, yyyy HH:mm", Locale.getDefault())
-                    .format(new Date());
+            String now = TimestampCodec.local().formatStamp(System.currentTimeMillis());
             dateAddedText.setText("Date Added: " + now);
             dateModifiedText.setText("Last Modified: " + now);
+            restoreDraft();
         }
 
         // Save
@@ -140,6 +142,106 @@ public class AddJournalActivity extends AppCompatActivity {
         recordButton.setOnClickListener(v -> startSpeechToText());
     }
 
+    /**
+     * Typing, dictation and mood changes all feed the autosaver, which
+     * writes the draft in the background once the user pauses. It starts
+     * only after the entry and any earlier draft are on screen.
+     */
+    private void setupAutosave() {
+        Handler handler = new Handler(Looper.getMainLooper());
+        autosaver = new DraftAutosaver(this::currentDraft,
+                (draft, done) -> repository.saveDraft(draft, new JournalRepository.Callback<Boolean>() {
+                    @Override
+                    public void onResult(Boolean ok) {
+                        done.onWritten(ok);
+                    }
+                    @Override
+                    public void onError(Exception e) {
+                        done.onWritten(false);
+                    }
+                }),
+                new DraftAutosaver.Scheduler() {
+                    @Override
+                    public void postDelayed(Runnable task, long delayMillis) {
+                        handler.postDelayed(task, delayMillis);
+                    }
+                    @Override
+                    public void removeCallbacks(Runnable task) {
+                        handler.removeCallbacks(task);
+                    }
+                    @Override
+                    public long uptimeMillis() {
+                        return SystemClock.uptimeMillis();
+                    }
+                });
+
+        TextWatcher changed = new TextWatcher() {
+            @Override public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+            @Override public void onTextChanged(CharSequence s, int start, int before, int count) {}
+            @Override
+            public void afterTextChanged(Editable s) {
+                autosaver.onChanged();
+            }
+        };
+        journalTitleInput.addTextChangedListener(changed);
+        journalContentInput.addTextChangedListener(changed);
+        moodSpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int pos, long id) {
+                autosaver.onChanged();
+            }
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {}
+        });
+    }
+
+    /** The editor as it stands, untrimmed, as a draft of this entry. */
+    private JournalDraft currentDraft() {
+        return new JournalDraft(isEditMode ? journalId : JournalDraft.NEW_ENTRY, folderId,
+                journalTitleInput.getText().toString(),
+                journalContentInput.getText().toString(),
+                getSelectedMood());
+    }
+
+    private String draftKey() {
+        return JournalDraft.key(isEditMode ? journalId : JournalDraft.NEW_ENTRY, folderId);
+    }
+
+    /**
+     * Bring back changes autosaved before the app was closed or killed,
+     * over whatever is on screen (the loaded entry, or an empty form), then
+     * start autosaving from there. The user may discard them instead.
+     */
+    private void restoreDraft() {
+        shown = currentDraft();
+        repository.loadDraft(isEditMode ? journalId : JournalDraft.NEW_ENTRY, folderId, draft -> {
+            if (draft != null && draft.hash != shown.hash) {
+                showInEditor(draft);
+                new AlertDialog.Builder(this)
+                        .setMessage("Restored your unsaved changes.")
+                        .setPositiveButton("Keep", null)
+                        .setNegativeButton("Discard", (d, w) -> discardDraft())
+                        .show();
+            }
+            autosaver.start(draft != null ? draft.hash : shown.hash);
+        });
+    }
+
+    /** Put the entry back as it was loaded and drop the draft. */
+    private void discardDraft() {
+        autosaver.stop(() -> {
+            showInEditor(shown);
+            repository.discardDraft(draftKey(), removed -> autosaver.restart(shown.hash));
+        });
+    }
+
+    private void showInEditor(JournalDraft draft) {
+        journalTitleInput.setText(draft.title);
+        journalContentInput.setText(draft.content);
+        moodSpinner.setSelection(0);
+        selectMoodInSpinner(draft.mood);
+    }
+
     private void startSpeechToText() {
         Intent intent = new Intent(RecognizerIntent.ACTION_RECOGNIZE_SPEECH);
         intent.putExtra(RecognizerIntent.EXTRA_LANGUAGE_MODEL, RecognizerIntent.LANGUAGE_MODEL_FREE_FORM);
@@ -158,40 +260,27 @@ public class AddJournalActivity extends AppCompatActivity {
         if (requestCode == SPEECH_REQUEST_CODE && resultCode == RESULT_OK && data != null) {
             ArrayList<String> result = data.getStringArrayListExtra(RecognizerIntent.EXTRA_RESULTS);
             if (result != null && !result.isEmpty()) {
+                // Goes through the text watcher like typing, so it's autosaved too
                 journalContentInput.append(result.get(0) + " ");
             }
         }
     }
 
     private void loadJournalForEdit(long id) {
-        SQLiteDatabase db = dbHelper.getReadableDatabase();
-        Cursor c = db.query(
-                DatabaseHelper.TABLE_JOURNALS,
-                null,
-                DatabaseHelper.COLUMN_JOURNAL_ID + " = ?",
-                new String[]{ String.valueOf(id) },
-                null, null, null
-        );
-        if (c != null && c.moveToFirst()) {
-            String title   = c.getString(c.getColumnIndexOrThrow(DatabaseHelper.COLUMN_JOURNAL_TITLE));
-            String content = c.getString(c.getColumnIndexOrThrow(DatabaseHelper.COLUMN_JOURNAL_CONTENT));
-            String added   = c.getString(c.getColumnIndexOrThrow(DatabaseHelper.COLUMN_JOURNAL_DATE_ADDED));
-            String modified= c.getString(c.getColumnIndexOrThrow(DatabaseHelper.COLUMN_JOURNAL_DATE_MODIFIED));
-            folderId       = c.getLong(c.getColumnIndexOrThrow(DatabaseHelper.COLUMN_JOURNAL_FOLDER_ID));
-
-            journalTitleInput.setText(title);
-            journalContentInput.setText(content);
-            dateAddedText.setText("Date Added: " + added);
-            dateModifiedText.setText("Last Modified: " + modified);
-
-            // Set spinner selection from stored mood (if column exists)
-            int moodIdx = c.getColumnIndex(COLUMN_JOURNAL_MOOD);
-            if (moodIdx != -1) {
-                String mood = c.getString(moodIdx);
-                selectMoodInSpinner(mood);
+        repository.loadJournal(id, entry -> {
+            if (entry != null) {
+                folderId = entry.folderId;
+                journalTitleInput.setText(entry.title);
+                journalContentInput.setText(entry.content);
+                TimestampCodec codec = TimestampCodec.local();
+                dateAddedText.setText("Date Added: " + codec.formatStamp(entry.dateAdded));
+                dateModifiedText.setText("Last Modified: " + codec.formatStamp(entry.dateModified));
+
+                // Set spinner selection from stored mood (if column exists)
+                selectMoodInSpinner(entry.mood);
+                restoreDraft();
             }
-        }
-        if (c != null) c.close();
+        });
     }
 
     private void insertJournal() {
@@ -202,22 +291,19 @@ public class AddJournalActivity extends AppCompatActivity {
             return;
         }
 
-        long newId = dbHelper.insertJournal(title, content, folderId);
-        if (newId != -1) {
-            String mood = getSelectedMood();
-            if (mood != null) {
-                SQLiteDatabase db = dbHelper.getWritableDatabase();
-                ContentValues v = new ContentValues();
-                v.put(COLUMN_JOURNAL_MOOD, mood);
-                db.update(DatabaseHelper.TABLE_JOURNALS, v,
-                        DatabaseHelper.COLUMN_JOURNAL_ID + "=?",
-                        new String[]{ String.valueOf(newId) });
+        saveButton.setEnabled(false);
+        JournalRecord record = JournalRecord.now(title, content, folderId, getSelectedMood());
+        // Let any draft write land first, so it can't reappear after the save clears it
+        autosaver.stop(() -> repository.insertJournal(record, draftKey(), newId -> {
+            if (newId != -1) {
+                Toast.makeText(this, "Journal saved!", Toast.LENGTH_SHORT).show();
+                finish();
+            } else {
+                saveButton.setEnabled(true);
+                autosaver.resume();
+                Toast.makeText(this, "Failed to save journal.", Toast.LENGTH_SHORT).show();
             }
-            Toast.makeText(this, "Journal saved!", Toast.LENGTH_SHORT).show();
-            finish();
-        } else {
-            Toast.makeText(this, "Failed to save journal.", Toast.LENGTH_SHORT).show();
-        }
+        }));
     }
 
     private void updateJournal() {
@@ -227,30 +313,18 @@ public class AddJournalActivity extends AppCompatActivity {
             Toast.makeText(this, "Please enter both title and content.", Toast.LENGTH_SHORT).show();
             return;
         }
-        String now = new SimpleDateFormat("MMMM dd, yyyy HH:mm", Locale.getDefault())
-                .format(new Date());
-
-        SQLiteDatabase db = dbHelper.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(DatabaseHelper.COLUMN_JOURNAL_TITLE, title);
-        values.put(DatabaseHelper.COLUMN_JOURNAL_CONTENT, content);
-        values.put(DatabaseHelper.COLUMN_JOURNAL_DATE_MODIFIED, now);
-
+        saveButton.setEnabled(false);
         String mood = getSelectedMood();
-        if (mood != null) values.put(COLUMN_JOURNAL_MOOD, mood);
-
-        int rows = db.update(
-                DatabaseHelper.TABLE_JOURNALS,
-                values,
-                DatabaseHelper.COLUMN_JOURNAL_ID + " = ?",
-                new String[]{ String.valueOf(journalId) }
-        );
-        if (rows > 0) {
-            Toast.makeText(this, "Journal updated!", Toast.LENGTH_SHORT).show();
-            finish();
-        } else {
-            Toast.makeText(this, "Update failed.", Toast.LENGTH_SHORT).show();
-        }
+        autosaver.stop(() -> repository.updateJournal(journalId, title, content, mood, draftKey(), rows -> {
+            if (rows > 0) {
+                Toast.makeText(this, "Journal updated!", Toast.LENGTH_SHORT).show();
+                finish();
+            } else {
+                saveButton.setEnabled(true);
+                autosaver.resume();
+                Toast.makeText(this, "Update failed.", Toast.LENGTH_SHORT).show();
+            }
+        }));
     }
 
     private String getSelectedMood() {
@@ -270,15 +344,16 @@ public class AddJournalActivity extends AppCompatActivity {
         // not found: leave as default
     }
 
-    /** Adds the 'mood' column once if it doesn't exist. Safe to call repeatedly. */
-    private void ensureMoodColumn() {
-        SQLiteDatabase db = dbHelper.getWritableDatabase();
-        try {
-            db.execSQL("ALTER TABLE " + DatabaseHelper.TABLE_JOURNALS +
-                    " ADD COLUMN " + COLUMN_JOURNAL_MOOD + " TEXT");
-        } catch (Exception ignored) {
-            // Column likely exists; ignore.
+    @Override
+    protected void onPause() {
+        if (isFinishing() && shown != null && currentDraft().hash == shown.hash) {
+            // Left with nothing changed: an earlier draft would only come back next time
+            autosaver.stop(() -> repository.discardDraft(draftKey(), null));
+        } else {
+            // The process may be killed any time after this
+            autosaver.flush();
         }
+        super.onPause();
     }
 
     @Override
@@ -287,6 +362,8 @@ public class AddJournalActivity extends AppCompatActivity {
             tts.stop();
             tts.shutdown();
         }
+        autosaver.stop(() -> {});
+        repository.close();
         super.onDestroy();
     }
 }
@@ -0,0 +1,113 @@
+package com.example.offlinedailyjournal;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Storage format for long journal content. Text at or above the threshold
+ * is stored as a BLOB: a format marker, the UTF-8 length, then raw Deflate
+ * data. Anything shorter, or that doesn't shrink, stays plain TEXT, so a
+ * row's SQLite type says which form it is in and old rows need no
+ * rewrite. Thread-safe.
+ */
+public final class ContentCodec {
+
+    /** Threshold that turns compression off. */
+    public static final int OFF = 0;
+
+    /** Default threshold in UTF-16 chars; below this the saving isn't worth a BLOB. */
+    public static final int DEFAULT_THRESHOLD = 4 * 1024;
+
+    // "JZ" and a format version; bumped if the layout after it ever changes
+    private static final byte MAGIC_0 = 'J';
+    private static final byte MAGIC_1 = 'Z';
+    private static final byte VERSION = 1;
+    private static final int HEADER   = 7;  // magic, version, 4-byte big-endian UTF-8 length
+
+    // Keep compressed form only if it saves at least 1/8
+    private static final int MIN_SAVING_SHIFT = 3;
+
+    private final int threshold;
+
+    public ContentCodec(int threshold) {
+        this.threshold = threshold;
+    }
+
+    public boolean enabled() {
+        return threshold > OFF;
+    }
+
+    /**
+     * The BLOB to store for this content, or null to store it as plain
+     * text (compression off, too short, or it didn't shrink enough).
+     */
+    public byte[] compress(String content) {
+        if (!enabled() || content.length() < threshold) return null;
+
+        byte[] utf8 = content.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(utf8);
+            deflater.finish();
+            int limit = utf8.length - (utf8.length >> MIN_SAVING_SHIFT);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(HEADER + utf8.length / 3);
+            out.write(MAGIC_0);
+            out.write(MAGIC_1);
+            out.write(VERSION);
+            out.write(utf8.length >>> 24);
+            out.write(utf8.length >>> 16);
+            out.write(utf8.length >>> 8);
+            out.write(utf8.length);
+            byte[] buf = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buf);
+                out.write(buf, 0, n);
+                if (out.size() - HEADER >= limit) return null;
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /** True if this BLOB starts with the compressed-content marker. */
+    public static boolean isCompressed(byte[] blob) {
+        return blob != null && blob.length >= HEADER
+                && blob[0] == MAGIC_0 && blob[1] == MAGIC_1 && blob[2] == VERSION;
+    }
+
+    /**
+     * The text of a BLOB written by {@link #compress}. Throws
+     * IllegalArgumentException if it isn't one, or is damaged.
+     */
+    public static String decompress(byte[] blob) {
+        if (!isCompressed(blob)) {
+            throw new IllegalArgumentException("Not compressed journal content");
+        }
+        int length = ((blob[3] & 0xFF) << 24) | ((blob[4] & 0xFF) << 16)
+                | ((blob[5] & 0xFF) << 8) | (blob[6] & 0xFF);
+        if (length < 0) throw new IllegalArgumentException("Bad content length " + length);
+
+        byte[] utf8 = new byte[length];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(blob, HEADER, blob.length - HEADER);
+            int done = 0;
+            while (done < length) {
+                int n = inflater.inflate(utf8, done, length - done);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated journal content");
+                }
+                done += n;
+            }
+            return new String(utf8, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt journal content", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
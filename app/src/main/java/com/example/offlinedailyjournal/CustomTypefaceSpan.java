@@ -5,6 +5,7 @@ import android.graphics.Typeface;
 import android.text.TextPaint;
 import android.text.style.MetricAffectingSpan;
 
+/** Sets a span's typeface. Holds no state; get shared ones from {@link Fonts#span}. */
 public class CustomTypefaceSpan extends MetricAffectingSpan {
     private final Typeface typeface;
 
@@ -2,21 +2,36 @@ package com.example.offlinedailyjournal;
 
 import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteConstraintException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 
 public class DatabaseHelper extends SQLiteOpenHelper {
 
     private static final String DATABASE_NAME    = "offline_journal.db";
-    private static final int    DATABASE_VERSION = 2;  // bumped to version 2
+    static final int DATABASE_VERSION = 13;  // last entry in MIGRATIONS
 
     // Table names
     public static final String TABLE_FOLDERS  = "folders";
     public static final String TABLE_JOURNALS = "journals";
+    public static final String TABLE_JOURNALS_FTS = "journals_fts";
+    public static final String TABLE_JOURNAL_MONTHS = "journal_month_counts";
+    public static final String TABLE_JOURNAL_DRAFTS = "journal_drafts";
+    public static final String TABLE_JOURNAL_IMPORTS = "journal_imports";
+    public static final String TABLE_JOURNAL_CHANGES = "journal_changes";
+    public static final String TABLE_BACKUP_STATE    = "backup_state";
 
     // Folders table columns
     public static final String COLUMN_FOLDER_ID   = "id";
@@ -30,9 +45,108 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     public static final String COLUMN_JOURNAL_FOLDER_ID     = "folder_id";
     public static final String COLUMN_JOURNAL_DATE_ADDED    = "date_added";
     public static final String COLUMN_JOURNAL_DATE_MODIFIED = "date_modified";
+    public static final String COLUMN_JOURNAL_MOOD          = "mood";
+    // Summary of content for list cards, see JournalSummary
+    public static final String COLUMN_JOURNAL_EXCERPT       = "excerpt";
+    public static final String COLUMN_JOURNAL_WORDS         = "word_count";
+    public static final String COLUMN_JOURNAL_CHARS         = "char_count";
+    // year * 100 + month the entry is counted under, see createMonthCounts
+    public static final String COLUMN_JOURNAL_MONTH_KEY     = "month_key";
 
-    public DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    // Journal month counts columns (folder_id is 0 for entries without a folder)
+    public static final String COLUMN_MONTHS_FOLDER_ID = "folder_id";
+    public static final String COLUMN_MONTHS_YEAR      = "year";
+    public static final String COLUMN_MONTHS_MONTH     = "month";  // 1..12
+    public static final String COLUMN_MONTHS_ENTRIES   = "entries";
+
+    // Journal drafts columns; key is JournalDraft.key()
+    public static final String COLUMN_DRAFT_KEY        = "draft_key";
+    public static final String COLUMN_DRAFT_JOURNAL_ID = "journal_id";
+    public static final String COLUMN_DRAFT_FOLDER_ID  = "folder_id";
+    public static final String COLUMN_DRAFT_TITLE      = "title";
+    public static final String COLUMN_DRAFT_CONTENT    = "content";
+    public static final String COLUMN_DRAFT_MOOD       = "mood";
+    public static final String COLUMN_DRAFT_HASH       = "content_hash";
+    public static final String COLUMN_DRAFT_SAVED      = "date_saved";
+
+    // Import checkpoints: how far into an archive an import has committed
+    public static final String COLUMN_IMPORT_KEY     = "import_key";
+    public static final String COLUMN_IMPORT_DONE    = "entries_done";
+    public static final String COLUMN_IMPORT_UPDATED = "date_updated";
+
+    // Change log: folders and journals rows written since the last backup
+    public static final String COLUMN_CHANGE_SEQ    = "seq";     // grows with every logged write
+    public static final String COLUMN_CHANGE_KIND   = "kind";    // CHANGE_FOLDER or CHANGE_JOURNAL
+    public static final String COLUMN_CHANGE_ROW_ID = "row_id";
+    public static final int CHANGE_FOLDER  = 0;
+    public static final int CHANGE_JOURNAL = 1;
+
+    // Backup state: a single row naming the chain and last file the change log is relative to
+    public static final String COLUMN_BACKUP_CHAIN  = "chain";
+    public static final String COLUMN_BACKUP_NUMBER = "number";
+
+    /** Folder id meaning "every folder" for the list and filter queries. */
+    public static final long ALL_FOLDERS = -1;
+
+    /** Page cache for the write connection, in KiB (SQLite's default is 2000). */
+    private static final int WRITER_CACHE_KIB = 8 * 1024;
+
+    /** Journals removed per statement by {@link #deleteFolder(long, DeleteProgress)}. */
+    private static final int DELETE_CHUNK = 500;
+
+    /** Reports how many of a folder's entries are gone so far. */
+    public interface DeleteProgress {
+        void onProgress(int deleted, int total);
+    }
+
+    // Long content is stored compressed; see ContentCodec
+    private volatile ContentCodec contentCodec = new ContentCodec(ContentCodec.DEFAULT_THRESHOLD);
+
+    // Compiled once per open database; see insertStatement(). Guarded by
+    // its own lock, as SQLiteOpenHelper already syncs getReadableDatabase()
+    // on this and reads shouldn't wait for a batch insert.
+    private final Object insertLock = new Object();
+    private SQLiteStatement insertJournal;
+    private SQLiteDatabase  insertJournalDb;
+
+    // What committed writes changed, for screens to refresh by
+    private final InvalidationTracker invalidation = new InvalidationTracker();
+
+    private static DatabaseHelper instance;
+
+    /**
+     * The one helper for the process. Every screen shares it, so there is a
+     * single connection pool: one write connection plus read connections
+     * that, with write-ahead logging, keep reading the last commit while a
+     * write transaction is open.
+     */
+    public static synchronized DatabaseHelper getInstance(Context context) {
+        if (instance == null) {
+            instance = new DatabaseHelper(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /** For tests; the app goes through {@link #getInstance}. */
+    DatabaseHelper(Context context) {
+        this(context, DATABASE_NAME);
+    }
+
+    /** For tests: a database under another file name. */
+    DatabaseHelper(Context context, String name) {
+        super(context, name, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        // Readers see the last commit instead of waiting for the writer, and
+        // a commit appends to the log rather than rewriting the database
+        db.enableWriteAheadLogging();
+        // Off by default in SQLite; needed for journals' ON DELETE CASCADE
+        db.setForeignKeyConstraintsEnabled(true);
+        // Per connection, so this is the write connection's: bulk inserts,
+        // folder deletes and the search index touch many pages at once
+        db.execSQL("PRAGMA cache_size = -" + WRITER_CACHE_KIB + ";");
     }
 
     @Override
@@ -47,8 +161,305 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         db.execSQL(CREATE_FOLDERS_TABLE);
 
         // Create journals table with both date_added and date_modified
+        createJournalsTable(db, TABLE_JOURNALS);
+        createJournalIndexes(db);
+
+        createSearchIndex(db);
+        createMonthCounts(db);
+        createDrafts(db);
+        createImports(db);
+        createChangeLog(db);
+    }
+
+    /**
+     * Current journals schema. Both dates are epoch milliseconds so that
+     * sorting and range filters compare integers and can use an index.
+     * The summary columns are derived from content on every write so that
+     * lists never have to load it, and month_key is worked out from
+     * date_modified with it (see {@link #monthKey}).
+     */
+    private static void createJournalsTable(SQLiteDatabase db, String table) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + table + " ("
+                +     COLUMN_JOURNAL_ID            + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                +     COLUMN_JOURNAL_TITLE         + " TEXT NOT NULL, "
+                +     COLUMN_JOURNAL_CONTENT       + " TEXT NOT NULL, "
+                +     COLUMN_JOURNAL_FOLDER_ID     + " INTEGER, "
+                +     COLUMN_JOURNAL_DATE_ADDED    + " INTEGER NOT NULL DEFAULT (strftime('%s','now') * 1000), "
+                +     COLUMN_JOURNAL_DATE_MODIFIED + " INTEGER NOT NULL DEFAULT (strftime('%s','now') * 1000), "
+                +     COLUMN_JOURNAL_MOOD          + " TEXT, "
+                +     SUMMARY_COLUMNS[0] + ", " + SUMMARY_COLUMNS[1] + ", " + SUMMARY_COLUMNS[2] + ", "
+                +     MONTH_KEY_COLUMN + ", "
+                +     "FOREIGN KEY(" + COLUMN_JOURNAL_FOLDER_ID + ") "
+                +         "REFERENCES " + TABLE_FOLDERS + "(" + COLUMN_FOLDER_ID + ") ON DELETE CASCADE"
+                + ");");
+    }
+
+    // Written exactly as ALTER TABLE ADD COLUMN would, so an upgraded table
+    // ends up with the same schema text as a new one
+    private static final String[] SUMMARY_COLUMNS = {
+            COLUMN_JOURNAL_EXCERPT + " TEXT NOT NULL DEFAULT ''",
+            COLUMN_JOURNAL_WORDS   + " INTEGER NOT NULL DEFAULT 0",
+            COLUMN_JOURNAL_CHARS   + " INTEGER NOT NULL DEFAULT 0",
+    };
+    private static final String MONTH_KEY_COLUMN = COLUMN_JOURNAL_MONTH_KEY + " INTEGER NOT NULL DEFAULT 0";
+
+    /**
+     * (folder_id, date_modified) serves the per-folder list; date_modified
+     * alone serves the all-journals list. Both orderings end in the rowid.
+     */
+    private static void createJournalIndexes(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_journals_folder_modified ON " + TABLE_JOURNALS
+                + "(" + COLUMN_JOURNAL_FOLDER_ID + ", " + COLUMN_JOURNAL_DATE_MODIFIED + ");");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_journals_modified ON " + TABLE_JOURNALS
+                + "(" + COLUMN_JOURNAL_DATE_MODIFIED + ");");
+    }
+
+    /**
+     * FTS4 index over title and content, keyed by docid = journal id and
+     * kept in sync by triggers. It stores its own copy of the text so
+     * snippet() never depends on how the journals table stores content.
+     * The triggers skip rows whose content is a compressed BLOB; the code
+     * that writes those indexes the plain text itself (indexContent).
+     */
+    private static void createSearchIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + TABLE_JOURNALS_FTS
+                + " USING fts4(" + COLUMN_JOURNAL_TITLE + ", " + COLUMN_JOURNAL_CONTENT
+                + ", tokenize=unicode61);");
+
+        String plain = " WHEN typeof(new." + COLUMN_JOURNAL_CONTENT + ") <> 'blob'";
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS journals_fts_ai AFTER INSERT ON " + TABLE_JOURNALS
+                + plain
+                + " BEGIN"
+                + "   INSERT INTO " + TABLE_JOURNALS_FTS + "(docid, " + COLUMN_JOURNAL_TITLE + ", " + COLUMN_JOURNAL_CONTENT + ")"
+                + "   VALUES (new." + COLUMN_JOURNAL_ID + ", new." + COLUMN_JOURNAL_TITLE + ", new." + COLUMN_JOURNAL_CONTENT + ");"
+                + " END;");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS journals_fts_au AFTER UPDATE OF "
+                + COLUMN_JOURNAL_TITLE + ", " + COLUMN_JOURNAL_CONTENT + " ON " + TABLE_JOURNALS
+                + plain
+                + " BEGIN"
+                + "   UPDATE " + TABLE_JOURNALS_FTS + " SET "
+                +       COLUMN_JOURNAL_TITLE + " = new." + COLUMN_JOURNAL_TITLE + ", "
+                +       COLUMN_JOURNAL_CONTENT + " = new." + COLUMN_JOURNAL_CONTENT
+                + "   WHERE docid = old." + COLUMN_JOURNAL_ID + ";"
+                + " END;");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS journals_fts_ad AFTER DELETE ON " + TABLE_JOURNALS
+                + " BEGIN"
+                + "   DELETE FROM " + TABLE_JOURNALS_FTS + " WHERE docid = old." + COLUMN_JOURNAL_ID + ";"
+                + " END;");
+    }
+
+    /**
+     * Entry counts per folder, year and month, kept current by triggers so
+     * the Year/Month filters can be filled without scanning journals.
+     * An entry's month is its month_key, which the app sets in the
+     * device's local time whenever it writes date_modified; the triggers
+     * only read it, so the counts hold after a time zone change.
+     */
+    private static void createMonthCounts(SQLiteDatabase db) {
+        createMonthCountsTable(db);
+
+        String oldKey = "old." + COLUMN_JOURNAL_MONTH_KEY;
+        String newKey = "new." + COLUMN_JOURNAL_MONTH_KEY;
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS journal_months_ai AFTER INSERT ON " + TABLE_JOURNALS
+                + " BEGIN " + addToMonth("new", newKey, 1) + " END;");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS journal_months_ad AFTER DELETE ON " + TABLE_JOURNALS
+                + " BEGIN " + addToMonth("old", oldKey, -1) + " END;");
+        // Most edits leave both alone, so only move the count when the
+        // entry actually changed folder or month
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS journal_months_au AFTER UPDATE OF "
+                + COLUMN_JOURNAL_FOLDER_ID + ", " + COLUMN_JOURNAL_MONTH_KEY + " ON " + TABLE_JOURNALS
+                + " WHEN old." + COLUMN_JOURNAL_FOLDER_ID + " IS NOT new." + COLUMN_JOURNAL_FOLDER_ID
+                + "   OR " + oldKey + " <> " + newKey
+                + " BEGIN " + addToMonth("old", oldKey, -1) + addToMonth("new", newKey, 1) + " END;");
+    }
+
+    /** year * 100 + month (1..12) of {@code millis} in {@code local}'s zone: a journals month_key. */
+    static int monthKey(TimestampCodec local, long millis) {
+        return local.year(millis) * 100 + local.month(millis) + 1;
+    }
+
+    private static void createMonthCountsTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_JOURNAL_MONTHS + " ("
+                +     COLUMN_MONTHS_FOLDER_ID + " INTEGER NOT NULL, "
+                +     COLUMN_MONTHS_YEAR      + " INTEGER NOT NULL, "
+                +     COLUMN_MONTHS_MONTH     + " INTEGER NOT NULL, "
+                +     COLUMN_MONTHS_ENTRIES   + " INTEGER NOT NULL, "
+                +     "PRIMARY KEY (" + COLUMN_MONTHS_FOLDER_ID + ", " + COLUMN_MONTHS_YEAR + ", "
+                +         COLUMN_MONTHS_MONTH + ")"
+                + ") WITHOUT ROWID;");
+    }
+
+    /**
+     * The month count triggers of versions 5 to 11, which worked the month
+     * out again from date_modified on every write. Version 12 replaces them.
+     */
+    private static void createLocalTimeMonthTriggers(SQLiteDatabase db) {
+        String oldKey = localMonthKey("old.");
+        String newKey = localMonthKey("new.");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS journal_months_ai AFTER INSERT ON " + TABLE_JOURNALS
+                + " BEGIN " + addToMonth("new", newKey, 1) + " END;");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS journal_months_ad AFTER DELETE ON " + TABLE_JOURNALS
+                + " BEGIN " + addToMonth("old", oldKey, -1) + " END;");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS journal_months_au AFTER UPDATE OF "
+                + COLUMN_JOURNAL_FOLDER_ID + ", " + COLUMN_JOURNAL_DATE_MODIFIED + " ON " + TABLE_JOURNALS
+                + " WHEN old." + COLUMN_JOURNAL_FOLDER_ID + " IS NOT new." + COLUMN_JOURNAL_FOLDER_ID
+                + "   OR " + oldKey + " <> " + newKey
+                + " BEGIN " + addToMonth("old", oldKey, -1) + addToMonth("new", newKey, 1) + " END;");
+    }
+
+    /**
+     * Autosaved editor state, one row per entry being edited or per folder
+     * a new entry is being written in. Both references cascade, so deleting
+     * an entry or a folder takes its drafts with it.
+     */
+    private static void createDrafts(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_JOURNAL_DRAFTS + " ("
+                +     COLUMN_DRAFT_KEY        + " TEXT PRIMARY KEY, "
+                +     COLUMN_DRAFT_JOURNAL_ID + " INTEGER REFERENCES " + TABLE_JOURNALS
+                +         "(" + COLUMN_JOURNAL_ID + ") ON DELETE CASCADE, "
+                +     COLUMN_DRAFT_FOLDER_ID  + " INTEGER REFERENCES " + TABLE_FOLDERS
+                +         "(" + COLUMN_FOLDER_ID + ") ON DELETE CASCADE, "
+                +     COLUMN_DRAFT_TITLE      + " TEXT NOT NULL, "
+                +     COLUMN_DRAFT_CONTENT    + " TEXT NOT NULL, "
+                +     COLUMN_DRAFT_MOOD       + " TEXT, "
+                +     COLUMN_DRAFT_HASH       + " INTEGER NOT NULL, "
+                +     COLUMN_DRAFT_SAVED      + " INTEGER NOT NULL"
+                + ");");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_drafts_journal ON " + TABLE_JOURNAL_DRAFTS
+                + "(" + COLUMN_DRAFT_JOURNAL_ID + ");");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_drafts_folder ON " + TABLE_JOURNAL_DRAFTS
+                + "(" + COLUMN_DRAFT_FOLDER_ID + ");");
+    }
+
+    private static void createImports(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_JOURNAL_IMPORTS + " ("
+                +     COLUMN_IMPORT_KEY     + " TEXT PRIMARY KEY, "
+                +     COLUMN_IMPORT_DONE    + " INTEGER NOT NULL, "
+                +     COLUMN_IMPORT_UPDATED + " INTEGER NOT NULL"
+                + ");");
+    }
+
+    /**
+     * Which folders and journals rows changed since the last backup, kept
+     * by triggers so a backup only reads those (see JournalBackup). One row
+     * per changed row however often it changed; whether it was written or
+     * deleted is read from the table itself when the backup runs. Cascaded
+     * deletes fire the journals trigger too.
+     *
+     * A row logged again is replaced, taking the next seq, so a backup that
+     * read the log at some seq clears only what it saw: anything written
+     * since keeps a higher one.
+     */
+    private static void createChangeLog(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_JOURNAL_CHANGES + " ("
+                +     COLUMN_CHANGE_SEQ    + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                +     COLUMN_CHANGE_KIND   + " INTEGER NOT NULL, "
+                +     COLUMN_CHANGE_ROW_ID + " INTEGER NOT NULL, "
+                +     "UNIQUE (" + COLUMN_CHANGE_KIND + ", " + COLUMN_CHANGE_ROW_ID + ")"
+                + ");");
+        createBackupState(db);
+        createChangeTriggers(db, "INSERT OR REPLACE");
+    }
+
+    private static void createBackupState(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_BACKUP_STATE + " ("
+                +     COLUMN_BACKUP_CHAIN  + " TEXT NOT NULL, "
+                +     COLUMN_BACKUP_NUMBER + " INTEGER NOT NULL"
+                + ");");
+    }
+
+    /** The change log of versions 11 and 12, without seq. Version 13 replaces it. */
+    private static void createUnsequencedChangeLog(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_JOURNAL_CHANGES + " ("
+                +     COLUMN_CHANGE_KIND   + " INTEGER NOT NULL, "
+                +     COLUMN_CHANGE_ROW_ID + " INTEGER NOT NULL, "
+                +     "PRIMARY KEY (" + COLUMN_CHANGE_KIND + ", " + COLUMN_CHANGE_ROW_ID + ")"
+                + ") WITHOUT ROWID;");
+        createBackupState(db);
+        createChangeTriggers(db, "INSERT OR IGNORE");
+    }
+
+    private static void createChangeTriggers(SQLiteDatabase db, String insert) {
+        String[][] tables = {
+                { TABLE_FOLDERS, String.valueOf(CHANGE_FOLDER), COLUMN_FOLDER_ID, "folders" },
+                { TABLE_JOURNALS, String.valueOf(CHANGE_JOURNAL), COLUMN_JOURNAL_ID, "journals" },
+        };
+        for (String[] t : tables) {
+            String log = insert + " INTO " + TABLE_JOURNAL_CHANGES
+                    + " (" + COLUMN_CHANGE_KIND + ", " + COLUMN_CHANGE_ROW_ID + ") VALUES (" + t[1] + ", ";
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS " + t[3] + "_changes_ai AFTER INSERT ON " + t[0]
+                    + " BEGIN " + log + "new." + t[2] + "); END;");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS " + t[3] + "_changes_au AFTER UPDATE ON " + t[0]
+                    + " BEGIN " + log + "old." + t[2] + "); " + log + "new." + t[2] + "); END;");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS " + t[3] + "_changes_ad AFTER DELETE ON " + t[0]
+                    + " BEGIN " + log + "old." + t[2] + "); END;");
+        }
+    }
+
+    /** year * 100 + month of date_modified in local time; prefix is "new.", "old." or "". */
+    private static String localMonthKey(String prefix) {
+        return "CAST(strftime('%Y%m', " + prefix + COLUMN_JOURNAL_DATE_MODIFIED
+                + " / 1000, 'unixepoch', 'localtime') AS INTEGER)";
+    }
+
+    /** Trigger statements adding delta to the row's folder and month key; months that reach zero are dropped. */
+    private static String addToMonth(String row, String key, int delta) {
+        String folder = "IFNULL(" + row + "." + COLUMN_JOURNAL_FOLDER_ID + ", 0)";
+        String year = "(" + key + ") / 100";
+        String month = "(" + key + ") % 100";
+        String match = " WHERE " + COLUMN_MONTHS_FOLDER_ID + " = " + folder
+                + " AND " + COLUMN_MONTHS_YEAR  + " = " + year
+                + " AND " + COLUMN_MONTHS_MONTH + " = " + month;
+        String update = "UPDATE " + TABLE_JOURNAL_MONTHS + " SET " + COLUMN_MONTHS_ENTRIES + " = "
+                + COLUMN_MONTHS_ENTRIES + (delta > 0 ? " + " : " - ") + Math.abs(delta) + match + ";";
+        if (delta > 0) {
+            return "INSERT OR IGNORE INTO " + TABLE_JOURNAL_MONTHS
+                    + " VALUES (" + folder + ", " + year + ", " + month + ", 0); " + update;
+        }
+        return update + " DELETE FROM " + TABLE_JOURNAL_MONTHS + match
+                + " AND " + COLUMN_MONTHS_ENTRIES + " <= 0;";
+    }
+
+    /**
+     * Every schema change since version 1, oldest first. onCreate builds the
+     * latest schema directly; onUpgrade replays the steps an existing
+     * database hasn't had. Add new steps at the end, never edit old ones.
+     */
+    static final List<Migration> MIGRATIONS = Collections.unmodifiableList(Arrays.asList(
+            new Migration(2, "date_added/date_modified replace timestamp", DatabaseHelper::splitTimestampColumn),
+            new Migration(3, "FTS4 search index", DatabaseHelper::addSearchIndex),
+            new Migration(4, "epoch-millis dates, date indexes, mood column", DatabaseHelper::migrateDatesToEpochMillis),
+            new Migration(5, "per-month entry counts", DatabaseHelper::addMonthCounts),
+            new Migration(6, "ON DELETE CASCADE on journals.folder_id", DatabaseHelper::addFolderCascade),
+            new Migration(7, "autosaved editor drafts", DatabaseHelper::createDrafts),
+            new Migration(8, "excerpt, word and character counts", DatabaseHelper::addSummaryColumns),
+            new Migration(9, "search triggers skip compressed content", DatabaseHelper::recreateSearchTriggers),
+            new Migration(10, "resumable import checkpoints", DatabaseHelper::createImports),
+            new Migration(11, "change log for incremental backups", DatabaseHelper::createUnsequencedChangeLog),
+            new Migration(12, "month key stored on each entry", DatabaseHelper::addMonthKeys),
+            new Migration(13, "sequence numbers in the change log", DatabaseHelper::addChangeSequence)
+    ));
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Foreign keys are on (onConfigure); check them at commit rather than
+        // per statement so a step may copy rows a later step cleans up
+        db.execSQL("PRAGMA defer_foreign_keys = ON;");
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version > oldVersion && migration.version <= newVersion) {
+                migration.step.apply(db);
+            }
+        }
+    }
+
+    /** Version 2: the single "timestamp" column becomes date_added and date_modified. */
+    private static void splitTimestampColumn(SQLiteDatabase db) {
+        // Rename the old journals table
+        db.execSQL("ALTER TABLE " + TABLE_JOURNALS + " RENAME TO journals_old;");
+
+        // Recreate the new journals table with the updated schema
         String CREATE_JOURNALS_TABLE = ""
-                + "CREATE TABLE IF NOT EXISTS " + TABLE_JOURNALS + " ("
+                + "CREATE TABLE " + TABLE_JOURNALS + " ("
                 +     COLUMN_JOURNAL_ID            + " INTEGER PRIMARY KEY AUTOINCREMENT, "
                 +     COLUMN_JOURNAL_TITLE         + " TEXT NOT NULL, "
                 +     COLUMN_JOURNAL_CONTENT       + " TEXT NOT NULL, "
@@ -59,51 +470,232 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 +         "REFERENCES " + TABLE_FOLDERS + "(" + COLUMN_FOLDER_ID + ")"
                 + ");";
         db.execSQL(CREATE_JOURNALS_TABLE);
+
+        // Migrate data from the old table, using the old "timestamp" column for both added & modified
+        db.execSQL(
+                "INSERT INTO " + TABLE_JOURNALS + " ("
+                        + COLUMN_JOURNAL_ID + ", "
+                        + COLUMN_JOURNAL_TITLE + ", "
+                        + COLUMN_JOURNAL_CONTENT + ", "
+                        + COLUMN_JOURNAL_FOLDER_ID + ", "
+                        + COLUMN_JOURNAL_DATE_ADDED + ", "
+                        + COLUMN_JOURNAL_DATE_MODIFIED
+                        + ") SELECT "
+                        + COLUMN_JOURNAL_ID + ", "
+                        + COLUMN_JOURNAL_TITLE + ", "
+                        + COLUMN_JOURNAL_CONTENT + ", "
+                        + COLUMN_JOURNAL_FOLDER_ID + ", "
+                        + "timestamp" + ", "  // old column name
+                        + "timestamp"
+                        + " FROM journals_old;"
+        );
+
+        // Drop the old table
+        db.execSQL("DROP TABLE IF EXISTS journals_old;");
     }
 
-    @Override
-    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        if (oldVersion < 2) {
-            // Rename the old journals table
-            db.execSQL("ALTER TABLE " + TABLE_JOURNALS + " RENAME TO journals_old;");
-
-            // Recreate the new journals table with the updated schema
-            String CREATE_JOURNALS_TABLE = ""
-                    + "CREATE TABLE " + TABLE_JOURNALS + " ("
-                    +     COLUMN_JOURNAL_ID            + " INTEGER PRIMARY KEY AUTOINCREMENT, "
-                    +     COLUMN_JOURNAL_TITLE         + " TEXT NOT NULL, "
-                    +     COLUMN_JOURNAL_CONTENT       + " TEXT NOT NULL, "
-                    +     COLUMN_JOURNAL_FOLDER_ID     + " INTEGER, "
-                    +     COLUMN_JOURNAL_DATE_ADDED    + " DATETIME DEFAULT CURRENT_TIMESTAMP, "
-                    +     COLUMN_JOURNAL_DATE_MODIFIED + " DATETIME DEFAULT CURRENT_TIMESTAMP, "
-                    +     "FOREIGN KEY(" + COLUMN_JOURNAL_FOLDER_ID + ") "
-                    +         "REFERENCES " + TABLE_FOLDERS + "(" + COLUMN_FOLDER_ID + ")"
-                    + ");";
-            db.execSQL(CREATE_JOURNALS_TABLE);
-
-            // Migrate data from the old table, using the old "timestamp" column for both added & modified
-            db.execSQL(
-                    "INSERT INTO " + TABLE_JOURNALS + " ("
-                            + COLUMN_JOURNAL_ID + ", "
-                            + COLUMN_JOURNAL_TITLE + ", "
-                            + COLUMN_JOURNAL_CONTENT + ", "
-                            + COLUMN_JOURNAL_FOLDER_ID + ", "
-                            + COLUMN_JOURNAL_DATE_ADDED + ", "
-                            + COLUMN_JOURNAL_DATE_MODIFIED
-                            + ") SELECT "
-                            + COLUMN_JOURNAL_ID + ", "
-                            + COLUMN_JOURNAL_TITLE + ", "
-                            + COLUMN_JOURNAL_CONTENT + ", "
-                            + COLUMN_JOURNAL_FOLDER_ID + ", "
-                            + "timestamp" + ", "  // old column name
-                            + "timestamp"
-                            + " FROM journals_old;"
-            );
+    /** Version 3: build the search index and backfill it from existing entries. */
+    private static void addSearchIndex(SQLiteDatabase db) {
+        createSearchIndex(db);
+        db.execSQL("INSERT INTO " + TABLE_JOURNALS_FTS
+                + "(docid, " + COLUMN_JOURNAL_TITLE + ", " + COLUMN_JOURNAL_CONTENT + ") SELECT "
+                + COLUMN_JOURNAL_ID + ", " + COLUMN_JOURNAL_TITLE + ", " + COLUMN_JOURNAL_CONTENT
+                + " FROM " + TABLE_JOURNALS + ";");
+        db.execSQL("INSERT INTO " + TABLE_JOURNALS_FTS + "(" + TABLE_JOURNALS_FTS + ") VALUES('optimize');");
+    }
+
+    /** Version 5: month counts table, filled from existing entries. */
+    private static void addMonthCounts(SQLiteDatabase db) {
+        createMonthCountsTable(db);
+        createLocalTimeMonthTriggers(db);
+        String key = localMonthKey("");
+        db.execSQL("INSERT INTO " + TABLE_JOURNAL_MONTHS + " SELECT IFNULL(" + COLUMN_JOURNAL_FOLDER_ID + ", 0), ("
+                + key + ") / 100, (" + key + ") % 100, COUNT(*) FROM " + TABLE_JOURNALS + " GROUP BY 1, 2, 3;");
+    }
+
+    /**
+     * Version 4: rebuild journals with INTEGER date columns. Older rows hold
+     * either "yyyy-MM-dd HH:mm:ss" (insert path) or "MMMM dd, yyyy HH:mm"
+     * (edit path), both in local time, so they are parsed here in Java.
+     * The mood column used to be added by the editor on the fly; databases
+     * that never got it get it here, empty. The table is the version 4
+     * schema as it was then; later steps alter it from there.
+     */
+    private static void migrateDatesToEpochMillis(SQLiteDatabase db) {
+        boolean hasMood = hasColumn(db, TABLE_JOURNALS, COLUMN_JOURNAL_MOOD);
 
-            // Drop the old table
-            db.execSQL("DROP TABLE IF EXISTS journals_old;");
+        db.execSQL("CREATE TABLE journals_new ("
+                + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "title TEXT NOT NULL, "
+                + "content TEXT NOT NULL, "
+                + "folder_id INTEGER, "
+                + "date_added INTEGER NOT NULL DEFAULT (strftime('%s','now') * 1000), "
+                + "date_modified INTEGER NOT NULL DEFAULT (strftime('%s','now') * 1000), "
+                + "mood TEXT, "
+                + "FOREIGN KEY(folder_id) REFERENCES folders(id)"
+                + ");");
+        SQLiteStatement insert = db.compileStatement("INSERT INTO journals_new ("
+                + COLUMN_JOURNAL_ID + ", " + COLUMN_JOURNAL_TITLE + ", " + COLUMN_JOURNAL_CONTENT + ", "
+                + COLUMN_JOURNAL_FOLDER_ID + ", " + COLUMN_JOURNAL_DATE_ADDED + ", "
+                + COLUMN_JOURNAL_DATE_MODIFIED + ", " + COLUMN_JOURNAL_MOOD
+                + ") VALUES (?, ?, ?, ?, ?, ?, ?)");
+        Cursor c = db.rawQuery("SELECT "
+                + COLUMN_JOURNAL_ID + ", " + COLUMN_JOURNAL_TITLE + ", " + COLUMN_JOURNAL_CONTENT + ", "
+                + COLUMN_JOURNAL_FOLDER_ID + ", " + COLUMN_JOURNAL_DATE_ADDED + ", "
+                + COLUMN_JOURNAL_DATE_MODIFIED + ", " + (hasMood ? COLUMN_JOURNAL_MOOD : "NULL")
+                + " FROM " + TABLE_JOURNALS, null);
+        try {
+            long now = System.currentTimeMillis();
+            while (c.moveToNext()) {
+                long added    = parseLegacyTimestamp(c.getString(4));
+                long modified = parseLegacyTimestamp(c.getString(5));
+                if (modified < 0) modified = added >= 0 ? added : now;
+                if (added < 0) added = modified;
+
+                insert.clearBindings();
+                insert.bindLong(1, c.getLong(0));
+                insert.bindString(2, c.getString(1));
+                insert.bindString(3, c.getString(2));
+                if (c.isNull(3)) insert.bindNull(4); else insert.bindLong(4, c.getLong(3));
+                insert.bindLong(5, added);
+                insert.bindLong(6, modified);
+                if (c.isNull(6)) insert.bindNull(7); else insert.bindString(7, c.getString(6));
+                insert.executeInsert();
+            }
+        } finally {
+            c.close();
+            insert.close();
         }
-        // future schema upgrades go here
+
+        // Dropping journals also drops its FTS triggers; ids are kept, so
+        // the index itself stays valid and only the triggers are recreated.
+        db.execSQL("DROP TABLE " + TABLE_JOURNALS + ";");
+        db.execSQL("ALTER TABLE journals_new RENAME TO " + TABLE_JOURNALS + ";");
+        createJournalIndexes(db);
+        createSearchIndex(db);
+    }
+
+    /**
+     * Version 6: rebuild journals so folder_id cascades on folder delete;
+     * SQLite can't alter a foreign key in place. Ids are kept, so the FTS
+     * index and month counts stay valid and only the triggers come back.
+     * Entries whose folder is already gone, left behind by the old two-step
+     * folder delete, are removed first; the foreign key would reject them.
+     * Like version 4, the table is written out as it was at version 6.
+     */
+    private static void addFolderCascade(SQLiteDatabase db) {
+        db.execSQL("DELETE FROM " + TABLE_JOURNALS
+                + " WHERE " + COLUMN_JOURNAL_FOLDER_ID + " IS NOT NULL"
+                + " AND " + COLUMN_JOURNAL_FOLDER_ID + " NOT IN (SELECT " + COLUMN_FOLDER_ID
+                + " FROM " + TABLE_FOLDERS + ");");
+
+        String columns = "id, title, content, folder_id, date_added, date_modified, mood";
+        db.execSQL("CREATE TABLE journals_new ("
+                + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "title TEXT NOT NULL, "
+                + "content TEXT NOT NULL, "
+                + "folder_id INTEGER, "
+                + "date_added INTEGER NOT NULL DEFAULT (strftime('%s','now') * 1000), "
+                + "date_modified INTEGER NOT NULL DEFAULT (strftime('%s','now') * 1000), "
+                + "mood TEXT, "
+                + "FOREIGN KEY(folder_id) REFERENCES folders(id) ON DELETE CASCADE"
+                + ");");
+        db.execSQL("INSERT INTO journals_new (" + columns + ") SELECT " + columns + " FROM " + TABLE_JOURNALS + ";");
+        db.execSQL("DROP TABLE " + TABLE_JOURNALS + ";");
+        db.execSQL("ALTER TABLE journals_new RENAME TO " + TABLE_JOURNALS + ";");
+        createJournalIndexes(db);
+        createSearchIndex(db);
+        createLocalTimeMonthTriggers(db);
+    }
+
+    /**
+     * Version 8: excerpt, word_count and char_count, filled in for every
+     * existing entry.
+     */
+    private static void addSummaryColumns(SQLiteDatabase db) {
+        for (String column : SUMMARY_COLUMNS) {
+            db.execSQL("ALTER TABLE " + TABLE_JOURNALS + " ADD COLUMN " + column + ";");
+        }
+        SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_JOURNALS + " SET "
+                + COLUMN_JOURNAL_EXCERPT + " = ?, " + COLUMN_JOURNAL_WORDS + " = ?, "
+                + COLUMN_JOURNAL_CHARS + " = ? WHERE " + COLUMN_JOURNAL_ID + " = ?");
+        Cursor c = db.rawQuery("SELECT " + COLUMN_JOURNAL_ID + ", " + COLUMN_JOURNAL_CONTENT
+                + " FROM " + TABLE_JOURNALS, null);
+        try {
+            while (c.moveToNext()) {
+                JournalSummary summary = JournalSummary.of(readContent(c, 1));
+                update.bindString(1, summary.excerpt);
+                update.bindLong(2, summary.words);
+                update.bindLong(3, summary.chars);
+                update.bindLong(4, c.getLong(0));
+                update.executeUpdateDelete();
+            }
+        } finally {
+            c.close();
+            update.close();
+        }
+    }
+
+    /** Version 9: content may be a compressed BLOB, which the FTS triggers must not index. */
+    private static void recreateSearchTriggers(SQLiteDatabase db) {
+        db.execSQL("DROP TRIGGER IF EXISTS journals_fts_ai;");
+        db.execSQL("DROP TRIGGER IF EXISTS journals_fts_au;");
+        createSearchIndex(db);
+    }
+
+    /**
+     * Version 12: each entry keeps the month it is counted under, so the
+     * counts no longer move when the time zone does. Existing entries and
+     * the counts are keyed afresh in the current zone. The change log
+     * trigger is off for the backfill; no entry really changed.
+     */
+    private static void addMonthKeys(SQLiteDatabase db) {
+        db.execSQL("DROP TRIGGER IF EXISTS journal_months_ai;");
+        db.execSQL("DROP TRIGGER IF EXISTS journal_months_ad;");
+        db.execSQL("DROP TRIGGER IF EXISTS journal_months_au;");
+        db.execSQL("DROP TRIGGER IF EXISTS journals_changes_au;");
+        db.execSQL("ALTER TABLE " + TABLE_JOURNALS + " ADD COLUMN " + MONTH_KEY_COLUMN + ";");
+        db.execSQL("UPDATE " + TABLE_JOURNALS + " SET " + COLUMN_JOURNAL_MONTH_KEY + " = " + localMonthKey("") + ";");
+        db.execSQL("DELETE FROM " + TABLE_JOURNAL_MONTHS + ";");
+        db.execSQL("INSERT INTO " + TABLE_JOURNAL_MONTHS + " SELECT IFNULL(" + COLUMN_JOURNAL_FOLDER_ID + ", 0), "
+                + COLUMN_JOURNAL_MONTH_KEY + " / 100, " + COLUMN_JOURNAL_MONTH_KEY + " % 100, COUNT(*) FROM "
+                + TABLE_JOURNALS + " GROUP BY 1, 2, 3;");
+        createMonthCounts(db);
+        createUnsequencedChangeLog(db);
+    }
+
+    /**
+     * Version 13: journal_changes gets seq, so a backup reading a snapshot
+     * can clear just the rows it saw. The logged rows carry over.
+     */
+    private static void addChangeSequence(SQLiteDatabase db) {
+        for (String table : new String[]{ "folders", "journals" }) {
+            for (String when : new String[]{ "ai", "au", "ad" }) {
+                db.execSQL("DROP TRIGGER IF EXISTS " + table + "_changes_" + when + ";");
+            }
+        }
+        db.execSQL("ALTER TABLE " + TABLE_JOURNAL_CHANGES + " RENAME TO journal_changes_old;");
+        createChangeLog(db);
+        db.execSQL("INSERT INTO " + TABLE_JOURNAL_CHANGES + " (" + COLUMN_CHANGE_KIND + ", " + COLUMN_CHANGE_ROW_ID + ")"
+                + " SELECT " + COLUMN_CHANGE_KIND + ", " + COLUMN_CHANGE_ROW_ID + " FROM journal_changes_old;");
+        db.execSQL("DROP TABLE journal_changes_old;");
+    }
+
+    private static boolean hasColumn(SQLiteDatabase db, String table, String column) {
+        Cursor info = db.rawQuery("PRAGMA table_info(" + table + ")", null);
+        try {
+            while (info.moveToNext()) {
+                if (column.equals(info.getString(1))) return true;
+            }
+            return false;
+        } finally {
+            info.close();
+        }
+    }
+
+    /** Epoch millis for a pre-version-4 date string, or -1 if it can't be read. */
+    static long parseLegacyTimestamp(String value) {
+        return TimestampCodec.local().parse(value);
     }
 
     /** Insert a new folder */
@@ -112,22 +704,764 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         ContentValues values = new ContentValues();
         values.put(COLUMN_FOLDER_NAME, name);
         values.put(COLUMN_FOLDER_ICON, icon);
-        return db.insert(TABLE_FOLDERS, null, values);
+        long id = db.insert(TABLE_FOLDERS, null, values);
+        if (id != -1) {
+            invalidation.folderChanged(id);
+            published(db);
+        }
+        return id;
     }
 
     /** Insert a new journal entry, setting both date_added & date_modified to now */
     public long insertJournal(String title, String content, long folderId) {
+        return insertJournal(JournalRecord.now(title, content, folderId, null));
+    }
+
+    /**
+     * Insert a complete entry, mood and timestamps included, with one
+     * execution of a compiled statement that is kept for the next call.
+     * Returns the new row id, or -1 if the row was rejected (e.g. its
+     * folder doesn't exist).
+     */
+    public long insertJournal(JournalRecord record) {
+        SQLiteDatabase db = getWritableDatabase();
+        synchronized (insertLock) {
+            SQLiteStatement insert = insertStatement(db);
+            // A compressed entry is two writes (row, then search index)
+            db.beginTransaction();
+            try {
+                long id = executeInsert(db, insert, record, TimestampCodec.local());
+                db.setTransactionSuccessful();
+                invalidation.journalChanged(record.folderId, id);
+                return id;
+            } catch (SQLException e) {
+                return -1;
+            } finally {
+                db.endTransaction();
+                published(db);
+            }
+        }
+    }
+
+    /**
+     * Insert an entry written in the editor and drop the draft it came from,
+     * in one transaction. Returns the new row id, or -1 if it was rejected,
+     * in which case the draft is kept.
+     */
+    public long insertJournal(JournalRecord record, String draftKey) {
+        SQLiteDatabase db = getWritableDatabase();
+        // insertLock before the transaction, never after, as insertJournals does
+        synchronized (insertLock) {
+            db.beginTransaction();
+            try {
+                long id = insertJournal(record);
+                if (id != -1) {
+                    deleteDraft(db, draftKey);
+                    db.setTransactionSuccessful();
+                }
+                return id;
+            } finally {
+                db.endTransaction();
+                published(db);
+            }
+        }
+    }
+
+    /**
+     * Insert many entries in one transaction, reusing the compiled insert
+     * for every row: one commit instead of one per entry. All or nothing;
+     * if any row is rejected the batch is rolled back and the exception is
+     * rethrown. Returns the new row ids in the order of {@code records}.
+     */
+    public long[] insertJournals(List<JournalRecord> records) {
+        SQLiteDatabase db = getWritableDatabase();
+        long[] ids = new long[records.size()];
+        synchronized (insertLock) {
+            SQLiteStatement insert = insertStatement(db);
+            TimestampCodec local = TimestampCodec.local();
+            db.beginTransaction();
+            try {
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = executeInsert(db, insert, records.get(i), local);
+                }
+                db.setTransactionSuccessful();
+                for (int i = 0; i < ids.length; i++) {
+                    invalidation.journalChanged(records.get(i).folderId, ids[i]);
+                }
+            } finally {
+                db.endTransaction();
+                published(db);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * One batch of an import: insert the entries and record that the
+     * archive is done up to entry {@code entriesDone}, in the same
+     * transaction, so a resumed import never adds a batch twice. All or
+     * nothing, like {@link #insertJournals}.
+     */
+    public long[] insertImportBatch(String importKey, int entriesDone, List<JournalRecord> records) {
         SQLiteDatabase db = getWritableDatabase();
+        ContentValues checkpoint = new ContentValues();
+        checkpoint.put(COLUMN_IMPORT_KEY, importKey);
+        checkpoint.put(COLUMN_IMPORT_DONE, entriesDone);
+        checkpoint.put(COLUMN_IMPORT_UPDATED, System.currentTimeMillis());
+        synchronized (insertLock) {
+            db.beginTransaction();
+            try {
+                long[] ids = insertJournals(records);
+                db.replaceOrThrow(TABLE_JOURNAL_IMPORTS, null, checkpoint);
+                db.setTransactionSuccessful();
+                return ids;
+            } finally {
+                db.endTransaction();
+                published(db);
+            }
+        }
+    }
+
+    /** Entries of this archive already imported, or 0 if it hasn't been started. */
+    public int getImportPosition(String importKey) {
+        Cursor c = getReadableDatabase().query(
+                TABLE_JOURNAL_IMPORTS, new String[]{ COLUMN_IMPORT_DONE },
+                COLUMN_IMPORT_KEY + "=?", new String[]{ importKey },
+                null, null, null);
+        try {
+            return c.moveToFirst() ? c.getInt(0) : 0;
+        } finally {
+            c.close();
+        }
+    }
+
+    /** Drop an import's checkpoint once it has finished. */
+    public int finishImport(String importKey) {
+        return getWritableDatabase().delete(
+                TABLE_JOURNAL_IMPORTS, COLUMN_IMPORT_KEY + "=?", new String[]{ importKey });
+    }
+
+    /** The cached journal insert, compiled against the current database. Call holding insertLock. */
+    private SQLiteStatement insertStatement(SQLiteDatabase db) {
+        if (insertJournal == null || insertJournalDb != db) {
+            if (insertJournal != null) insertJournal.close();
+            insertJournal = db.compileStatement("INSERT INTO " + TABLE_JOURNALS + " ("
+                    + COLUMN_JOURNAL_TITLE + ", " + COLUMN_JOURNAL_CONTENT + ", "
+                    + COLUMN_JOURNAL_FOLDER_ID + ", " + COLUMN_JOURNAL_MOOD + ", "
+                    + COLUMN_JOURNAL_DATE_ADDED + ", " + COLUMN_JOURNAL_DATE_MODIFIED + ", "
+                    + COLUMN_JOURNAL_EXCERPT + ", " + COLUMN_JOURNAL_WORDS + ", " + COLUMN_JOURNAL_CHARS + ", "
+                    + COLUMN_JOURNAL_MONTH_KEY
+                    + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            insertJournalDb = db;
+        }
+        return insertJournal;
+    }
+
+    /**
+     * Run the compiled insert for one record, its month in {@code local}.
+     * Call inside a transaction.
+     */
+    private long executeInsert(SQLiteDatabase db, SQLiteStatement insert, JournalRecord r, TimestampCodec local) {
+        byte[] packed = contentCodec.compress(r.content);
+        insert.clearBindings();
+        insert.bindString(1, r.title);
+        if (packed != null) insert.bindBlob(2, packed); else insert.bindString(2, r.content);
+        if (r.folderId == JournalRecord.NO_FOLDER) insert.bindNull(3); else insert.bindLong(3, r.folderId);
+        if (r.mood == null) insert.bindNull(4); else insert.bindString(4, r.mood);
+        insert.bindLong(5, r.dateAdded);
+        insert.bindLong(6, r.dateModified);
+        JournalSummary summary = JournalSummary.of(r.content);
+        insert.bindString(7, summary.excerpt);
+        insert.bindLong(8, summary.words);
+        insert.bindLong(9, summary.chars);
+        insert.bindLong(10, monthKey(local, r.dateModified));
+        long id = insert.executeInsert();
+        if (packed != null) indexContent(db, id, r.title, r.content);
+        return id;
+    }
+
+    /**
+     * Search index row for an entry stored compressed, which the FTS
+     * triggers leave alone. Replaces any row the entry had.
+     */
+    static void indexContent(SQLiteDatabase db, long journalId, String title, String content) {
+        db.delete(TABLE_JOURNALS_FTS, "docid=?", new String[]{ String.valueOf(journalId) });
         ContentValues values = new ContentValues();
+        values.put("docid", journalId);
         values.put(COLUMN_JOURNAL_TITLE, title);
         values.put(COLUMN_JOURNAL_CONTENT, content);
-        values.put(COLUMN_JOURNAL_FOLDER_ID, folderId);
+        db.insertOrThrow(TABLE_JOURNALS_FTS, null, values);
+    }
+
+    /** A journals content column as text, whether it is stored plain or compressed. */
+    static String readContent(Cursor c, int column) {
+        return c.getType(column) == Cursor.FIELD_TYPE_BLOB
+                ? ContentCodec.decompress(c.getBlob(column))
+                : c.getString(column);
+    }
+
+    /**
+     * Content of at least {@code thresholdChars} is stored Deflate
+     * compressed from now on; {@link ContentCodec#OFF} stores everything
+     * as plain text. Either way, entries already written stay readable.
+     */
+    public void setCompressionThreshold(int thresholdChars) {
+        contentCodec = new ContentCodec(thresholdChars);
+    }
+
+    /** Generation counters and change notices for folders and journals. */
+    public InvalidationTracker getInvalidationTracker() {
+        return invalidation;
+    }
+
+    /**
+     * A read-only connection of its own on which every query sees the same
+     * commit, for a reader that needs many (see JournalBackup); closing it
+     * ends the snapshot. The pool can't give one: each query on a read
+     * connection is a transaction of its own, and a transaction begun
+     * through the platform takes the write lock. Opened without the WAL
+     * flag, a read-only database leaves the journal mode alone and has a
+     * single connection, so the SAVEPOINT holds for the queries after it;
+     * the snapshot is taken at the first of them. Writes go on meanwhile.
+     */
+    SQLiteDatabase openSnapshot() {
+        String path = getReadableDatabase().getPath();
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(path, null,
+                SQLiteDatabase.OPEN_READONLY | SQLiteDatabase.NO_LOCALIZED_COLLATORS);
+        try {
+            db.execSQL("SAVEPOINT snapshot;");
+        } catch (SQLException e) {
+            db.close();
+            throw e;
+        }
+        return db;
+    }
+
+    /** After a write: unless a caller's transaction is still open it has committed, so publish. */
+    private void published(SQLiteDatabase db) {
+        if (!db.inTransaction()) invalidation.publish();
+    }
+
+    @Override
+    public synchronized void close() {
+        synchronized (insertLock) {
+            if (insertJournal != null) {
+                insertJournal.close();
+                insertJournal = null;
+                insertJournalDb = null;
+            }
+        }
+        super.close();
+    }
+
+    // ---------------------------------------------------------------------
+    // Queries. These hit the disk; call them through JournalRepository so
+    // they run on its I/O threads rather than the main thread.
+    // ---------------------------------------------------------------------
+
+    /** All folders, in creation order. */
+    public List<Folder> getFolders() {
+        List<Folder> folders = new ArrayList<>();
+        Cursor c = getReadableDatabase().query(
+                TABLE_FOLDERS,
+                new String[]{ COLUMN_FOLDER_ID, COLUMN_FOLDER_NAME, COLUMN_FOLDER_ICON },
+                null, null, null, null, null
+        );
+        try {
+            while (c.moveToNext()) {
+                folders.add(new Folder(c.getLong(0), c.getString(1), c.getString(2)));
+            }
+        } finally {
+            c.close();
+        }
+        return folders;
+    }
+
+    /** The folder with the given id, or null if it no longer exists. */
+    public Folder getFolder(long folderId) {
+        Cursor c = getReadableDatabase().query(
+                TABLE_FOLDERS,
+                new String[]{ COLUMN_FOLDER_ID, COLUMN_FOLDER_NAME, COLUMN_FOLDER_ICON },
+                COLUMN_FOLDER_ID + "=?",
+                new String[]{ String.valueOf(folderId) },
+                null, null, null
+        );
+        try {
+            return c.moveToFirst() ? new Folder(c.getLong(0), c.getString(1), c.getString(2)) : null;
+        } finally {
+            c.close();
+        }
+    }
+
+    /** True if a folder with this name (category) already exists. */
+    public boolean folderExists(String name) {
+        Cursor c = getReadableDatabase().query(
+                TABLE_FOLDERS,
+                new String[]{ COLUMN_FOLDER_ID },
+                COLUMN_FOLDER_NAME + "=?",
+                new String[]{ name },
+                null, null, null
+        );
+        try {
+            return c.moveToFirst();
+        } finally {
+            c.close();
+        }
+    }
+
+    /** Delete a folder and every journal inside it. Returns the number of folders removed. */
+    public int deleteFolder(long folderId) {
+        return deleteFolder(folderId, null);
+    }
+
+    /**
+     * Delete a folder and all its journals in one transaction, so a crash
+     * part way leaves everything in place. Journals go in chunks to report
+     * progress (and to keep each statement's trigger work small); deleting
+     * the folder row would cascade to anything left anyway.
+     * Returns the number of folders deleted, 0 or 1.
+     */
+    public int deleteFolder(long folderId, DeleteProgress progress) {
+        SQLiteDatabase db = getWritableDatabase();
+        String[] args = { String.valueOf(folderId) };
+        db.beginTransaction();
+        try {
+            int total = (int) DatabaseUtils.queryNumEntries(
+                    db, TABLE_JOURNALS, COLUMN_JOURNAL_FOLDER_ID + "=?", args);
+            if (progress != null) progress.onProgress(0, total);
+
+            String chunk = COLUMN_JOURNAL_ID + " IN (SELECT " + COLUMN_JOURNAL_ID + " FROM " + TABLE_JOURNALS
+                    + " WHERE " + COLUMN_JOURNAL_FOLDER_ID + "=? LIMIT " + DELETE_CHUNK + ")";
+            int deleted = 0;
+            int n;
+            while (deleted < total && (n = db.delete(TABLE_JOURNALS, chunk, args)) > 0) {
+                deleted += n;
+                if (progress != null) progress.onProgress(deleted, total);
+            }
+
+            int folders = db.delete(TABLE_FOLDERS, COLUMN_FOLDER_ID + "=?", args);
+            db.setTransactionSuccessful();
+            if (deleted > 0) invalidation.folderEntriesChanged(folderId);
+            if (folders > 0) invalidation.folderChanged(folderId);
+            return folders;
+        } finally {
+            db.endTransaction();
+            published(db);
+        }
+    }
+
+    /**
+     * Entries per year and month, either across all folders or within one
+     * folder, read from the month counts table rather than journals.
+     */
+    public JournalCounts getJournalCounts(long folderId) {
+        String sql = "SELECT " + COLUMN_MONTHS_YEAR + ", " + COLUMN_MONTHS_MONTH + ", SUM(" + COLUMN_MONTHS_ENTRIES
+                + ") FROM " + TABLE_JOURNAL_MONTHS;
+        String[] args = null;
+        if (folderId != ALL_FOLDERS) {
+            sql += " WHERE " + COLUMN_MONTHS_FOLDER_ID + " = ?";
+            args = new String[]{ String.valueOf(folderId) };
+        }
+        sql += " GROUP BY " + COLUMN_MONTHS_YEAR + ", " + COLUMN_MONTHS_MONTH;
+
+        JournalCounts.Builder counts = new JournalCounts.Builder();
+        Cursor c = getReadableDatabase().rawQuery(sql, args);
+        try {
+            while (c.moveToNext()) {
+                counts.add(c.getInt(0), c.getInt(1) - 1, c.getInt(2));
+            }
+        } finally {
+            c.close();
+        }
+        return counts.build();
+    }
+
+    /**
+     * One page of journal list rows (without content), newest first, limited
+     * to the filter's year/month. With {@link #ALL_FOLDERS} every entry is
+     * returned together with its folder's name and color.
+     *
+     * Paging is keyset-based on (date_modified, id): {@code after} is the
+     * last row of the previous page (null for the first page). Both date
+     * indexes end in the rowid, so each page is a short index range scan no
+     * matter how deep into the list it is. The filter becomes date_modified
+     * BETWEEN ranges on the same indexes.
+     */
+    public JournalPage getJournalPage(long folderId, JournalFilter filter, JournalEntry after, int limit) {
+        List<JournalEntry> entries = new ArrayList<>();
+        StringBuilder selection = new StringBuilder();
+        List<String> args = new ArrayList<>();
+        // Columns are qualified with j. because folders also has an id column
+        String modified = "j." + COLUMN_JOURNAL_DATE_MODIFIED;
+        if (folderId != ALL_FOLDERS) {
+            selection.append("j.").append(COLUMN_JOURNAL_FOLDER_ID).append(" = ?");
+            args.add(String.valueOf(folderId));
+        }
+        if (!filter.isAll()) {
+            List<long[]> ranges;
+            if (filter.year != JournalFilter.ALL) {
+                ranges = filter.ranges(filter.year, filter.year);
+            } else {
+                long[] span = getDateSpan(folderId);
+                if (span == null) return new JournalPage(entries, false);
+                ranges = filter.ranges(JournalFilter.yearOf(span[0]), JournalFilter.yearOf(span[1]));
+            }
+            if (selection.length() > 0) selection.append(" AND ");
+            selection.append('(');
+            for (int i = 0; i < ranges.size(); i++) {
+                if (i > 0) selection.append(" OR ");
+                selection.append(modified).append(" BETWEEN ? AND ?");
+                args.add(String.valueOf(ranges.get(i)[0]));
+                args.add(String.valueOf(ranges.get(i)[1]));
+            }
+            selection.append(')');
+        }
+        if (after != null) {
+            // (date_modified, id) < (?, ?), spelled out for SQLite before 3.15
+            if (selection.length() > 0) selection.append(" AND ");
+            selection.append('(').append(modified).append(" < ? OR (")
+                    .append(modified).append(" = ? AND j.")
+                    .append(COLUMN_JOURNAL_ID).append(" < ?))");
+            args.add(String.valueOf(after.dateModified));
+            args.add(String.valueOf(after.dateModified));
+            args.add(String.valueOf(after.id));
+        }
+
+        // The all-folders list shows each entry's folder name and color; join
+        // them in here rather than looking the folder up once per row.
+        boolean withFolder = folderId == ALL_FOLDERS;
+        // Only the short summary columns; content never enters the cursor window
+        String sql = "SELECT j." + COLUMN_JOURNAL_ID + ", j." + COLUMN_JOURNAL_TITLE
+                + ", j." + COLUMN_JOURNAL_FOLDER_ID + ", j." + COLUMN_JOURNAL_DATE_ADDED + ", " + modified
+                + ", j." + COLUMN_JOURNAL_EXCERPT + ", j." + COLUMN_JOURNAL_WORDS + ", j." + COLUMN_JOURNAL_CHARS
+                + (withFolder
+                        ? ", f." + COLUMN_FOLDER_NAME + ", f." + COLUMN_FOLDER_ICON
+                          + " FROM " + TABLE_JOURNALS + " j LEFT JOIN " + TABLE_FOLDERS
+                          + " f ON f." + COLUMN_FOLDER_ID + " = j." + COLUMN_JOURNAL_FOLDER_ID
+                        : ", NULL, NULL FROM " + TABLE_JOURNALS + " j")
+                + (selection.length() > 0 ? " WHERE " + selection : "")
+                + " ORDER BY " + modified + " DESC, j." + COLUMN_JOURNAL_ID + " DESC"
+                + " LIMIT " + (limit + 1); // one extra row tells us whether there's another page
+
+        Cursor c = getReadableDatabase().rawQuery(sql, args.toArray(new String[0]));
+        boolean hasMore = false;
+        try {
+            while (c.moveToNext()) {
+                if (entries.size() == limit) {
+                    hasMore = true;
+                    break;
+                }
+                entries.add(new JournalEntry(
+                        c.getLong(0), c.getString(1), null, c.getLong(2),
+                        c.getLong(3), c.getLong(4), null,
+                        c.getString(8), c.getString(9),
+                        new JournalSummary(c.getString(5), c.getInt(6), c.getInt(7))
+                ));
+            }
+        } finally {
+            c.close();
+        }
+        return new JournalPage(entries, hasMore);
+    }
 
-        String now = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault())
-                .format(new Date());
-        values.put(COLUMN_JOURNAL_DATE_ADDED, now);
+    /**
+     * Oldest and newest date_modified, for all entries or one folder, or
+     * null when there are none. MIN/MAX are answered from the date indexes.
+     */
+    private long[] getDateSpan(long folderId) {
+        String sql = "SELECT MIN(" + COLUMN_JOURNAL_DATE_MODIFIED + "), MAX(" + COLUMN_JOURNAL_DATE_MODIFIED
+                + ") FROM " + TABLE_JOURNALS;
+        String[] args = null;
+        if (folderId != ALL_FOLDERS) {
+            sql += " WHERE " + COLUMN_JOURNAL_FOLDER_ID + " = ?";
+            args = new String[]{ String.valueOf(folderId) };
+        }
+        Cursor c = getReadableDatabase().rawQuery(sql, args);
+        try {
+            if (!c.moveToFirst() || c.isNull(0)) return null;
+            return new long[]{ c.getLong(0), c.getLong(1) };
+        } finally {
+            c.close();
+        }
+    }
+
+    /** The full journal entry, including content and mood, or null if missing. */
+    public JournalEntry getJournal(long journalId) {
+        Cursor c = getReadableDatabase().query(
+                TABLE_JOURNALS,
+                null,
+                COLUMN_JOURNAL_ID + " = ?",
+                new String[]{ String.valueOf(journalId) },
+                null, null, null
+        );
+        try {
+            if (!c.moveToFirst()) return null;
+            int moodIdx = c.getColumnIndex(COLUMN_JOURNAL_MOOD);
+            return new JournalEntry(
+                    journalId,
+                    c.getString(c.getColumnIndexOrThrow(COLUMN_JOURNAL_TITLE)),
+                    readContent(c, c.getColumnIndexOrThrow(COLUMN_JOURNAL_CONTENT)),
+                    c.getLong(c.getColumnIndexOrThrow(COLUMN_JOURNAL_FOLDER_ID)),
+                    c.getLong(c.getColumnIndexOrThrow(COLUMN_JOURNAL_DATE_ADDED)),
+                    c.getLong(c.getColumnIndexOrThrow(COLUMN_JOURNAL_DATE_MODIFIED)),
+                    moodIdx != -1 ? c.getString(moodIdx) : null
+            );
+        } finally {
+            c.close();
+        }
+    }
+
+    /**
+     * Up to {@code limit} full entries with ids above {@code afterId}, in id
+     * order, each with its folder's name and color. Keyset paging on the
+     * rowid, so walking the whole table this way costs one short range scan
+     * per chunk and never holds more than a chunk; rows written meanwhile
+     * are picked up if their id is still ahead. Summaries are left null.
+     */
+    public List<JournalEntry> getJournalsAfter(long afterId, int limit) {
+        List<JournalEntry> entries = new ArrayList<>(limit);
+        Cursor c = getReadableDatabase().rawQuery(
+                "SELECT j." + COLUMN_JOURNAL_ID + ", j." + COLUMN_JOURNAL_TITLE + ", j." + COLUMN_JOURNAL_CONTENT
+                        + ", j." + COLUMN_JOURNAL_FOLDER_ID + ", j." + COLUMN_JOURNAL_DATE_ADDED
+                        + ", j." + COLUMN_JOURNAL_DATE_MODIFIED + ", j." + COLUMN_JOURNAL_MOOD
+                        + ", f." + COLUMN_FOLDER_NAME + ", f." + COLUMN_FOLDER_ICON
+                        + " FROM " + TABLE_JOURNALS + " j LEFT JOIN " + TABLE_FOLDERS
+                        + " f ON f." + COLUMN_FOLDER_ID + " = j." + COLUMN_JOURNAL_FOLDER_ID
+                        + " WHERE j." + COLUMN_JOURNAL_ID + " > ?"
+                        + " ORDER BY j." + COLUMN_JOURNAL_ID
+                        + " LIMIT " + limit,
+                new String[]{ String.valueOf(afterId) }
+        );
+        try {
+            while (c.moveToNext()) {
+                entries.add(new JournalEntry(
+                        c.getLong(0), c.getString(1), readContent(c, 2), c.getLong(3),
+                        c.getLong(4), c.getLong(5), c.getString(6),
+                        c.getString(7), c.getString(8), null
+                ));
+            }
+        } finally {
+            c.close();
+        }
+        return entries;
+    }
+
+    /**
+     * Overwrite title and content of an entry and stamp it modified now. A
+     * null mood leaves the stored mood untouched. Returns the number of rows
+     * updated.
+     */
+    public int updateJournal(long journalId, String title, String content, String mood) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_JOURNAL_TITLE, title);
+        byte[] packed = contentCodec.compress(content);
+        if (packed != null) {
+            values.put(COLUMN_JOURNAL_CONTENT, packed);
+        } else {
+            values.put(COLUMN_JOURNAL_CONTENT, content);
+        }
+        JournalSummary summary = JournalSummary.of(content);
+        values.put(COLUMN_JOURNAL_EXCERPT, summary.excerpt);
+        values.put(COLUMN_JOURNAL_WORDS, summary.words);
+        values.put(COLUMN_JOURNAL_CHARS, summary.chars);
+        long now = System.currentTimeMillis();
         values.put(COLUMN_JOURNAL_DATE_MODIFIED, now);
+        values.put(COLUMN_JOURNAL_MONTH_KEY, monthKey(TimestampCodec.local(), now));
+        if (mood != null) values.put(COLUMN_JOURNAL_MOOD, mood);
+
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            int rows = db.update(
+                    TABLE_JOURNALS, values,
+                    COLUMN_JOURNAL_ID + " = ?",
+                    new String[]{ String.valueOf(journalId) }
+            );
+            if (rows > 0 && packed != null) indexContent(db, journalId, title, content);
+            db.setTransactionSuccessful();
+            if (rows > 0) invalidation.journalChanged(folderOf(db, journalId), journalId);
+            return rows;
+        } finally {
+            db.endTransaction();
+            published(db);
+        }
+    }
+
+    /** {@link #updateJournal(long, String, String, String)} and drop the entry's draft, in one transaction. */
+    public int updateJournal(long journalId, String title, String content, String mood, String draftKey) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            int rows = updateJournal(journalId, title, content, mood);
+            if (rows > 0) {
+                deleteDraft(db, draftKey);
+                db.setTransactionSuccessful();
+            }
+            return rows;
+        } finally {
+            db.endTransaction();
+            published(db);
+        }
+    }
 
-        return db.insert(TABLE_JOURNALS, null, values);
+    /**
+     * Store the editor's draft, replacing any earlier one with the same key.
+     * Returns false if it couldn't be stored, e.g. because its entry or
+     * folder was deleted meanwhile.
+     */
+    public boolean putDraft(JournalDraft draft) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_DRAFT_KEY, draft.key());
+        if (draft.journalId != JournalDraft.NEW_ENTRY) {
+            values.put(COLUMN_DRAFT_JOURNAL_ID, draft.journalId);
+        } else {
+            values.put(COLUMN_DRAFT_FOLDER_ID, draft.folderId);
+        }
+        values.put(COLUMN_DRAFT_TITLE, draft.title);
+        values.put(COLUMN_DRAFT_CONTENT, draft.content);
+        values.put(COLUMN_DRAFT_MOOD, draft.mood);
+        values.put(COLUMN_DRAFT_HASH, draft.hash);
+        values.put(COLUMN_DRAFT_SAVED, System.currentTimeMillis());
+        try {
+            return getWritableDatabase().insertWithOnConflict(
+                    TABLE_JOURNAL_DRAFTS, null, values, SQLiteDatabase.CONFLICT_REPLACE) != -1;
+        } catch (SQLiteConstraintException e) {
+            return false; // the foreign key: its entry or folder is gone
+        }
+    }
+
+    /** The stored draft for an entry (or a folder's new entry), or null if there is none. */
+    public JournalDraft getDraft(long journalId, long folderId) {
+        Cursor c = getReadableDatabase().query(
+                TABLE_JOURNAL_DRAFTS,
+                new String[]{ COLUMN_DRAFT_TITLE, COLUMN_DRAFT_CONTENT, COLUMN_DRAFT_MOOD, COLUMN_DRAFT_HASH },
+                COLUMN_DRAFT_KEY + "=?",
+                new String[]{ JournalDraft.key(journalId, folderId) },
+                null, null, null
+        );
+        try {
+            if (!c.moveToFirst()) return null;
+            return new JournalDraft(journalId, folderId,
+                    c.getString(0), c.getString(1), c.getString(2), c.getLong(3));
+        } finally {
+            c.close();
+        }
+    }
+
+    /** Forget a draft. Returns the number of rows removed. */
+    public int deleteDraft(String draftKey) {
+        return deleteDraft(getWritableDatabase(), draftKey);
+    }
+
+    private static int deleteDraft(SQLiteDatabase db, String draftKey) {
+        return db.delete(TABLE_JOURNAL_DRAFTS, COLUMN_DRAFT_KEY + "=?", new String[]{ draftKey });
+    }
+
+    /** Delete one entry. Returns the number of rows removed. */
+    public int deleteJournal(long journalId) {
+        SQLiteDatabase db = getWritableDatabase();
+        long folderId = folderOf(db, journalId);
+        int rows = db.delete(
+                TABLE_JOURNALS,
+                COLUMN_JOURNAL_ID + "=?",
+                new String[]{ String.valueOf(journalId) }
+        );
+        if (rows > 0) {
+            invalidation.journalChanged(folderId, journalId);
+            published(db);
+        }
+        return rows;
+    }
+
+    /** The folder an entry is in ({@link JournalRecord#NO_FOLDER} for none), or -1 if it doesn't exist. */
+    private static long folderOf(SQLiteDatabase db, long journalId) {
+        Cursor c = db.rawQuery("SELECT IFNULL(" + COLUMN_JOURNAL_FOLDER_ID + ", " + JournalRecord.NO_FOLDER + ")"
+                + " FROM " + TABLE_JOURNALS + " WHERE " + COLUMN_JOURNAL_ID + "=?",
+                new String[]{ String.valueOf(journalId) });
+        try {
+            return c.moveToFirst() ? c.getLong(0) : -1;
+        } finally {
+            c.close();
+        }
+    }
+
+    /**
+     * Full-text search over titles and content. Every word must match and
+     * the last one may be a prefix. Results are ranked by BM25 (title hits
+     * weigh more) and carry a snippet with highlight ranges.
+     *
+     * Only the newest {@link JournalSearch#MAX_CANDIDATES} hits are ranked,
+     * so a word found in most entries costs no more than a rare one. They
+     * come with their snippets in the same pass, which spares a second
+     * MATCH over every hit; titles and dates are read for the top
+     * {@code limit} rows only.
+     */
+    public List<JournalSearch.Result> searchJournals(String query, int limit) {
+        List<JournalSearch.Result> results = new ArrayList<>();
+        String match = JournalSearch.toMatchQuery(query);
+        if (match == null || limit <= 0) return results;
+
+        SQLiteDatabase db = getReadableDatabase();
+
+        // 1) Score the newest hits, keeping the best `limit` and their snippets in a min-heap
+        PriorityQueue<double[]> top = new PriorityQueue<>(limit + 1, (a, b) -> Double.compare(a[0], b[0]));
+        Map<Long, String> snippets = new HashMap<>();
+        Cursor c = db.rawQuery(
+                "SELECT docid, matchinfo(" + TABLE_JOURNALS_FTS + ", '" + JournalSearch.MATCHINFO_FORMAT + "')"
+                        + ", snippet(" + TABLE_JOURNALS_FTS + ", ?, ?, '…', -1, 12)"
+                        + " FROM " + TABLE_JOURNALS_FTS
+                        + " WHERE " + TABLE_JOURNALS_FTS + " MATCH ?"
+                        + " ORDER BY docid DESC LIMIT " + JournalSearch.MAX_CANDIDATES,
+                new String[]{ JournalSearch.HIT_START, JournalSearch.HIT_END, match }
+        );
+        try {
+            while (c.moveToNext()) {
+                double score = JournalSearch.score(c.getBlob(1));
+                if (top.size() == limit && score <= top.peek()[0]) continue;
+                long id = c.getLong(0);
+                top.add(new double[]{ score, id });
+                snippets.put(id, c.getString(2));
+                if (top.size() > limit) snippets.remove((long) top.poll()[1]);
+            }
+        } finally {
+            c.close();
+        }
+        if (top.isEmpty()) return results;
+
+        int count = top.size();
+        long[] ids = new long[count];
+        Map<Long, Double> scores = new HashMap<>();
+        for (int i = count - 1; i >= 0; i--) {
+            double[] hit = top.poll();
+            ids[i] = (long) hit[1];
+            scores.put(ids[i], hit[0]);
+        }
+
+        // 2) Titles and dates for the winners only
+        Map<Long, JournalSearch.Result> byId = new HashMap<>();
+        c = db.rawQuery(
+                "SELECT " + COLUMN_JOURNAL_ID + ", " + COLUMN_JOURNAL_TITLE + ", " + COLUMN_JOURNAL_DATE_MODIFIED
+                        + " FROM " + TABLE_JOURNALS
+                        + " WHERE " + COLUMN_JOURNAL_ID + " IN (" + JournalSearch.idList(ids, count) + ")",
+                null
+        );
+        try {
+            while (c.moveToNext()) {
+                long id = c.getLong(0);
+                JournalSearch.Snippet snippet = JournalSearch.parseSnippet(snippets.get(id));
+                byId.put(id, new JournalSearch.Result(
+                        id, c.getString(1), c.getLong(2),
+                        snippet.text, snippet.highlights, scores.get(id)
+                ));
+            }
+        } finally {
+            c.close();
+        }
+
+        for (int i = 0; i < count; i++) {
+            JournalSearch.Result r = byId.get(ids[i]);
+            if (r != null) results.add(r);
+        }
+        return results;
     }
 }
@@ -0,0 +1,149 @@
+package com.example.offlinedailyjournal;
+
+/**
+ * Debounced autosave for the editor. Every keystroke, speech-to-text append
+ * or mood change just calls {@link #onChanged()}; the draft is snapshotted
+ * and written once typing pauses for {@link #DEBOUNCE_MILLIS}, and at least
+ * every {@link #MAX_DELAY_MILLIS} while it doesn't. A snapshot whose hash
+ * matches the last one written is dropped, and only one write is in flight
+ * at a time, so a long session costs a handful of writes rather than one
+ * per keystroke. Main thread only.
+ */
+public class DraftAutosaver {
+
+    static final long DEBOUNCE_MILLIS  = 1500;
+    static final long MAX_DELAY_MILLIS = 10_000;
+
+    /** The editor's state right now. */
+    public interface Source {
+        JournalDraft snapshot();
+    }
+
+    /** Persists a draft in the background, then reports back on the main thread. */
+    public interface Writer {
+        void write(JournalDraft draft, Done done);
+    }
+
+    public interface Done {
+        void onWritten(boolean ok);
+    }
+
+    /** Delayed main-thread work; a {@link android.os.Handler} in the app. */
+    public interface Scheduler {
+        void postDelayed(Runnable task, long delayMillis);
+        void removeCallbacks(Runnable task);
+        long uptimeMillis();
+    }
+
+    private final Source source;
+    private final Writer writer;
+    private final Scheduler scheduler;
+    private final Runnable flushTask = this::flush;
+
+    private boolean started;
+    private boolean stopped;
+    private long savedHash;           // of the draft on disk, or of the loaded entry
+    private long firstChangeAt = -1;  // uptime of the oldest unwritten change; -1 if none
+    private boolean writing;          // a write is in flight
+    private boolean dirtyWhileWriting;
+    private boolean flushAfterWrite;  // flush() was called during a write
+    private Runnable whenIdle;        // from stop(), run once the last write lands
+
+    public DraftAutosaver(Source source, Writer writer, Scheduler scheduler) {
+        this.source    = source;
+        this.writer    = writer;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Begin watching, given the hash of what is already persisted (the
+     * restored draft, or the entry as loaded). Changes before this, such as
+     * filling in the loaded entry, are not drafts.
+     */
+    public void start(long persistedHash) {
+        if (stopped) return;
+        savedHash = persistedHash;
+        started = true;
+    }
+
+    /** Something in the editor changed. */
+    public void onChanged() {
+        if (!started || stopped) return;
+        if (writing) {
+            dirtyWhileWriting = true;
+            return;
+        }
+        long now = scheduler.uptimeMillis();
+        if (firstChangeAt < 0) firstChangeAt = now;
+        long due = Math.min(now + DEBOUNCE_MILLIS, firstChangeAt + MAX_DELAY_MILLIS);
+        scheduler.removeCallbacks(flushTask);
+        scheduler.postDelayed(flushTask, Math.max(0, due - now));
+    }
+
+    /** Write now if anything changed, e.g. from onPause before the process may be killed. */
+    public void flush() {
+        if (firstChangeAt >= 0) {
+            scheduler.removeCallbacks(flushTask);
+            firstChangeAt = -1;
+        }
+        if (!started || stopped) return;
+        if (writing) {
+            flushAfterWrite = true;
+            return;
+        }
+
+        JournalDraft draft = source.snapshot();
+        if (draft.hash == savedHash) return;
+
+        writing = true;
+        writer.write(draft, ok -> {
+            writing = false;
+            if (ok) savedHash = draft.hash;  // otherwise the next change tries again
+            if (whenIdle != null) {
+                Runnable r = whenIdle;
+                whenIdle = null;
+                r.run();
+            } else if (flushAfterWrite) {
+                flushAfterWrite = dirtyWhileWriting = false;
+                flush();
+            } else if (dirtyWhileWriting) {
+                dirtyWhileWriting = false;
+                onChanged();
+            }
+        });
+    }
+
+    /**
+     * Stop autosaving, e.g. because the entry itself is being saved, and run
+     * {@code then} once no draft write is in flight, so the draft can be
+     * cleared without a late write bringing it back.
+     */
+    public void stop(Runnable then) {
+        stopped = true;
+        if (firstChangeAt >= 0) {
+            scheduler.removeCallbacks(flushTask);
+            firstChangeAt = -1;
+        }
+        dirtyWhileWriting = flushAfterWrite = false;
+        if (writing) {
+            whenIdle = then;
+        } else {
+            then.run();
+        }
+    }
+
+    /** Resume after {@link #stop}, e.g. when saving the entry failed. */
+    public void resume() {
+        stopped = false;
+        onChanged();
+    }
+
+    /**
+     * Start over after {@link #stop} from what is now persisted, e.g. once
+     * the draft was discarded and the editor shows the entry again.
+     */
+    public void restart(long persistedHash) {
+        stopped = false;
+        start(persistedHash);
+    }
+}
@@ -47,8 +47,8 @@ public class EnterNameActivity extends AppCompatActivity {
                 return;
             }
 
-            SharedPreferences prefs = getSharedPreferences("UserPrefs", MODE_PRIVATE);
-            prefs.edit().putString("userName", enteredName).apply();
+            SharedPreferences prefs = getSharedPreferences(MainActivity.PREFS_NAME, MODE_PRIVATE);
+            prefs.edit().putString(MainActivity.KEY_USER_NAME, enteredName).apply();
 
             startActivity(new Intent(this, MainActivity.class));
             finish();
@@ -0,0 +1,14 @@
+package com.example.offlinedailyjournal;
+
+/** A row of the folders table. The icon column holds the folder's hex color. */
+public class Folder {
+    public final long   id;
+    public final String name;
+    public final String color;
+
+    public Folder(long id, String name, String color) {
+        this.id    = id;
+        this.name  = name;
+        this.color = color;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.offlinedailyjournal;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.graphics.Color;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * How each folder looks on screen: its icon's drawable id, its color and
+ * that color as a tint list, resolved once per process and shared by every
+ * screen. Binding a folder or journal card is then a map lookup instead of
+ * {@code Resources.getIdentifier} (a reflective search by name) and
+ * {@code Color.parseColor}.
+ *
+ * Styles are kept per folder id; the repository drops a folder's style
+ * when it is inserted or deleted, and all of them after an import or a
+ * restore, so an id that comes back with another name or color is
+ * resolved afresh.
+ */
+final class FolderStyles {
+
+    /** Icon and color of folderless entries. */
+    static final String NO_FOLDER_NAME  = "others";
+    static final String NO_FOLDER_COLOR = "#CCCCCC";
+
+    static final class Style {
+        final int            iconRes;
+        final int            color;
+        final ColorStateList tint;  // immutable, so one instance serves every view
+
+        Style(int iconRes, int color, ColorStateList tint) {
+            this.iconRes = iconRes;
+            this.color   = color;
+            this.tint    = tint;
+        }
+    }
+
+    private static FolderStyles instance;
+
+    private final Context context;
+    private final Map<Long, Style> byFolder = new ConcurrentHashMap<>();
+    private final Map<String, Integer> icons = new ConcurrentHashMap<>();        // lower-case name
+    private final Map<String, ColorStateList> tints = new ConcurrentHashMap<>(); // hex as stored
+
+    static synchronized FolderStyles get(Context context) {
+        if (instance == null) {
+            instance = new FolderStyles(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /** Forget one folder's style; a no-op until a screen has asked for one. */
+    static void invalidate(long folderId) {
+        FolderStyles styles = current();
+        if (styles != null) styles.byFolder.remove(folderId);
+    }
+
+    /** Forget every folder's style, after writes that may reuse ids. */
+    static void invalidateAll() {
+        FolderStyles styles = current();
+        if (styles != null) styles.byFolder.clear();
+    }
+
+    private static synchronized FolderStyles current() {
+        return instance;
+    }
+
+    private FolderStyles(Context context) {
+        this.context = context;
+    }
+
+    public Style of(Folder folder) {
+        return of(folder.id, folder.name, folder.color);
+    }
+
+    /** The style of an entry's folder; folderless entries get {@link #NO_FOLDER_NAME}'s. */
+    public Style of(JournalEntry entry) {
+        return of(entry.folderId,
+                entry.folderName  != null ? entry.folderName  : NO_FOLDER_NAME,
+                entry.folderColor != null ? entry.folderColor : NO_FOLDER_COLOR);
+    }
+
+    private Style of(long folderId, String name, String hex) {
+        Style style = byFolder.get(folderId);
+        if (style == null) {
+            ColorStateList tint = tint(hex);
+            style = new Style(icon(name), tint.getDefaultColor(), tint);
+            byFolder.put(folderId, style);
+        }
+        return style;
+    }
+
+    /** The drawable named after a folder (e.g. "Work" → work.png), or {@code others}. */
+    public int icon(String name) {
+        String key = name.toLowerCase(Locale.ROOT);
+        Integer res = icons.get(key);
+        if (res == null) {
+            int found = context.getResources().getIdentifier(key, "drawable", context.getPackageName());
+            res = found != 0 ? found : R.drawable.others;
+            icons.put(key, res);
+        }
+        return res;
+    }
+
+    /** A stored "#RRGGBB" color as a tint list. */
+    public ColorStateList tint(String hex) {
+        ColorStateList tint = tints.get(hex);
+        if (tint == null) {
+            tint = ColorStateList.valueOf(Color.parseColor(hex));
+            tints.put(hex, tint);
+        }
+        return tint;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.offlinedailyjournal;
+
+import android.content.Context;
+import android.graphics.Typeface;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.FontRes;
+import androidx.core.content.res.ResourcesCompat;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The app's Poppins faces, each read from res/font once per process and
+ * then shared, along with one {@link CustomTypefaceSpan} per face. The
+ * application preloads them on a background thread at startup; a screen
+ * that asks before that has finished waits for that one face only.
+ *
+ * Layouts keep android:fontFamily: it resolves through the same
+ * ResourcesCompat cache, so once a face is preloaded inflation reuses it.
+ * {@link #loads()} and {@link #loadMillis()} count the actual font reads,
+ * for tests and the startup log.
+ */
+final class Fonts {
+
+    private static final String TAG = "Fonts";
+
+    /** Everything in res/font, in the order they are preloaded: most used first. */
+    static final int[] FACES = {
+            R.font.poppins_light, R.font.poppins_medium, R.font.poppins,
+            R.font.poppins_extralight, R.font.poppins_thin,
+    };
+
+    private static Fonts instance;
+
+    private final Context context;
+    private final Map<Integer, Typeface> typefaces = new ConcurrentHashMap<>();
+    private final Map<Integer, CustomTypefaceSpan> spans = new ConcurrentHashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicLong loadNanos = new AtomicLong();
+
+    static synchronized Fonts get(Context context) {
+        if (instance == null) {
+            instance = new Fonts(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private Fonts(Context context) {
+        this.context = context;
+    }
+
+    /** Read every face on a background thread; returns at once. */
+    void preloadInBackground() {
+        new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            preload();
+        }, "font-preload").start();
+    }
+
+    void preload() {
+        long start = SystemClock.elapsedRealtime();
+        for (int face : FACES) typeface(face);
+        Log.i(TAG, "Fonts ready after " + (SystemClock.elapsedRealtime() - start) + " ms ("
+                + loads() + " loaded in " + loadMillis() + " ms)");
+    }
+
+    /** The shared face for a res/font id; {@link Typeface#DEFAULT} if it can't be read. */
+    public Typeface typeface(@FontRes int font) {
+        // computeIfAbsent holds back other callers for the same face until it's read
+        return typefaces.computeIfAbsent(font, this::load);
+    }
+
+    /** A span in the given face; spans hold no state, so one serves every text. */
+    public CustomTypefaceSpan span(@FontRes int font) {
+        return spans.computeIfAbsent(font, f -> new CustomTypefaceSpan(typeface(f)));
+    }
+
+    public Typeface regular() {
+        return typeface(R.font.poppins);
+    }
+
+    public Typeface light() {
+        return typeface(R.font.poppins_light);
+    }
+
+    public Typeface medium() {
+        return typeface(R.font.poppins_medium);
+    }
+
+    /** How many times a font file has been read so far. */
+    int loads() {
+        return loads.get();
+    }
+
+    long loadMillis() {
+        return loadNanos.get() / 1_000_000;
+    }
+
+    private Typeface load(int font) {
+        long start = System.nanoTime();
+        Typeface typeface = null;
+        try {
+            typeface = ResourcesCompat.getFont(context, font);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Couldn't load font " + font, e);
+        }
+        loadNanos.addAndGet(System.nanoTime() - start);
+        loads.incrementAndGet();
+        return typeface != null ? typeface : Typeface.DEFAULT;
+    }
+}
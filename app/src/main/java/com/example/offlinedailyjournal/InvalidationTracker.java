@@ -0,0 +1,169 @@
+package com.example.offlinedailyjournal;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Generation counters for what screens show: one per table and one per
+ * folder, each bumped whenever a committed write touches it. A screen
+ * remembers the generation it last loaded and re-queries only once it
+ * has moved; observers also hear about each commit as it happens, with
+ * the ids it touched.
+ *
+ * DatabaseHelper notes what each write changed and publishes when the
+ * outermost transaction ends. Inside a write queue group that is the
+ * queue's commit; the queue discards what a group noted if it rolls back.
+ * A write that rolls back outside the queue may leave its note to be
+ * published with the next commit, which costs a screen one needless
+ * reload and never a missed one.
+ */
+public final class InvalidationTracker {
+
+    public interface Observer {
+        /** On the executor given to {@link #subscribe}, after the commit. */
+        void onInvalidated(Change change);
+    }
+
+    /** What one commit changed. */
+    public static final class Change {
+        /** Tables written, {@link DatabaseHelper#TABLE_FOLDERS} and/or {@link DatabaseHelper#TABLE_JOURNALS}. */
+        public final Set<String> tables;
+        /** Folders created or deleted, or whose entries changed; {@link JournalRecord#NO_FOLDER} for loose entries. */
+        public final Set<Long> folderIds;
+        /** Entries inserted, updated or deleted; null if a bulk write didn't list them. */
+        public final Set<Long> journalIds;
+        /** Everything was replaced (e.g. a restore); the sets above are empty and journalIds null. */
+        public final boolean everything;
+
+        Change(Set<String> tables, Set<Long> folderIds, Set<Long> journalIds, boolean everything) {
+            this.tables     = Collections.unmodifiableSet(tables);
+            this.folderIds  = Collections.unmodifiableSet(folderIds);
+            this.journalIds = journalIds == null ? null : Collections.unmodifiableSet(journalIds);
+            this.everything = everything;
+        }
+
+        public boolean touches(String table) {
+            return everything || tables.contains(table);
+        }
+
+        /** True if the folder itself or any entry in it changed. */
+        public boolean touchesFolder(long folderId) {
+            return everything || folderIds.contains(folderId);
+        }
+    }
+
+    /** Stops the observer; changes already posted to its executor are dropped too. */
+    public final class Subscription {
+        private final Executor executor;
+        private final Observer observer;
+        private volatile boolean closed;
+
+        private Subscription(Executor executor, Observer observer) {
+            this.executor = executor;
+            this.observer = observer;
+        }
+
+        private void post(Change change) {
+            executor.execute(() -> {
+                if (!closed) observer.onInvalidated(change);
+            });
+        }
+
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+        }
+    }
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    // Guarded by this
+    private final Map<String, Long> tableGenerations = new HashMap<>();
+    private final Map<Long, Long> folderGenerations = new HashMap<>();
+    private long everythingGeneration;
+    private Set<String> pendingTables = new HashSet<>();
+    private Set<Long> pendingFolders = new HashSet<>();
+    private Set<Long> pendingJournals = new HashSet<>();
+    private boolean pendingUnlisted;
+    private boolean pendingEverything;
+
+    /** Bumped by every commit that wrote the table. */
+    public synchronized long generation(String table) {
+        Long g = tableGenerations.get(table);
+        return everythingGeneration + (g != null ? g : 0);
+    }
+
+    /** Bumped by every commit that wrote the folder's row or any entry in it. */
+    public synchronized long folderGeneration(long folderId) {
+        Long g = folderGenerations.get(folderId);
+        return everythingGeneration + (g != null ? g : 0);
+    }
+
+    /** Hear about every commit from now on, on {@code executor}. */
+    public Subscription subscribe(Executor executor, Observer observer) {
+        Subscription subscription = new Subscription(executor, observer);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    // ========== NOTES FROM THE WRITERS ==========
+
+    synchronized void folderChanged(long folderId) {
+        pendingTables.add(DatabaseHelper.TABLE_FOLDERS);
+        pendingFolders.add(folderId);
+    }
+
+    synchronized void journalChanged(long folderId, long journalId) {
+        pendingTables.add(DatabaseHelper.TABLE_JOURNALS);
+        pendingFolders.add(folderId);
+        pendingJournals.add(journalId);
+    }
+
+    /** Entries in the folder changed and weren't listed, e.g. a folder delete. */
+    synchronized void folderEntriesChanged(long folderId) {
+        pendingTables.add(DatabaseHelper.TABLE_JOURNALS);
+        pendingFolders.add(folderId);
+        pendingUnlisted = true;
+    }
+
+    synchronized void everythingChanged() {
+        pendingEverything = true;
+    }
+
+    /** The outermost transaction committed: bump and tell the observers. */
+    void publish() {
+        Change change;
+        synchronized (this) {
+            if (pendingTables.isEmpty() && !pendingEverything) return;
+            if (pendingEverything) {
+                everythingGeneration++;
+                change = new Change(new HashSet<>(), new HashSet<>(), null, true);
+            } else {
+                for (String table : pendingTables) tableGenerations.merge(table, 1L, Long::sum);
+                for (long folderId : pendingFolders) folderGenerations.merge(folderId, 1L, Long::sum);
+                change = new Change(pendingTables, pendingFolders, pendingUnlisted ? null : pendingJournals, false);
+            }
+            pendingTables = new HashSet<>();
+            pendingFolders = new HashSet<>();
+            pendingJournals = new HashSet<>();
+            pendingUnlisted = false;
+            pendingEverything = false;
+        }
+        for (Subscription s : subscriptions) s.post(change);
+    }
+
+    /** The outermost transaction rolled back: forget what it noted. */
+    synchronized void discard() {
+        pendingTables.clear();
+        pendingFolders.clear();
+        pendingJournals.clear();
+        pendingUnlisted = false;
+        pendingEverything = false;
+    }
+}
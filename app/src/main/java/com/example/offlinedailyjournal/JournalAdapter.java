@@ -0,0 +1,199 @@
+package com.example.offlinedailyjournal;
+
+import android.graphics.Color;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.cardview.widget.CardView;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Journal list with day headers, shared by the Journals tab and the folder
+ * screen. Rows are recycled, have stable ids (journal id for cards, a
+ * negative day number for headers), and new lists are diffed off the main
+ * thread by {@link ListAdapter}, so a refresh only rebinds rows that changed.
+ */
+public class JournalAdapter extends ListAdapter<JournalAdapter.Item, RecyclerView.ViewHolder> {
+
+    private static final int TYPE_HEADER = 0;
+    private static final int TYPE_ENTRY  = 1;
+
+    public interface Listener {
+        void onEntryClick(JournalEntry entry);
+
+        /** Return true if the long press was handled. */
+        boolean onEntryLongClick(JournalEntry entry);
+    }
+
+    /** A day header or a journal card. */
+    static final class Item {
+        final long         id;
+        final String       header;  // set for headers
+        final JournalEntry entry;   // set for cards
+
+        private Item(long id, String header, JournalEntry entry) {
+            this.id     = id;
+            this.header = header;
+            this.entry  = entry;
+        }
+    }
+
+    private static final DiffUtil.ItemCallback<Item> DIFF = new DiffUtil.ItemCallback<Item>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Item a, @NonNull Item b) {
+            return a.id == b.id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Item a, @NonNull Item b) {
+            if (a.entry == null || b.entry == null) return Objects.equals(a.header, b.header);
+            return a.entry.dateModified == b.entry.dateModified
+                    && Objects.equals(a.entry.title, b.entry.title)
+                    && Objects.equals(a.entry.summary.excerpt, b.entry.summary.excerpt)
+                    && Objects.equals(a.entry.folderName, b.entry.folderName)
+                    && Objects.equals(a.entry.folderColor, b.entry.folderColor);
+        }
+    };
+
+    private final boolean showFolder;  // all-journals style: folder icon + folder color per card
+    private final int headerColor;
+    private final int cardColor;       // folder screen: every card in the folder's color
+    private final Listener listener;
+    private FolderStyles folderStyles;
+    private TimestampCodec codec = TimestampCodec.local();
+
+    /** Journals tab: each card shows its own folder's icon and color. */
+    public static JournalAdapter forAllFolders(Listener listener) {
+        return new JournalAdapter(true, Color.parseColor("#5C2E2E"), 0, listener);
+    }
+
+    /** Folder screen: headers and cards in the folder's color. */
+    public static JournalAdapter forFolder(int folderColor, Listener listener) {
+        return new JournalAdapter(false, folderColor, folderColor, listener);
+    }
+
+    private JournalAdapter(boolean showFolder, int headerColor, int cardColor, Listener listener) {
+        super(DIFF);
+        this.showFolder  = showFolder;
+        this.headerColor = headerColor;
+        this.cardColor   = cardColor;
+        this.listener    = listener;
+        setHasStableIds(true);
+    }
+
+    /**
+     * Show these entries (newest first), inserting a header wherever the
+     * day changes. The diff runs in the background; {@code committed}
+     * runs once the new list is on screen.
+     */
+    public void submitEntries(List<JournalEntry> entries, Runnable committed) {
+        codec = TimestampCodec.local(); // picks up a time zone or locale change
+        List<Item> items = new ArrayList<>(entries.size() + entries.size() / 4);
+        long lastDay = Long.MIN_VALUE;
+        for (JournalEntry entry : entries) {
+            long day = codec.dayKey(entry.dateModified);
+            if (day != lastDay) {
+                lastDay = day;
+                // Days since 1970 are >= 0, so header ids never clash with journal ids
+                items.add(new Item(-1 - day, codec.formatHeader(entry.dateModified), null));
+            }
+            items.add(new Item(entry.id, null, entry));
+        }
+        submitList(items, committed);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).id;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return getItem(position).entry == null ? TYPE_HEADER : TYPE_ENTRY;
+    }
+
+    @NonNull
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+        if (folderStyles == null) folderStyles = FolderStyles.get(parent.getContext());
+        if (viewType == TYPE_HEADER) {
+            TextView header = (TextView) inflater.inflate(R.layout.item_journal_header, parent, false);
+            header.setTextColor(headerColor);
+            return new HeaderHolder(header);
+        }
+        View card = inflater.inflate(showFolder ? R.layout.item_journal_main : R.layout.item_journal, parent, false);
+        return new EntryHolder(card);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        Item item = getItem(position);
+        if (holder instanceof HeaderHolder) {
+            ((HeaderHolder) holder).text.setText(item.header);
+        } else {
+            ((EntryHolder) holder).bind(item.entry);
+        }
+    }
+
+    static final class HeaderHolder extends RecyclerView.ViewHolder {
+        final TextView text;
+
+        HeaderHolder(TextView view) {
+            super(view);
+            text = view;
+        }
+    }
+
+    final class EntryHolder extends RecyclerView.ViewHolder {
+        final CardView  card;
+        final ImageView folderIcon;  // all-journals layout only
+        final TextView  title;
+        final TextView  excerpt;
+        final TextView  date;
+        JournalEntry entry;
+
+        EntryHolder(View view) {
+            super(view);
+            card       = view.findViewById(R.id.journalCard);
+            folderIcon = view.findViewById(R.id.journalFolderIcon);
+            title      = view.findViewById(R.id.journalTitle);
+            excerpt    = view.findViewById(R.id.journalExcerpt);
+            date       = view.findViewById(showFolder ? R.id.journalDate : R.id.journalTimestamp);
+
+            card.setOnClickListener(v -> {
+                if (entry != null) listener.onEntryClick(entry);
+            });
+            card.setOnLongClickListener(v -> entry != null && listener.onEntryLongClick(entry));
+        }
+
+        void bind(JournalEntry e) {
+            entry = e;
+            title.setText(e.title);
+            excerpt.setText(e.summary.excerpt);
+            excerpt.setVisibility(e.summary.excerpt.isEmpty() ? View.GONE : View.VISIBLE);
+            int words = e.summary.words;
+            date.setText(codec.formatDisplay(e.dateModified)
+                    + " · " + words + (words == 1 ? " word" : " words"));
+
+            if (showFolder) {
+                // Folder color AND icon, resolved once per folder
+                FolderStyles.Style style = folderStyles.of(e);
+                card.setCardBackgroundColor(style.color);
+                folderIcon.setImageResource(style.iconRes);
+            } else {
+                card.setCardBackgroundColor(cardColor);
+            }
+        }
+    }
+}
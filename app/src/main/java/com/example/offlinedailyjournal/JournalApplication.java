@@ -0,0 +1,21 @@
+package com.example.offlinedailyjournal;
+
+import android.app.Application;
+
+/**
+ * Starts everything the home screen needs on background threads while it
+ * is still being created: the fonts, the database, and the preferences
+ * files it reads (getSharedPreferences starts reading a file on its own
+ * thread the first time it's asked for).
+ */
+public class JournalApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        Fonts.get(this).preloadInBackground();
+        JournalRepository.warmUp(this);
+        getSharedPreferences(MainActivity.PREFS_NAME, MODE_PRIVATE);
+        StartupTimes.get(this);
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.offlinedailyjournal;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Journal archives other apps (and our own export) produce, read one entry
+ * at a time so that an archive of any size streams through in constant
+ * memory. {@link #open} picks the reader for a format:
+ *
+ * JSON: an array of entry objects, or an object holding one under
+ * "entries", "journals", "items" or "notes". See {@link JsonArchiveReader}.
+ *
+ * MARKDOWN: text with entries introduced by "---" front matter, or a single
+ * plain-text entry. See {@link MarkdownArchiveReader}.
+ *
+ * ZIP: any mix of .json, .md and .txt files, other files being skipped; a
+ * file's directory names the folder of entries that don't name one
+ * themselves. Our own export ({@link JournalZipWriter}) reads back this way,
+ * its manifest aside.
+ */
+public final class JournalArchive {
+
+    private JournalArchive() {}
+
+    public enum Format {
+        JSON, MARKDOWN, ZIP;
+
+        /** Format from a file name's extension; anything unknown is read as plain text. */
+        public static Format fromFileName(String name) {
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (lower.endsWith(".json")) return JSON;
+            if (lower.endsWith(".zip")) return ZIP;
+            return MARKDOWN;
+        }
+    }
+
+    /** A date an archive doesn't have or that can't be read; any other long is a valid instant. */
+    public static final long NO_DATE = Long.MIN_VALUE;
+
+    /** One entry as an archive describes it; fields an archive doesn't have are null or {@link #NO_DATE}. */
+    public static final class Entry {
+        public final String folder;
+        public final String title;
+        public final String content;
+        public final String mood;
+        public final long   dateAdded;
+        public final long   dateModified;
+
+        public Entry(String folder, String title, String content, String mood, long dateAdded, long dateModified) {
+            this.folder       = folder;
+            this.title        = title;
+            this.content      = content;
+            this.mood         = mood;
+            this.dateAdded    = dateAdded;
+            this.dateModified = dateModified;
+        }
+
+        /** True if there's nothing worth importing. */
+        public boolean isBlank() {
+            return (title == null || title.trim().isEmpty()) && (content == null || content.trim().isEmpty());
+        }
+    }
+
+    /** Entries in archive order. Closing it closes the stream it reads. */
+    public interface Reader extends Closeable {
+        /** The next entry, or null at the end of the archive. */
+        Entry next() throws IOException;
+    }
+
+    /**
+     * A reader for {@code in}. Dates are read with {@code codec}; text
+     * without a zone is local to it.
+     */
+    public static Reader open(Format format, InputStream in, TimestampCodec codec) throws IOException {
+        switch (format) {
+            case JSON:     return new JsonArchiveReader(in, codec, null);
+            case ZIP:      return new ZipReader(in, codec);
+            case MARKDOWN:
+            default:       return new MarkdownArchiveReader(in, codec, null, null, NO_DATE);
+        }
+    }
+
+    /**
+     * Epoch millis from a date as archives write it: ISO 8601, a form
+     * TimestampCodec parses, or epoch digits. Returns {@link #NO_DATE} for
+     * anything else.
+     */
+    static long parseDate(String text, TimestampCodec codec) {
+        if (text == null) return NO_DATE;
+        String s = text.trim();
+        if (!s.isEmpty() && s.length() <= 18 && s.chars().allMatch(ch -> ch >= '0' && ch <= '9')) {
+            return epoch(Long.parseLong(s));
+        }
+        long millis = codec.parseIso8601(s);
+        if (millis != Long.MIN_VALUE) return millis;
+        millis = codec.parse(s);
+        return millis >= 0 ? millis : NO_DATE;
+    }
+
+    /**
+     * Epoch millis from a number that may be seconds (below 1e11 either side
+     * of zero it would be within three years of 1970 in millis). Dates before 1970
+     * are negative; NaN is {@link #NO_DATE}.
+     */
+    static long epoch(double value) {
+        if (Double.isNaN(value)) return NO_DATE;
+        return (long) (Math.abs(value) < 100_000_000_000L ? value * 1000 : value);
+    }
+
+    /** Folder for a file inside a zip: its innermost directory, or null at the top level. */
+    static String folderOf(String path) {
+        int slash = path.lastIndexOf('/');
+        if (slash <= 0) return null;
+        int start = path.lastIndexOf('/', slash - 1) + 1;
+        return path.substring(start, slash);
+    }
+
+    /** File name without directory or extension. */
+    static String baseName(String path) {
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    /** Reads each file of a zip with the reader for its extension, in stored order. */
+    private static final class ZipReader implements Reader {
+        private final ZipInputStream zip;
+        private final TimestampCodec codec;
+        private Reader current;
+
+        ZipReader(InputStream in, TimestampCodec codec) {
+            this.zip   = new ZipInputStream(in);
+            this.codec = codec;
+        }
+
+        @Override
+        public Entry next() throws IOException {
+            while (true) {
+                if (current != null) {
+                    Entry entry = current.next();
+                    if (entry != null) return entry;
+                    current = null;
+                }
+                ZipEntry file = zip.getNextEntry();
+                if (file == null) return null;
+                String path = file.getName();
+                String lower = path.toLowerCase(Locale.ROOT);
+                boolean json = lower.endsWith(".json");
+                boolean text = lower.endsWith(".md") || lower.endsWith(".markdown") || lower.endsWith(".txt");
+                // Attachments, folders, macOS resource forks and our export's manifest
+                if (file.isDirectory() || !(json || text)
+                        || baseName(path).startsWith(".") || lower.startsWith("__macosx/")
+                        || path.equals(JournalZipWriter.MANIFEST)) continue;
+
+                // The file readers must not close the zip when they reach the end of one file
+                InputStream body = new FilterInputStream(zip) {
+                    @Override public void close() {}
+                };
+                String folder = folderOf(path);
+                if (json) {
+                    current = new JsonArchiveReader(body, codec, folder);
+                } else {
+                    long time = file.getTime();
+                    current = new MarkdownArchiveReader(body, codec, folder, baseName(path), time != -1 ? time : NO_DATE);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            zip.close();
+        }
+    }
+}
@@ -0,0 +1,671 @@
+package com.example.offlinedailyjournal;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Incremental backups of folders and journals into a directory of
+ * numbered files: a base snapshot of every row ("000001.base") followed by
+ * deltas holding only the rows that changed since the file before
+ * ("000002.delta", ...). The change log table, filled by triggers, says
+ * which rows those are, so a backup reads and writes in proportion to what
+ * changed rather than to the size of the database.
+ *
+ * A backup reads one snapshot of the database on a connection of its own
+ * ({@link DatabaseHelper#openSnapshot}), so writes carry on while it
+ * streams rows into a .tmp file. Only then does it queue a short job on
+ * the write queue, which clears the change log up to the last seq the
+ * snapshot saw and records the file in backup_state; rows written in the
+ * meantime keep higher seqs and go in the next delta. The file is renamed
+ * into place, and an older chain removed, only after that commits, so a
+ * failed backup leaves the log as it was.
+ * Every {@link #MAX_DELTAS} deltas, or when the directory doesn't hold
+ * the chain the log is relative to (first backup, another directory, files
+ * deleted), the next backup is a new base and the old chain is removed.
+ *
+ * Files are gzip'd records (see {@link Writer}); content is kept in its
+ * stored form, compressed or not. Month counts and the search index aren't
+ * backed up, as the journals triggers rebuild them on restore; nor are
+ * drafts, which are only ever minutes old.
+ */
+public class JournalBackup {
+
+    private static final String TAG = "JournalBackup";
+
+    /** Deltas after a base before the next backup writes a new base. */
+    static final int MAX_DELTAS = 64;
+
+    /** Rows per query while reading. */
+    static final int CHUNK = 200;
+
+    static final String BASE    = ".base";
+    static final String DELTA   = ".delta";
+    static final String PARTIAL = ".tmp";
+
+    private static final int MAGIC   = 0x4A424B31;  // "JBK1"
+    private static final int VERSION = 1;
+
+    // Record tags
+    private static final byte FOLDER          = 'F';
+    private static final byte FOLDER_DELETED  = 'f';
+    private static final byte JOURNAL         = 'J';
+    private static final byte JOURNAL_DELETED = 'j';
+    private static final byte END             = 'E';
+
+    public static final class Result {
+        public final File file;       // null if nothing changed since the last backup
+        public final boolean base;
+        public final int records;
+
+        Result(File file, boolean base, int records) {
+            this.file    = file;
+            this.base    = base;
+            this.records = records;
+        }
+    }
+
+    private final DatabaseHelper dbHelper;
+    private final JournalWriteQueue writes;
+    private final File dir;
+
+    public JournalBackup(DatabaseHelper dbHelper, JournalWriteQueue writes, File dir) {
+        this.dbHelper = dbHelper;
+        this.writes   = writes;
+        this.dir      = dir;
+    }
+
+    // ========== BACKUP ==========
+
+    /**
+     * Write the next file of the chain. Blocking; run it off the main
+     * thread, and one at a time (the repository's transfer thread does).
+     */
+    public Result backup() throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Can't create " + dir);
+        deletePartials(dir);
+        Pending pending;
+        SQLiteDatabase snapshot = dbHelper.openSnapshot();
+        try {
+            pending = write(snapshot);
+        } finally {
+            snapshot.close();
+        }
+        if (pending == null) return new Result(null, false, 0);
+
+        // Only the cut goes through the writer. It's safe to run twice, as a
+        // group rollback does, and a restore since the snapshot voids it.
+        boolean recorded;
+        try {
+            recorded = await(writes.submit(() -> {
+                SQLiteDatabase db = dbHelper.getWritableDatabase();
+                if (!Arrays.equals(backupState(db), pending.state)) return false;
+                db.delete(DatabaseHelper.TABLE_JOURNAL_CHANGES, DatabaseHelper.COLUMN_CHANGE_SEQ + " <= ?",
+                        new String[]{ String.valueOf(pending.seq) });
+                db.delete(DatabaseHelper.TABLE_BACKUP_STATE, null, null);
+                ContentValues values = new ContentValues();
+                values.put(DatabaseHelper.COLUMN_BACKUP_CHAIN, pending.chain);
+                values.put(DatabaseHelper.COLUMN_BACKUP_NUMBER, number(pending.file));
+                db.insertOrThrow(DatabaseHelper.TABLE_BACKUP_STATE, null, values);
+                return true;
+            }));
+        } catch (IOException | RuntimeException e) {
+            pending.partial.delete();
+            throw e;
+        }
+        if (!recorded) {
+            pending.partial.delete();
+            throw new IOException("A restore replaced the database while " + pending.file.getName() + " was written");
+        }
+
+        // Committed. If the rename fails, backup_state names a file that isn't
+        // there, so the next backup starts a new base and nothing is lost.
+        if (!pending.partial.renameTo(pending.file)) {
+            pending.partial.delete();
+            throw new IOException("Can't rename " + pending.partial);
+        }
+        // The new base stands alone; what came before it isn't needed
+        if (pending.base) {
+            long number = number(pending.file);
+            for (File old : dir.listFiles()) {
+                if (isBackupFile(old) && number(old) < number) old.delete();
+            }
+        }
+        return new Result(pending.file, pending.base, pending.records);
+    }
+
+    /**
+     * The next file, from {@code snapshot}, as a .tmp file; null if nothing
+     * changed since the last one.
+     */
+    private Pending write(SQLiteDatabase snapshot) throws IOException {
+        // The first read fixes the snapshot: the log up to this seq is what the file will hold
+        long seq = DatabaseUtils.longForQuery(snapshot, "SELECT IFNULL(MAX(" + DatabaseHelper.COLUMN_CHANGE_SEQ
+                + "), 0) FROM " + DatabaseHelper.TABLE_JOURNAL_CHANGES, null);
+        String[] state = backupState(snapshot);
+        List<File> chain = readableChain(dir);
+        File last = chain.isEmpty() ? null : chain.get(chain.size() - 1);
+        boolean continues = state != null && last != null
+                && state[0].equals(readHeader(last).chain) && number(last) == Long.parseLong(state[1]);
+        boolean base = !continues || chain.size() > MAX_DELTAS;
+
+        if (!base && seq == 0) return null;
+        long number = lastNumber(dir) + 1;
+        String chainId = base ? UUID.randomUUID().toString() : state[0];
+        File file = new File(dir, String.format(Locale.ROOT, "%06d", number) + (base ? BASE : DELTA));
+        File partial = new File(dir, file.getName() + PARTIAL);
+
+        int records;
+        try (Writer out = new Writer(partial, base, chainId, number)) {
+            records = base ? writeBase(snapshot, out) : writeDelta(snapshot, out);
+            out.finish();
+        } catch (IOException | RuntimeException e) {
+            partial.delete();
+            throw e;
+        }
+        return new Pending(partial, file, base, records, state, chainId, seq);
+    }
+
+    /** A file written from a snapshot, still to be recorded in backup_state and moved into place. */
+    private static final class Pending {
+        final File partial;
+        final File file;
+        final boolean base;
+        final int records;
+        final String[] state;   // backup_state as the snapshot saw it
+        final String chain;
+        final long seq;         // last change log row in the file
+
+        Pending(File partial, File file, boolean base, int records, String[] state, String chain, long seq) {
+            this.partial = partial;
+            this.file    = file;
+            this.base    = base;
+            this.records = records;
+            this.state   = state;
+            this.chain   = chain;
+            this.seq     = seq;
+        }
+    }
+
+    /**
+     * {@link #chain}, or an empty one if a file in it can't be read, e.g. it
+     * was cut short: the next backup is then a new base rather than failing
+     * for as long as the damaged file is there.
+     */
+    private static List<File> readableChain(File dir) {
+        try {
+            return chain(dir);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Unreadable backup chain in " + dir + "; starting a new base", e);
+            return new ArrayList<>();
+        }
+    }
+
+    /** The highest number of any backup file in {@code dir}, readable or not; 0 if none. */
+    private static long lastNumber(File dir) {
+        long last = 0;
+        File[] files = dir.listFiles();
+        if (files == null) return last;
+        for (File f : files) {
+            if (isBackupFile(f)) last = Math.max(last, number(f));
+        }
+        return last;
+    }
+
+    /** .tmp files left by a backup that didn't get as far as its rename. */
+    private static void deletePartials(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        for (File f : files) {
+            if (f.getName().endsWith(PARTIAL)) f.delete();
+        }
+    }
+
+    private int writeBase(SQLiteDatabase db, Writer out) throws IOException {
+        int records = 0;
+        Cursor c = db.rawQuery("SELECT " + columns("", FOLDER_COLUMNS) + " FROM " + DatabaseHelper.TABLE_FOLDERS
+                + " ORDER BY " + DatabaseHelper.COLUMN_FOLDER_ID, null);
+        try {
+            while (c.moveToNext()) {
+                out.folder(c, 0);
+                records++;
+            }
+        } finally {
+            c.close();
+        }
+        long afterId = 0;
+        int rows;
+        do {
+            rows = 0;
+            c = db.rawQuery("SELECT " + columns("", JOURNAL_COLUMNS) + " FROM " + DatabaseHelper.TABLE_JOURNALS
+                    + " WHERE " + DatabaseHelper.COLUMN_JOURNAL_ID + " > ?"
+                    + " ORDER BY " + DatabaseHelper.COLUMN_JOURNAL_ID + " LIMIT " + CHUNK,
+                    new String[]{ String.valueOf(afterId) });
+            try {
+                while (c.moveToNext()) {
+                    out.journal(c, 0);
+                    afterId = c.getLong(0);
+                    rows++;
+                }
+            } finally {
+                c.close();
+            }
+            records += rows;
+        } while (rows == CHUNK);
+        return records;
+    }
+
+    /**
+     * Folders first, so that on restore every journal's folder exists. A
+     * logged row that is no longer there was deleted.
+     */
+    private int writeDelta(SQLiteDatabase db, Writer out) throws IOException {
+        return writeChanged(db, out, DatabaseHelper.CHANGE_FOLDER)
+                + writeChanged(db, out, DatabaseHelper.CHANGE_JOURNAL);
+    }
+
+    private int writeChanged(SQLiteDatabase db, Writer out, int kind) throws IOException {
+        boolean folders = kind == DatabaseHelper.CHANGE_FOLDER;
+        String table = folders ? DatabaseHelper.TABLE_FOLDERS : DatabaseHelper.TABLE_JOURNALS;
+        String rowId = "c." + DatabaseHelper.COLUMN_CHANGE_ROW_ID;
+        // Each changed id with its row, or NULLs if the row is gone
+        String sql = "SELECT " + rowId + ", " + columns("t.", folders ? FOLDER_COLUMNS : JOURNAL_COLUMNS)
+                + " FROM " + DatabaseHelper.TABLE_JOURNAL_CHANGES + " c LEFT JOIN " + table + " t"
+                + " ON t." + (folders ? DatabaseHelper.COLUMN_FOLDER_ID : DatabaseHelper.COLUMN_JOURNAL_ID) + " = " + rowId
+                + " WHERE c." + DatabaseHelper.COLUMN_CHANGE_KIND + " = " + kind + " AND " + rowId + " > ?"
+                + " ORDER BY " + rowId + " LIMIT " + CHUNK;
+
+        int records = 0;
+        long afterId = Long.MIN_VALUE;
+        int rows;
+        do {
+            rows = 0;
+            Cursor c = db.rawQuery(sql, new String[]{ String.valueOf(afterId) });
+            try {
+                while (c.moveToNext()) {
+                    afterId = c.getLong(0);
+                    if (c.isNull(1)) {
+                        out.deleted(folders ? FOLDER_DELETED : JOURNAL_DELETED, afterId);
+                    } else if (folders) {
+                        out.folder(c, 1);
+                    } else {
+                        out.journal(c, 1);
+                    }
+                    rows++;
+                }
+            } finally {
+                c.close();
+            }
+            records += rows;
+        } while (rows == CHUNK);
+        return records;
+    }
+
+    // Column order Writer.folder and Writer.journal read
+    private static final String[] FOLDER_COLUMNS = {
+            DatabaseHelper.COLUMN_FOLDER_ID, DatabaseHelper.COLUMN_FOLDER_NAME, DatabaseHelper.COLUMN_FOLDER_ICON,
+    };
+    private static final String[] JOURNAL_COLUMNS = {
+            DatabaseHelper.COLUMN_JOURNAL_ID, DatabaseHelper.COLUMN_JOURNAL_TITLE, DatabaseHelper.COLUMN_JOURNAL_CONTENT,
+            DatabaseHelper.COLUMN_JOURNAL_FOLDER_ID, DatabaseHelper.COLUMN_JOURNAL_DATE_ADDED,
+            DatabaseHelper.COLUMN_JOURNAL_DATE_MODIFIED, DatabaseHelper.COLUMN_JOURNAL_MOOD,
+            DatabaseHelper.COLUMN_JOURNAL_EXCERPT, DatabaseHelper.COLUMN_JOURNAL_WORDS, DatabaseHelper.COLUMN_JOURNAL_CHARS,
+    };
+
+    private static String columns(String prefix, String[] names) {
+        StringBuilder sb = new StringBuilder();
+        for (String name : names) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(prefix).append(name);
+        }
+        return sb.toString();
+    }
+
+    // ========== RESTORE ==========
+
+    /**
+     * Replace every folder and journal with the latest base in the directory
+     * and the deltas after it, in one transaction: if any file is unreadable
+     * nothing changes. Later backups continue the restored chain. Returns
+     * the number of files replayed. Blocking; run it off the main thread.
+     */
+    public int restore() throws IOException {
+        List<File> chain = chain(dir);
+        if (chain.isEmpty()) throw new IOException("No backup in " + dir);
+        return await(writes.submit(() -> {
+            SQLiteDatabase db = dbHelper.getWritableDatabase();
+            // Deletes cascade to drafts; the count and search triggers follow
+            db.delete(DatabaseHelper.TABLE_JOURNALS, null, null);
+            db.delete(DatabaseHelper.TABLE_FOLDERS, null, null);
+
+            Header header = null;
+            for (File file : chain) {
+                try (Reader in = new Reader(file)) {
+                    header = in.header;
+                    in.replay(db);
+                }
+            }
+
+            // What was just written is the backup, not a change to it
+            db.delete(DatabaseHelper.TABLE_JOURNAL_CHANGES, null, null);
+            db.delete(DatabaseHelper.TABLE_BACKUP_STATE, null, null);
+            ContentValues values = new ContentValues();
+            values.put(DatabaseHelper.COLUMN_BACKUP_CHAIN, header.chain);
+            values.put(DatabaseHelper.COLUMN_BACKUP_NUMBER, header.number);
+            db.insertOrThrow(DatabaseHelper.TABLE_BACKUP_STATE, null, values);
+            dbHelper.getInvalidationTracker().everythingChanged();
+            return chain.size();
+        }));
+    }
+
+    // ========== FILES ==========
+
+    /** chain id and number of the file the change log is relative to, or null before the first backup. */
+    private static String[] backupState(SQLiteDatabase db) {
+        Cursor c = db.rawQuery("SELECT " + DatabaseHelper.COLUMN_BACKUP_CHAIN + ", "
+                + DatabaseHelper.COLUMN_BACKUP_NUMBER + " FROM " + DatabaseHelper.TABLE_BACKUP_STATE, null);
+        try {
+            return c.moveToFirst() ? new String[]{ c.getString(0), c.getString(1) } : null;
+        } finally {
+            c.close();
+        }
+    }
+
+    /**
+     * The latest base in {@code dir} and the deltas numbered after it, up to
+     * the first gap or a delta of another chain; empty if there is no base.
+     */
+    static List<File> chain(File dir) throws IOException {
+        List<File> chain = new ArrayList<>();
+        File[] files = dir.listFiles();
+        if (files == null) return chain;
+        File base = null;
+        for (File f : files) {
+            if (f.getName().endsWith(BASE) && isBackupFile(f) && (base == null || number(f) > number(base))) base = f;
+        }
+        if (base == null) return chain;
+
+        chain.add(base);
+        String chainId = readHeader(base).chain;
+        for (long next = number(base) + 1; ; next++) {
+            File delta = new File(dir, String.format(Locale.ROOT, "%06d", next) + DELTA);
+            if (!delta.isFile() || !chainId.equals(readHeader(delta).chain)) break;
+            chain.add(delta);
+        }
+        return chain;
+    }
+
+    private static boolean isBackupFile(File f) {
+        String name = f.getName();
+        int dot = name.indexOf('.');
+        return dot == 6 && (name.endsWith(BASE) || name.endsWith(DELTA))
+                && name.substring(0, 6).chars().allMatch(Character::isDigit);
+    }
+
+    private static long number(File f) {
+        return Long.parseLong(f.getName().substring(0, 6));
+    }
+
+    private static Header readHeader(File file) throws IOException {
+        try (Reader in = new Reader(file)) {
+            return in.header;
+        }
+    }
+
+    private static <T> T await(Future<T> job) throws IOException {
+        try {
+            return job.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Backup interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    /** What a file's header says about where it belongs. */
+    static final class Header {
+        final String chain;
+        final long number;
+
+        Header(String chain, long number) {
+            this.chain  = chain;
+            this.number = number;
+        }
+    }
+
+    /**
+     * Header (magic, format version, base flag, chain id, number, creation
+     * time), then tagged records, then END and the record count. Strings are
+     * a length and UTF-8 bytes, -1 for null. Written to a .tmp file and
+     * synced before the caller renames it into place.
+     */
+    private static final class Writer implements AutoCloseable {
+        private final FileOutputStream file;
+        private final GZIPOutputStream gzip;
+        private final DataOutputStream out;
+        private int records;
+
+        Writer(File partial, boolean base, String chain, long number) throws IOException {
+            file = new FileOutputStream(partial);
+            gzip = new GZIPOutputStream(file, 64 * 1024);
+            out  = new DataOutputStream(new BufferedOutputStream(gzip, 64 * 1024));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeBoolean(base);
+            string(chain);
+            out.writeLong(number);
+            out.writeLong(System.currentTimeMillis());
+        }
+
+        /** From {@link #FOLDER_COLUMNS} starting at column {@code i}. */
+        void folder(Cursor c, int i) throws IOException {
+            out.writeByte(FOLDER);
+            out.writeLong(c.getLong(i));
+            string(c.getString(i + 1));
+            string(c.getString(i + 2));
+            records++;
+        }
+
+        /** From {@link #JOURNAL_COLUMNS} starting at column {@code i}; compressed content stays compressed. */
+        void journal(Cursor c, int i) throws IOException {
+            out.writeByte(JOURNAL);
+            out.writeLong(c.getLong(i));
+            string(c.getString(i + 1));
+            boolean packed = c.getType(i + 2) == Cursor.FIELD_TYPE_BLOB;
+            out.writeBoolean(packed);
+            bytes(packed ? c.getBlob(i + 2) : c.getString(i + 2).getBytes(StandardCharsets.UTF_8));
+            out.writeLong(c.isNull(i + 3) ? JournalRecord.NO_FOLDER : c.getLong(i + 3));
+            out.writeLong(c.getLong(i + 4));
+            out.writeLong(c.getLong(i + 5));
+            string(c.getString(i + 6));
+            string(c.getString(i + 7));
+            out.writeInt(c.getInt(i + 8));
+            out.writeInt(c.getInt(i + 9));
+            records++;
+        }
+
+        void deleted(byte tag, long id) throws IOException {
+            out.writeByte(tag);
+            out.writeLong(id);
+            records++;
+        }
+
+        void finish() throws IOException {
+            out.writeByte(END);
+            out.writeInt(records);
+            out.flush();
+            gzip.finish();
+            file.getFD().sync();
+        }
+
+        private void string(String s) throws IOException {
+            bytes(s == null ? null : s.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void bytes(byte[] b) throws IOException {
+            if (b == null) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(b.length);
+            out.write(b);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private static final class Reader implements AutoCloseable {
+        private final DataInputStream in;
+        private final TimestampCodec local = TimestampCodec.local();
+        final Header header;
+
+        Reader(File file) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file), 64 * 1024)));
+            try {
+                if (in.readInt() != MAGIC) throw new IOException(file.getName() + " isn't a journal backup");
+                int version = in.readInt();
+                if (version > VERSION) throw new IOException(file.getName() + " is from a newer version of the app");
+                in.readBoolean();  // base; the file name says so too
+                header = new Header(string(), in.readLong());
+                in.readLong();     // created
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        /** Apply every record; throws if the file ends early or is corrupt. */
+        void replay(SQLiteDatabase db) throws IOException {
+            int records = 0;
+            while (true) {
+                byte tag;
+                try {
+                    tag = in.readByte();
+                } catch (EOFException e) {
+                    throw new IOException("Backup file cut short", e);
+                }
+                switch (tag) {
+                    case FOLDER:
+                        putFolder(db);
+                        break;
+                    case JOURNAL:
+                        putJournal(db);
+                        break;
+                    case FOLDER_DELETED:
+                        db.delete(DatabaseHelper.TABLE_FOLDERS, DatabaseHelper.COLUMN_FOLDER_ID + " = ?",
+                                new String[]{ String.valueOf(in.readLong()) });
+                        break;
+                    case JOURNAL_DELETED:
+                        db.delete(DatabaseHelper.TABLE_JOURNALS, DatabaseHelper.COLUMN_JOURNAL_ID + " = ?",
+                                new String[]{ String.valueOf(in.readLong()) });
+                        break;
+                    case END:
+                        if (in.readInt() != records) throw new IOException("Backup record count mismatch");
+                        return;
+                    default:
+                        throw new IOException("Corrupt backup record " + tag);
+                }
+                records++;
+            }
+        }
+
+        private void putFolder(SQLiteDatabase db) throws IOException {
+            long id = in.readLong();
+            ContentValues values = new ContentValues();
+            values.put(DatabaseHelper.COLUMN_FOLDER_NAME, string());
+            values.put(DatabaseHelper.COLUMN_FOLDER_ICON, string());
+            upsert(db, DatabaseHelper.TABLE_FOLDERS, DatabaseHelper.COLUMN_FOLDER_ID, id, values);
+        }
+
+        /**
+         * Update in place or insert, never REPLACE: that would delete the
+         * row first and, for a folder, cascade to its journals.
+         */
+        private void putJournal(SQLiteDatabase db) throws IOException {
+            long id = in.readLong();
+            String title = string();
+            boolean packed = in.readBoolean();
+            byte[] content = bytes();
+            long folderId = in.readLong();
+
+            ContentValues values = new ContentValues();
+            values.put(DatabaseHelper.COLUMN_JOURNAL_TITLE, title);
+            if (packed) {
+                values.put(DatabaseHelper.COLUMN_JOURNAL_CONTENT, content);
+            } else {
+                values.put(DatabaseHelper.COLUMN_JOURNAL_CONTENT, new String(content, StandardCharsets.UTF_8));
+            }
+            if (folderId == JournalRecord.NO_FOLDER) {
+                values.putNull(DatabaseHelper.COLUMN_JOURNAL_FOLDER_ID);
+            } else {
+                values.put(DatabaseHelper.COLUMN_JOURNAL_FOLDER_ID, folderId);
+            }
+            values.put(DatabaseHelper.COLUMN_JOURNAL_DATE_ADDED, in.readLong());
+            long modified = in.readLong();
+            values.put(DatabaseHelper.COLUMN_JOURNAL_DATE_MODIFIED, modified);
+            values.put(DatabaseHelper.COLUMN_JOURNAL_MONTH_KEY, DatabaseHelper.monthKey(local, modified));
+            values.put(DatabaseHelper.COLUMN_JOURNAL_MOOD, string());
+            values.put(DatabaseHelper.COLUMN_JOURNAL_EXCERPT, string());
+            values.put(DatabaseHelper.COLUMN_JOURNAL_WORDS, in.readInt());
+            values.put(DatabaseHelper.COLUMN_JOURNAL_CHARS, in.readInt());
+            upsert(db, DatabaseHelper.TABLE_JOURNALS, DatabaseHelper.COLUMN_JOURNAL_ID, id, values);
+            // The search triggers skip compressed rows
+            if (packed) DatabaseHelper.indexContent(db, id, title, ContentCodec.decompress(content));
+        }
+
+        private static void upsert(SQLiteDatabase db, String table, String idColumn, long id, ContentValues values) {
+            if (db.update(table, values, idColumn + " = ?", new String[]{ String.valueOf(id) }) == 0) {
+                values.put(idColumn, id);
+                db.insertOrThrow(table, null, values);
+            }
+        }
+
+        private String string() throws IOException {
+            byte[] b = bytes();
+            return b == null ? null : new String(b, StandardCharsets.UTF_8);
+        }
+
+        private byte[] bytes() throws IOException {
+            int length = in.readInt();
+            if (length < 0) return null;
+            byte[] b = new byte[length];
+            in.readFully(b);
+            return b;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
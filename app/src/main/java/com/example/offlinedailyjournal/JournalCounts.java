@@ -0,0 +1,108 @@
+package com.example.offlinedailyjournal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Entries per year and month, from the month counts table. Drives the
+ * Year/Month spinners ("2024 (312)") and the empty state without touching
+ * the journals table. Immutable.
+ */
+public final class JournalCounts {
+
+    public static final JournalCounts EMPTY = new Builder().build();
+
+    private final TreeMap<Integer, int[]> byYear;  // newest year first; 12 months each
+    private final int total;
+
+    private JournalCounts(TreeMap<Integer, int[]> byYear) {
+        this.byYear = byYear;
+        int sum = 0;
+        for (int[] months : byYear.values()) {
+            for (int n : months) sum += n;
+        }
+        this.total = sum;
+    }
+
+    public static final class Builder {
+        private final TreeMap<Integer, int[]> byYear = new TreeMap<>(Collections.reverseOrder());
+
+        /** month is 0-based, like {@link java.util.Calendar#MONTH}. */
+        public Builder add(int year, int month, int entries) {
+            if (entries <= 0 || month < 0 || month > 11) return this;
+            int[] months = byYear.get(year);
+            if (months == null) {
+                months = new int[12];
+                byYear.put(year, months);
+            }
+            months[month] += entries;
+            return this;
+        }
+
+        public JournalCounts build() {
+            return new JournalCounts(byYear);
+        }
+    }
+
+    public int total() {
+        return total;
+    }
+
+    /** Years with entries, newest first. */
+    public List<Integer> years() {
+        return new ArrayList<>(byYear.keySet());
+    }
+
+    /** Entries matching the filter; {@link JournalFilter#ALL} acts as a wildcard. */
+    public int count(JournalFilter filter) {
+        return count(filter.year, filter.month);
+    }
+
+    private int count(int year, int month) {
+        if (year == JournalFilter.ALL && month == JournalFilter.ALL) return total;
+        int sum = 0;
+        for (Map.Entry<Integer, int[]> e : byYear.entrySet()) {
+            if (year != JournalFilter.ALL && e.getKey() != year) continue;
+            int[] months = e.getValue();
+            if (month != JournalFilter.ALL) {
+                sum += months[month];
+            } else {
+                for (int n : months) sum += n;
+            }
+        }
+        return sum;
+    }
+
+    /** "All (412)", then one "2024 (312)" per year, newest first. */
+    public List<String> yearLabels() {
+        List<String> labels = new ArrayList<>(byYear.size() + 1);
+        labels.add(label("All", total));
+        for (Map.Entry<Integer, int[]> e : byYear.entrySet()) {
+            labels.add(label(String.valueOf(e.getKey()), count(e.getKey(), JournalFilter.ALL)));
+        }
+        return labels;
+    }
+
+    /**
+     * "All (n)" then January..December with their counts within the year
+     * ({@link JournalFilter#ALL} for every year). Always 13 items, so a
+     * month keeps its spinner position when the year changes.
+     */
+    public List<String> monthLabels(int year) {
+        TimestampCodec codec = TimestampCodec.local();
+        List<String> labels = new ArrayList<>(13);
+        labels.add(label("All", count(year, JournalFilter.ALL)));
+        for (int m = 0; m < 12; m++) {
+            labels.add(label(codec.monthName(m), count(year, m)));
+        }
+        return labels;
+    }
+
+    /** Counts are left off empty options, and off everything before the counts load. */
+    private static String label(String name, int count) {
+        return count > 0 ? name + " (" + count + ")" : name;
+    }
+}
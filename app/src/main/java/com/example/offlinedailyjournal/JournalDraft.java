@@ -0,0 +1,62 @@
+package com.example.offlinedailyjournal;
+
+/**
+ * Unsaved editor state, autosaved to the drafts table so an entry survives
+ * the app being killed before Save is pressed. A draft belongs either to an
+ * existing entry or to a new entry in a folder; {@link #key} tells them
+ * apart. Immutable.
+ */
+public final class JournalDraft {
+
+    /** journalId of a draft for an entry that hasn't been saved yet. */
+    public static final long NEW_ENTRY = -1;
+
+    public final long   journalId;
+    public final long   folderId;
+    public final String title;
+    public final String content;
+    public final String mood;   // null for none
+    public final long   hash;   // of title, content and mood; see hash()
+
+    public JournalDraft(long journalId, long folderId, String title, String content, String mood) {
+        this(journalId, folderId, title, content, mood, hash(title, content, mood));
+    }
+
+    JournalDraft(long journalId, long folderId, String title, String content, String mood, long hash) {
+        this.journalId = journalId;
+        this.folderId  = folderId;
+        this.title     = title;
+        this.content   = content;
+        this.mood      = mood;
+        this.hash      = hash;
+    }
+
+    /** Drafts table key: one draft per existing entry, one new-entry draft per folder. */
+    public String key() {
+        return key(journalId, folderId);
+    }
+
+    public static String key(long journalId, long folderId) {
+        return journalId != NEW_ENTRY ? "journal:" + journalId : "folder:" + folderId;
+    }
+
+    /**
+     * 64-bit FNV-1a over the fields, with separators so moving text between
+     * title and content changes it. Cheap enough to run on every autosave
+     * tick; a match means there is nothing new to write.
+     */
+    public static long hash(String title, String content, String mood) {
+        long h = 0xcbf29ce484222325L;
+        h = mix(h, title);
+        h = mix((h ^ 0x1F) * 0x100000001b3L, content);
+        h = (h ^ 0x1F) * 0x100000001b3L;
+        return mood != null ? mix(h, mood) : h ^ 0xFF;
+    }
+
+    private static long mix(long h, String s) {
+        for (int i = 0, n = s.length(); i < n; i++) {
+            h = (h ^ s.charAt(i)) * 0x100000001b3L;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.offlinedailyjournal;
+
+/**
+ * A row of the journals table. List queries leave {@link #content} null and
+ * carry its {@link #summary} instead; only the editor loads the full text.
+ * The all-journals list also carries the owning folder's name and color so
+ * cards can be styled.
+ */
+public class JournalEntry {
+    public final long   id;
+    public final String title;
+    public final String content;
+    public final long   folderId;
+    public final long   dateAdded;     // epoch millis
+    public final long   dateModified;  // epoch millis
+    public final String mood;
+    public final String folderName;
+    public final String folderColor;
+    public final JournalSummary summary;
+
+    public JournalEntry(long id, String title, String content, long folderId,
+                        long dateAdded, long dateModified, String mood) {
+        this(id, title, content, folderId, dateAdded, dateModified, mood, null, null);
+    }
+
+    public JournalEntry(long id, String title, String content, long folderId,
+                        long dateAdded, long dateModified, String mood,
+                        String folderName, String folderColor) {
+        this(id, title, content, folderId, dateAdded, dateModified, mood, folderName, folderColor,
+                JournalSummary.of(content));
+    }
+
+    public JournalEntry(long id, String title, String content, long folderId,
+                        long dateAdded, long dateModified, String mood,
+                        String folderName, String folderColor, JournalSummary summary) {
+        this.id           = id;
+        this.title        = title;
+        this.content      = content;
+        this.folderId     = folderId;
+        this.dateAdded    = dateAdded;
+        this.dateModified = dateModified;
+        this.mood         = mood;
+        this.folderName   = folderName;
+        this.folderColor  = folderColor;
+        this.summary      = summary;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.offlinedailyjournal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Exports every journal entry to a zip of Markdown files plus a JSON
+ * manifest (see {@link JournalZipWriter}), reading the journals table in
+ * id-ordered chunks of {@link #CHUNK}. Only one chunk is in memory at a
+ * time and each entry is streamed into the zip as soon as it is read, so
+ * the heap an export needs doesn't depend on the size of the journal.
+ * Blocking; run it off the main thread.
+ */
+public class JournalExporter {
+
+    /** Entries read per query. */
+    static final int CHUNK = 100;
+
+    /** After each chunk: entries written so far, out of about {@code total}. */
+    public interface Progress {
+        void onProgress(int exported, int total);
+    }
+
+    public static final class Result {
+        public final int entries;
+        public final long zipBytes;
+
+        Result(int entries, long zipBytes) {
+            this.entries  = entries;
+            this.zipBytes = zipBytes;
+        }
+    }
+
+    private final DatabaseHelper dbHelper;
+    private final TimestampCodec codec;
+
+    public JournalExporter(DatabaseHelper dbHelper, TimestampCodec codec) {
+        this.dbHelper = dbHelper;
+        this.codec    = codec;
+    }
+
+    /**
+     * Write the export to {@code out} and close it. {@code spoolDir} (e.g.
+     * the cache directory) holds the manifest while entries are written.
+     */
+    public Result export(OutputStream out, File spoolDir, Progress progress) throws IOException {
+        int total = dbHelper.getJournalCounts(DatabaseHelper.ALL_FOLDERS).total();
+        try (JournalZipWriter zip = new JournalZipWriter(out, spoolDir, codec)) {
+            long afterId = 0;
+            List<JournalEntry> chunk;
+            while (!(chunk = dbHelper.getJournalsAfter(afterId, CHUNK)).isEmpty()) {
+                for (JournalEntry e : chunk) {
+                    zip.add(e.id, e.folderName, e.title, e.content, e.mood, e.dateAdded, e.dateModified);
+                }
+                afterId = chunk.get(chunk.size() - 1).id;
+                if (progress != null) progress.onProgress(zip.entries(), Math.max(total, zip.entries()));
+            }
+            zip.finish(System.currentTimeMillis());
+            return new Result(zip.entries(), zip.zipBytes());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.offlinedailyjournal;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * The Year/Month spinner selection, turned into date_modified ranges so the
+ * filtering happens in SQL on the date index rather than row by row in Java.
+ */
+public final class JournalFilter {
+
+    /** Year or month value meaning "All". */
+    public static final int ALL = -1;
+
+    public static final JournalFilter NONE = new JournalFilter(ALL, ALL);
+
+    public final int year;   // e.g. 2024, or ALL
+    public final int month;  // Calendar.JANUARY..Calendar.DECEMBER, or ALL
+
+    public JournalFilter(int year, int month) {
+        this.year  = year;
+        this.month = month;
+    }
+
+    /**
+     * From the spinners: the year item ("All" or "2024", optionally followed
+     * by a count as in "2024 (312)") and the month position, where 0 is
+     * "All" and 1..12 are January..December.
+     */
+    public static JournalFilter fromSpinners(String yearItem, int monthPosition) {
+        int space = yearItem.indexOf(' ');
+        String value = space < 0 ? yearItem : yearItem.substring(0, space);
+        int year = "All".equals(value) ? ALL : Integer.parseInt(value);
+        int month = monthPosition <= 0 ? ALL : monthPosition - 1;
+        return new JournalFilter(year, month);
+    }
+
+    public boolean isAll() {
+        return year == ALL && month == ALL;
+    }
+
+    /** "March 2024", "2024", "March", or "any month", for the empty state. */
+    public String describe() {
+        if (isAll()) return "any month";
+        if (month == ALL) return String.valueOf(year);
+        String name = TimestampCodec.local().monthName(month);
+        return year == ALL ? name : name + " " + year;
+    }
+
+    /**
+     * Inclusive [start, end] epoch-millis ranges in the default time zone.
+     * A month without a year needs one range per year, so the caller passes
+     * the span of years that actually hold entries; it is ignored when a
+     * year is selected.
+     */
+    public List<long[]> ranges(int firstYear, int lastYear) {
+        List<long[]> ranges = new ArrayList<>();
+        if (isAll()) return ranges;
+        if (year != ALL) firstYear = lastYear = year;
+
+        TimestampCodec codec = TimestampCodec.local();
+        for (int y = firstYear; y <= lastYear; y++) {
+            int first = month == ALL ? Calendar.JANUARY : month;
+            int next  = month == ALL ? first + 12 : first + 1;
+            ranges.add(new long[]{ codec.startOfMonth(y, first), codec.startOfMonth(y, next) - 1 });
+        }
+        return ranges;
+    }
+
+    /** Local calendar year of an epoch-millis timestamp. */
+    static int yearOf(long millis) {
+        return TimestampCodec.local().year(millis);
+    }
+}
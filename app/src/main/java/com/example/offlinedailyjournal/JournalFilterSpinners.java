@@ -0,0 +1,84 @@
+package com.example.offlinedailyjournal;
+
+import android.content.Context;
+import android.view.View;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
+import android.widget.Spinner;
+
+import java.util.ArrayList;
+
+/**
+ * The Year/Month spinner pair above both journal lists. Options are
+ * labelled with their entry counts from {@link JournalCounts}; updating the
+ * counts keeps the current selection where it still exists.
+ */
+public class JournalFilterSpinners {
+
+    public interface Listener {
+        void onFilterChanged(JournalFilter filter);
+    }
+
+    private final Spinner yearSpinner;
+    private final Spinner monthSpinner;
+    private final ArrayAdapter<String> yearAdapter;
+    private final ArrayAdapter<String> monthAdapter;
+    private JournalCounts counts = JournalCounts.EMPTY;
+
+    public JournalFilterSpinners(Context context, Spinner yearSpinner, Spinner monthSpinner, Listener listener) {
+        this.yearSpinner  = yearSpinner;
+        this.monthSpinner = monthSpinner;
+
+        yearAdapter = new ArrayAdapter<>(context, android.R.layout.simple_spinner_dropdown_item,
+                new ArrayList<>(counts.yearLabels()));
+        monthAdapter = new ArrayAdapter<>(context, android.R.layout.simple_spinner_dropdown_item,
+                new ArrayList<>(counts.monthLabels(JournalFilter.ALL)));
+        yearSpinner.setAdapter(yearAdapter);
+        monthSpinner.setAdapter(monthAdapter);
+
+        AdapterView.OnItemSelectedListener changed = new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int pos, long id) {
+                if (parent == yearSpinner) updateMonthLabels();
+                listener.onFilterChanged(getFilter());
+            }
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {}
+        };
+        yearSpinner.setOnItemSelectedListener(changed);
+        monthSpinner.setOnItemSelectedListener(changed);
+    }
+
+    public JournalFilter getFilter() {
+        Object year = yearSpinner.getSelectedItem();
+        return JournalFilter.fromSpinners(year != null ? year.toString() : "All",
+                monthSpinner.getSelectedItemPosition());
+    }
+
+    public JournalCounts getCounts() {
+        return counts;
+    }
+
+    /** Relabel both spinners. A year that no longer has entries falls back to "All". */
+    public void setCounts(JournalCounts counts) {
+        this.counts = counts;
+        int selectedYear = getFilter().year;
+
+        yearAdapter.setNotifyOnChange(false);
+        yearAdapter.clear();
+        yearAdapter.addAll(counts.yearLabels());
+        yearAdapter.notifyDataSetChanged();
+        int yearPos = counts.years().indexOf(selectedYear);
+        yearSpinner.setSelection(yearPos + 1); // 0 = "All" when not found
+
+        updateMonthLabels();
+    }
+
+    private void updateMonthLabels() {
+        // Always 13 labels, so the selected month keeps its position
+        monthAdapter.setNotifyOnChange(false);
+        monthAdapter.clear();
+        monthAdapter.addAll(counts.monthLabels(getFilter().year));
+        monthAdapter.notifyDataSetChanged();
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.offlinedailyjournal;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Imports a {@link JournalArchive} of any size. Entries stream out of the
+ * archive and are committed {@link #BATCH} at a time, each batch in one
+ * transaction with the compiled journal insert. Parsing the next batch
+ * overlaps with the write queue committing the previous one.
+ *
+ * Resumable: every batch records, in its own transaction, how many of the
+ * archive's entries are done, under a key the caller picks for the archive
+ * (e.g. its URI and size). Running the same key again skips that many
+ * entries without writing them and carries on; the checkpoint is dropped
+ * once the archive has been read to the end.
+ *
+ * Folders are matched by name, ignoring case, and created with
+ * {@link DatabaseHelper#insertFolder} when missing; entries that name no
+ * folder go to the caller's. Blank entries are skipped. Blocking; run it
+ * off the main thread.
+ */
+public class JournalImporter {
+
+    /** Entries per transaction. */
+    static final int BATCH = 1000;
+
+    /** Colour for folders an import creates ("Sky" in the folder picker). */
+    static final String IMPORTED_FOLDER_COLOR = "#B2D7F3";
+
+    /** After each committed batch: entries read so far and bytes of the archive consumed. */
+    public interface Progress {
+        void onProgress(int entries, long bytesRead);
+    }
+
+    public static final class Result {
+        public final int imported;
+        public final int resumedPast;     // already imported by an earlier, interrupted run
+        public final int blank;
+        public final int foldersCreated;
+
+        Result(int imported, int resumedPast, int blank, int foldersCreated) {
+            this.imported       = imported;
+            this.resumedPast    = resumedPast;
+            this.blank          = blank;
+            this.foldersCreated = foldersCreated;
+        }
+    }
+
+    private final DatabaseHelper dbHelper;
+    private final JournalWriteQueue writes;
+    private final TimestampCodec codec;
+
+    public JournalImporter(DatabaseHelper dbHelper, JournalWriteQueue writes, TimestampCodec codec) {
+        this.dbHelper = dbHelper;
+        this.writes   = writes;
+        this.codec    = codec;
+    }
+
+    /**
+     * Import {@code in} (closed when done) under {@code importKey}. Entries
+     * without a folder of their own go to {@code folderId}, which may be
+     * {@link JournalRecord#NO_FOLDER}. Throws if the archive can't be read
+     * or a batch can't be written; everything committed before that stays,
+     * and running again with the same key resumes after it.
+     */
+    public Result importArchive(String importKey, JournalArchive.Format format, InputStream in,
+                                long folderId, Progress progress) throws IOException {
+        int resumeAt = dbHelper.getImportPosition(importKey);
+        Map<String, Long> folders = new HashMap<>();
+        for (Folder f : dbHelper.getFolders()) folders.putIfAbsent(folderKey(f.name), f.id);
+
+        CountingInputStream counted = new CountingInputStream(in);
+        long now = System.currentTimeMillis();
+        int position = 0;
+        int imported = 0;
+        int blank = 0;
+        int created = 0;
+        List<JournalRecord> batch = new ArrayList<>(BATCH);
+        Future<long[]> inFlight = null;
+        int inFlightPosition = 0;
+
+        InputStream buffered = new BufferedInputStream(counted, 64 * 1024);
+        try (JournalArchive.Reader reader = JournalArchive.open(format, buffered, codec)) {
+            JournalArchive.Entry entry;
+            while ((entry = reader.next()) != null) {
+                position++;
+                if (position <= resumeAt) continue;
+                if (entry.isBlank()) {
+                    blank++;
+                    continue;
+                }
+
+                long target = folderId;
+                if (entry.folder != null && !entry.folder.trim().isEmpty()) {
+                    String key = folderKey(entry.folder);
+                    Long id = folders.get(key);
+                    if (id == null) {
+                        String name = entry.folder.trim();
+                        id = await(writes.submit(() -> dbHelper.insertFolder(name, IMPORTED_FOLDER_COLOR),
+                                newId -> newId == -1));
+                        if (id == -1) throw new IOException("Couldn't create folder " + name);
+                        folders.put(key, id);
+                        created++;
+                    }
+                    target = id;
+                }
+                batch.add(record(entry, target, now));
+
+                if (batch.size() == BATCH) {
+                    if (inFlight != null) {
+                        await(inFlight);
+                        report(progress, inFlightPosition, counted);
+                    }
+                    imported += batch.size();
+                    inFlight = submitBatch(importKey, position, batch);
+                    inFlightPosition = position;
+                    batch = new ArrayList<>(BATCH);
+                }
+            }
+
+            if (inFlight != null) {
+                await(inFlight);
+                report(progress, inFlightPosition, counted);
+            }
+            if (!batch.isEmpty()) {
+                imported += batch.size();
+                await(submitBatch(importKey, position, batch));
+                report(progress, position, counted);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Let a batch already handed over land first, so a resumed run starts after it
+            if (inFlight != null) {
+                try {
+                    inFlight.get();
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ignored) {
+                    // Nothing more to save; e says what went wrong first
+                }
+            }
+            throw e;
+        }
+        await(writes.submit(() -> dbHelper.finishImport(importKey)));
+        return new Result(imported, Math.min(resumeAt, position), blank, created);
+    }
+
+    private Future<long[]> submitBatch(String importKey, int position, List<JournalRecord> records) {
+        return writes.submit(() -> dbHelper.insertImportBatch(importKey, position, records));
+    }
+
+    private static void report(Progress progress, int position, CountingInputStream in) {
+        if (progress != null) progress.onProgress(position, in.count);
+    }
+
+    /** Dates an archive leaves out fall back to each other, then to the time of the import. */
+    private static JournalRecord record(JournalArchive.Entry e, long folderId, long now) {
+        long added    = e.dateAdded    != JournalArchive.NO_DATE ? e.dateAdded
+                      : e.dateModified != JournalArchive.NO_DATE ? e.dateModified : now;
+        long modified = e.dateModified != JournalArchive.NO_DATE ? e.dateModified : added;
+        String mood = e.mood == null || e.mood.trim().isEmpty() ? null : e.mood.trim();
+        return new JournalRecord(e.title == null ? "" : e.title.trim(), e.content == null ? "" : e.content,
+                folderId, mood, added, modified);
+    }
+
+    private static String folderKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** The write's result; its failure as an IOException, or rethrown if unchecked. */
+    private static <T> T await(Future<T> write) throws IOException {
+        try {
+            return write.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException("Import batch failed", cause);
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
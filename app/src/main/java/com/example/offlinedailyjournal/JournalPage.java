@@ -0,0 +1,19 @@
+package com.example.offlinedailyjournal;
+
+import java.util.List;
+
+/** One keyset page of list rows, newest first. */
+public class JournalPage {
+    public final List<JournalEntry> entries;
+    public final boolean hasMore;
+
+    public JournalPage(List<JournalEntry> entries, boolean hasMore) {
+        this.entries = entries;
+        this.hasMore = hasMore;
+    }
+
+    /** The row the next page continues after, or null if this page is empty. */
+    public JournalEntry last() {
+        return entries.isEmpty() ? null : entries.get(entries.size() - 1);
+    }
+}
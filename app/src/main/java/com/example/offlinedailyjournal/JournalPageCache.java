@@ -0,0 +1,172 @@
+package com.example.offlinedailyjournal;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Recently loaded list pages, so flipping the Year/Month spinners back to
+ * a selection already seen doesn't run its query again. Least recently
+ * used pages go first once there are more than {@code maxPages} or their
+ * estimated size passes {@code maxBytes}.
+ *
+ * Each page is stored with the write generation it was read at (see
+ * {@link InvalidationTracker}); a lookup at any other generation is a miss
+ * and drops the page, so a cached page is never older than the last
+ * commit. Read the generation before running the query: a write that
+ * lands during it then makes the page stale rather than wrongly fresh.
+ *
+ * Hit and miss counts are kept for tuning the bounds. Thread-safe.
+ */
+public final class JournalPageCache {
+
+    static final int  DEFAULT_MAX_PAGES = 32;
+    static final long DEFAULT_MAX_BYTES = 2L * 1024 * 1024;
+
+    /**
+     * What identifies a page: folder, Year/Month selection and keyset
+     * position. There is one sort order (date modified, newest first), so
+     * it isn't part of the key.
+     */
+    static final class Key {
+        final long folderId;
+        final int  year;
+        final int  month;
+        final long afterModified;  // Long.MIN_VALUE for the first page
+        final long afterId;
+        final int  limit;
+
+        Key(long folderId, JournalFilter filter, JournalEntry after, int limit) {
+            this.folderId      = folderId;
+            this.year          = filter.year;
+            this.month         = filter.month;
+            this.afterModified = after == null ? Long.MIN_VALUE : after.dateModified;
+            this.afterId       = after == null ? 0 : after.id;
+            this.limit         = limit;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return folderId == k.folderId && year == k.year && month == k.month
+                    && afterModified == k.afterModified && afterId == k.afterId && limit == k.limit;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(folderId, year, month, afterModified, afterId, limit);
+        }
+    }
+
+    private static final class Cached {
+        final JournalPage page;
+        final long generation;
+        final long bytes;
+
+        Cached(JournalPage page, long generation, long bytes) {
+            this.page       = page;
+            this.generation = generation;
+            this.bytes      = bytes;
+        }
+    }
+
+    private final int maxPages;
+    private final long maxBytes;
+    // Access order: iteration starts at the least recently used. Guarded by this.
+    private final LinkedHashMap<Key, Cached> pages = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+
+    public JournalPageCache() {
+        this(DEFAULT_MAX_PAGES, DEFAULT_MAX_BYTES);
+    }
+
+    public JournalPageCache(int maxPages, long maxBytes) {
+        this.maxPages = maxPages;
+        this.maxBytes = maxBytes;
+    }
+
+    /** The page stored under {@code key} at this generation, or null. */
+    public synchronized JournalPage get(Key key, long generation) {
+        Cached cached = pages.get(key);
+        if (cached != null && cached.generation == generation) {
+            hits++;
+            return cached.page;
+        }
+        if (cached != null) remove(key);
+        misses++;
+        return null;
+    }
+
+    /**
+     * Store a page read at {@code generation} and return the read-only copy
+     * later hits will share. A page too big to ever fit isn't kept.
+     */
+    public synchronized JournalPage put(Key key, long generation, JournalPage page) {
+        long size = sizeOf(page);
+        remove(key);
+        if (size > maxBytes) return page;
+        JournalPage frozen = new JournalPage(Collections.unmodifiableList(page.entries), page.hasMore);
+        pages.put(key, new Cached(frozen, generation, size));
+        bytes += size;
+
+        Iterator<Map.Entry<Key, Cached>> eldest = pages.entrySet().iterator();
+        while ((pages.size() > maxPages || bytes > maxBytes) && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().bytes;
+            eldest.remove();
+        }
+        return frozen;
+    }
+
+    public synchronized void clear() {
+        pages.clear();
+        bytes = 0;
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized int size() {
+        return pages.size();
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        long lookups = hits + misses;
+        return "JournalPageCache{" + pages.size() + " pages, " + bytes / 1024 + " KiB, "
+                + hits + " hits / " + misses + " misses"
+                + (lookups > 0 ? " (" + (100 * hits / lookups) + "%)" : "") + "}";
+    }
+
+    private void remove(Key key) {
+        Cached old = pages.remove(key);
+        if (old != null) bytes -= old.bytes;
+    }
+
+    /** Rough heap size: Java strings at two bytes a char plus object overhead per row. */
+    static long sizeOf(JournalPage page) {
+        long size = 64;
+        for (JournalEntry e : page.entries) {
+            size += 120 + 2L * (length(e.title) + length(e.folderName) + length(e.folderColor)
+                    + length(e.mood) + length(e.content) + length(e.summary.excerpt));
+        }
+        return size;
+    }
+
+    private static int length(String s) {
+        return s == null ? 0 : s.length();
+    }
+}
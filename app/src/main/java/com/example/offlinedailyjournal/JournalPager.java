@@ -0,0 +1,131 @@
+package com.example.offlinedailyjournal;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * Incremental loader for the journal lists. Pages are fetched through
+ * {@link JournalRepository#loadJournalPage} keyed on the last row shown, and
+ * as soon as a page is handed to the screen the next one is prefetched so
+ * scrolling rarely has to wait. Main thread only.
+ */
+public class JournalPager {
+
+    public static final int PAGE_SIZE = 50;
+
+    public interface Listener {
+        /** Rows to append; {@code first} means the list restarted and should be cleared. */
+        void onPage(List<JournalEntry> entries, boolean first);
+
+        /**
+         * A page the screen was waiting for couldn't be read. The pager
+         * still wants it, so the next {@link JournalPager#loadMore} or refresh tries
+         * again; a failed prefetch is only retried.
+         */
+        void onError(Exception e);
+    }
+
+    private final JournalRepository repository;
+    private final long folderId;
+    private final Listener listener;
+
+    private JournalFilter filter = JournalFilter.NONE;
+    private int generation;           // bumped by reset(); older results are dropped
+    private boolean first;            // next delivered page starts a new list
+    private boolean hasMore;          // more rows exist past the last delivered page
+    private boolean wantMore;         // screen asked for a page that isn't here yet
+    private JournalEntry fetchAfter;  // keyset position of the next fetch
+    private int fetchLimit = PAGE_SIZE;
+    private int delivered;            // rows handed to the screen since the last reset
+    private JournalPage prefetched;
+    private Future<?> inFlight;
+
+    public JournalPager(JournalRepository repository, long folderId, Listener listener) {
+        this.repository = repository;
+        this.folderId   = folderId;
+        this.listener   = listener;
+    }
+
+    /** Start over from the newest entry, e.g. after a filter change. */
+    public void reset(JournalFilter filter) {
+        restart(filter, PAGE_SIZE);
+    }
+
+    /**
+     * Reload with the same filter, fetching at least as many rows as are
+     * already shown so the list (and its scroll position) survives a return
+     * from the editor.
+     */
+    public void refresh() {
+        restart(filter, Math.max(PAGE_SIZE, delivered));
+    }
+
+    private void restart(JournalFilter filter, int firstPageSize) {
+        if (inFlight != null) inFlight.cancel(false);
+        this.filter = filter;
+        generation++;
+        delivered  = 0;
+        fetchLimit = firstPageSize;
+        first      = true;
+        hasMore    = true;
+        wantMore   = true;
+        fetchAfter = null;
+        prefetched = null;
+        fetch();
+    }
+
+    /** The screen is close to the end of what it has; append the next page. */
+    public void loadMore() {
+        if (!hasMore) return;
+        if (prefetched != null) {
+            JournalPage page = prefetched;
+            prefetched = null;
+            deliver(page);
+        } else {
+            wantMore = true;
+            if (inFlight == null) fetch();
+        }
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    private void fetch() {
+        int gen = generation;
+        int limit = fetchLimit;
+        fetchLimit = PAGE_SIZE;
+        inFlight = repository.loadJournalPage(folderId, filter, fetchAfter, limit,
+                new JournalRepository.Callback<JournalPage>() {
+                    @Override
+                    public void onResult(JournalPage page) {
+                        if (gen != generation) return;
+                        inFlight = null;
+                        fetchAfter = page.last();
+                        if (wantMore) {
+                            wantMore = false;
+                            deliver(page);
+                        } else {
+                            prefetched = page;
+                        }
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        if (gen != generation) return;
+                        inFlight = null;
+                        fetchLimit = Math.max(fetchLimit, limit);
+                        if (wantMore) listener.onError(e);
+                    }
+                });
+    }
+
+    private void deliver(JournalPage page) {
+        hasMore = page.hasMore;
+        delivered += page.entries.size();
+        boolean restart = first;
+        first = false;
+        listener.onPage(page.entries, restart);
+        if (hasMore && inFlight == null && prefetched == null) fetch(); // prefetch
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.offlinedailyjournal;
+
+/**
+ * Everything needed to write one journals row, so an entry can be saved in
+ * a single statement rather than inserted and then patched. Timestamps are
+ * epoch millis; {@link #now} stamps both with the current time. Immutable.
+ */
+public final class JournalRecord {
+
+    /** folderId for an entry that isn't in any folder; stored as NULL. */
+    public static final long NO_FOLDER = 0;
+
+    public final String title;
+    public final String content;
+    public final long   folderId;
+    public final String mood;          // null for none
+    public final long   dateAdded;     // epoch millis
+    public final long   dateModified;  // epoch millis
+
+    public JournalRecord(String title, String content, long folderId, String mood,
+                         long dateAdded, long dateModified) {
+        this.title        = title;
+        this.content      = content;
+        this.folderId     = folderId;
+        this.mood         = mood;
+        this.dateAdded    = dateAdded;
+        this.dateModified = dateModified;
+    }
+
+    /** A new entry added and modified now. */
+    public static JournalRecord now(String title, String content, long folderId, String mood) {
+        long now = System.currentTimeMillis();
+        return new JournalRecord(title, content, folderId, mood, now, now);
+    }
+}
@@ -0,0 +1,453 @@
+package com.example.offlinedailyjournal;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Async front for {@link DatabaseHelper}. Reads run on a small shared pool;
+ * writes go through the process-wide {@link JournalWriteQueue}, which
+ * commits bursts of them together, so a list load never queues behind an
+ * autosave or a folder delete. Results are posted back to the main thread.
+ *
+ * Each screen owns one repository and calls {@link #close()} in onDestroy:
+ * pending loads are cancelled and no callback fires after that, but writes
+ * already handed over still land. Individual loads can also be cancelled
+ * through the returned {@link Future}, e.g. when a filter changes before
+ * the previous query finished.
+ */
+public class JournalRepository {
+
+    private static final String TAG = "JournalRepository";
+
+    /** Writes get one thread of their own (SQLite allows one writer); reads share these. */
+    private static final int READ_THREADS = 2;
+
+    /** Receives a result on the main thread. */
+    public interface Callback<T> {
+        void onResult(T result);
+
+        /** Called instead of {@link #onResult} when the work threw. */
+        default void onError(Exception e) {}
+    }
+
+    /** Progress of a long write, on the main thread. */
+    public interface Progress {
+        void onProgress(int done, int total);
+    }
+
+    private static Executor sharedReadExecutor;
+    private static Executor sharedTransferExecutor;
+    private static JournalWriteQueue sharedWriteQueue;
+    private static JournalPageCache sharedPageCache;
+
+    private final DatabaseHelper dbHelper;
+    private final Executor readExecutor;
+    private final Executor transferExecutor;
+    private final JournalWriteQueue writeQueue;
+    private final JournalPageCache pageCache;
+    private final Executor mainExecutor;
+    private final Set<Future<?>> pending = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final List<InvalidationTracker.Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    public JournalRepository(Context context) {
+        this(DatabaseHelper.getInstance(context), readExecutor(), transferExecutor(),
+                writeQueue(DatabaseHelper.getInstance(context)), pageCache(),
+                new Handler(Looper.getMainLooper())::post);
+    }
+
+    /**
+     * For tests: run all work and deliver results on the given executors.
+     * Writes queued before the I/O executor runs are committed together.
+     */
+    JournalRepository(DatabaseHelper dbHelper, Executor ioExecutor, Executor mainExecutor) {
+        this(dbHelper, ioExecutor, ioExecutor, new JournalWriteQueue(dbHelper, ioExecutor, 0),
+                new JournalPageCache(), mainExecutor);
+    }
+
+    JournalRepository(DatabaseHelper dbHelper, Executor readExecutor, Executor transferExecutor,
+                      JournalWriteQueue writeQueue, JournalPageCache pageCache, Executor mainExecutor) {
+        this.dbHelper         = dbHelper;
+        this.readExecutor     = readExecutor;
+        this.transferExecutor = transferExecutor;
+        this.writeQueue       = writeQueue;
+        this.pageCache        = pageCache;
+        this.mainExecutor     = mainExecutor;
+    }
+
+    private static synchronized Executor readExecutor() {
+        if (sharedReadExecutor == null) {
+            sharedReadExecutor = backgroundPool(READ_THREADS, "journal-read-");
+        }
+        return sharedReadExecutor;
+    }
+
+    private static synchronized Executor transferExecutor() {
+        if (sharedTransferExecutor == null) {
+            sharedTransferExecutor = backgroundPool(1, "journal-transfer-");
+        }
+        return sharedTransferExecutor;
+    }
+
+    private static synchronized JournalWriteQueue writeQueue(DatabaseHelper dbHelper) {
+        if (sharedWriteQueue == null) {
+            sharedWriteQueue = new JournalWriteQueue(dbHelper, backgroundPool(1, "journal-write-"),
+                    JournalWriteQueue.BATCH_WINDOW_MILLIS);
+        }
+        return sharedWriteQueue;
+    }
+
+    private static synchronized JournalPageCache pageCache() {
+        if (sharedPageCache == null) {
+            sharedPageCache = new JournalPageCache();
+        }
+        return sharedPageCache;
+    }
+
+    private static Executor backgroundPool(int threads, String namePrefix) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    r.run();
+                }, namePrefix + count.incrementAndGet())
+        );
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    // ========== FOLDERS ==========
+
+    public Future<List<Folder>> loadFolders(Callback<List<Folder>> callback) {
+        return read(dbHelper::getFolders, callback);
+    }
+
+    public Future<Boolean> folderExists(String name, Callback<Boolean> callback) {
+        return read(() -> dbHelper.folderExists(name), callback);
+    }
+
+    public Future<Long> insertFolder(String name, String color, Callback<Long> callback) {
+        return write(() -> {
+            long id = dbHelper.insertFolder(name, color);
+            FolderStyles.invalidate(id);
+            return id;
+        }, callback);
+    }
+
+    public Future<Integer> deleteFolder(long folderId, Callback<Integer> callback) {
+        return deleteFolder(folderId, null, callback);
+    }
+
+    /**
+     * Delete a folder and its journals in one transaction, reporting how many
+     * entries are gone so far. Cancelling stops the progress updates but not
+     * the delete itself once it has started. If the write queue replays the
+     * delete, progress picks up where it had got to rather than starting over.
+     */
+    public Future<Integer> deleteFolder(long folderId, Progress progress, Callback<Integer> callback) {
+        AtomicInteger reported = new AtomicInteger(-1);
+        return write(() -> {
+            int removed = dbHelper.deleteFolder(folderId, progress == null ? null : (deleted, total) -> {
+                if (deleted <= reported.get()) return;
+                reported.set(deleted);
+                mainExecutor.execute(() -> {
+                    if (!closed) progress.onProgress(deleted, total);
+                });
+            });
+            FolderStyles.invalidate(folderId);
+            return removed;
+        }, callback);
+    }
+
+    // ========== JOURNALS ==========
+
+    /** Entries per year and month; pass {@link DatabaseHelper#ALL_FOLDERS} for all folders. */
+    public Future<JournalCounts> loadJournalCounts(long folderId, Callback<JournalCounts> callback) {
+        return read(() -> dbHelper.getJournalCounts(folderId), callback);
+    }
+
+    /**
+     * The page of list rows after {@code after} (null for the first page),
+     * newest first; pass {@link DatabaseHelper#ALL_FOLDERS} for all folders.
+     * Pages seen since the last write that touched them come from
+     * {@link JournalPageCache} without a query.
+     */
+    public Future<JournalPage> loadJournalPage(long folderId, JournalFilter filter, JournalEntry after,
+                                               int limit, Callback<JournalPage> callback) {
+        JournalPageCache.Key key = new JournalPageCache.Key(folderId, filter, after, limit);
+        return read(() -> {
+            long generation = listGeneration(folderId);
+            JournalPage page = pageCache.get(key, generation);
+            if (page == null) {
+                page = pageCache.put(key, generation, dbHelper.getJournalPage(folderId, filter, after, limit));
+            }
+            return page;
+        }, callback);
+    }
+
+    /** Hit and miss counts of the list page cache, to tune its bounds. */
+    public JournalPageCache getPageCache() {
+        return pageCache;
+    }
+
+    /**
+     * Moves whenever a list of this folder could read differently. The
+     * all-folders list also shows folder names and colors, so it follows
+     * both tables; the sum of two counters that only grow does.
+     */
+    private long listGeneration(long folderId) {
+        InvalidationTracker tracker = dbHelper.getInvalidationTracker();
+        return folderId == DatabaseHelper.ALL_FOLDERS
+                ? tracker.generation(DatabaseHelper.TABLE_JOURNALS) + tracker.generation(DatabaseHelper.TABLE_FOLDERS)
+                : tracker.folderGeneration(folderId);
+    }
+
+    /** The full entry for the editor; delivers null if it was deleted. */
+    public Future<JournalEntry> loadJournal(long journalId, Callback<JournalEntry> callback) {
+        return read(() -> dbHelper.getJournal(journalId), callback);
+    }
+
+    /** Insert a new entry in one statement; delivers its row id, or -1 on failure. */
+    public Future<Long> insertJournal(JournalRecord record, Callback<Long> callback) {
+        return write(() -> dbHelper.insertJournal(record), callback);
+    }
+
+    /** Insert many entries in one transaction; delivers their row ids in order. */
+    public Future<long[]> insertJournals(List<JournalRecord> records, Callback<long[]> callback) {
+        return write(() -> dbHelper.insertJournals(records), callback);
+    }
+
+    /** Update an entry and stamp it modified now; delivers the number of rows changed. */
+    public Future<Integer> updateJournal(long journalId, String title, String content, String mood,
+                                         Callback<Integer> callback) {
+        return write(() -> dbHelper.updateJournal(journalId, title, content, mood), callback);
+    }
+
+    /** Insert an entry from the editor and clear its draft; delivers its row id, or -1 on failure. */
+    public Future<Long> insertJournal(JournalRecord record, String draftKey, Callback<Long> callback) {
+        return write(() -> dbHelper.insertJournal(record, draftKey), callback);
+    }
+
+    /** Update an entry from the editor and clear its draft; delivers the number of rows changed. */
+    public Future<Integer> updateJournal(long journalId, String title, String content, String mood,
+                                         String draftKey, Callback<Integer> callback) {
+        return write(() -> dbHelper.updateJournal(journalId, title, content, mood, draftKey), callback);
+    }
+
+    public Future<Integer> deleteJournal(long journalId, Callback<Integer> callback) {
+        return write(() -> dbHelper.deleteJournal(journalId), callback);
+    }
+
+    /** Ranked full-text hits with highlighted snippets, best first. */
+    public Future<List<JournalSearch.Result>> search(String query, int limit,
+                                                     Callback<List<JournalSearch.Result>> callback) {
+        return read(() -> dbHelper.searchJournals(query, limit), callback);
+    }
+
+    // ========== IMPORT / EXPORT ==========
+
+    /**
+     * Import an archive on the thread imports and exports share (it waits on
+     * the writer, so it mustn't hold up reads), with progress on the main thread. Closing
+     * the repository drops the callbacks but an import that has started
+     * carries on; run it again with the same key to resume one that failed.
+     * See {@link JournalImporter}.
+     */
+    public Future<JournalImporter.Result> importArchive(String importKey, JournalArchive.Format format,
+                                                        InputStream in, long folderId,
+                                                        JournalImporter.Progress progress,
+                                                        Callback<JournalImporter.Result> callback) {
+        JournalImporter importer = new JournalImporter(dbHelper, writeQueue, TimestampCodec.local());
+        return submit(transferExecutor, () -> {
+            try {
+                return importer.importArchive(importKey, format, in, folderId,
+                        progress == null ? null : (entries, bytes) -> mainExecutor.execute(() -> {
+                            if (!closed) progress.onProgress(entries, bytes);
+                        }));
+            } finally {
+                FolderStyles.invalidateAll(); // folders created on the way, even if it then failed
+            }
+        }, callback);
+    }
+
+    /**
+     * Export every entry as a zip to {@code out} on the same thread as
+     * imports, as it reads for minutes on a large journal and list loads
+     * shouldn't queue behind it. See {@link JournalExporter}.
+     */
+    public Future<JournalExporter.Result> exportArchive(OutputStream out, File spoolDir,
+                                                        Progress progress,
+                                                        Callback<JournalExporter.Result> callback) {
+        JournalExporter exporter = new JournalExporter(dbHelper, TimestampCodec.local());
+        return submit(transferExecutor, () -> exporter.export(out, spoolDir,
+                progress == null ? null : (exported, total) -> mainExecutor.execute(() -> {
+                    if (!closed) progress.onProgress(exported, total);
+                })), callback);
+    }
+
+    // ========== BACKUP ==========
+
+    /**
+     * Write the next incremental backup into {@code dir}: a delta of what
+     * changed since the last one, or a new base. See {@link JournalBackup}.
+     */
+    public Future<JournalBackup.Result> backup(File dir, Callback<JournalBackup.Result> callback) {
+        JournalBackup backup = new JournalBackup(dbHelper, writeQueue, dir);
+        return submit(transferExecutor, backup::backup, callback);
+    }
+
+    /** Replace all folders and entries with the backup in {@code dir}; delivers the files replayed. */
+    public Future<Integer> restoreBackup(File dir, Callback<Integer> callback) {
+        JournalBackup backup = new JournalBackup(dbHelper, writeQueue, dir);
+        return submit(transferExecutor, () -> {
+            int files = backup.restore();
+            FolderStyles.invalidateAll();
+            return files;
+        }, callback);
+    }
+
+    // ========== DRAFTS ==========
+
+    /** Delivers the autosaved draft for an entry, or for a folder's new entry; null if none. */
+    public Future<JournalDraft> loadDraft(long journalId, long folderId, Callback<JournalDraft> callback) {
+        return read(() -> dbHelper.getDraft(journalId, folderId), callback);
+    }
+
+    /** Store a draft over any earlier one; delivers whether it was written. */
+    public Future<Boolean> saveDraft(JournalDraft draft, Callback<Boolean> callback) {
+        return write(() -> dbHelper.putDraft(draft), callback);
+    }
+
+    /** Drop the draft with this key, if there is one. */
+    public Future<Integer> discardDraft(String draftKey, Callback<Integer> callback) {
+        return write(() -> dbHelper.deleteDraft(draftKey), callback);
+    }
+
+    // ========== CHANGES ==========
+
+    /** Generation counters, to tell whether what a screen shows is out of date. */
+    public InvalidationTracker getInvalidationTracker() {
+        return dbHelper.getInvalidationTracker();
+    }
+
+    /** Hear about each committed write on the main thread until the repository is closed. */
+    public void observeChanges(InvalidationTracker.Observer observer) {
+        subscriptions.add(dbHelper.getInvalidationTracker().subscribe(mainExecutor, observer));
+    }
+
+    // ========== LIFECYCLE ==========
+
+    /**
+     * Open the database on a read thread ahead of the first query, so the
+     * first screen's loads don't also pay for opening it and any migration.
+     * Returns at once.
+     */
+    static void warmUp(Context context) {
+        DatabaseHelper dbHelper = DatabaseHelper.getInstance(context);
+        readExecutor().execute(() -> {
+            long start = SystemClock.elapsedRealtime();
+            try {
+                dbHelper.getWritableDatabase();
+                Log.i(TAG, "Database open after " + (SystemClock.elapsedRealtime() - start) + " ms");
+            } catch (RuntimeException e) {
+                // The first load will try again and report it
+                Log.w(TAG, "Couldn't open the database ahead of time", e);
+            }
+        });
+    }
+
+    /** Cancel loads still queued or running and drop all future callbacks. */
+    public void close() {
+        closed = true;
+        for (InvalidationTracker.Subscription s : subscriptions) s.close();
+        subscriptions.clear();
+        for (Future<?> f : pending) {
+            f.cancel(false);
+        }
+        pending.clear();
+    }
+
+    private <T> Future<T> read(Callable<T> work, Callback<T> callback) {
+        return submit(readExecutor, work, callback);
+    }
+
+    /** Queue a write; the queue tells a rolled-back helper from a successful one itself. */
+    private <T> Future<T> write(Callable<T> work, Callback<T> callback) {
+        CompletableFuture<T> future = writeQueue.submit(work);
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) return;
+            if (error != null) {
+                Log.e(TAG, "Database write failed", error);
+                deliverError(error, callback);
+            } else {
+                deliver(result, callback);
+            }
+        });
+        return future;
+    }
+
+    private <T> Future<T> submit(Executor executor, Callable<T> work, Callback<T> callback) {
+        FutureTask<T> task = new FutureTask<T>(work) {
+            @Override
+            protected void done() {
+                pending.remove(this);
+                if (isCancelled()) return;
+                try {
+                    deliver(get(), callback);
+                } catch (ExecutionException e) {
+                    Log.e(TAG, "Database task failed", e.getCause());
+                    deliverError(e.getCause(), callback);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        if (closed) {
+            task.cancel(false);
+            return task;
+        }
+        pending.add(task);
+        executor.execute(task);
+        return task;
+    }
+
+    private <T> void deliver(T result, Callback<T> callback) {
+        if (closed || callback == null) return;
+        mainExecutor.execute(() -> {
+            if (!closed) callback.onResult(result);
+        });
+    }
+
+    private void deliverError(Throwable error, Callback<?> callback) {
+        if (closed || callback == null) return;
+        Exception cause = error instanceof Exception ? (Exception) error : new ExecutionException(error);
+        mainExecutor.execute(() -> {
+            if (!closed) callback.onError(cause);
+        });
+    }
+}
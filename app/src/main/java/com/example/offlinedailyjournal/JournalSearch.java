@@ -0,0 +1,167 @@
+package com.example.offlinedailyjournal;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pure-Java helpers for the full-text search in {@link DatabaseHelper}:
+ * turning user input into an FTS4 MATCH expression, scoring rows from
+ * their matchinfo() blob, and pulling highlight ranges out of snippet().
+ */
+public final class JournalSearch {
+
+    /** Passed to snippet() to mark hits; stripped again by {@link #parseSnippet}. */
+    static final String HIT_START = "\u0002";
+    static final String HIT_END   = "\u0003";
+
+    /** matchinfo() format string that {@link #score} expects. */
+    static final String MATCHINFO_FORMAT = "pcnalx";
+
+    /**
+     * Hits scored per search, newest first. A word in most entries would
+     * otherwise have every entry scored and the cost grow with the journal;
+     * this way a broad query ranks the latest ten screenfuls of its hits.
+     */
+    static final int MAX_CANDIDATES = 500;
+
+    // BM25 tuning (the usual defaults) and per-column weights: title, content
+    private static final double K1 = 1.2;
+    private static final double B  = 0.75;
+    private static final double[] COLUMN_WEIGHTS = { 3.0, 1.0 };
+
+    private JournalSearch() {}
+
+    /** One ranked hit. {@code highlights} holds [start, end) pairs into {@code snippet}. */
+    public static class Result {
+        public final long   journalId;
+        public final String title;
+        public final long   dateModified;
+        public final String snippet;
+        public final int[]  highlights;
+        public final double score;
+
+        public Result(long journalId, String title, long dateModified,
+                      String snippet, int[] highlights, double score) {
+            this.journalId    = journalId;
+            this.title        = title;
+            this.dateModified = dateModified;
+            this.snippet      = snippet;
+            this.highlights   = highlights;
+            this.score        = score;
+        }
+    }
+
+    /** A snippet with the hit markers removed. */
+    static class Snippet {
+        final String text;
+        final int[]  highlights;
+
+        Snippet(String text, int[] highlights) {
+            this.text       = text;
+            this.highlights = highlights;
+        }
+    }
+
+    /**
+     * Build a MATCH expression from free text: every word must appear, and
+     * the last word is treated as a prefix so results follow typing.
+     * FTS syntax characters are dropped. Returns null if nothing is left.
+     */
+    static String toMatchQuery(String input) {
+        if (input == null) return null;
+        List<String> terms = new ArrayList<>();
+        StringBuilder term = new StringBuilder();
+        for (int i = 0, n = input.length(); i <= n; i++) {
+            char ch = i < n ? input.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(ch)) {
+                term.append(Character.toLowerCase(ch));
+            } else if (term.length() > 0) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (terms.isEmpty()) return null;
+
+        StringBuilder match = new StringBuilder();
+        for (int i = 0; i < terms.size(); i++) {
+            String t = terms.get(i);
+            // Bare AND/OR/NOT/NEAR are operators in the FTS query grammar
+            boolean operator = t.equals("and") || t.equals("or") || t.equals("not") || t.equals("near");
+            if (match.length() > 0) match.append(' ');
+            match.append(operator ? '"' + t + '"' : t);
+            if (i == terms.size() - 1 && !operator) match.append('*');
+        }
+        return match.toString();
+    }
+
+    /**
+     * BM25 score for one row from a matchinfo(..., 'pcnalx') blob. Higher is
+     * a better match.
+     */
+    static double score(byte[] matchinfo) {
+        ByteBuffer buf = ByteBuffer.wrap(matchinfo).order(ByteOrder.nativeOrder());
+        int phrases = buf.getInt(0);
+        int columns = buf.getInt(4);
+        int docs    = buf.getInt(8);
+
+        int avgOffset = 3;                     // a: average tokens per column
+        int lenOffset = avgOffset + columns;   // l: tokens per column in this row
+        int hitOffset = lenOffset + columns;   // x: 3 ints per phrase/column
+
+        double score = 0;
+        for (int p = 0; p < phrases; p++) {
+            for (int col = 0; col < columns; col++) {
+                int x = hitOffset + 3 * (p * columns + col);
+                int tf = buf.getInt(x * 4);
+                if (tf == 0) continue;
+                int df = buf.getInt((x + 2) * 4);
+
+                double idf = Math.log((docs - df + 0.5) / (df + 0.5));
+                if (idf <= 0) idf = 1e-6; // terms in over half the rows still count a little
+
+                double len = buf.getInt((lenOffset + col) * 4);
+                double avg = Math.max(1, buf.getInt((avgOffset + col) * 4));
+                double weight = col < COLUMN_WEIGHTS.length ? COLUMN_WEIGHTS[col] : 1.0;
+                score += weight * idf * (tf * (K1 + 1)) / (tf + K1 * (1 - B + B * len / avg));
+            }
+        }
+        return score;
+    }
+
+    /** Strip the {@link #HIT_START}/{@link #HIT_END} markers and record where they were. */
+    static Snippet parseSnippet(String marked) {
+        if (marked == null) return new Snippet("", new int[0]);
+        StringBuilder text = new StringBuilder(marked.length());
+        List<Integer> ranges = new ArrayList<>();
+        int i = 0;
+        while (i < marked.length()) {
+            int start = marked.indexOf(HIT_START, i);
+            if (start < 0) {
+                text.append(marked, i, marked.length());
+                break;
+            }
+            int end = marked.indexOf(HIT_END, start + 1);
+            if (end < 0) end = marked.length();
+            text.append(marked, i, start);
+            ranges.add(text.length());
+            text.append(marked, start + 1, end);
+            ranges.add(text.length());
+            i = end + 1;
+        }
+        int[] highlights = new int[ranges.size()];
+        for (int k = 0; k < highlights.length; k++) highlights[k] = ranges.get(k);
+        return new Snippet(text.toString(), highlights);
+    }
+
+    /** "12, 40, 7" for an IN (...) clause over row ids. */
+    static String idList(long[] ids, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(ids[i]);
+        }
+        return sb.toString();
+    }
+}
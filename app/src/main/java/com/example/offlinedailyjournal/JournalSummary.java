@@ -0,0 +1,82 @@
+package com.example.offlinedailyjournal;
+
+/**
+ * What a list card shows of an entry's content: a one-line excerpt plus
+ * word and character counts. Worked out once when the entry is written and
+ * stored next to it, so lists never read the content itself. Immutable.
+ */
+public final class JournalSummary {
+
+    /** Longest excerpt, in characters (code points), before the ellipsis. */
+    public static final int EXCERPT_CHARS = 140;
+
+    public static final JournalSummary EMPTY = new JournalSummary("", 0, 0);
+
+    public final String excerpt;
+    public final int    words;
+    public final int    chars;
+
+    public JournalSummary(String excerpt, int words, int chars) {
+        this.excerpt = excerpt;
+        this.words   = words;
+        this.chars   = chars;
+    }
+
+    /**
+     * One pass over the content. Whitespace runs (line breaks included)
+     * collapse to single spaces in the excerpt, which is cut at the last
+     * word boundary that fits, or mid-word if a single word is that long.
+     * Words are runs of non-whitespace; characters are code points, so an
+     * emoji counts once.
+     */
+    public static JournalSummary of(String content) {
+        if (content == null || content.isEmpty()) return EMPTY;
+
+        StringBuilder excerpt = new StringBuilder(EXCERPT_CHARS + 1);
+        int excerptChars = 0;     // code points in excerpt
+        int lastBreak = -1;       // excerpt length at the last collapsed space
+        boolean truncated = false;
+        boolean inWord = false;
+        int words = 0;
+        int chars = 0;
+
+        for (int i = 0, n = content.length(); i < n; ) {
+            int cp = content.codePointAt(i);
+            i += Character.charCount(cp);
+            chars++;
+
+            if (Character.isWhitespace(cp) || Character.isSpaceChar(cp)) {
+                inWord = false;
+                continue;
+            }
+            if (!inWord) {
+                inWord = true;
+                words++;
+                if (!truncated && excerptChars > 0) {
+                    if (excerptChars + 1 < EXCERPT_CHARS) {
+                        lastBreak = excerpt.length();
+                        excerpt.append(' ');
+                        excerptChars++;
+                    } else {
+                        truncated = true;
+                    }
+                }
+            }
+            if (!truncated) {
+                if (excerptChars < EXCERPT_CHARS) {
+                    excerpt.appendCodePoint(cp);
+                    excerptChars++;
+                } else {
+                    truncated = true;
+                }
+            }
+        }
+
+        if (truncated) {
+            // Prefer a whole last word unless that throws away most of the line
+            if (lastBreak > EXCERPT_CHARS / 2) excerpt.setLength(lastBreak);
+            excerpt.append('…');
+        }
+        return new JournalSummary(excerpt.toString(), words, chars);
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.offlinedailyjournal;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteTransactionListener;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * The single writer. Every mutation is queued here and run on one thread;
+ * writes that arrive within a few milliseconds of each other are committed
+ * in one transaction, so a burst (bulk delete, import, an autosave landing
+ * next to a save) costs one commit instead of one each. Every write still
+ * completes its own future with its own result.
+ *
+ * Each write runs in a transaction of its own, nested inside the group's
+ * when it has company. If a write throws, ends a nested transaction of
+ * its own without success (as DatabaseHelper methods that return -1 do),
+ * or returns a result its caller marked as rejected, the whole group is
+ * rolled back and each write runs again on its own, so one bad write never
+ * takes the others down with it. A nested rollback is seen through a
+ * transaction listener, since SQLite's only other sign of it is the outer
+ * commit silently turning into a rollback.
+ *
+ * The writes' notes to the {@link InvalidationTracker} are published
+ * after the commit, or dropped if it rolls back.
+ */
+public class JournalWriteQueue {
+
+    private static final String TAG = "JournalWriteQueue";
+
+    /** How long the writer waits for more work after the first write of a group. */
+    static final long BATCH_WINDOW_MILLIS = 8;
+
+    /** Most writes in one transaction, to keep any single commit short. */
+    static final int MAX_BATCH = 64;
+
+    /** Tells whether a transaction, as ended by SQLite, committed. */
+    private static final class Outcome implements SQLiteTransactionListener {
+        boolean committed;
+
+        @Override public void onBegin() {}
+        @Override public void onCommit() { committed = true; }
+        @Override public void onRollback() { committed = false; }
+    }
+
+    private static final class Write<T> {
+        final Callable<T> work;
+        final Predicate<T> rejected;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        T result;
+
+        Write(Callable<T> work, Predicate<T> rejected) {
+            this.work     = work;
+            this.rejected = rejected;
+        }
+
+        /** Run nested inside the group's transaction; false if the group has to be replayed. */
+        boolean runInGroup(SQLiteDatabase db) throws Exception {
+            Outcome outcome = new Outcome();
+            result = inTransaction(db, outcome);
+            return outcome.committed && (rejected == null || !rejected.test(result));
+        }
+
+        void complete() {
+            future.complete(result);
+        }
+
+        /** Run in a transaction of its own and complete with whatever happens. */
+        void runAlone(SQLiteDatabase db, InvalidationTracker invalidation) {
+            try {
+                Outcome outcome = new Outcome();
+                T result = inTransaction(db, outcome);
+                if (outcome.committed) invalidation.publish(); else invalidation.discard();
+                future.complete(result);
+            } catch (Exception e) {
+                invalidation.discard();
+                future.completeExceptionally(e);
+            }
+        }
+
+        private T inTransaction(SQLiteDatabase db, Outcome outcome) throws Exception {
+            db.beginTransactionWithListener(outcome);
+            try {
+                T result = work.call();
+                db.setTransactionSuccessful();
+                return result;
+            } finally {
+                db.endTransaction();
+            }
+        }
+    }
+
+    private final DatabaseHelper dbHelper;
+    private final Executor writer;
+    private final long windowMillis;
+    private final LinkedBlockingQueue<Write<?>> queue = new LinkedBlockingQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * {@code writer} must run one task at a time; it is only ever given the
+     * drain loop. A zero window groups just the writes already queued.
+     */
+    public JournalWriteQueue(DatabaseHelper dbHelper, Executor writer, long windowMillis) {
+        this.dbHelper     = dbHelper;
+        this.writer       = writer;
+        this.windowMillis = windowMillis;
+    }
+
+    /** Queue a write whose only failure is an exception. */
+    public <T> CompletableFuture<T> submit(Callable<T> work) {
+        return submit(work, null);
+    }
+
+    /**
+     * Queue a write. {@code rejected} tells a failure reported as a result
+     * from success where nothing was rolled back (a helper that rolled back
+     * its own transaction is caught without it). Cancelling the future
+     * before the write has started drops it; after that it still commits.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> work, Predicate<T> rejected) {
+        Write<T> write = new Write<>(work, rejected);
+        queue.add(write);
+        if (draining.compareAndSet(false, true)) {
+            writer.execute(this::drain);
+        }
+        return write.future;
+    }
+
+    private void drain() {
+        while (true) {
+            List<Write<?>> group = nextGroup();
+            if (group.isEmpty()) {
+                draining.set(false);
+                // A write queued after the poll but before the flag was cleared
+                if (queue.isEmpty() || !draining.compareAndSet(false, true)) return;
+                continue;
+            }
+            try {
+                run(group);
+            } catch (RuntimeException e) {
+                // Couldn't even open the database; nothing in the group ran
+                Log.e(TAG, "Write group failed", e);
+                for (Write<?> w : group) w.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /** The next writes to commit together, skipping any cancelled while queued. */
+    private List<Write<?>> nextGroup() {
+        List<Write<?>> group = new ArrayList<>();
+        Write<?> first = queue.poll();
+        while (first != null && first.future.isDone()) first = queue.poll();
+        if (first == null) return group;
+        group.add(first);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        while (group.size() < MAX_BATCH) {
+            Write<?> next;
+            try {
+                long wait = deadline - System.nanoTime();
+                next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (next == null) break;
+            if (!next.future.isDone()) group.add(next);
+        }
+        return group;
+    }
+
+    private void run(List<Write<?>> group) {
+        InvalidationTracker invalidation = dbHelper.getInvalidationTracker();
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        if (group.size() == 1) {
+            group.get(0).runAlone(db, invalidation);
+            return;
+        }
+
+        Outcome outcome = new Outcome();
+        boolean committed = false;
+        try {
+            db.beginTransactionWithListener(outcome);
+            try {
+                boolean ok = true;
+                for (Write<?> w : group) {
+                    if (!w.runInGroup(db)) {
+                        ok = false;
+                        break;
+                    }
+                }
+                if (ok) db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            committed = outcome.committed;
+            if (!committed) Log.w(TAG, "Replaying " + group.size() + " writes one by one");
+        } catch (Exception e) {
+            // A write threw, or the commit itself failed; either way nothing is saved
+            Log.w(TAG, "Replaying " + group.size() + " writes one by one", e);
+            committed = false;
+        }
+
+        // Screens hear of a group once it is saved, and of nothing it rolled back
+        if (committed) invalidation.publish(); else invalidation.discard();
+        for (Write<?> w : group) {
+            if (committed) w.complete(); else w.runAlone(db, invalidation);
+        }
+    }
+}
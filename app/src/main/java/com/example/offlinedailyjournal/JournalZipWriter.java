@@ -0,0 +1,303 @@
+package com.example.offlinedailyjournal;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes an export zip one entry at a time, holding nothing of an entry
+ * once it is written. Each entry becomes a Markdown file with front matter
+ * in its folder's directory (entries without a folder at the top level):
+ *
+ * <pre>
+ * Work/2024-07-29 Morning pages (42).md
+ * ---
+ * title: "Morning pages"
+ * folder: "Work"
+ * mood: "🙂 Calm"
+ * date: 2024-07-29T21:40:00+02:00
+ * modified: 2024-07-29T22:05:13+02:00
+ * id: 42
+ * ---
+ *
+ * The content, as written.
+ * </pre>
+ *
+ * which {@link MarkdownArchiveReader} reads back. {@link #finish} then adds
+ * {@value #MANIFEST}: the format version, a count per folder and a line per
+ * entry with its path. The entry lines are spooled to a temporary file as
+ * entries go by, since zip entries can't be interleaved, so the manifest
+ * doesn't grow the heap either.
+ *
+ * Plain Java, so the export benchmark can drive it on the desktop.
+ */
+public final class JournalZipWriter implements Closeable {
+
+    /** Name of the manifest that ends every export, at the top level; importers skip it. */
+    public static final String MANIFEST = "manifest.json";
+
+    /** Bumped if the layout of the zip or manifest changes. */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final String FORMAT_NAME = "offline-daily-journal";
+
+    /** Longest title kept in a file name, in chars. */
+    private static final int MAX_NAME_CHARS = 60;
+
+    private final CountingOutputStream counted;
+    private final ZipOutputStream zip;
+    private final Writer text;            // UTF-8 into the current zip entry
+    private final TimestampCodec codec;
+    private final File spool;
+    private final Writer manifestLines;
+    private final Map<String, int[]> folderCounts = new LinkedHashMap<>();
+    private final StringBuilder scratch = new StringBuilder(256);
+    private int entries;
+    private long textBytes;
+    private boolean finished;
+
+    /**
+     * Writes to {@code out}, which {@link #close} closes. The manifest is
+     * spooled to a temporary file in {@code spoolDir}; dates are written in
+     * {@code codec}'s zone.
+     */
+    public JournalZipWriter(OutputStream out, File spoolDir, TimestampCodec codec) throws IOException {
+        this.counted = new CountingOutputStream(out);
+        this.zip     = new ZipOutputStream(counted, StandardCharsets.UTF_8);
+        this.codec   = codec;
+        // Flushed into each zip entry before it is closed; never closes the zip itself
+        this.text = new BufferedWriter(new OutputStreamWriter(new FilterOutputStream(zip) {
+            @Override public void write(byte[] b, int off, int len) throws IOException {
+                zip.write(b, off, len);
+                textBytes += len;
+            }
+            @Override public void write(int b) throws IOException {
+                zip.write(b);
+                textBytes++;
+            }
+            @Override public void close() {}
+        }, StandardCharsets.UTF_8), 16 * 1024);
+        this.spool = File.createTempFile("export-manifest", ".json", spoolDir);
+        this.manifestLines = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(spool), StandardCharsets.UTF_8), 16 * 1024);
+    }
+
+    /** Add one entry; {@code folder} and {@code mood} may be null. */
+    public void add(long id, String folder, String title, String content, String mood,
+                    long dateAdded, long dateModified) throws IOException {
+        if (finished) throw new IllegalStateException("Export already finished");
+        String directory = folder == null ? "" : fileName(folder, "Folder") + "/";
+        String path = directory + fileDate(dateAdded) + ' ' + fileName(title, "Untitled") + " (" + id + ").md";
+
+        zip.putNextEntry(new ZipEntry(path));
+        StringBuilder sb = scratch;
+        sb.setLength(0);
+        sb.append("---\ntitle: ");
+        quote(sb, title == null ? "" : title);
+        if (folder != null) {
+            sb.append("\nfolder: ");
+            quote(sb, folder);
+        }
+        if (mood != null) {
+            sb.append("\nmood: ");
+            quote(sb, mood);
+        }
+        sb.append("\ndate: ").append(codec.formatIso8601(dateAdded))
+          .append("\nmodified: ").append(codec.formatIso8601(dateModified))
+          .append("\nid: ").append(id)
+          .append("\n---\n\n");
+        text.append(sb);
+        if (content != null) text.write(content);
+        text.write('\n');
+        text.flush();
+        zip.closeEntry();
+
+        sb.setLength(0);
+        sb.append(entries == 0 ? "\n    " : ",\n    ").append("{\"id\": ").append(id).append(", \"path\": ");
+        jsonString(sb, path);
+        sb.append(", \"title\": ");
+        jsonString(sb, title);
+        sb.append(", \"folder\": ");
+        jsonString(sb, folder);
+        sb.append(", \"date\": ");
+        jsonString(sb, codec.formatIso8601(dateAdded));
+        sb.append(", \"modified\": ");
+        jsonString(sb, codec.formatIso8601(dateModified));
+        sb.append('}');
+        manifestLines.append(sb);
+
+        folderCounts.computeIfAbsent(folder, f -> new int[1])[0]++;
+        entries++;
+    }
+
+    /** Write the manifest and the zip's central directory. */
+    public void finish(long exportedAt) throws IOException {
+        if (finished) return;
+        finished = true;
+        manifestLines.close();
+
+        zip.putNextEntry(new ZipEntry(MANIFEST));
+        StringBuilder sb = scratch;
+        sb.setLength(0);
+        sb.append("{\n  \"format\": \"").append(FORMAT_NAME).append("\",\n  \"version\": ").append(FORMAT_VERSION)
+          .append(",\n  \"exported\": ");
+        jsonString(sb, codec.formatIso8601(exportedAt));
+        sb.append(",\n  \"entry_count\": ").append(entries).append(",\n  \"folders\": [");
+        boolean first = true;
+        for (Map.Entry<String, int[]> f : folderCounts.entrySet()) {
+            sb.append(first ? "\n    " : ",\n    ").append("{\"name\": ");
+            jsonString(sb, f.getKey());
+            sb.append(", \"entries\": ").append(f.getValue()[0]).append('}');
+            first = false;
+        }
+        sb.append(folderCounts.isEmpty() ? "],\n  \"entries\": [" : "\n  ],\n  \"entries\": [");
+        text.append(sb);
+        text.flush();
+        try (InputStream lines = new FileInputStream(spool)) {
+            byte[] buf = new byte[16 * 1024];
+            int n;
+            while ((n = lines.read(buf)) > 0) {
+                zip.write(buf, 0, n);
+                textBytes += n;
+            }
+        }
+        text.write(entries == 0 ? "]\n}\n" : "\n  ]\n}\n");
+        text.flush();
+        zip.closeEntry();
+        zip.finish();
+    }
+
+    /** Entries added so far. */
+    public int entries() {
+        return entries;
+    }
+
+    /** Markdown and manifest text written so far, before compression. */
+    public long textBytes() {
+        return textBytes;
+    }
+
+    /** Zip bytes written to the output so far. */
+    public long zipBytes() {
+        return counted.count;
+    }
+
+    /** Closes the output and deletes the spool file; an unfinished zip is left incomplete. */
+    @Override
+    public void close() throws IOException {
+        try {
+            manifestLines.close();
+            zip.close();
+        } finally {
+            if (!spool.delete()) spool.deleteOnExit();
+        }
+    }
+
+    // ---------------------------------------------------------------------
+
+    /** "2024-07-29": ISO dates keep the files of a folder in date order. */
+    private String fileDate(long millis) {
+        return codec.formatIso8601(millis).substring(0, 10);
+    }
+
+    /**
+     * Text as a file name that is safe on Android, Windows and macOS:
+     * path and reserved characters become '_', runs of whitespace one
+     * space, and it is cut to {@link #MAX_NAME_CHARS}.
+     */
+    static String fileName(String text, String fallback) {
+        if (text == null) return fallback;
+        StringBuilder sb = new StringBuilder(Math.min(text.length(), MAX_NAME_CHARS));
+        boolean space = false;
+        for (int i = 0; i < text.length() && sb.length() < MAX_NAME_CHARS; i++) {
+            char ch = text.charAt(i);
+            if (Character.isWhitespace(ch)) {
+                space = sb.length() > 0;
+                continue;
+            }
+            if (space) sb.append(' ');
+            space = false;
+            boolean reserved = ch < 0x20 || "/\\:*?\"<>|".indexOf(ch) >= 0;
+            if (Character.isHighSurrogate(ch) && sb.length() + 2 > MAX_NAME_CHARS) break;
+            sb.append(reserved ? '_' : ch);
+        }
+        // Names can't end in a dot on Windows, and "." / ".." are special everywhere
+        while (sb.length() > 0 && sb.charAt(sb.length() - 1) == '.') sb.setLength(sb.length() - 1);
+        return sb.length() == 0 ? fallback : sb.toString();
+    }
+
+    /** A double-quoted front matter value, as {@link MarkdownArchiveReader#unquote} reads it. */
+    static void quote(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '"':  sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n");  break;
+                case '\r': sb.append("\\r");  break;
+                case '\t': sb.append("\\t");  break;
+                default:   sb.append(ch);
+            }
+        }
+        sb.append('"');
+    }
+
+    static void jsonString(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '"':  sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n");  break;
+                case '\r': sb.append("\\r");  break;
+                case '\t': sb.append("\\t");  break;
+                default:
+                    if (ch < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) ch));
+                    } else {
+                        sb.append(ch);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.offlinedailyjournal;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Streams entries out of a JSON export with {@link JsonReader}, so only the
+ * entry being read is ever in memory. The entries are the top-level array,
+ * or the array under "entries", "journals", "items" or "notes" of a top-level
+ * object; everything else is skipped.
+ *
+ * Entry fields are matched by name, ignoring case, across the spellings
+ * common exports use (Day One's "text" and "creationDate", "body",
+ * "created_at", ...). A date is ISO 8601, one of the forms TimestampCodec
+ * parses, or a number of epoch milliseconds (or seconds, if it's too small
+ * to be millis). Unknown fields, tags and attachments are skipped.
+ */
+final class JsonArchiveReader implements JournalArchive.Reader {
+
+    private final JsonReader json;
+    private final TimestampCodec codec;
+    private final String defaultFolder;
+    private boolean started;
+    private boolean done;
+
+    JsonArchiveReader(InputStream in, TimestampCodec codec, String defaultFolder) {
+        this.json = new JsonReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        this.json.setLenient(true);
+        this.codec         = codec;
+        this.defaultFolder = defaultFolder;
+    }
+
+    @Override
+    public JournalArchive.Entry next() throws IOException {
+        if (done) return null;
+        if (!started) {
+            started = true;
+            if (!enterEntriesArray()) {
+                done = true;
+                return null;
+            }
+        }
+        while (json.hasNext()) {
+            if (json.peek() != JsonToken.BEGIN_OBJECT) {
+                json.skipValue();
+                continue;
+            }
+            return readEntry();
+        }
+        done = true;
+        return null;
+    }
+
+    /** Position the reader inside the entries array; false if there isn't one. */
+    private boolean enterEntriesArray() throws IOException {
+        JsonToken first = json.peek();
+        if (first == JsonToken.BEGIN_ARRAY) {
+            json.beginArray();
+            return true;
+        }
+        if (first != JsonToken.BEGIN_OBJECT) return false;
+
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName().toLowerCase(Locale.ROOT);
+            boolean entries = name.equals("entries") || name.equals("journals")
+                    || name.equals("items") || name.equals("notes");
+            if (entries && json.peek() == JsonToken.BEGIN_ARRAY) {
+                json.beginArray();
+                return true;
+            }
+            json.skipValue();
+        }
+        return false;
+    }
+
+    private JournalArchive.Entry readEntry() throws IOException {
+        String folder = null, title = null, content = null, mood = null;
+        long added = JournalArchive.NO_DATE, modified = JournalArchive.NO_DATE;
+
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName().toLowerCase(Locale.ROOT);
+            switch (name) {
+                case "title": case "subject": case "heading":
+                    title = string();
+                    break;
+                case "content": case "text": case "body": case "entry": case "markdown":
+                    content = string();
+                    break;
+                case "folder": case "journal": case "notebook": case "category":
+                    folder = string();
+                    break;
+                case "mood":
+                    mood = string();
+                    break;
+                case "date": case "created": case "createdat": case "created_at": case "creationdate":
+                case "date_added": case "dateadded": case "timestamp":
+                    added = date();
+                    break;
+                case "modified": case "updated": case "updatedat": case "updated_at": case "modifieddate":
+                case "date_modified": case "datemodified":
+                    modified = date();
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+
+        return new JournalArchive.Entry(folder != null ? folder : defaultFolder,
+                title, content, mood, added, modified);
+    }
+
+    /** A string, number or boolean as text; null for null, arrays and objects. */
+    private String string() throws IOException {
+        switch (json.peek()) {
+            case STRING:
+            case NUMBER:
+                return json.nextString();
+            case BOOLEAN:
+                return String.valueOf(json.nextBoolean());
+            case NULL:
+                json.nextNull();
+                return null;
+            default:
+                json.skipValue();
+                return null;
+        }
+    }
+
+    /** Epoch millis, or NO_DATE if the value isn't a date we can read. */
+    private long date() throws IOException {
+        if (json.peek() == JsonToken.NUMBER) return JournalArchive.epoch(json.nextDouble());
+        return JournalArchive.parseDate(string(), codec);
+    }
+
+    @Override
+    public void close() throws IOException {
+        json.close();
+    }
+}
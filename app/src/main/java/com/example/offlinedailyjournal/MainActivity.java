@@ -4,58 +4,74 @@ import android.app.AlertDialog;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.res.ColorStateList;
-import android.database.Cursor;
-import android.database.sqlite.SQLiteDatabase;
 import android.graphics.Color;
-import android.graphics.Typeface;
 import android.os.Bundle;
 import android.text.SpannableString;
 import android.text.Spanned;
 import android.view.LayoutInflater;
 import android.view.View;
-import android.view.ViewGroup;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
+import android.widget.ProgressBar;
 import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.cardview.widget.CardView;
-import androidx.core.content.res.ResourcesCompat;
 import androidx.core.widget.NestedScrollView;
+import androidx.lifecycle.Lifecycle;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.flexbox.FlexboxLayout;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
-import java.text.DateFormatSymbols;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
+import java.util.concurrent.Future;
 
 public class MainActivity extends AppCompatActivity {
 
+    static final String PREFS_NAME    = "UserPrefs";
+    static final String KEY_USER_NAME = "userName";
+
     // UI
     private TextView greetingText, btnLogout;
     private TextView tabFolders, tabJournals;
-    private NestedScrollView scrollViewFolders, scrollViewJournals;
-    private LinearLayout journalListContainer;
+    private NestedScrollView scrollViewFolders;
+    private LinearLayout journalsPanel;
+    private RecyclerView journalList;
+    private LinearLayoutManager journalLayout;
+    private JournalAdapter journalAdapter;
     private FlexboxLayout folderGrid;
     private FloatingActionButton btnNewFolder;
     private TextView emptyFolderText, emptyJournalMainText;
     private LinearLayout filterContainer;
     private Spinner spinnerYearMain, spinnerMonthMain;
+    private JournalFilterSpinners journalFilters;
 
     // DB
-    private DatabaseHelper dbHelper;
-    private SQLiteDatabase db;
+    private JournalRepository repository;
+    private FolderStyles folderStyles;
+    private Fonts fonts;
+    private StartupTimes startupTimes;
+    private Future<?> pendingFolderLoad;
+    private AlertDialog deleteProgress;  // while a folder delete runs
+    private JournalPager journalPager;
+    private List<JournalEntry> loadedJournals = new ArrayList<>();
+    // Generations of the tables as last loaded; see InvalidationTracker
+    private long foldersGeneration = -1;
+    private long journalsGeneration = -1;
+
+    /** Start fetching the next page this many rows before the end of the list. */
+    private static final int JOURNAL_PREFETCH_ROWS = 15;
+
+    /** Blank cards shown in the folder grid until the folders load. */
+    private static final int PLACEHOLDER_FOLDERS = 4;
+    private static final String PLACEHOLDER_COLOR = "#EFE4DF";
 
     // For folders
     private final String[] categories = { "Work", "Personal", "Creative", "Finance", "Fitness", "School", "Travel", "Others" };
@@ -68,19 +84,23 @@ public class MainActivity extends AppCompatActivity {
             "#80CBC4", "#7986CB", "#FFB74D", "#C5E1A5", "#A1887F", "#F8BBD0"
     };
 
-
-    // Date formats for journals
-    private static final SimpleDateFormat[] PARSE_FORMATS = {
-            new SimpleDateFormat("MMMM dd, yyyy HH:mm", Locale.getDefault()),
-            new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault())
-    };
-    private static final SimpleDateFormat HEADER_FMT  = new SimpleDateFormat("MMMM d", Locale.getDefault());
-    private static final SimpleDateFormat DISPLAY_FMT = new SimpleDateFormat("MMMM d, yyyy HH:mm", Locale.getDefault());
-
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+
+        // First run: no name saved yet, so welcome the user instead
+        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
+        String name = prefs.getString(KEY_USER_NAME, null);
+        if (name == null || name.isEmpty()) {
+            startActivity(new Intent(this, WelcomeActivity.class));
+            finish();
+            return;
+        }
+
+        startupTimes = StartupTimes.get(this);
+        if (savedInstanceState == null) startupTimes.begin();
         setContentView(R.layout.activity_main);
+        startupTimes.watchFirstFrame(getWindow().getDecorView());
 
         // View binding
         greetingText         = findViewById(R.id.greetingText);
@@ -88,28 +108,55 @@ public class MainActivity extends AppCompatActivity {
         tabFolders           = findViewById(R.id.tabFolders);
         tabJournals          = findViewById(R.id.tabJournals);
         scrollViewFolders    = findViewById(R.id.scrollViewFolders);
-        scrollViewJournals   = findViewById(R.id.scrollViewJournals);
+        journalsPanel        = findViewById(R.id.journalsPanel);
         emptyFolderText      = findViewById(R.id.emptyFolderText);
         emptyJournalMainText = findViewById(R.id.emptyJournalMainText);
         folderGrid           = findViewById(R.id.folderGrid);
-        journalListContainer = findViewById(R.id.journalListContainer);
+        journalList          = findViewById(R.id.journalList);
         btnNewFolder         = findViewById(R.id.btnNewFolder);
         filterContainer      = findViewById(R.id.filterContainer);
         spinnerYearMain      = findViewById(R.id.spinnerYearMain);
         spinnerMonthMain     = findViewById(R.id.spinnerMonthMain);
 
         // DB
-        dbHelper = new DatabaseHelper(this);
-        db = dbHelper.getWritableDatabase();
+        repository = new JournalRepository(this);
+        folderStyles = FolderStyles.get(this);
+        fonts = Fonts.get(this);
+        journalPager = new JournalPager(repository, DatabaseHelper.ALL_FOLDERS, new JournalPager.Listener() {
+            @Override public void onPage(List<JournalEntry> entries, boolean first) {
+                showJournals(entries, first);
+            }
+            @Override public void onError(Exception e) {
+                Toast.makeText(MainActivity.this, "Couldn't load journal entries.", Toast.LENGTH_SHORT).show();
+            }
+        });
+        journalFilters = new JournalFilterSpinners(this, spinnerYearMain, spinnerMonthMain, journalPager::reset);
+
+        // Journals list
+        journalAdapter = JournalAdapter.forAllFolders(new JournalAdapter.Listener() {
+            @Override public void onEntryClick(JournalEntry entry) {
+                Intent i = new Intent(MainActivity.this, AddJournalActivity.class);
+                i.putExtra("journalId", entry.id);
+                startActivity(i);
+            }
+            @Override public boolean onEntryLongClick(JournalEntry entry) {
+                return false;
+            }
+        });
+        journalLayout = new LinearLayoutManager(this);
+        journalList.setLayoutManager(journalLayout);
+        journalList.setAdapter(journalAdapter);
+        // Append the next page of journals when the list nears its end
+        journalList.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override public void onScrolled(RecyclerView rv, int dx, int dy) {
+                loadMoreJournalsIfNeeded();
+            }
+        });
 
         // Greeting
-        SharedPreferences prefs = getSharedPreferences("UserPrefs", MODE_PRIVATE);
-        String name = prefs.getString("userName", "User");
         SpannableString styled = new SpannableString("Welcome back,\n" + name + "!");
-        Typeface light = ResourcesCompat.getFont(this, R.font.poppins_light);
-        Typeface med   = ResourcesCompat.getFont(this, R.font.poppins_medium);
-        styled.setSpan(new CustomTypefaceSpan(light), 0, 14, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
-        styled.setSpan(new CustomTypefaceSpan(med), 15, styled.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        styled.setSpan(fonts.span(R.font.poppins_light), 0, 14, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        styled.setSpan(fonts.span(R.font.poppins_medium), 15, styled.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
         greetingText.setText(styled);
 
         // Tabs
@@ -134,7 +181,18 @@ public class MainActivity extends AppCompatActivity {
         // Add Folder
         btnNewFolder.setOnClickListener(v -> showAddFolderDialog());
 
-        // Default: Folders tab
+        // Reload the visible tab when a write changes it; onResume catches up on the rest
+        repository.observeChanges(change -> {
+            if (!getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) return;
+            if (scrollViewFolders.getVisibility() == View.VISIBLE) {
+                if (change.touches(DatabaseHelper.TABLE_FOLDERS)) loadFoldersFromDatabase();
+            } else if (change.touches(DatabaseHelper.TABLE_JOURNALS)) {
+                refreshJournals();
+            }
+        });
+
+        // Default: Folders tab, with placeholder cards until the folders load
+        showFolderPlaceholders();
         showFoldersTab();
     }
 
@@ -146,91 +204,122 @@ public class MainActivity extends AppCompatActivity {
         tabJournals.setBackgroundResource(R.drawable.tab_inactive_bg);
         tabJournals.setTextColor(Color.parseColor("#6D4C41"));
         scrollViewFolders .setVisibility(View.VISIBLE);
-        scrollViewJournals.setVisibility(View.GONE);
+        journalsPanel     .setVisibility(View.GONE);
         filterContainer    .setVisibility(View.GONE);
         btnNewFolder       .show();
         loadFoldersFromDatabase();
     }
 
     private void loadFoldersFromDatabase() {
-        folderGrid.removeAllViews();
-
-        Cursor c = db.query(
-                DatabaseHelper.TABLE_FOLDERS,
-                null, null, null, null, null, null
-        );
+        foldersGeneration = repository.getInvalidationTracker().generation(DatabaseHelper.TABLE_FOLDERS);
+        if (pendingFolderLoad != null) pendingFolderLoad.cancel(false);
+        pendingFolderLoad = repository.loadFolders(this::showFolders);
+    }
 
-        if (c.moveToFirst()) {
-            emptyFolderText.setVisibility(View.GONE);
-            do {
-                int id = c.getInt(c.getColumnIndexOrThrow(DatabaseHelper.COLUMN_FOLDER_ID));
-                String name = c.getString(c.getColumnIndexOrThrow(DatabaseHelper.COLUMN_FOLDER_NAME));
-                String color = c.getString(c.getColumnIndexOrThrow(DatabaseHelper.COLUMN_FOLDER_ICON));
-
-                View card = LayoutInflater.from(this)
-                        .inflate(R.layout.item_folder, folderGrid, false);
-
-                // Set background color
-                ((LinearLayout) card).setBackgroundTintList(
-                        ColorStateList.valueOf(Color.parseColor(color))
-                );
-
-                // Set icon
-                ImageView icon = card.findViewById(R.id.folderIcon);
-                int res = getResources().getIdentifier(
-                        name.toLowerCase(Locale.ROOT),
-                        "drawable",
-                        getPackageName()
-                );
-                icon.setImageResource(res != 0 ? res : R.drawable.others);
-
-                // Set title
-                TextView title = card.findViewById(R.id.folderName);
-                title.setText(name);
-
-                // 📂 Click: open JournalListActivity
-                card.setOnClickListener(v -> {
-                    Intent intent = new Intent(MainActivity.this, JournalListActivity.class);
-                    intent.putExtra("folderId", (long) id); // cast to long
-                    intent.putExtra("folderName", name);
-                    intent.putExtra("folderColor", color);
-                    startActivity(intent);
-                    overridePendingTransition(android.R.anim.fade_in, android.R.anim.fade_out);
-                });
+    private void showFolderPlaceholders() {
+        ColorStateList tint = folderStyles.tint(PLACEHOLDER_COLOR);
+        for (int i = 0; i < PLACEHOLDER_FOLDERS; i++) {
+            View card = LayoutInflater.from(this)
+                    .inflate(R.layout.item_folder, folderGrid, false);
+            card.setBackgroundTintList(tint);
+            ((TextView) card.findViewById(R.id.folderName)).setText("");
+            card.setEnabled(false);
+            folderGrid.addView(card);
+        }
+    }
 
-                // 🗑️ Long press to delete folder
-                card.setOnLongClickListener(v -> {
-                    new AlertDialog.Builder(MainActivity.this)
-                            .setTitle("Delete Folder")
-                            .setMessage("Are you sure you want to delete this folder and all its journals?")
-                            .setPositiveButton("Delete", (dialog, which) -> {
-                                // Delete journals inside this folder
-                                db.delete(
-                                        DatabaseHelper.TABLE_JOURNALS,
-                                        DatabaseHelper.COLUMN_JOURNAL_FOLDER_ID + "=?",
-                                        new String[]{String.valueOf(id)}
-                                );
-                                // Delete the folder itself
-                                db.delete(
-                                        DatabaseHelper.TABLE_FOLDERS,
-                                        DatabaseHelper.COLUMN_FOLDER_ID + "=?",
-                                        new String[]{String.valueOf(id)}
-                                );
-                                loadFoldersFromDatabase();
-                                Toast.makeText(MainActivity.this, "Folder deleted.", Toast.LENGTH_SHORT).show();
-                            })
-                            .setNegativeButton("Cancel", null)
-                            .show();
-                    return true;
-                });
+    private void showFolders(List<Folder> folders) {
+        if (startupTimes.dataShown()) reportFullyDrawn();
+        folderGrid.removeAllViews();
 
-                folderGrid.addView(card);
-            } while (c.moveToNext());
-        } else {
+        if (folders.isEmpty()) {
             emptyFolderText.setVisibility(View.VISIBLE);
+            return;
+        }
+        emptyFolderText.setVisibility(View.GONE);
+
+        for (Folder folder : folders) {
+            long id = folder.id;
+            String name = folder.name;
+            String color = folder.color;
+            FolderStyles.Style style = folderStyles.of(folder);
+
+            View card = LayoutInflater.from(this)
+                    .inflate(R.layout.item_folder, folderGrid, false);
+
+            // Set background color
+            card.setBackgroundTintList(style.tint);
+
+            // Set icon
+            ImageView icon = card.findViewById(R.id.folderIcon);
+            icon.setImageResource(style.iconRes);
+
+            // Set title
+            TextView title = card.findViewById(R.id.folderName);
+            title.setText(name);
+
+            // 📂 Click: open JournalListActivity
+            card.setOnClickListener(v -> {
+                Intent intent = new Intent(MainActivity.this, JournalListActivity.class);
+                intent.putExtra("folderId", id);
+                intent.putExtra("folderName", name);
+                intent.putExtra("folderColor", color);
+                startActivity(intent);
+                overridePendingTransition(android.R.anim.fade_in, android.R.anim.fade_out);
+            });
+
+            // 🗑️ Long press to delete folder
+            card.setOnLongClickListener(v -> {
+                new AlertDialog.Builder(MainActivity.this)
+                        .setTitle("Delete Folder")
+                        .setMessage("Are you sure you want to delete this folder and all its journals?")
+                        .setPositiveButton("Delete", (dialog, which) -> deleteFolder(id))
+                        .setNegativeButton("Cancel", null)
+                        .show();
+                return true;
+            });
+
+            folderGrid.addView(card);
         }
+    }
+
+
+    /** Deletes in the background, all or nothing, with a progress dialog for big folders. */
+    private void deleteFolder(long folderId) {
+        ProgressBar bar = new ProgressBar(this, null, android.R.attr.progressBarStyleHorizontal);
+        int pad = (int) (24 * getResources().getDisplayMetrics().density);
+        bar.setPadding(pad, pad / 2, pad, 0);
+        AlertDialog progress = new AlertDialog.Builder(this)
+                .setTitle("Deleting folder…")
+                .setView(bar)
+                .setCancelable(false)
+                .create();
+        progress.show();
+        deleteProgress = progress;
+
+        // The delete carries on if the activity goes; onDestroy dismisses the dialog
+        repository.deleteFolder(folderId, (deleted, total) -> {
+            if (isFinishing() || isDestroyed()) return;
+            bar.setMax(Math.max(total, 1));
+            bar.setProgress(deleted);
+        }, new JournalRepository.Callback<Integer>() {
+            @Override public void onResult(Integer removed) {
+                if (!deleteEnded(progress)) return;
+                Toast.makeText(MainActivity.this, "Folder deleted.", Toast.LENGTH_SHORT).show();
+            }
+            @Override public void onError(Exception e) {
+                if (!deleteEnded(progress)) return;
+                Toast.makeText(MainActivity.this, "Couldn't delete folder.", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
 
-        c.close();
+    /** Dismiss a delete's dialog; false if the activity is going and there's nothing left to show. */
+    private boolean deleteEnded(AlertDialog progress) {
+        if (isFinishing() || isDestroyed()) return false;
+        progress.dismiss();
+        if (deleteProgress == progress) deleteProgress = null;
+        return true;
     }
 
 
@@ -241,162 +330,54 @@ public class MainActivity extends AppCompatActivity {
         tabJournals.setBackgroundResource(R.drawable.tab_active_bg);
         tabJournals.setTextColor(Color.WHITE);
         scrollViewFolders .setVisibility(View.GONE);
-        scrollViewJournals.setVisibility(View.VISIBLE);
+        journalsPanel     .setVisibility(View.VISIBLE);
         filterContainer    .setVisibility(View.VISIBLE);
         btnNewFolder       .hide();
         setupJournalFilters();
     }
 
     private void setupJournalFilters() {
-        // -- YEAR Spinner
-        List<String> years = new ArrayList<>();
-        years.add("All");
-        Cursor cy = db.rawQuery(
-                "SELECT DISTINCT strftime('%Y', date_modified) FROM " +
-                        DatabaseHelper.TABLE_JOURNALS + " ORDER BY 1 DESC",
-                null
-        );
-        while (cy != null && cy.moveToNext()) {
-            years.add(cy.getString(0));
-        }
-        if (cy != null) cy.close();
-        spinnerYearMain.setAdapter(new ArrayAdapter<>(
-                this, android.R.layout.simple_spinner_dropdown_item, years
-        ));
-
-        // -- MONTH Spinner
-        String[] months = {
-                "All","January","February","March","April","May","June",
-                "July","August","September","October","November","December"
-        };
-        spinnerMonthMain.setAdapter(new ArrayAdapter<>(
-                this, android.R.layout.simple_spinner_dropdown_item, months
-        ));
-
-        // Listeners
-        AdapterView.OnItemSelectedListener filterListener = new AdapterView.OnItemSelectedListener() {
-            @Override public void onItemSelected(AdapterView<?> parent, View view, int pos, long id) {
-                loadAllJournalsWithHeaders();
-            }
-            @Override public void onNothingSelected(AdapterView<?> parent) {}
-        };
-        spinnerYearMain.setOnItemSelectedListener(filterListener);
-        spinnerMonthMain.setOnItemSelectedListener(filterListener);
-
+        // Year/Month options come from the month counts table, labelled "2024 (312)"
+        journalsGeneration = repository.getInvalidationTracker().generation(DatabaseHelper.TABLE_JOURNALS);
+        repository.loadJournalCounts(DatabaseHelper.ALL_FOLDERS, journalFilters::setCounts);
         loadAllJournalsWithHeaders();
     }
 
-    private void loadAllJournalsWithHeaders() {
-        journalListContainer.removeAllViews();
-        boolean foundAny = false;
-
-        String yearFilter  = spinnerYearMain.getSelectedItem().toString();
-        String monthFilter = spinnerMonthMain.getSelectedItem().toString();
-
-        Cursor c = db.query(
-                DatabaseHelper.TABLE_JOURNALS,
-                null, null, null, null, null,
-                DatabaseHelper.COLUMN_JOURNAL_DATE_MODIFIED + " DESC"
-        );
-
-        String lastHeader = "";
-        if (c.moveToFirst()) {
-            emptyJournalMainText.setVisibility(View.GONE);
-            do {
-                long   jid   = c.getLong(c.getColumnIndexOrThrow(DatabaseHelper.COLUMN_JOURNAL_ID));
-                String title = c.getString(c.getColumnIndexOrThrow(DatabaseHelper.COLUMN_JOURNAL_TITLE));
-                String ts    = c.getString(c.getColumnIndexOrThrow(DatabaseHelper.COLUMN_JOURNAL_DATE_MODIFIED));
-                long   fId   = c.getLong(c.getColumnIndexOrThrow(DatabaseHelper.COLUMN_JOURNAL_FOLDER_ID));
-
-                // Parse date
-                Date parsedDate = null;
-                for (SimpleDateFormat pf : PARSE_FORMATS) {
-                    try { parsedDate = pf.parse(ts); break; }
-                    catch (ParseException ignored) {}
-                }
-                if (parsedDate == null) continue;
-
-                // Extract year + month name
-                Calendar cal = Calendar.getInstance();
-                cal.setTime(parsedDate);
-                String entryYear  = String.valueOf(cal.get(Calendar.YEAR));
-                String entryMonth = new DateFormatSymbols().getMonths()[cal.get(Calendar.MONTH)];
-
-                // Apply filters
-                if ((!yearFilter.equals("All")  && !yearFilter.equals(entryYear)) ||
-                        (!monthFilter.equals("All") && !monthFilter.equals(entryMonth))) {
-                    continue;
-                }
-                foundAny = true;
-
-                // Section header
-                String headerDate = HEADER_FMT.format(parsedDate);
-                if (!headerDate.equals(lastHeader)) {
-                    lastHeader = headerDate;
-                    TextView h = new TextView(this);
-                    h.setText(headerDate);
-                    h.setTextSize(18);
-                    h.setTypeface(ResourcesCompat.getFont(this, R.font.poppins_medium));
-                    h.setTextColor(Color.parseColor("#5C2E2E"));
-                    LinearLayout.LayoutParams lp = new LinearLayout.LayoutParams(
-                            ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT
-                    );
-                    lp.setMargins(0, 24, 0, 8);
-                    h.setLayoutParams(lp);
-                    journalListContainer.addView(h);
-                }
+    /** Reload the counts and every row loaded so far, keeping the filter. */
+    private void refreshJournals() {
+        journalsGeneration = repository.getInvalidationTracker().generation(DatabaseHelper.TABLE_JOURNALS);
+        repository.loadJournalCounts(DatabaseHelper.ALL_FOLDERS, journalFilters::setCounts);
+        journalPager.refresh();
+    }
 
-                // Get folder color AND name for icon
-                Cursor f = db.query(
-                        DatabaseHelper.TABLE_FOLDERS,
-                        null,
-                        DatabaseHelper.COLUMN_FOLDER_ID + "=?",
-                        new String[]{String.valueOf(fId)},
-                        null, null, null
-                );
-                String fcol = "#CCCCCC";
-                String fname = "others";
-                if (f.moveToFirst()) {
-                    fcol  = f.getString(f.getColumnIndexOrThrow(DatabaseHelper.COLUMN_FOLDER_ICON));
-                    fname = f.getString(f.getColumnIndexOrThrow(DatabaseHelper.COLUMN_FOLDER_NAME));
-                }
-                f.close();
-
-                // Inflate journal card
-                View item = LayoutInflater.from(this)
-                        .inflate(R.layout.item_journal_main, journalListContainer, false);
-                CardView  card     = item.findViewById(R.id.journalCard);
-                ImageView folderIv = item.findViewById(R.id.journalFolderIcon);
-                TextView  tvTitle  = item.findViewById(R.id.journalTitle);
-                TextView  tvTs     = item.findViewById(R.id.journalDate);
-
-                card.setCardBackgroundColor(Color.parseColor(fcol));
-
-                // Set the correct icon for this folder
-                int iconRes = getResources().getIdentifier(
-                        fname.toLowerCase(Locale.ROOT), "drawable", getPackageName());
-                folderIv.setImageResource(iconRes != 0 ? iconRes : R.drawable.others);
-
-                tvTitle.setText(title);
-                tvTs.setText(DISPLAY_FMT.format(parsedDate));
-
-                card.setOnClickListener(v -> {
-                    Intent i = new Intent(this, AddJournalActivity.class);
-                    i.putExtra("journalId", jid);
-                    startActivity(i);
-                });
+    private void loadAllJournalsWithHeaders() {
+        journalPager.reset(journalFilters.getFilter());
+    }
 
-                journalListContainer.addView(item);
-            } while (c.moveToNext());
+    /** Within a few rows of the end of what's loaded: ask for the next page. */
+    private void loadMoreJournalsIfNeeded() {
+        int last = journalLayout.findLastVisibleItemPosition();
+        if (last != RecyclerView.NO_POSITION
+                && last >= journalAdapter.getItemCount() - JOURNAL_PREFETCH_ROWS) {
+            journalPager.loadMore();
         }
-        c.close();
+    }
 
-        if (!foundAny) {
-            emptyJournalMainText.setText("No journal entries in " + monthFilter);
-            emptyJournalMainText.setVisibility(View.VISIBLE);
-        } else {
-            emptyJournalMainText.setVisibility(View.GONE);
+    private void showJournals(List<JournalEntry> page, boolean first) {
+        if (first) {
+            loadedJournals = new ArrayList<>();
+            if (page.isEmpty()) {
+                emptyJournalMainText.setText(journalFilters.getCounts().total() == 0
+                        ? "No journal entries yet"
+                        : "No journal entries in " + journalFilters.getFilter().describe());
+                emptyJournalMainText.setVisibility(View.VISIBLE);
+            } else {
+                emptyJournalMainText.setVisibility(View.GONE);
+            }
         }
+        loadedJournals.addAll(page);
+        // A short page may not fill the screen, so no scroll event would follow
+        journalAdapter.submitEntries(loadedJournals, this::loadMoreJournalsIfNeeded);
     }
 
 
@@ -427,18 +408,14 @@ public class MainActivity extends AppCompatActivity {
 
         spinnerCategory.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
             @Override public void onItemSelected(AdapterView<?> parent, View view, int pos, long id) {
-                String nm = categories[pos].toLowerCase(Locale.ROOT);
-                int resId = getResources().getIdentifier(nm, "drawable", getPackageName());
-                iconPreview.setImageResource(resId != 0 ? resId : R.drawable.others);
+                iconPreview.setImageResource(folderStyles.icon(categories[pos]));
             }
             @Override public void onNothingSelected(AdapterView<?> parent) {}
         });
 
         spinnerColor.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
             @Override public void onItemSelected(AdapterView<?> parent, View view, int pos, long id) {
-                iconBg.setBackgroundTintList(
-                        ColorStateList.valueOf(Color.parseColor(colorHex[pos]))
-                );
+                iconBg.setBackgroundTintList(folderStyles.tint(colorHex[pos]));
             }
             @Override public void onNothingSelected(AdapterView<?> parent) {}
         });
@@ -450,40 +427,40 @@ public class MainActivity extends AppCompatActivity {
             String clr = colorHex[idx];
 
             // 🔒 Check if folder with same category already exists
-            Cursor check = db.query(
-                    DatabaseHelper.TABLE_FOLDERS,
-                    null,
-                    DatabaseHelper.COLUMN_FOLDER_NAME + "=?",
-                    new String[]{nm},
-                    null, null, null
-            );
-            if (check.moveToFirst()) {
-                Toast.makeText(this, "Folder with this category already exists.", Toast.LENGTH_SHORT).show();
-                check.close();
-                return;
-            }
-            check.close();
-
-            long res = dbHelper.insertFolder(nm, clr);
-            if (res > 0) {
-                dialog.dismiss();
-                loadFoldersFromDatabase();
-                Toast.makeText(this, "Folder created: " + nm, Toast.LENGTH_SHORT).show();
-            } else {
-                Toast.makeText(this, "Failed to create folder.", Toast.LENGTH_SHORT).show();
-            }
+            repository.folderExists(nm, exists -> {
+                if (exists) {
+                    Toast.makeText(this, "Folder with this category already exists.", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                repository.insertFolder(nm, clr, res -> {
+                    if (res > 0) {
+                        dialog.dismiss();
+                        Toast.makeText(this, "Folder created: " + nm, Toast.LENGTH_SHORT).show();
+                    } else {
+                        Toast.makeText(this, "Failed to create folder.", Toast.LENGTH_SHORT).show();
+                    }
+                });
+            });
         });
         dialog.show();
     }
 
-    // Refresh on return
+    // Refresh on return, if anything was written meanwhile
     @Override
     protected void onResume() {
         super.onResume();
+        InvalidationTracker tracker = repository.getInvalidationTracker();
         if (scrollViewFolders.getVisibility() == View.VISIBLE) {
-            loadFoldersFromDatabase();
-        } else {
-            loadAllJournalsWithHeaders();
+            if (tracker.generation(DatabaseHelper.TABLE_FOLDERS) != foldersGeneration) loadFoldersFromDatabase();
+        } else if (tracker.generation(DatabaseHelper.TABLE_JOURNALS) != journalsGeneration) {
+            refreshJournals();
         }
     }
+
+    @Override
+    protected void onDestroy() {
+        if (deleteProgress != null) deleteProgress.dismiss();
+        if (repository != null) repository.close();
+        super.onDestroy();
+    }
 }
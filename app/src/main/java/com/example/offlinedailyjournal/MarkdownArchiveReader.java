@@ -0,0 +1,207 @@
+package com.example.offlinedailyjournal;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streams entries out of Markdown or plain text, a line at a time. Each
+ * entry may open with front matter:
+ *
+ * <pre>
+ * ---
+ * title: Morning pages
+ * date: 2024-07-29T21:40:00Z
+ * folder: Work
+ * mood: "🙂 Calm"
+ * ---
+ * The body, up to the next front matter block or the end of the text.
+ * </pre>
+ *
+ * so one file can hold many entries, as our export writes them. A "---"
+ * line only starts an entry if what follows it is a closed block of
+ * "key: value" lines naming at least one field below; otherwise it is an
+ * ordinary horizontal rule in the body. Text without front matter is one
+ * entry, titled by a leading "# heading" or else the file's name.
+ */
+final class MarkdownArchiveReader implements JournalArchive.Reader {
+
+    private static final String FENCE = "---";
+
+    /** Longest front matter block looked for; anything longer is body text. */
+    private static final int MAX_FRONT_MATTER_LINES = 32;
+
+    private final BufferedReader in;
+    private final TimestampCodec codec;
+    private final String defaultFolder;
+    private final String fileTitle;
+    private final long   fileTime;
+
+    // Lines read ahead while checking a fence, to be read again
+    private final Deque<String> pushedBack = new ArrayDeque<>();
+    // Front matter of the next entry, read while looking for this one's end
+    private String[] nextMeta;
+    private boolean firstLine = true;
+    private boolean done;
+
+    /**
+     * {@code fileTitle} and {@code fileTime} (or null and NO_DATE) stand in for a
+     * missing title and date, e.g. from a file's name and time in a zip.
+     */
+    MarkdownArchiveReader(InputStream in, TimestampCodec codec, String defaultFolder,
+                          String fileTitle, long fileTime) {
+        this.in            = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.codec         = codec;
+        this.defaultFolder = defaultFolder;
+        this.fileTitle     = fileTitle;
+        this.fileTime      = fileTime;
+    }
+
+    private String readLine() throws IOException {
+        if (!pushedBack.isEmpty()) return pushedBack.pollFirst();
+        String line = in.readLine();
+        if (firstLine && line != null) {
+            firstLine = false;
+            if (line.startsWith("\uFEFF")) line = line.substring(1);
+        }
+        return line;
+    }
+
+    @Override
+    public JournalArchive.Entry next() throws IOException {
+        if (done) return null;
+
+        String[] meta = nextMeta;  // title, folder, mood, date, modified
+        nextMeta = null;
+        String line;
+        if (meta == null) {
+            do {
+                line = readLine();
+            } while (line != null && line.trim().isEmpty());
+            if (line == null) {
+                done = true;
+                return null;
+            }
+            if (line.trim().equals(FENCE)) meta = frontMatter();
+            if (meta == null) pushedBack.addFirst(line);
+        }
+
+        StringBuilder body = new StringBuilder();
+        while ((line = readLine()) != null) {
+            if (line.trim().equals(FENCE) && (nextMeta = frontMatter()) != null) {
+                break;  // the next entry starts here
+            }
+            body.append(line).append('\n');
+        }
+        if (line == null) done = true;
+
+        String content = trimBlankLines(body);
+        String title = meta != null ? meta[0] : null;
+        if (title == null && content.startsWith("# ")) {
+            int end = content.indexOf('\n');
+            title = (end < 0 ? content.substring(2) : content.substring(2, end)).trim();
+            content = end < 0 ? "" : trimBlankLines(content.substring(end + 1));
+        }
+        if (title == null) title = fileTitle;
+
+        String folder = meta != null && meta[1] != null ? meta[1] : defaultFolder;
+        long added    = meta != null ? JournalArchive.parseDate(meta[3], codec) : JournalArchive.NO_DATE;
+        long modified = meta != null ? JournalArchive.parseDate(meta[4], codec) : JournalArchive.NO_DATE;
+        if (added == JournalArchive.NO_DATE && modified == JournalArchive.NO_DATE) added = fileTime;
+        return new JournalArchive.Entry(folder, title, content, meta != null ? meta[2] : null, added, modified);
+    }
+
+    /**
+     * After a fence: the front matter fields, with the closing fence
+     * consumed; or null, with every line after the fence pushed back.
+     */
+    private String[] frontMatter() throws IOException {
+        List<String> lines = new ArrayList<>();
+        String[] meta = new String[5];
+        boolean known = false;
+        String line;
+        while (lines.size() < MAX_FRONT_MATTER_LINES && (line = readLine()) != null) {
+            lines.add(line);
+            String trimmed = line.trim();
+            if (trimmed.equals(FENCE)) {
+                if (known) return meta;
+                break;
+            }
+            int colon = trimmed.indexOf(':');
+            if (colon <= 0 || !isKey(trimmed, colon)) break;
+            String value = unquote(trimmed.substring(colon + 1).trim());
+            switch (trimmed.substring(0, colon).toLowerCase(Locale.ROOT)) {
+                case "title":    meta[0] = value; known = true; break;
+                case "folder": case "journal": case "notebook":
+                                 meta[1] = value; known = true; break;
+                case "mood":     meta[2] = value; known = true; break;
+                case "date": case "created": case "date_added":
+                                 meta[3] = value; known = true; break;
+                case "modified": case "updated": case "date_modified":
+                                 meta[4] = value; known = true; break;
+                default:         break;  // tags, id, ... are allowed but not kept
+            }
+        }
+        for (int i = lines.size() - 1; i >= 0; i--) pushedBack.addFirst(lines.get(i));
+        return null;
+    }
+
+    private static boolean isKey(String line, int colon) {
+        for (int i = 0; i < colon; i++) {
+            char ch = line.charAt(i);
+            if (!(Character.isLetterOrDigit(ch) || ch == '_' || ch == '-')) return false;
+        }
+        return true;
+    }
+
+    /** A YAML-style scalar: "double quoted" with backslash escapes, 'single quoted', or as is. */
+    static String unquote(String value) {
+        if (value.isEmpty()) return null;
+        int n = value.length();
+        if (n >= 2 && value.charAt(0) == '\'' && value.charAt(n - 1) == '\'') {
+            return value.substring(1, n - 1).replace("''", "'");
+        }
+        if (n < 2 || value.charAt(0) != '"' || value.charAt(n - 1) != '"') return value;
+
+        StringBuilder out = new StringBuilder(n);
+        for (int i = 1; i < n - 1; i++) {
+            char ch = value.charAt(i);
+            if (ch == '\\' && i + 1 < n - 1) {
+                char esc = value.charAt(++i);
+                switch (esc) {
+                    case 'n': out.append('\n'); break;
+                    case 't': out.append('\t'); break;
+                    case 'r': out.append('\r'); break;
+                    default:  out.append(esc);  // \" and \\
+                }
+            } else {
+                out.append(ch);
+            }
+        }
+        return out.toString();
+    }
+
+    /** Without leading blank lines and trailing whitespace; a first line's indentation stays. */
+    private static String trimBlankLines(CharSequence text) {
+        int first = 0;
+        while (first < text.length() && Character.isWhitespace(text.charAt(first))) first++;
+        if (first == text.length()) return "";
+        int start = first;
+        while (start > 0 && text.charAt(start - 1) != '\n') start--;
+        int end = text.length();
+        while (end > first && Character.isWhitespace(text.charAt(end - 1))) end--;
+        return text.subSequence(start, end).toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.offlinedailyjournal;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * One schema upgrade step, taking the database from {@code version - 1} to
+ * {@code version}. {@link DatabaseHelper#MIGRATIONS} lists them in order and
+ * onUpgrade runs each one a database hasn't had yet, inside the single
+ * upgrade transaction.
+ */
+final class Migration {
+
+    interface Step {
+        void apply(SQLiteDatabase db);
+    }
+
+    final int    version;
+    final String description;
+    final Step   step;
+
+    Migration(int version, String description, Step step) {
+        this.version     = version;
+        this.description = description;
+        this.step        = step;
+    }
+
+    @Override
+    public String toString() {
+        return version + ": " + description;
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.offlinedailyjournal;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Time to first frame and time to data for each launch of the home
+ * screen. Every launch is logged ({@code adb logcat -s StartupTimes}) and
+ * the last {@link #MAX_LAUNCHES} are kept, newest first, so a slower build
+ * shows up next to the launches before it.
+ *
+ * The first launch in a process is cold and counts from process start;
+ * later ones are warm and count from the activity's onCreate. First frame
+ * is the first draw of the window, with the placeholder folder grid; data
+ * is when the real folders replace it. A launch left before its data
+ * arrives isn't kept. Main thread only.
+ */
+final class StartupTimes {
+
+    private static final String TAG = "StartupTimes";
+    private static final String PREFS_NAME = "StartupTimes";
+    private static final String KEY_LAUNCHES = "launches";
+
+    static final int MAX_LAUNCHES = 20;
+
+    /** One launch, in milliseconds from its start. */
+    static final class Launch {
+        final boolean cold;
+        final long firstFrameMillis;
+        final long dataMillis;
+
+        Launch(boolean cold, long firstFrameMillis, long dataMillis) {
+            this.cold             = cold;
+            this.firstFrameMillis = firstFrameMillis;
+            this.dataMillis       = dataMillis;
+        }
+
+        String encode() {
+            return (cold ? "cold" : "warm") + " " + firstFrameMillis + " " + dataMillis;
+        }
+
+        static Launch decode(String s) {
+            String[] parts = s.split(" ");
+            return new Launch("cold".equals(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        }
+
+        @Override
+        public String toString() {
+            return (cold ? "Cold" : "Warm") + " launch: first frame " + firstFrameMillis
+                    + " ms, data " + dataMillis + " ms";
+        }
+    }
+
+    private static StartupTimes instance;
+
+    private final SharedPreferences prefs;
+    private boolean launchedBefore;
+    // The launch being timed; origin is -1 when there is none
+    private long origin = -1;
+    private boolean cold;
+    private long firstFrame = -1;
+
+    static synchronized StartupTimes get(Context context) {
+        if (instance == null) {
+            instance = new StartupTimes(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /** For tests; the app goes through {@link #get}. */
+    StartupTimes(Context context) {
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /** A launch starts now, or at process start if it's the process's first. */
+    void begin() {
+        boolean first = !launchedBefore;
+        begin(first ? Process.getStartUptimeMillis() : SystemClock.uptimeMillis(), first);
+    }
+
+    void begin(long originUptime, boolean cold) {
+        launchedBefore = true;
+        this.origin     = originUptime;
+        this.cold       = cold;
+        this.firstFrame = -1;
+    }
+
+    /** Record the launch's first frame when {@code root} first draws. */
+    void watchFirstFrame(View root) {
+        root.getViewTreeObserver().addOnDrawListener(new ViewTreeObserver.OnDrawListener() {
+            @Override public void onDraw() {
+                firstFrame(SystemClock.uptimeMillis());
+                // Listeners can't be removed while the tree is drawing
+                root.post(() -> root.getViewTreeObserver().removeOnDrawListener(this));
+            }
+        });
+    }
+
+    void firstFrame(long uptime) {
+        if (origin < 0 || firstFrame >= 0) return;
+        firstFrame = uptime - origin;
+    }
+
+    /**
+     * The screen shows real data: ends the launch. Returns true the first
+     * time for a launch, when the caller should report itself fully drawn.
+     */
+    boolean dataShown() {
+        return dataShown(SystemClock.uptimeMillis());
+    }
+
+    boolean dataShown(long uptime) {
+        if (origin < 0) return false;
+        long data = uptime - origin;
+        // Data bound before any draw: the first frame already shows it
+        Launch launch = new Launch(cold, firstFrame >= 0 ? firstFrame : data, data);
+        origin = -1;
+        Log.i(TAG, launch.toString());
+        record(launch);
+        return true;
+    }
+
+    /** The launches kept, newest first. */
+    List<Launch> recent() {
+        List<Launch> launches = new ArrayList<>();
+        String saved = prefs.getString(KEY_LAUNCHES, "");
+        if (saved.isEmpty()) return launches;
+        for (String line : saved.split("\n")) {
+            try {
+                launches.add(Launch.decode(line));
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Skipping unreadable launch: " + line);
+            }
+        }
+        return launches;
+    }
+
+    private void record(Launch launch) {
+        List<Launch> launches = recent();
+        launches.add(0, launch);
+        StringBuilder saved = new StringBuilder();
+        for (int i = 0; i < Math.min(launches.size(), MAX_LAUNCHES); i++) {
+            if (i > 0) saved.append('\n');
+            saved.append(launches.get(i).encode());
+        }
+        prefs.edit().putString(KEY_LAUNCHES, saved.toString()).apply();
+    }
+}
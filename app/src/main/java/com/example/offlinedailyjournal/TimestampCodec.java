@@ -0,0 +1,376 @@
+package com.example.offlinedailyjournal;
+
+import java.text.DateFormatSymbols;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Formats and parses the journal's epoch-millis timestamps without
+ * SimpleDateFormat or Calendar. Instances are immutable and safe to share
+ * between threads; month names are looked up once per instance and parsing
+ * never throws, it returns -1 instead.
+ *
+ * Output matches the patterns the screens used before:
+ * header "MMMM d", display "MMMM d, yyyy HH:mm", stamp "MMMM dd, yyyy HH:mm".
+ */
+public final class TimestampCodec {
+
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+    private static final long MILLIS_PER_DAY    = 86_400_000L;
+
+    private static volatile TimestampCodec local;
+
+    private final TimeZone zone;
+    private final Locale   locale;
+    private final String[] monthNames;    // January..December in this locale
+    private final String[] englishMonths; // also accepted when parsing
+
+    public TimestampCodec(TimeZone zone, Locale locale) {
+        this.zone       = (TimeZone) zone.clone();
+        this.locale     = locale;
+        this.monthNames = copyOf12(DateFormatSymbols.getInstance(locale).getMonths());
+        this.englishMonths = copyOf12(DateFormatSymbols.getInstance(Locale.ENGLISH).getMonths());
+    }
+
+    /**
+     * The codec for the default time zone and locale. It is cached and only
+     * rebuilt when either default changes, so hold on to it for a batch of
+     * rows rather than calling this per row.
+     */
+    public static TimestampCodec local() {
+        TimeZone zone = TimeZone.getDefault();
+        Locale locale = Locale.getDefault();
+        TimestampCodec codec = local;
+        if (codec == null || !codec.zone.getID().equals(zone.getID()) || !codec.locale.equals(locale)) {
+            codec = new TimestampCodec(zone, locale);
+            local = codec;
+        }
+        return codec;
+    }
+
+    private static String[] copyOf12(String[] months) {
+        String[] out = new String[12];
+        System.arraycopy(months, 0, out, 0, 12); // the 13th is UNDECIMBER, always empty
+        return out;
+    }
+
+    // ========== FIELDS ==========
+
+    /** Local calendar year. */
+    public int year(long millis) {
+        return civilYear(localDay(millis));
+    }
+
+    /** Local month, 0 = January (same numbering as {@link java.util.Calendar}). */
+    public int month(long millis) {
+        return civilMonth(localDay(millis)) - 1;
+    }
+
+    /** Days since 1970-01-01 in local time; equal for two timestamps on the same local day. */
+    public long dayKey(long millis) {
+        return localDay(millis);
+    }
+
+    /** Full month name, 0 = January. */
+    public String monthName(int month) {
+        return monthNames[month];
+    }
+
+    /**
+     * Epoch millis of local midnight on the first of the month. Months past
+     * December roll into the next year, so {@code startOfMonth(y, 12)} is
+     * the start of year y + 1.
+     */
+    public long startOfMonth(int year, int month) {
+        year += Math.floorDiv(month, 12);
+        month = Math.floorMod(month, 12);
+        return toEpochMillis(daysFromCivil(year, month + 1, 1) * MILLIS_PER_DAY);
+    }
+
+    // ========== FORMATTING ==========
+
+    /** "July 29" */
+    public String formatHeader(long millis) {
+        long day = localDay(millis);
+        StringBuilder sb = new StringBuilder(16);
+        sb.append(monthNames[civilMonth(day) - 1]).append(' ').append(civilDayOfMonth(day));
+        return sb.toString();
+    }
+
+    /** "July 29, 2025 22:40" */
+    public String formatDisplay(long millis) {
+        return format(millis, false);
+    }
+
+    /** "July 09, 2025 22:40", the form older entries were stored in. */
+    public String formatStamp(long millis) {
+        return format(millis, true);
+    }
+
+    private String format(long millis, boolean padDay) {
+        long local = millis + zone.getOffset(millis);
+        long day = Math.floorDiv(local, MILLIS_PER_DAY);
+        int minuteOfDay = (int) ((local - day * MILLIS_PER_DAY) / MILLIS_PER_MINUTE);
+
+        StringBuilder sb = new StringBuilder(28);
+        sb.append(monthNames[civilMonth(day) - 1]).append(' ');
+        int dom = civilDayOfMonth(day);
+        if (padDay) append2(sb, dom); else sb.append(dom);
+        sb.append(", ").append(civilYear(day)).append(' ');
+        append2(sb, minuteOfDay / 60);
+        sb.append(':');
+        append2(sb, minuteOfDay % 60);
+        return sb.toString();
+    }
+
+    /**
+     * "2025-07-29T22:40:05+02:00", local to this codec's zone ("Z" when the
+     * offset is zero), with ".SSS" only if there are milliseconds. Reads
+     * back exactly with {@link #parseIso8601}.
+     */
+    public String formatIso8601(long millis) {
+        int offset = zone.getOffset(millis);
+        long local = millis + offset;
+        long day = Math.floorDiv(local, MILLIS_PER_DAY);
+        int millisOfDay = (int) (local - day * MILLIS_PER_DAY);
+        int secondOfDay = millisOfDay / 1000;
+
+        StringBuilder sb = new StringBuilder(29);
+        int year = civilYear(day);
+        if (year < 1000) sb.append(year < 10 ? "000" : year < 100 ? "00" : "0");
+        sb.append(year).append('-');
+        append2(sb, civilMonth(day));
+        sb.append('-');
+        append2(sb, civilDayOfMonth(day));
+        sb.append('T');
+        append2(sb, secondOfDay / 3600);
+        sb.append(':');
+        append2(sb, secondOfDay / 60 % 60);
+        sb.append(':');
+        append2(sb, secondOfDay % 60);
+        int fraction = millisOfDay % 1000;
+        if (fraction != 0) {
+            sb.append('.').append((char) ('0' + fraction / 100));
+            append2(sb, fraction % 100);
+        }
+        if (offset == 0) return sb.append('Z').toString();
+        int offsetMinutes = Math.abs(offset) / 60_000;
+        sb.append(offset < 0 ? '-' : '+');
+        append2(sb, offsetMinutes / 60);
+        sb.append(':');
+        append2(sb, offsetMinutes % 60);
+        return sb.toString();
+    }
+
+    private static void append2(StringBuilder sb, int value) {
+        sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    // ========== PARSING ==========
+
+    /**
+     * Epoch millis from any form a journal date has been stored in: epoch
+     * millis digits, "yyyy-MM-dd HH:mm:ss", or "MMMM dd, yyyy HH:mm" (month
+     * name in this locale or English). Returns -1 if the text is none of them.
+     */
+    public long parse(String text) {
+        if (text == null) return -1;
+        String s = text.trim();
+        if (s.isEmpty()) return -1;
+
+        long millis = parseDigits(s, 0, s.length());
+        if (millis >= 0) return millis;
+
+        return Character.isDigit(s.charAt(0)) ? parseIso(s) : parseNamed(s);
+    }
+
+    /** yyyy-MM-dd HH:mm:ss */
+    private long parseIso(String s) {
+        if (s.length() != 19 || s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(10) != ' '
+                || s.charAt(13) != ':' || s.charAt(16) != ':') {
+            return -1;
+        }
+        return toMillis(
+                (int) parseDigits(s, 0, 4), (int) parseDigits(s, 5, 7), (int) parseDigits(s, 8, 10),
+                (int) parseDigits(s, 11, 13), (int) parseDigits(s, 14, 16), (int) parseDigits(s, 17, 19));
+    }
+
+    /**
+     * Epoch millis from an ISO 8601 date or date-time, as other journaling
+     * apps export them: "yyyy-MM-dd", then optionally 'T' (or a space),
+     * "HH:mm", ":ss", a fraction of a second, and "Z" or an offset such as
+     * "+05:30" / "+0530". Without an offset the time is local to this codec's
+     * zone; a bare date is local midnight. Dates before 1970 come back
+     * negative, so text that isn't one returns {@link Long#MIN_VALUE}.
+     */
+    public long parseIso8601(String text) {
+        if (text == null) return Long.MIN_VALUE;
+        String s = text.trim();
+        int n = s.length();
+        if (n < 10 || s.charAt(4) != '-' || s.charAt(7) != '-') return Long.MIN_VALUE;
+        int year  = (int) parseDigits(s, 0, 4);
+        int month = (int) parseDigits(s, 5, 7);
+        int day   = (int) parseDigits(s, 8, 10);
+        int hour   = 0;
+        int minute = 0;
+        int second = 0;
+        int millis = 0;
+        int i = 10;
+        if (n > 10) {
+            char sep = s.charAt(10);
+            if ((sep != 'T' && sep != ' ') || n < 16 || s.charAt(13) != ':') return Long.MIN_VALUE;
+            hour   = (int) parseDigits(s, 11, 13);
+            minute = (int) parseDigits(s, 14, 16);
+            i = 16;
+            if (i < n && s.charAt(i) == ':') {
+                second = (int) parseDigits(s, i + 1, i + 3);
+                i += 3;
+                if (i < n && (s.charAt(i) == '.' || s.charAt(i) == ',')) {
+                    int start = ++i;
+                    while (i < n && Character.isDigit(s.charAt(i))) i++;
+                    if (i == start) return Long.MIN_VALUE;
+                    // Milliseconds from the first three digits, padded if shorter
+                    long digits = parseDigits(s, start, Math.min(i, start + 3));
+                    for (int k = Math.min(i, start + 3) - start; k < 3; k++) digits *= 10;
+                    millis = (int) digits;
+                }
+            }
+        }
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return Long.MIN_VALUE;
+        }
+        long local = daysFromCivil(year, month, day) * MILLIS_PER_DAY
+                + ((hour * 60L + minute) * 60L + second) * 1000L;
+        if (i == n) return toEpochMillis(local) + millis;
+
+        // Explicit zone: Z, ±HH:MM, ±HHMM or ±HH
+        int offsetMinutes;
+        char z = s.charAt(i);
+        if (z == 'Z' && i + 1 == n) {
+            offsetMinutes = 0;
+        } else if (z == '+' || z == '-') {
+            int oh;
+            int om = 0;
+            if (n - i == 3) {
+                oh = (int) parseDigits(s, i + 1, i + 3);
+            } else if (n - i == 5) {
+                oh = (int) parseDigits(s, i + 1, i + 3);
+                om = (int) parseDigits(s, i + 3, i + 5);
+            } else if (n - i == 6 && s.charAt(i + 3) == ':') {
+                oh = (int) parseDigits(s, i + 1, i + 3);
+                om = (int) parseDigits(s, i + 4, i + 6);
+            } else {
+                return Long.MIN_VALUE;
+            }
+            if (oh < 0 || oh > 18 || om < 0 || om > 59) return Long.MIN_VALUE;
+            offsetMinutes = (z == '-' ? -1 : 1) * (oh * 60 + om);
+        } else {
+            return Long.MIN_VALUE;
+        }
+        return local + millis - offsetMinutes * MILLIS_PER_MINUTE;
+    }
+
+    /** MMMM dd, yyyy HH:mm */
+    private long parseNamed(String s) {
+        int space = s.indexOf(' ');
+        if (space <= 0) return -1;
+        int month = monthIndex(s, space);
+        if (month < 0) return -1;
+
+        int comma = s.indexOf(',', space + 1);
+        if (comma < 0) return -1;
+        int day = (int) parseDigits(s, space + 1, comma);
+
+        // ", yyyy HH:mm"
+        int yearStart = comma + 2;
+        int timeStart = s.indexOf(' ', yearStart) + 1;
+        if (yearStart >= s.length() || s.charAt(comma + 1) != ' ' || timeStart <= 0
+                || s.length() - timeStart != 5 || s.charAt(timeStart + 2) != ':') {
+            return -1;
+        }
+        return toMillis((int) parseDigits(s, yearStart, timeStart - 1), month + 1, day,
+                (int) parseDigits(s, timeStart, timeStart + 2),
+                (int) parseDigits(s, timeStart + 3, timeStart + 5), 0);
+    }
+
+    private int monthIndex(String s, int length) {
+        for (int i = 0; i < 12; i++) {
+            if (monthNames[i].length() == length && s.regionMatches(true, 0, monthNames[i], 0, length)) return i;
+            if (englishMonths[i].length() == length && s.regionMatches(true, 0, englishMonths[i], 0, length)) return i;
+        }
+        return -1;
+    }
+
+    /** Non-negative decimal value of s[start, end), or -1 if that isn't all digits. */
+    private static long parseDigits(String s, int start, int end) {
+        if (start >= end || end - start > 18) return -1;
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char ch = s.charAt(i);
+            if (ch < '0' || ch > '9') return -1;
+            value = value * 10 + (ch - '0');
+        }
+        return value;
+    }
+
+    private long toMillis(int year, int month, int day, int hour, int minute, int second) {
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return -1;
+        }
+        long local = daysFromCivil(year, month, day) * MILLIS_PER_DAY
+                + ((hour * 60L + minute) * 60L + second) * 1000L;
+        return toEpochMillis(local);
+    }
+
+    // ========== CALENDAR MATH ==========
+
+    private long localDay(long millis) {
+        return Math.floorDiv(millis + zone.getOffset(millis), MILLIS_PER_DAY);
+    }
+
+    /** UTC millis for a local wall-clock time, resolving DST the way Calendar does for most cases. */
+    private long toEpochMillis(long local) {
+        long guess = local - zone.getOffset(local);
+        return local - zone.getOffset(guess);
+    }
+
+    // Proleptic Gregorian conversions from Howard Hinnant's "chrono-compatible
+    // low-level date algorithms"; month is 1..12.
+
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yoe = y - era * 400;
+        long doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    /** Packed as year << 9 | month << 5 | day. */
+    private static long civil(long days) {
+        long z = days + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long day = doy - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return year << 9 | month << 5 | day;
+    }
+
+    private static int civilYear(long days) {
+        return (int) (civil(days) >> 9);
+    }
+
+    private static int civilMonth(long days) {
+        return (int) ((civil(days) >> 5) & 0xF);
+    }
+
+    private static int civilDayOfMonth(long days) {
+        return (int) (civil(days) & 0x1F);
+    }
+}
@@ -1,7 +1,6 @@
 package com.example.offlinedailyjournal;
 
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.content.res.Configuration;
 import android.os.Bundle;
 import android.view.View;
@@ -17,18 +16,7 @@ public class WelcomeActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
-        // Check if userName is already saved
-        SharedPreferences prefs = getSharedPreferences("UserPrefs", MODE_PRIVATE);
-        String savedName = prefs.getString("userName", null);
-
-        if (savedName != null && !savedName.isEmpty()) {
-            // Skip welcome and go straight to home
-            startActivity(new Intent(this, MainActivity.class));
-            finish();
-            return;
-        }
-
-        // Otherwise, show welcome screen
+        // Only reached without a saved name: MainActivity, the launcher, sends users here
         setContentView(R.layout.activity_welcome);
 
         Guideline topGuideline = findViewById(R.id.topGuideline);
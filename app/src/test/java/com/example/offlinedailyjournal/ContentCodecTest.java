@@ -0,0 +1,66 @@
+package com.example.offlinedailyjournal;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ContentCodecTest {
+
+    private static String dictation(int words) {
+        String[] vocabulary = { "today", "I", "walked", "to", "the", "river", "and", "thought", "about",
+                "work", "my", "sister", "called", "we", "laughed", "for", "an", "hour", "tired", "but", "happy" };
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            text.append(vocabulary[random.nextInt(vocabulary.length)]).append(i % 12 == 11 ? ". " : " ");
+        }
+        return text.toString();
+    }
+
+    @Test
+    public void longText_roundTripsSmaller() {
+        String content = dictation(5000) + " 😀 ünïcödé";
+        byte[] blob = new ContentCodec(ContentCodec.DEFAULT_THRESHOLD).compress(content);
+        assertNotNull(blob);
+        assertTrue(ContentCodec.isCompressed(blob));
+        assertTrue(blob.length < content.length() / 2);
+        assertEquals(content, ContentCodec.decompress(blob));
+    }
+
+    @Test
+    public void shortText_staysPlain() {
+        assertNull(new ContentCodec(ContentCodec.DEFAULT_THRESHOLD).compress(dictation(20)));
+    }
+
+    @Test
+    public void off_neverCompresses() {
+        ContentCodec off = new ContentCodec(ContentCodec.OFF);
+        assertFalse(off.enabled());
+        assertNull(off.compress(dictation(5000)));
+    }
+
+    @Test
+    public void textThatDoesNotShrink_staysPlain() {
+        assertNull(new ContentCodec(1).compress("xq7#Lp0v!zR2"));
+    }
+
+    @Test
+    public void damagedBlobs_areRejected() {
+        byte[] blob = new ContentCodec(100).compress(dictation(1000));
+        try {
+            ContentCodec.decompress(Arrays.copyOf(blob, blob.length / 2));
+            fail("truncated");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+        try {
+            ContentCodec.decompress("plain text".getBytes());
+            fail("no marker");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.offlinedailyjournal;
+
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Reads on one thread while another holds a write transaction open, the
+ * way a list load overlaps an autosave or a folder delete.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DatabaseConcurrencyTest {
+
+    private DatabaseHelper dbHelper;
+    private ExecutorService threads;
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private final CountDownLatch commit  = new CountDownLatch(1);
+
+    @Before
+    public void setUp() {
+        dbHelper = new DatabaseHelper(ApplicationProvider.getApplicationContext());
+        threads  = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        commit.countDown();
+        threads.shutdownNow();
+        dbHelper.close();
+    }
+
+    @Test
+    public void connection_isConfiguredForConcurrentReads() {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        assertTrue(db.isWriteAheadLoggingEnabled());
+        assertEquals("wal", DatabaseUtils.stringForQuery(db, "PRAGMA journal_mode", null).toLowerCase());
+        assertEquals(1, DatabaseUtils.longForQuery(db, "PRAGMA foreign_keys", null));
+    }
+
+    @Test(timeout = 20_000)
+    public void reads_doNotWaitForAnOpenWriteTransaction() throws Exception {
+        long folderId = dbHelper.insertFolder("Work", "#F28BA8");
+        dbHelper.insertJournal(JournalRecord.now("Committed", "Before the write", folderId, null));
+
+        Future<?> writer = threads.submit(() -> {
+            SQLiteDatabase db = dbHelper.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (int i = 0; i < 200; i++) {
+                    dbHelper.insertJournal(JournalRecord.now("Pending " + i, "Not committed yet", folderId, null));
+                }
+                writing.countDown();
+                assertTrue(commit.await(10, TimeUnit.SECONDS));
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            return null;
+        });
+        assertTrue("writer started", writing.await(10, TimeUnit.SECONDS));
+
+        // Each of these would wait for the writer's commit without WAL
+        Future<JournalCounts> counts = threads.submit(() -> dbHelper.getJournalCounts(DatabaseHelper.ALL_FOLDERS));
+        Future<JournalPage> page = threads.submit(() ->
+                dbHelper.getJournalPage(DatabaseHelper.ALL_FOLDERS, JournalFilter.NONE, null, 50));
+        try {
+            assertEquals("readers see the last commit", 1, counts.get(5, TimeUnit.SECONDS).total());
+            assertEquals("Committed", page.get(5, TimeUnit.SECONDS).entries.get(0).title);
+            assertEquals(1, page.get().entries.size());
+        } catch (TimeoutException e) {
+            fail("a read waited for the open write transaction");
+        }
+        assertFalse("the write is still open", writer.isDone());
+
+        commit.countDown();
+        writer.get(10, TimeUnit.SECONDS);
+        assertEquals(201, dbHelper.getJournalCounts(DatabaseHelper.ALL_FOLDERS).total());
+    }
+}
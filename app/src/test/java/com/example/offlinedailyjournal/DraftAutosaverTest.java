@@ -0,0 +1,210 @@
+package com.example.offlinedailyjournal;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives the autosaver with a fake clock: typing bursts, long sessions,
+ * unchanged content and overlapping writes.
+ */
+public class DraftAutosaverTest {
+
+    private long now;
+    private final List<Runnable> posted = new ArrayList<>();
+    private final List<Long> postedAt = new ArrayList<>();
+    private final List<JournalDraft> written = new ArrayList<>();
+    private final List<DraftAutosaver.Done> inFlight = new ArrayList<>();
+    private boolean completeWrites = true;
+
+    private String content = "";
+    private DraftAutosaver autosaver;
+
+    @Before
+    public void setUp() {
+        DraftAutosaver.Scheduler scheduler = new DraftAutosaver.Scheduler() {
+            @Override
+            public void postDelayed(Runnable task, long delayMillis) {
+                posted.add(task);
+                postedAt.add(now + delayMillis);
+            }
+            @Override
+            public void removeCallbacks(Runnable task) {
+                for (int i = posted.size() - 1; i >= 0; i--) {
+                    if (posted.get(i) == task) {
+                        posted.remove(i);
+                        postedAt.remove(i);
+                    }
+                }
+            }
+            @Override
+            public long uptimeMillis() {
+                return now;
+            }
+        };
+        autosaver = new DraftAutosaver(
+                () -> new JournalDraft(JournalDraft.NEW_ENTRY, 1, "Title", content, null),
+                (draft, done) -> {
+                    written.add(draft);
+                    if (completeWrites) done.onWritten(true); else inFlight.add(done);
+                },
+                scheduler);
+        autosaver.start(JournalDraft.hash("Title", "", null));
+    }
+
+    /** Move the clock forward, running whatever falls due. */
+    private void advance(long millis) {
+        long end = now + millis;
+        while (true) {
+            int next = -1;
+            for (int i = 0; i < posted.size(); i++) {
+                if (postedAt.get(i) <= end && (next < 0 || postedAt.get(i) < postedAt.get(next))) next = i;
+            }
+            if (next < 0) break;
+            now = Math.max(now, postedAt.get(next));
+            Runnable task = posted.remove(next);
+            postedAt.remove(next);
+            task.run();
+        }
+        now = end;
+    }
+
+    private void type(String text) {
+        content += text;
+        autosaver.onChanged();
+    }
+
+    @Test
+    public void burstOfKeystrokes_isOneWriteAfterThePause() {
+        for (char c : "dear diary".toCharArray()) {
+            type(String.valueOf(c));
+            advance(100);
+        }
+        assertTrue(written.isEmpty());
+        advance(DraftAutosaver.DEBOUNCE_MILLIS);
+        assertEquals(1, written.size());
+        assertEquals("dear diary", written.get(0).content);
+    }
+
+    @Test
+    public void nonStopTyping_stillWritesAtMaxDelay() {
+        // Ten keys a second for a minute: one write per MAX_DELAY, not per key
+        for (int i = 0; i < 600; i++) {
+            type("x");
+            advance(100);
+        }
+        int expected = (int) (60_000 / DraftAutosaver.MAX_DELAY_MILLIS);
+        assertTrue("got " + written.size(), written.size() >= expected - 1 && written.size() <= expected);
+    }
+
+    @Test
+    public void unchangedContent_isNotRewritten() {
+        type("a");
+        advance(DraftAutosaver.DEBOUNCE_MILLIS);
+        assertEquals(1, written.size());
+
+        // Typed and deleted again: same hash as what's stored
+        type("b");
+        content = "a";
+        autosaver.onChanged();
+        advance(DraftAutosaver.DEBOUNCE_MILLIS);
+        autosaver.flush();
+        assertEquals(1, written.size());
+    }
+
+    @Test
+    public void changesDuringAWrite_followInOneMoreWrite() {
+        completeWrites = false;
+        type("a");
+        autosaver.flush();
+        assertEquals(1, written.size());
+
+        type("b");
+        type("c");
+        autosaver.flush();  // e.g. onPause: must not overlap the running write
+        assertEquals(1, written.size());
+
+        inFlight.remove(0).onWritten(true);
+        assertEquals(2, written.size());
+        assertEquals("abc", written.get(1).content);
+    }
+
+    @Test
+    public void failedWrite_isNotTreatedAsSaved() {
+        completeWrites = false;
+        type("a");
+        autosaver.flush();
+        inFlight.remove(0).onWritten(false);
+
+        completeWrites = true;
+        autosaver.flush();
+        assertEquals("same content, but it never reached disk", 2, written.size());
+    }
+
+    @Test
+    public void stop_waitsForTheWriteInFlightAndEndsAutosave() {
+        completeWrites = false;
+        type("a");
+        autosaver.flush();
+
+        List<String> events = new ArrayList<>();
+        autosaver.stop(() -> events.add("stopped"));
+        assertTrue("still writing", events.isEmpty());
+        inFlight.remove(0).onWritten(true);
+        assertEquals(1, events.size());
+
+        type("b");
+        advance(DraftAutosaver.MAX_DELAY_MILLIS);
+        assertEquals(1, written.size());
+
+        completeWrites = true;
+        autosaver.resume();
+        advance(DraftAutosaver.DEBOUNCE_MILLIS);
+        assertEquals(2, written.size());
+    }
+
+    @Test
+    public void restart_takesTheDiscardedStateAsSaved() {
+        type("draft");
+        advance(DraftAutosaver.DEBOUNCE_MILLIS);
+        assertEquals(1, written.size());
+
+        // Discarded: the editor is back to the empty entry, which is on disk
+        autosaver.stop(() -> {});
+        content = "";
+        autosaver.onChanged();
+        autosaver.restart(JournalDraft.hash("Title", "", null));
+        autosaver.flush();
+        assertEquals("nothing new to write", 1, written.size());
+
+        type("again");
+        advance(DraftAutosaver.DEBOUNCE_MILLIS);
+        assertEquals(2, written.size());
+    }
+
+    @Test
+    public void changesBeforeStart_areNotDrafts() {
+        DraftAutosaver idle = new DraftAutosaver(
+                () -> new JournalDraft(1, 1, "t", "c", null),
+                (draft, done) -> written.add(draft),
+                new DraftAutosaver.Scheduler() {
+                    @Override public void postDelayed(Runnable task, long delayMillis) { fail("nothing is scheduled before start"); }
+                    @Override public void removeCallbacks(Runnable task) {}
+                    @Override public long uptimeMillis() { return now; }
+                });
+        idle.onChanged();
+        idle.flush();
+        assertTrue(written.isEmpty());
+    }
+
+    @Test
+    public void hash_separatesFields() {
+        assertNotEquals(JournalDraft.hash("ab", "c", null), JournalDraft.hash("a", "bc", null));
+        assertNotEquals(JournalDraft.hash("a", "b", null), JournalDraft.hash("a", "b", ""));
+        assertEquals(JournalDraft.hash("a", "b", "🙂 Calm"), JournalDraft.hash("a", "b", "🙂 Calm"));
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.offlinedailyjournal;
+
+import android.content.Context;
+import android.graphics.Color;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class FolderStylesTest {
+
+    private final Context context = ApplicationProvider.getApplicationContext();
+    private final FolderStyles styles = FolderStyles.get(context);
+
+    @After
+    public void tearDown() {
+        FolderStyles.invalidateAll();
+    }
+
+    @Test
+    public void folders_getTheirNamedIconAndColor() {
+        FolderStyles.Style work = styles.of(new Folder(1, "Work", "#F28BA8"));
+        assertEquals(R.drawable.work, work.iconRes);
+        assertEquals(Color.parseColor("#F28BA8"), work.color);
+        assertEquals(work.color, work.tint.getDefaultColor());
+
+        assertEquals(R.drawable.others, styles.of(new Folder(2, "Recipes", "#FFD1A4")).iconRes);
+        assertEquals(R.drawable.travel, styles.icon("TRAVEL"));
+    }
+
+    @Test
+    public void styles_areResolvedOncePerFolderUntilInvalidated() {
+        FolderStyles.Style first = styles.of(new Folder(7, "Work", "#F28BA8"));
+        assertSame(first, styles.of(new Folder(7, "Work", "#F28BA8")));
+        assertSame("same color, same tint list", first.tint, styles.tint("#F28BA8"));
+
+        // The id was deleted and reused for another folder
+        FolderStyles.invalidate(7);
+        FolderStyles.Style reused = styles.of(new Folder(7, "School", "#B2D7F3"));
+        assertEquals(R.drawable.school, reused.iconRes);
+        assertEquals(Color.parseColor("#B2D7F3"), reused.color);
+    }
+}
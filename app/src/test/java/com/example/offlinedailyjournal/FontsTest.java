@@ -0,0 +1,33 @@
+package com.example.offlinedailyjournal;
+
+import android.content.Context;
+import android.graphics.Typeface;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class FontsTest {
+
+    private final Context context = ApplicationProvider.getApplicationContext();
+    private final Fonts fonts = Fonts.get(context);
+
+    @Test
+    public void eachFace_isReadOnce() {
+        fonts.preload();
+        assertEquals(Fonts.FACES.length, fonts.loads());
+
+        Typeface medium = fonts.medium();
+        for (int i = 0; i < 100; i++) {
+            assertSame(medium, fonts.typeface(R.font.poppins_medium));
+            assertSame(fonts.span(R.font.poppins_light), fonts.span(R.font.poppins_light));
+        }
+        fonts.preload();
+        assertEquals(Fonts.FACES.length, fonts.loads());
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.offlinedailyjournal;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+/**
+ * Generations and change notices from real writes, with the write queue's
+ * drain loop on a test executor as in JournalWriteQueueTest.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class InvalidationTrackerTest {
+
+    private final Queue<Runnable> writerQueue = new ArrayDeque<>();
+    private final List<InvalidationTracker.Change> changes = new ArrayList<>();
+    private DatabaseHelper dbHelper;
+    private InvalidationTracker tracker;
+    private JournalWriteQueue writes;
+    private long work, travel;
+
+    @Before
+    public void setUp() {
+        dbHelper = new DatabaseHelper(ApplicationProvider.getApplicationContext());
+        tracker  = dbHelper.getInvalidationTracker();
+        writes   = new JournalWriteQueue(dbHelper, writerQueue::add, 0);
+        work     = dbHelper.insertFolder("Work", "#F28BA8");
+        travel   = dbHelper.insertFolder("Travel", "#B2D7F3");
+        tracker.subscribe(Runnable::run, changes::add);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    private void drain() {
+        Runnable r;
+        while ((r = writerQueue.poll()) != null) r.run();
+    }
+
+    private static HashSet<Long> ids(Long... ids) {
+        return new HashSet<>(Arrays.asList(ids));
+    }
+
+    @Test
+    public void eachWrite_bumpsItsTableAndFolder() {
+        long folders  = tracker.generation(DatabaseHelper.TABLE_FOLDERS);
+        long journals = tracker.generation(DatabaseHelper.TABLE_JOURNALS);
+        long inTravel = tracker.folderGeneration(travel);
+
+        long id = dbHelper.insertJournal("Standup", "Short one", work);
+        dbHelper.updateJournal(id, "Standup", "Edited", null);
+        dbHelper.putDraft(new JournalDraft(id, work, "Standup", "Typing…", null, 1));
+        dbHelper.deleteJournal(id);
+
+        assertEquals("drafts aren't shown", 3, changes.size());
+        for (InvalidationTracker.Change change : changes) {
+            assertEquals(ids(id), change.journalIds);
+            assertEquals(ids(work), change.folderIds);
+            assertFalse(change.touches(DatabaseHelper.TABLE_FOLDERS));
+        }
+        assertEquals(journals + 3, tracker.generation(DatabaseHelper.TABLE_JOURNALS));
+        assertEquals(folders, tracker.generation(DatabaseHelper.TABLE_FOLDERS));
+        assertEquals("nothing in Travel moved", inTravel, tracker.folderGeneration(travel));
+
+        assertEquals(0, dbHelper.updateJournal(id, "Gone", "Already deleted", null));
+        assertEquals(0, dbHelper.deleteJournal(id));
+        assertEquals("no rows, no change", 3, changes.size());
+    }
+
+    @Test
+    public void aQueuedGroup_isPublishedOnceAfterItCommits() {
+        long journals = tracker.generation(DatabaseHelper.TABLE_JOURNALS);
+        List<CompletableFuture<Long>> inserted = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            long folder = i == 0 ? travel : work;
+            inserted.add(writes.submit(() -> {
+                long id = dbHelper.insertJournal(JournalRecord.now("Entry", "Body", folder, null));
+                assertTrue("not before the group commits", changes.isEmpty());
+                return id;
+            }));
+        }
+        drain();
+
+        assertEquals(1, changes.size());
+        InvalidationTracker.Change change = changes.get(0);
+        assertEquals(ids(inserted.get(0).join(), inserted.get(1).join(), inserted.get(2).join()), change.journalIds);
+        assertEquals(ids(work, travel), change.folderIds);
+        assertEquals(journals + 1, tracker.generation(DatabaseHelper.TABLE_JOURNALS));
+    }
+
+    @Test
+    public void aRolledBackWrite_isNeverPublished() {
+        long journals = tracker.generation(DatabaseHelper.TABLE_JOURNALS);
+        CompletableFuture<Long> kept = writes.submit(() ->
+                dbHelper.insertJournal(JournalRecord.now("Kept", "Body", work, null)));
+        CompletableFuture<Long> failed = writes.submit(() -> {
+            SQLiteDatabase db = dbHelper.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                dbHelper.insertJournal(JournalRecord.now("Undone", "Body", travel, null));
+                throw new IllegalStateException("after the insert");
+            } finally {
+                db.endTransaction();
+            }
+        });
+        drain();
+
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals("only the write that stuck when replayed", 1, changes.size());
+        assertEquals(ids(kept.join()), changes.get(0).journalIds);
+        assertEquals(ids(work), changes.get(0).folderIds);
+        assertEquals(journals + 1, tracker.generation(DatabaseHelper.TABLE_JOURNALS));
+    }
+
+    @Test
+    public void folderWrites_touchTheFolderAndItsEntries() {
+        dbHelper.insertJournal("Flight", "Booked", travel);
+        long folders  = tracker.generation(DatabaseHelper.TABLE_FOLDERS);
+        long inTravel = tracker.folderGeneration(travel);
+        changes.clear();
+
+        long ideas = dbHelper.insertFolder("Ideas", "#C8E6C9");
+        dbHelper.deleteFolder(travel);
+
+        assertEquals(2, changes.size());
+        assertEquals(ids(ideas), changes.get(0).folderIds);
+        InvalidationTracker.Change deleted = changes.get(1);
+        assertTrue(deleted.touches(DatabaseHelper.TABLE_FOLDERS));
+        assertTrue(deleted.touches(DatabaseHelper.TABLE_JOURNALS));
+        assertTrue(deleted.touchesFolder(travel));
+        assertNull("a folder delete doesn't list its entries", deleted.journalIds);
+        assertEquals(folders + 2, tracker.generation(DatabaseHelper.TABLE_FOLDERS));
+        assertEquals(inTravel + 1, tracker.folderGeneration(travel));
+    }
+
+    @Test
+    public void aClosedSubscription_hearsNothingMore() {
+        List<InvalidationTracker.Change> heard = new ArrayList<>();
+        Queue<Runnable> main = new ArrayDeque<>();
+        InvalidationTracker.Subscription subscription = tracker.subscribe(main::add, heard::add);
+
+        dbHelper.insertJournal("One", "Body", work);
+        subscription.close();  // with one notice still waiting on its executor
+        dbHelper.insertJournal("Two", "Body", work);
+        for (Runnable r : main) r.run();
+
+        assertTrue(heard.isEmpty());
+        assertEquals(2, changes.size());
+    }
+}
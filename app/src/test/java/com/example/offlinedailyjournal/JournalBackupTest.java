@@ -0,0 +1,242 @@
+package com.example.offlinedailyjournal;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class JournalBackupTest {
+
+    private static final long JULY_29_2024 = 1_722_289_200_000L;
+
+    private final Context context = ApplicationProvider.getApplicationContext();
+    private final List<DatabaseHelper> opened = new ArrayList<>();
+    private ExecutorService writer;
+    private DatabaseHelper dbHelper;
+    private File dir;
+
+    @Before
+    public void setUp() {
+        writer = Executors.newSingleThreadExecutor();
+        dbHelper = open("journal.db");
+        dbHelper.setCompressionThreshold(64);
+        dir = new File(context.getCacheDir(), "backups");
+        deleteAll(dir);
+    }
+
+    @After
+    public void tearDown() {
+        writer.shutdownNow();
+        for (DatabaseHelper helper : opened) helper.close();
+        deleteAll(dir);
+    }
+
+    private DatabaseHelper open(String name) {
+        context.deleteDatabase(name);
+        DatabaseHelper helper = new DatabaseHelper(context, name);
+        opened.add(helper);
+        return helper;
+    }
+
+    private JournalBackup backupOf(DatabaseHelper helper, File dir) {
+        return new JournalBackup(helper, new JournalWriteQueue(helper, writer, 0), dir);
+    }
+
+    private static void deleteAll(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    /** Three folders and 300 entries, some long enough to be stored compressed. */
+    private long[] fill(DatabaseHelper helper) {
+        long[] folders = {
+                helper.insertFolder("Work", "#F28BA8"),
+                helper.insertFolder("Travel", "#B2D7F3"),
+                helper.insertFolder("Dreams", "#FFD1A4"),
+        };
+        List<JournalRecord> records = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            StringBuilder content = new StringBuilder("entry").append(i);
+            for (int w = 0; w < i % 12; w++) content.append(" walked by the river");
+            records.add(new JournalRecord("Day " + i, content.toString(),
+                    i % 5 == 4 ? JournalRecord.NO_FOLDER : folders[i % 3], i % 2 == 0 ? "🙂 Calm" : null,
+                    JULY_29_2024 - i * 86_400_000L, JULY_29_2024 - i * 80_000_000L));
+        }
+        helper.insertJournals(records);
+        return folders;
+    }
+
+    /** Every folder and entry, as text to compare. */
+    private static List<String> contents(DatabaseHelper helper) {
+        List<String> rows = new ArrayList<>();
+        for (Folder f : helper.getFolders()) rows.add(f.id + " " + f.name + " " + f.color);
+        for (JournalEntry e : helper.getJournalsAfter(0, 10_000)) {
+            rows.add(e.id + " " + e.title + "|" + e.content + "|" + e.folderId + "|" + e.mood
+                    + "|" + e.dateAdded + "|" + e.dateModified);
+        }
+        rows.add("total " + helper.getJournalCounts(DatabaseHelper.ALL_FOLDERS).total());
+        return rows;
+    }
+
+    @Test
+    public void afterTheFirstBase_onlyChangedRowsAreWritten() throws IOException {
+        long[] folders = fill(dbHelper);
+        JournalBackup backup = backupOf(dbHelper, dir);
+
+        JournalBackup.Result first = backup.backup();
+        assertTrue(first.base);
+        assertEquals("000001.base", first.file.getName());
+        assertEquals(3 + 300, first.records);
+
+        assertNull("nothing changed", backup.backup().file);
+
+        List<JournalEntry> some = dbHelper.getJournalsAfter(0, 3);
+        dbHelper.updateJournal(some.get(0).id, "Edited", "once", null);
+        dbHelper.updateJournal(some.get(0).id, "Edited", "twice", null);
+        dbHelper.deleteJournal(some.get(1).id);
+        long ideas = dbHelper.insertFolder("Ideas", "#C8E6C9");
+        dbHelper.insertJournal("New", "in a new folder", ideas);
+
+        JournalBackup.Result second = backup.backup();
+        assertFalse(second.base);
+        assertEquals("000002.delta", second.file.getName());
+        assertEquals("edited once, deleted, new folder, new entry", 4, second.records);
+        assertTrue(second.file.length() < first.file.length() / 10);
+
+        // A folder delete reaches every entry it cascades to
+        int inTravel = dbHelper.getJournalCounts(folders[1]).total();
+        dbHelper.deleteFolder(folders[1]);
+        assertEquals(1 + inTravel, backup.backup().records);
+    }
+
+    @Test
+    public void aWriteDuringTheBackup_goesInTheNextDelta() throws Exception {
+        fill(dbHelper);
+        // The writer only runs what it is handed here, so the backup stops at its cut
+        List<Runnable> held = new CopyOnWriteArrayList<>();
+        JournalBackup backup = new JournalBackup(dbHelper, new JournalWriteQueue(dbHelper, held::add, 0), dir);
+        Future<JournalBackup.Result> first = writer.submit(backup::backup);
+        for (int i = 0; held.isEmpty() && i < 1000; i++) Thread.sleep(10);
+        assertEquals("the base is written without the writer", 1, held.size());
+        assertTrue(new File(dir, "000001.base" + JournalBackup.PARTIAL).isFile());
+
+        dbHelper.insertFolder("Ideas", "#C8E6C9");
+        held.remove(0).run();
+        assertEquals("the snapshot's rows only", 3 + 300, first.get().records);
+
+        JournalBackup.Result next = backupOf(dbHelper, dir).backup();
+        assertFalse(next.base);
+        assertEquals("the folder written meanwhile", 1, next.records);
+    }
+
+    @Test
+    public void restore_replaysTheBaseAndEveryDelta() throws IOException {
+        long[] folders = fill(dbHelper);
+        JournalBackup backup = backupOf(dbHelper, dir);
+        backup.backup();
+
+        List<JournalEntry> some = dbHelper.getJournalsAfter(0, 4);
+        dbHelper.updateJournal(some.get(0).id, "Edited", "now long enough to be stored compressed, river and all", "😀 Happy");
+        dbHelper.deleteJournal(some.get(1).id);
+        backup.backup();
+        dbHelper.deleteFolder(folders[2]);
+        dbHelper.insertJournal("Late", "written after the second backup", folders[0]);
+        backup.backup();
+        List<String> expected = contents(dbHelper);
+
+        DatabaseHelper restored = open("restored.db");
+        restored.insertFolder("Will be replaced", "#000000");
+        JournalBackup fromBackup = backupOf(restored, dir);
+        assertEquals(3, fromBackup.restore());
+
+        assertEquals(expected, contents(restored));
+        assertEquals(1, restored.searchJournals("compressed", 10).size());
+        assertEquals(1, restored.searchJournals("Late", 10).size());
+        assertNull("the restored database carries on the same chain", fromBackup.backup().file);
+    }
+
+    @Test
+    public void aDamagedDelta_leavesTheDatabaseAsItWas() throws IOException {
+        fill(dbHelper);
+        JournalBackup backup = backupOf(dbHelper, dir);
+        backup.backup();
+        dbHelper.insertJournal("More", "after the base", JournalRecord.NO_FOLDER);
+        File delta = backup.backup().file;
+        try (RandomAccessFile f = new RandomAccessFile(delta, "rw")) {
+            f.setLength(f.length() - 12);
+        }
+
+        DatabaseHelper restored = open("restored.db");
+        restored.insertFolder("Kept", "#000000");
+        List<String> before = contents(restored);
+        try {
+            backupOf(restored, dir).restore();
+            fail("the delta is cut short");
+        } catch (IOException expected) {
+            // ok
+        }
+        assertEquals(before, contents(restored));
+    }
+
+    @Test
+    public void anUnreadableLastFile_startsANewBase() throws IOException {
+        fill(dbHelper);
+        JournalBackup backup = backupOf(dbHelper, dir);
+        backup.backup();
+        dbHelper.insertJournal("More", "after the base", JournalRecord.NO_FOLDER);
+        File delta = backup.backup().file;
+        try (RandomAccessFile f = new RandomAccessFile(delta, "rw")) {
+            f.setLength(5);  // not even a header left
+        }
+        File stale = new File(dir, "000003.delta" + JournalBackup.PARTIAL);
+        assertTrue(stale.createNewFile());
+
+        dbHelper.insertJournal("Later", "after the damage", JournalRecord.NO_FOLDER);
+        JournalBackup.Result result = backup.backup();
+        assertTrue(result.base);
+        assertEquals("numbered past the damaged file", "000003.base", result.file.getName());
+        assertEquals(3 + 302, result.records);
+        assertFalse("the old chain is gone", delta.exists());
+        assertFalse("a leftover .tmp is cleared", stale.exists());
+        assertEquals(1, dir.listFiles().length);
+        assertNull("and the new chain carries on", backup.backup().file);
+    }
+
+    @Test
+    public void anotherDirectory_startsFromABase() throws IOException {
+        fill(dbHelper);
+        backupOf(dbHelper, dir).backup();
+        dbHelper.insertJournal("More", "after the base", JournalRecord.NO_FOLDER);
+
+        File elsewhere = new File(context.getCacheDir(), "elsewhere");
+        try {
+            JournalBackup.Result result = backupOf(dbHelper, elsewhere).backup();
+            assertTrue(result.base);
+            assertEquals(3 + 301, result.records);
+            // ... which the first directory's next backup notices in turn
+            assertTrue(backupOf(dbHelper, dir).backup().base);
+            assertEquals(1, JournalBackup.chain(dir).size());
+        } finally {
+            deleteAll(elsewhere);
+        }
+    }
+}
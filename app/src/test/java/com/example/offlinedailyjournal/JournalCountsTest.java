@@ -0,0 +1,50 @@
+package com.example.offlinedailyjournal;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JournalCountsTest {
+
+    private static JournalCounts sample() {
+        return new JournalCounts.Builder()
+                .add(2023, Calendar.DECEMBER, 4)
+                .add(2024, Calendar.MARCH, 10)
+                .add(2024, Calendar.JULY, 2)
+                .build();
+    }
+
+    @Test
+    public void counts_treatAllAsWildcard() {
+        JournalCounts counts = sample();
+        assertEquals(16, counts.total());
+        assertEquals(12, counts.count(new JournalFilter(2024, JournalFilter.ALL)));
+        assertEquals(10, counts.count(new JournalFilter(JournalFilter.ALL, Calendar.MARCH)));
+        assertEquals(0, counts.count(new JournalFilter(2023, Calendar.MARCH)));
+        assertEquals(Arrays.asList(2024, 2023), counts.years());
+    }
+
+    @Test
+    public void labels_showCountsNewestYearFirst() {
+        assertEquals(Arrays.asList("All (16)", "2024 (12)", "2023 (4)"), sample().yearLabels());
+    }
+
+    @Test
+    public void monthLabels_alwaysThirteenAndOmitZero() {
+        List<String> labels = sample().monthLabels(2024);
+        assertEquals(13, labels.size());
+        assertEquals("All (12)", labels.get(0));
+        assertTrue(labels.get(1 + Calendar.MARCH).endsWith(" (10)"));
+        assertFalse(labels.get(1 + Calendar.DECEMBER).contains("("));
+    }
+
+    @Test
+    public void empty_hasPlainLabels() {
+        assertEquals(Arrays.asList("All"), JournalCounts.EMPTY.yearLabels());
+        assertEquals("All", JournalCounts.EMPTY.monthLabels(JournalFilter.ALL).get(0));
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.offlinedailyjournal;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class JournalExporterTest {
+
+    private static final long JULY_29_2024 = 1_722_289_200_000L;  // 21:40 UTC
+
+    private final Context context = ApplicationProvider.getApplicationContext();
+    private final TimestampCodec codec = new TimestampCodec(TimeZone.getTimeZone("Europe/Berlin"), Locale.US);
+    private DatabaseHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        dbHelper = new DatabaseHelper(context);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    private byte[] export(List<int[]> progress) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JournalExporter.Result result = new JournalExporter(dbHelper, codec).export(out, context.getCacheDir(),
+                (exported, total) -> progress.add(new int[]{ exported, total }));
+        assertEquals(out.size(), result.zipBytes);
+        return out.toByteArray();
+    }
+
+    /** Zip entry name to its text, in stored order. */
+    private static Map<String, String> unzip(byte[] zip) throws IOException {
+        Map<String, String> files = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            ZipEntry e;
+            while ((e = in.getNextEntry()) != null) {
+                ByteArrayOutputStream text = new ByteArrayOutputStream();
+                byte[] buf = new byte[4096];
+                int n;
+                while ((n = in.read(buf)) > 0) text.write(buf, 0, n);
+                files.put(e.getName(), text.toString("UTF-8"));
+            }
+        }
+        return files;
+    }
+
+    @Test
+    public void entries_becomeMarkdownWithFrontMatter() throws IOException, JSONException {
+        long work = dbHelper.insertFolder("Work/Life", "#F28BA8");
+        long standup = dbHelper.insertJournal(new JournalRecord("Standup: \"quick\"", "Short one\n\n---\n\nafter a rule",
+                work, "😀 Happy", JULY_29_2024, JULY_29_2024 + 60_000));
+        long loose = dbHelper.insertJournal(new JournalRecord("", "No folder", JournalRecord.NO_FOLDER, null,
+                JULY_29_2024, JULY_29_2024));
+
+        List<int[]> progress = new ArrayList<>();
+        Map<String, String> files = unzip(export(progress));
+
+        String standupPath = "Work_Life/2024-07-29 Standup_ _quick_ (" + standup + ").md";
+        String loosePath = "2024-07-29 Untitled (" + loose + ").md";
+        assertEquals(Arrays.asList(standupPath, loosePath, JournalZipWriter.MANIFEST),
+                new ArrayList<>(files.keySet()));
+        assertEquals("---\n"
+                        + "title: \"Standup: \\\"quick\\\"\"\n"
+                        + "folder: \"Work/Life\"\n"
+                        + "mood: \"😀 Happy\"\n"
+                        + "date: 2024-07-29T23:40:00+02:00\n"
+                        + "modified: 2024-07-29T23:41:00+02:00\n"
+                        + "id: " + standup + "\n"
+                        + "---\n\n"
+                        + "Short one\n\n---\n\nafter a rule\n",
+                files.get(standupPath));
+
+        JSONObject manifest = new JSONObject(files.get(JournalZipWriter.MANIFEST));
+        assertEquals(JournalZipWriter.FORMAT_VERSION, manifest.getInt("version"));
+        assertEquals(2, manifest.getInt("entry_count"));
+        JSONArray folders = manifest.getJSONArray("folders");
+        assertEquals("Work/Life", folders.getJSONObject(0).getString("name"));
+        assertTrue(folders.getJSONObject(1).isNull("name"));
+        JSONObject first = manifest.getJSONArray("entries").getJSONObject(0);
+        assertEquals(standup, first.getLong("id"));
+        assertEquals(standupPath, first.getString("path"));
+        assertEquals(JULY_29_2024, codec.parseIso8601(first.getString("date")));
+
+        assertEquals(1, progress.size());
+        assertArrayEquals(new int[]{ 2, 2 }, progress.get(0));
+    }
+
+    @Test
+    public void export_readsBackThroughTheImporter() throws IOException {
+        dbHelper.setCompressionThreshold(64);
+        Map<String, Long> folders = new HashMap<>();
+        for (String name : new String[]{ "Work", "Travel", "Dreams" }) {
+            folders.put(name, dbHelper.insertFolder(name, "#B2D7F3"));
+        }
+        String[] names = folders.keySet().toArray(new String[0]);
+        List<JournalRecord> records = new ArrayList<>();
+        int total = JournalExporter.CHUNK * 2 + 50;
+        for (int i = 0; i < total; i++) {
+            StringBuilder content = new StringBuilder("entry").append(i);
+            for (int w = 0; w < i % 40; w++) content.append(" walked by the river");
+            records.add(new JournalRecord("Day " + i, content.toString(),
+                    i % 4 == 3 ? JournalRecord.NO_FOLDER : folders.get(names[i % 3]),
+                    i % 2 == 0 ? "🙂 Calm" : null, JULY_29_2024 + i * 1_000L, JULY_29_2024 + i * 2_000L));
+        }
+        dbHelper.insertJournals(records);
+
+        List<int[]> progress = new ArrayList<>();
+        byte[] zip = export(progress);
+        assertEquals(3, progress.size());
+        assertEquals(total, progress.get(2)[0]);
+
+        DatabaseHelper copy = new DatabaseHelper(context, "export-copy.db");
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            JournalImporter.Result result = new JournalImporter(copy, new JournalWriteQueue(copy, writer, 0), codec)
+                    .importArchive("export", JournalArchive.Format.ZIP, new ByteArrayInputStream(zip),
+                            JournalRecord.NO_FOLDER, null);
+            assertEquals(total, result.imported);
+            assertEquals(3, result.foldersCreated);
+
+            List<JournalEntry> original = dbHelper.getJournalsAfter(0, total);
+            List<JournalEntry> imported = copy.getJournalsAfter(0, total);
+            assertEquals(total, imported.size());
+            for (int i = 0; i < total; i++) {
+                JournalEntry a = original.get(i), b = imported.get(i);
+                assertEquals(a.title, b.title);
+                assertEquals(a.content, b.content);
+                assertEquals(a.mood, b.mood);
+                assertEquals(a.folderName, b.folderName);
+                assertEquals(a.dateAdded, b.dateAdded);
+                assertEquals(a.dateModified, b.dateModified);
+            }
+        } finally {
+            writer.shutdownNow();
+            copy.close();
+        }
+    }
+
+    @Test
+    public void fileName_isSafeOnEveryFileSystem() {
+        assertEquals("Untitled", JournalZipWriter.fileName("  \n ", "Untitled"));
+        assertEquals("a_b_c_ d", JournalZipWriter.fileName("a/b\\c: \t d...", "x"));
+        assertEquals(60, JournalZipWriter.fileName(new String(new char[100]).replace('\0', 'x'), "x").length());
+        assertEquals("Café 🙂", JournalZipWriter.fileName("Café 🙂", "x"));
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.offlinedailyjournal;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JournalFilterTest {
+
+    @Test
+    public void fromSpinners_mapsAllAndMonthPositions() {
+        JournalFilter all = JournalFilter.fromSpinners("All", 0);
+        assertTrue(all.isAll());
+
+        JournalFilter march2024 = JournalFilter.fromSpinners("2024", 3);
+        assertEquals(2024, march2024.year);
+        assertEquals(Calendar.MARCH, march2024.month);
+    }
+
+    @Test
+    public void fromSpinners_ignoresCountInLabel() {
+        assertTrue(JournalFilter.fromSpinners("All (412)", 0).isAll());
+        assertEquals(2024, JournalFilter.fromSpinners("2024 (312)", 0).year);
+    }
+
+    @Test
+    public void yearAndMonth_isOneMonthRange() {
+        List<long[]> ranges = new JournalFilter(2024, Calendar.MARCH).ranges(2000, 2030);
+        assertEquals(1, ranges.size());
+        assertEquals(localMillis(2024, Calendar.MARCH, 1), ranges.get(0)[0]);
+        assertEquals(localMillis(2024, Calendar.APRIL, 1) - 1, ranges.get(0)[1]);
+    }
+
+    @Test
+    public void monthWithoutYear_isOneRangePerYear() {
+        List<long[]> ranges = new JournalFilter(JournalFilter.ALL, Calendar.DECEMBER).ranges(2022, 2024);
+        assertEquals(3, ranges.size());
+        assertEquals(localMillis(2022, Calendar.DECEMBER, 1), ranges.get(0)[0]);
+        assertEquals(localMillis(2025, Calendar.JANUARY, 1) - 1, ranges.get(2)[1]);
+    }
+
+    @Test
+    public void yearWithoutMonth_coversWholeYear() {
+        List<long[]> ranges = new JournalFilter(2023, JournalFilter.ALL).ranges(2020, 2024);
+        assertEquals(1, ranges.size());
+        assertEquals(localMillis(2023, Calendar.JANUARY, 1), ranges.get(0)[0]);
+        assertEquals(localMillis(2024, Calendar.JANUARY, 1) - 1, ranges.get(0)[1]);
+    }
+
+    private static long localMillis(int year, int month, int day) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, month, day);
+        return cal.getTimeInMillis();
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.offlinedailyjournal;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Imports into a real (Robolectric) database through a write queue on its
+ * own thread, as the app runs it. Large archives are generated on the fly,
+ * so the test holds no more of them in memory than the importer does.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class JournalImporterTest {
+
+    private static final long JULY_29_2024 = 1_722_289_200_000L;  // 21:40 UTC
+
+    private DatabaseHelper dbHelper;
+    private ExecutorService writer;
+    private JournalImporter importer;
+
+    @Before
+    public void setUp() {
+        dbHelper = new DatabaseHelper(ApplicationProvider.getApplicationContext());
+        writer   = Executors.newSingleThreadExecutor();
+        importer = new JournalImporter(dbHelper, new JournalWriteQueue(dbHelper, writer, 0),
+                new TimestampCodec(TimeZone.getTimeZone("UTC"), Locale.US));
+    }
+
+    @After
+    public void tearDown() {
+        writer.shutdownNow();
+        dbHelper.close();
+    }
+
+    private static InputStream utf8(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private int journalCount() {
+        return dbHelper.getJournalCounts(DatabaseHelper.ALL_FOLDERS).total();
+    }
+
+    private long folderNamed(String name) {
+        for (Folder f : dbHelper.getFolders()) {
+            if (f.name.equals(name)) return f.id;
+        }
+        fail("no folder " + name);
+        return -1;
+    }
+
+    private List<JournalEntry> entriesIn(long folderId) {
+        return dbHelper.getJournalPage(folderId, JournalFilter.NONE, null, 100).entries;
+    }
+
+    @Test
+    public void json_mapsFieldsAndFolders() throws IOException {
+        long work = dbHelper.insertFolder("Work", "#F28BA8");
+        long inbox = dbHelper.insertFolder("Inbox", "#FFD1A4");
+        String json = "{ \"metadata\": { \"version\": \"1.0\", \"entries\": 3 },"
+                + " \"entries\": ["
+                + "  { \"title\": \"Standup\", \"text\": \"Short one\", \"journal\": \"work\","
+                + "    \"creationDate\": \"2024-07-29T21:40:00Z\", \"tags\": [\"a\", \"b\"], \"mood\": \"😀 Happy\" },"
+                + "  { \"subject\": \"Rome\", \"body\": \"Saw the Pantheon\", \"notebook\": \"Travel\","
+                + "    \"created_at\": 1722289200, \"updated_at\": \"1722289260000\" },"
+                + "  { \"title\": \"\", \"content\": \"  \" },"
+                + "  { \"content\": \"No folder, no date\", \"attachments\": [{ \"type\": \"photo\" }] }"
+                + "] }";
+
+        JournalImporter.Result result =
+                importer.importArchive("json", JournalArchive.Format.JSON, utf8(json), inbox, null);
+
+        assertEquals(3, result.imported);
+        assertEquals(1, result.blank);
+        assertEquals(1, result.foldersCreated);
+        assertEquals(0, result.resumedPast);
+
+        JournalEntry standup = entriesIn(work).get(0);
+        assertEquals("Standup", standup.title);
+        assertEquals(JULY_29_2024, standup.dateAdded);
+        assertEquals(JULY_29_2024, standup.dateModified);
+        assertEquals("😀 Happy", dbHelper.getJournal(standup.id).mood);
+
+        JournalEntry rome = entriesIn(folderNamed("Travel")).get(0);
+        assertEquals("Rome", rome.title);
+        assertEquals("seconds are scaled", JULY_29_2024, rome.dateAdded);
+        assertEquals(JULY_29_2024 + 60_000, rome.dateModified);
+        assertEquals("Saw the Pantheon", dbHelper.getJournal(rome.id).content);
+
+        assertEquals("No folder, no date", dbHelper.getJournal(entriesIn(inbox).get(0).id).content);
+        assertEquals("the checkpoint is gone once done", 0, dbHelper.getImportPosition("json"));
+    }
+
+    @Test
+    public void json_keepsDatesBefore1970() throws IOException {
+        long inbox = dbHelper.insertFolder("Inbox", "#FFD1A4");
+        String json = "[ { \"title\": \"Moon\", \"text\": \"Watched the landing\","
+                + "    \"date\": \"1969-07-20T20:17:40Z\", \"modified\": -14182940 } ]";
+
+        importer.importArchive("old", JournalArchive.Format.JSON, utf8(json), inbox, null);
+
+        JournalEntry moon = entriesIn(inbox).get(0);
+        assertEquals(-14_182_940_000L, moon.dateAdded);
+        assertEquals("seconds are scaled", -14_182_940_000L, moon.dateModified);
+    }
+
+    @Test
+    public void markdownAndZip_splitOnFrontMatter() throws IOException {
+        String markdown = "---\n"
+                + "title: \"Quoted \\\"title\\\"\"\n"
+                + "date: 2024-07-29T21:40:00Z\n"
+                + "folder: Work\n"
+                + "mood: 🙂 Calm\n"
+                + "---\n"
+                + "First body\n"
+                + "\n"
+                + "---\n"
+                + "\n"
+                + "still the first body, after a rule\n"
+                + "---\n"
+                + "title: Second\n"
+                + "tags: x, y\n"
+                + "---\n"
+                + "# Not a title when front matter has one\n";
+
+        ByteArrayOutputStream zipped = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(zipped)) {
+            zip.putNextEntry(new ZipEntry("export/entries.md"));
+            zip.write(markdown.getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("Travel/Rome day.txt"));
+            zip.write("Saw the Pantheon".getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("Travel/photo.jpg"));
+            zip.write(new byte[]{ 1, 2, 3 });
+            zip.putNextEntry(new ZipEntry("Notes/plain.md"));
+            zip.write("# A heading\n\nbecomes the title".getBytes(StandardCharsets.UTF_8));
+        }
+
+        JournalImporter.Result result = importer.importArchive("zip", JournalArchive.Format.ZIP,
+                new ByteArrayInputStream(zipped.toByteArray()), JournalRecord.NO_FOLDER, null);
+        assertEquals(4, result.imported);
+
+        JournalEntry first = entriesIn(folderNamed("Work")).get(0);
+        assertEquals("Quoted \"title\"", first.title);
+        assertEquals(JULY_29_2024, first.dateAdded);
+        JournalEntry full = dbHelper.getJournal(first.id);
+        assertEquals("First body\n\n---\n\nstill the first body, after a rule", full.content);
+        assertEquals("🙂 Calm", full.mood);
+
+        JournalEntry second = entriesIn(folderNamed("export")).get(0);
+        assertEquals("Second", second.title);
+        assertEquals("# Not a title when front matter has one", dbHelper.getJournal(second.id).content);
+
+        assertEquals("Rome day", entriesIn(folderNamed("Travel")).get(0).title);
+        JournalEntry plain = entriesIn(folderNamed("Notes")).get(0);
+        assertEquals("A heading", plain.title);
+        assertEquals("becomes the title", dbHelper.getJournal(plain.id).content);
+    }
+
+    @Test
+    public void interruptedImport_resumesWithoutDuplicates() throws IOException {
+        int total = JournalImporter.BATCH * 2 + 500;
+        long failAt = generatedJson(total).size(JournalImporter.BATCH * 2 + 300);
+
+        try {
+            importer.importArchive("big", JournalArchive.Format.JSON,
+                    new FailingStream(generatedJson(total).stream(), failAt), JournalRecord.NO_FOLDER, null);
+            fail("the stream broke");
+        } catch (IOException expected) {
+            // ok
+        }
+        assertEquals(JournalImporter.BATCH * 2, dbHelper.getImportPosition("big"));
+        assertEquals(JournalImporter.BATCH * 2, journalCount());
+
+        JournalImporter.Result result = importer.importArchive("big", JournalArchive.Format.JSON,
+                generatedJson(total).stream(), JournalRecord.NO_FOLDER, null);
+        assertEquals(JournalImporter.BATCH * 2, result.resumedPast);
+        assertEquals(500, result.imported);
+        assertEquals(total, journalCount());
+        assertEquals(1, dbHelper.searchJournals("entry" + (total - 1), 10).size());
+        assertEquals(1, dbHelper.searchJournals("entry0", 10).size());
+    }
+
+    @Test(timeout = 120_000)
+    public void hundredThousandEntries_importInUnderThirtySeconds() throws IOException {
+        int total = 100_000;
+        List<int[]> progress = new ArrayList<>();
+
+        long start = System.nanoTime();
+        JournalImporter.Result result = importer.importArchive("100k", JournalArchive.Format.JSON,
+                generatedJson(total).stream(), JournalRecord.NO_FOLDER,
+                (entries, bytes) -> progress.add(new int[]{ entries }));
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(total, result.imported);
+        assertEquals(8, result.foldersCreated);
+        assertEquals(total, journalCount());
+        assertEquals(total / JournalImporter.BATCH, progress.size());
+        assertEquals(total, progress.get(progress.size() - 1)[0]);
+        assertTrue("took " + millis + " ms", millis < 30_000);
+    }
+
+    // ---------------------------------------------------------------------
+
+    /** A JSON export of {@code count} entries across eight folders, produced one entry at a time. */
+    private static GeneratedJson generatedJson(int count) {
+        return new GeneratedJson(count);
+    }
+
+    private static final class GeneratedJson {
+        private static final String[] FOLDERS = { "Work", "Home", "Travel", "Health", "Ideas", "Family", "Books", "Misc" };
+        private final int count;
+
+        GeneratedJson(int count) {
+            this.count = count;
+        }
+
+        byte[] entry(int i) {
+            String json = (i == 0 ? "[" : ",")
+                    + "{\"title\":\"Entry " + i + "\","
+                    + "\"text\":\"entry" + i + " Walked to the river and thought about the week. "
+                    + "Dinner with friends, early night.\","
+                    + "\"folder\":\"" + FOLDERS[i % FOLDERS.length] + "\","
+                    + "\"date\":" + (JULY_29_2024 - i * 3_600_000L) + "}"
+                    + (i == count - 1 ? "]" : "");
+            return json.getBytes(StandardCharsets.UTF_8);
+        }
+
+        /** Bytes before entry {@code i}. */
+        long size(int i) {
+            long size = 0;
+            for (int k = 0; k < i; k++) size += entry(k).length;
+            return size;
+        }
+
+        InputStream stream() {
+            return new SequenceInputStream(new Enumeration<InputStream>() {
+                int next;
+
+                @Override
+                public boolean hasMoreElements() {
+                    return next < count;
+                }
+
+                @Override
+                public InputStream nextElement() {
+                    return new ByteArrayInputStream(entry(next++));
+                }
+            });
+        }
+    }
+
+    /** Fails like a dropped connection after {@code limit} bytes. */
+    private static final class FailingStream extends InputStream {
+        private final InputStream in;
+        private long left;
+
+        FailingStream(InputStream in, long limit) {
+            this.in = in;
+            this.left = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (left-- <= 0) throw new IOException("connection lost");
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (left <= 0) throw new IOException("connection lost");
+            int n = in.read(b, off, (int) Math.min(len, left));
+            if (n > 0) left -= n;
+            return n;
+        }
+    }
+}
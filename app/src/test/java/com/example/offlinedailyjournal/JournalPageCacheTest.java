@@ -0,0 +1,98 @@
+package com.example.offlinedailyjournal;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JournalPageCacheTest {
+
+    private static final int LIMIT = JournalPager.PAGE_SIZE;
+    private static final JournalFilter MARCH_2024 = new JournalFilter(2024, 2);
+
+    private static JournalPage page(int rows, int excerptChars) {
+        List<JournalEntry> entries = new ArrayList<>();
+        String excerpt = new String(new char[excerptChars]).replace('\0', 'x');
+        for (int i = 0; i < rows; i++) {
+            entries.add(new JournalEntry(i + 1, "Entry " + i, null, 1, 1_000L * i, 1_000L * i, null,
+                    null, null, new JournalSummary(excerpt, 1, excerptChars)));
+        }
+        return new JournalPage(entries, false);
+    }
+
+    private static JournalPageCache.Key key(long folderId, JournalFilter filter) {
+        return new JournalPageCache.Key(folderId, filter, null, LIMIT);
+    }
+
+    @Test
+    public void aPage_isServedUntilTheGenerationMoves() {
+        JournalPageCache cache = new JournalPageCache();
+        JournalPage page = page(3, 10);
+        cache.put(key(1, MARCH_2024), 5, page);
+
+        assertEquals(page.entries, cache.get(key(1, MARCH_2024), 5).entries);
+        assertNull("another month", cache.get(key(1, new JournalFilter(2024, 3)), 5));
+        assertNull("another folder", cache.get(key(2, MARCH_2024), 5));
+        assertNull("after a write", cache.get(key(1, MARCH_2024), 6));
+        assertNull("and it's gone", cache.get(key(1, MARCH_2024), 5));
+        assertEquals(1, cache.hits());
+        assertEquals(4, cache.misses());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void keysetPosition_andLimit_arePartOfTheKey() {
+        JournalPageCache cache = new JournalPageCache();
+        JournalPage first = page(3, 10);
+        cache.put(key(1, JournalFilter.NONE), 1, first);
+
+        JournalEntry after = first.last();
+        assertNull(cache.get(new JournalPageCache.Key(1, JournalFilter.NONE, after, LIMIT), 1));
+        assertNull(cache.get(new JournalPageCache.Key(1, JournalFilter.NONE, null, 120), 1));
+        assertNotNull(cache.get(new JournalPageCache.Key(1, JournalFilter.NONE, null, LIMIT), 1));
+    }
+
+    @Test
+    public void theLeastRecentlyUsedPage_goesFirst() {
+        JournalPageCache cache = new JournalPageCache(2, Long.MAX_VALUE);
+        cache.put(key(1, JournalFilter.NONE), 1, page(1, 10));
+        cache.put(key(2, JournalFilter.NONE), 1, page(1, 10));
+        assertNotNull(cache.get(key(1, JournalFilter.NONE), 1));  // 2 is now the eldest
+
+        cache.put(key(3, JournalFilter.NONE), 1, page(1, 10));
+        assertEquals(2, cache.size());
+        assertNull(cache.get(key(2, JournalFilter.NONE), 1));
+        assertNotNull(cache.get(key(1, JournalFilter.NONE), 1));
+        assertNotNull(cache.get(key(3, JournalFilter.NONE), 1));
+    }
+
+    @Test
+    public void theByteBound_evictsAndSkipsPagesTooBigToKeep() {
+        long onePage = JournalPageCache.sizeOf(page(50, 200));
+        JournalPageCache cache = new JournalPageCache(100, onePage * 2);
+        for (int folder = 1; folder <= 5; folder++) {
+            cache.put(key(folder, JournalFilter.NONE), 1, page(50, 200));
+        }
+        assertEquals(2, cache.size());
+        assertTrue(cache.bytes() <= onePage * 2);
+        assertNotNull(cache.get(key(5, JournalFilter.NONE), 1));
+
+        cache.put(key(9, JournalFilter.NONE), 1, page(150, 200));
+        assertNull("bigger than the whole cache", cache.get(key(9, JournalFilter.NONE), 1));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void cachedPages_cannotBeChangedByTheirReaders() {
+        JournalPageCache cache = new JournalPageCache();
+        cache.put(key(1, JournalFilter.NONE), 1, page(2, 10));
+        try {
+            cache.get(key(1, JournalFilter.NONE), 1).entries.clear();
+            fail("a screen could empty the page for everyone");
+        } catch (UnsupportedOperationException expected) {
+            // ok
+        }
+    }
+}
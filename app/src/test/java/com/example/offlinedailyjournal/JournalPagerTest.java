@@ -0,0 +1,102 @@
+package com.example.offlinedailyjournal;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives the pager against a repository whose page reads are answered by
+ * hand, so a read can fail at any point of the list.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class JournalPagerTest {
+
+    /** Page reads the pager has asked for and nobody has answered yet. */
+    private final List<JournalRepository.Callback<JournalPage>> reads = new ArrayList<>();
+    private final List<Integer> limits = new ArrayList<>();
+    private final List<List<JournalEntry>> pages = new ArrayList<>();
+    private final List<Exception> errors = new ArrayList<>();
+    private JournalPager pager;
+
+    @Before
+    public void setUp() {
+        JournalRepository repository = new JournalRepository(null, Runnable::run, Runnable::run) {
+            @Override
+            public Future<JournalPage> loadJournalPage(long folderId, JournalFilter filter, JournalEntry after,
+                                                       int limit, Callback<JournalPage> callback) {
+                reads.add(callback);
+                limits.add(limit);
+                return new CompletableFuture<>();
+            }
+        };
+        pager = new JournalPager(repository, DatabaseHelper.ALL_FOLDERS, new JournalPager.Listener() {
+            @Override public void onPage(List<JournalEntry> entries, boolean first) {
+                pages.add(entries);
+            }
+            @Override public void onError(Exception e) {
+                errors.add(e);
+            }
+        });
+    }
+
+    private JournalRepository.Callback<JournalPage> nextRead() {
+        assertFalse("the pager asked for a page", reads.isEmpty());
+        return reads.remove(0);
+    }
+
+    private static JournalPage page(long firstId) {
+        List<JournalEntry> entries = new ArrayList<>();
+        for (long id = firstId; id < firstId + JournalPager.PAGE_SIZE; id++) {
+            entries.add(new JournalEntry(id, "Entry " + id, "", 1, id, id, null));
+        }
+        return new JournalPage(entries, true);
+    }
+
+    @Test
+    public void failedPage_isReportedAndRetriedOnTheNextLoad() {
+        pager.reset(JournalFilter.NONE);
+        nextRead().onResult(page(1));
+        assertEquals(1, pages.size());
+
+        // The prefetch fails while nobody is waiting for it
+        nextRead().onError(new IOException("disk"));
+        assertTrue("a failed prefetch isn't shown", errors.isEmpty());
+
+        pager.loadMore();
+        nextRead().onError(new IOException("disk"));
+        assertEquals("the screen hears about a page it asked for", 1, errors.size());
+
+        pager.loadMore();
+        nextRead().onResult(page(51));
+        assertEquals("the next load tries again and delivers", 2, pages.size());
+    }
+
+    @Test
+    public void failedRefresh_retriesWithTheSameSize() {
+        pager.reset(JournalFilter.NONE);
+        nextRead().onResult(page(1));
+        nextRead().onResult(page(51));
+        pager.loadMore();
+        nextRead().onResult(page(101));
+
+        limits.clear();
+        pager.refresh();
+        nextRead().onError(new IOException("disk"));
+        assertEquals(1, errors.size());
+
+        pager.loadMore();
+        assertEquals("the retry still covers every row shown", Arrays.asList(100, 100), limits);
+        nextRead().onResult(page(1));
+        assertEquals(3, pages.size());
+    }
+}
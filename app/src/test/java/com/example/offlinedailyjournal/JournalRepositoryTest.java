@@ -0,0 +1,490 @@
+package com.example.offlinedailyjournal;
+
+import android.database.DatabaseUtils;
+import android.database.SQLException;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the repository against a real (Robolectric) SQLite database, with
+ * the I/O work queued on a test executor so ordering and cancellation can
+ * be driven step by step.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class JournalRepositoryTest {
+
+    private final Queue<Runnable> ioQueue = new ArrayDeque<>();
+    private final Executor queuedIo = ioQueue::add;
+    private DatabaseHelper dbHelper;
+    private JournalRepository repository;
+
+    @Before
+    public void setUp() {
+        dbHelper = new DatabaseHelper(ApplicationProvider.getApplicationContext());
+        repository = new JournalRepository(dbHelper, queuedIo, Runnable::run);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    private void drainIo() {
+        Runnable r;
+        while ((r = ioQueue.poll()) != null) r.run();
+    }
+
+    private String stringValue(String sql) {
+        return DatabaseUtils.stringForQuery(dbHelper.getReadableDatabase(), sql, null);
+    }
+
+    private long longValue(String sql) {
+        return DatabaseUtils.longForQuery(dbHelper.getReadableDatabase(), sql, null);
+    }
+
+    @Test
+    public void insertThenLoad_deliversEntryWithMood() {
+        long folderId = dbHelper.insertFolder("Work", "#F28BA8");
+
+        List<Long> ids = new ArrayList<>();
+        repository.insertJournal(JournalRecord.now("Title", "Body", folderId, "🙂 Calm"), ids::add);
+        assertTrue("nothing runs until the I/O executor does", ids.isEmpty());
+        drainIo();
+        assertEquals(1, ids.size());
+
+        List<JournalEntry> loaded = new ArrayList<>();
+        repository.loadJournal(ids.get(0), loaded::add);
+        drainIo();
+        assertEquals("Title", loaded.get(0).title);
+        assertEquals("Body", loaded.get(0).content);
+        assertEquals("🙂 Calm", loaded.get(0).mood);
+
+        List<JournalPage> pages = new ArrayList<>();
+        repository.loadJournalPage(DatabaseHelper.ALL_FOLDERS, JournalFilter.NONE, null, 50, pages::add);
+        drainIo();
+        assertEquals(1, pages.get(0).entries.size());
+        assertFalse(pages.get(0).hasMore);
+        assertEquals("Work", pages.get(0).entries.get(0).folderName);
+    }
+
+    @Test
+    public void listRows_carryTheSummaryButNotTheContent() {
+        long folderId = dbHelper.insertFolder("Work", "#F28BA8");
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 500; i++) content.append("lorem ");
+        long id = dbHelper.insertJournal("Long", content.toString(), folderId);
+
+        JournalEntry row = dbHelper.getJournalPage(folderId, JournalFilter.NONE, null, 10).entries.get(0);
+        assertNull(row.content);
+        assertEquals(500, row.summary.words);
+        assertEquals(3000, row.summary.chars);
+        assertTrue(row.summary.excerpt.startsWith("lorem lorem"));
+        assertTrue(row.summary.excerpt.endsWith("…"));
+
+        dbHelper.updateJournal(id, "Long", "Short now", null);
+        row = dbHelper.getJournalPage(folderId, JournalFilter.NONE, null, 10).entries.get(0);
+        assertEquals("Short now", row.summary.excerpt);
+        assertEquals(2, row.summary.words);
+    }
+
+    @Test
+    public void insertRecord_writesEveryFieldAsGiven() {
+        long folderId = dbHelper.insertFolder("Work", "#F28BA8");
+        long id = dbHelper.insertJournal(new JournalRecord("Title", "Body", folderId, "😢 Sad", 1000L, 2000L));
+
+        JournalEntry e = dbHelper.getJournal(id);
+        assertEquals("Title", e.title);
+        assertEquals("Body", e.content);
+        assertEquals(folderId, e.folderId);
+        assertEquals("😢 Sad", e.mood);
+        assertEquals(1000L, e.dateAdded);
+        assertEquals(2000L, e.dateModified);
+
+        long loose = dbHelper.insertJournal(JournalRecord.now("Loose", "Body", JournalRecord.NO_FOLDER, null));
+        assertNotEquals(-1, loose);
+        assertNull(dbHelper.getJournal(loose).mood);
+    }
+
+    @Test
+    public void insertJournals_addsTheWholeBatchOrNothing() {
+        long folderId = dbHelper.insertFolder("Work", "#F28BA8");
+        List<JournalRecord> batch = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            batch.add(JournalRecord.now("Entry " + i, "Body", folderId, null));
+        }
+
+        List<long[]> ids = new ArrayList<>();
+        repository.insertJournals(batch, ids::add);
+        drainIo();
+        assertEquals(2000, ids.get(0).length);
+        assertEquals("Entry 1999", dbHelper.getJournal(ids.get(0)[1999]).title);
+        assertEquals(2000, dbHelper.getJournalCounts(folderId).total());
+
+        // A row with a missing folder rolls back the rows before it too
+        batch.add(JournalRecord.now("Dangling", "Body", 999, null));
+        try {
+            dbHelper.insertJournals(batch);
+            fail("expected the batch to be rejected");
+        } catch (SQLException expected) {
+            // rolled back
+        }
+        assertEquals(2000, dbHelper.getJournalCounts(folderId).total());
+        assertEquals(-1, dbHelper.insertJournal(batch.get(batch.size() - 1)));
+    }
+
+    @Test
+    public void longContent_isStoredCompressedAndStaysSearchable() {
+        long folderId = dbHelper.insertFolder("Work", "#F28BA8");
+        StringBuilder dictated = new StringBuilder();
+        for (int i = 0; i < 2000; i++) dictated.append("and then we walked on ");
+        dictated.append("past the lighthouse");
+        String content = dictated.toString();
+        long id = dbHelper.insertJournal(JournalRecord.now("Long walk", content, folderId, null));
+
+        assertEquals("blob", stringValue("SELECT typeof(content) FROM journals WHERE id = " + id));
+        assertTrue(longValue("SELECT length(content) FROM journals WHERE id = " + id) < content.length() / 10);
+        assertEquals(content, dbHelper.getJournal(id).content);
+        assertEquals(1, dbHelper.searchJournals("lighthouse", 10).size());
+
+        // Edited down to something short: plain text again, index follows
+        dbHelper.updateJournal(id, "Long walk", "Short after all", null);
+        assertEquals("text", stringValue("SELECT typeof(content) FROM journals WHERE id = " + id));
+        assertEquals(0, dbHelper.searchJournals("lighthouse", 10).size());
+        assertEquals(1, dbHelper.searchJournals("short", 10).size());
+
+        // And back up again through update
+        dbHelper.updateJournal(id, "Long walk", content, null);
+        assertEquals("blob", stringValue("SELECT typeof(content) FROM journals WHERE id = " + id));
+        assertEquals(1, dbHelper.searchJournals("lighthouse", 10).size());
+        assertEquals(0, dbHelper.searchJournals("short", 10).size());
+
+        // Turning compression off leaves existing rows readable
+        dbHelper.setCompressionThreshold(ContentCodec.OFF);
+        assertEquals(content, dbHelper.getJournal(id).content);
+        long plain = dbHelper.insertJournal(JournalRecord.now("Plain", content, folderId, null));
+        assertEquals("text", stringValue("SELECT typeof(content) FROM journals WHERE id = " + plain));
+
+        dbHelper.deleteJournal(id);
+        assertEquals(1, dbHelper.searchJournals("lighthouse", 10).size());
+    }
+
+    @Test
+    public void search_ranksTheNewestHitsWithTheirSnippets() {
+        long folderId = dbHelper.insertFolder("Work", "#F28BA8");
+        long oldest = dbHelper.insertJournal("River river", "By the river", folderId);
+        List<JournalRecord> rest = new ArrayList<>();
+        for (int i = 0; i < JournalSearch.MAX_CANDIDATES; i++) {
+            rest.add(JournalRecord.now("Entry " + i, "A walk by the river, day " + i, folderId, null));
+        }
+        dbHelper.insertJournals(rest);
+        long best = dbHelper.insertJournal("River", "The river again", folderId);
+
+        List<JournalSearch.Result> results = dbHelper.searchJournals("river", 10);
+        assertEquals(10, results.size());
+        assertEquals("the title hit ranks first", best, results.get(0).journalId);
+        assertEquals("River", results.get(0).title);
+        assertTrue(results.get(1).title.startsWith("Entry "));
+        assertTrue(results.get(1).snippet.startsWith("A walk by the river, day "));
+        assertArrayEquals(new int[]{ 14, 19 }, results.get(1).highlights);
+        for (JournalSearch.Result r : results) {
+            assertNotEquals("past the newest hits, even a better match isn't scored", oldest, r.journalId);
+        }
+    }
+
+    @Test
+    public void keysetPages_coverEveryRowOnceEvenWithEqualTimestamps() {
+        long folderId = dbHelper.insertFolder("Work", "#F28BA8");
+        for (int i = 0; i < 120; i++) {
+            dbHelper.insertJournal("Entry " + i, "Body", folderId); // many share a millisecond
+        }
+
+        Set<Long> seen = new HashSet<>();
+        JournalEntry after = null;
+        int pages = 0;
+        JournalPage page;
+        do {
+            page = dbHelper.getJournalPage(folderId, JournalFilter.NONE, after, 50);
+            for (JournalEntry e : page.entries) {
+                assertTrue("row " + e.id + " repeated", seen.add(e.id));
+            }
+            after = page.last();
+            pages++;
+        } while (page.hasMore);
+
+        assertEquals(120, seen.size());
+        assertEquals(3, pages);
+    }
+
+    @Test
+    public void allFoldersPage_joinsFolderNameAndColor() {
+        long work = dbHelper.insertFolder("Work", "#F28BA8");
+        long home = dbHelper.insertFolder("Home", "#8BC3F2");
+        dbHelper.insertJournal("At work", "Body", work);
+        dbHelper.insertJournal("At home", "Body", home);
+        // No folder at all; foreign keys rule out a dangling one
+        dbHelper.getWritableDatabase().execSQL(
+                "INSERT INTO journals (title, content) VALUES ('Loose', 'Body')");
+
+        JournalPage page = dbHelper.getJournalPage(DatabaseHelper.ALL_FOLDERS, JournalFilter.NONE, null, 50);
+        assertEquals("rows without a folder are still listed", 3, page.entries.size());
+        for (JournalEntry e : page.entries) {
+            if (e.folderId == work) {
+                assertEquals("Work", e.folderName);
+                assertEquals("#F28BA8", e.folderColor);
+            } else if (e.folderId == home) {
+                assertEquals("Home", e.folderName);
+                assertEquals("#8BC3F2", e.folderColor);
+            } else {
+                assertNull(e.folderName);
+                assertNull(e.folderColor);
+            }
+        }
+    }
+
+    @Test
+    public void journalPages_areReusedUntilAWriteTouchesThem() {
+        long work = dbHelper.insertFolder("Work", "#F28BA8");
+        long home = dbHelper.insertFolder("Home", "#8BC3F2");
+        dbHelper.insertJournal("At work", "Body", work);
+        JournalPageCache cache = repository.getPageCache();
+        JournalFilter thisYear = new JournalFilter(JournalFilter.yearOf(System.currentTimeMillis()), JournalFilter.ALL);
+
+        List<JournalPage> pages = new ArrayList<>();
+        // Flip the spinners: this year, All, this year again
+        for (JournalFilter filter : new JournalFilter[]{ thisYear, JournalFilter.NONE, thisYear }) {
+            repository.loadJournalPage(work, filter, null, 50, pages::add);
+            drainIo();
+        }
+        assertEquals(2, cache.misses());
+        assertEquals(1, cache.hits());
+        assertSame(pages.get(0), pages.get(2));
+
+        // A write elsewhere leaves the folder's pages alone
+        dbHelper.insertJournal("At home", "Body", home);
+        repository.loadJournalPage(work, thisYear, null, 50, pages::add);
+        drainIo();
+        assertEquals(2, cache.hits());
+
+        // A write to the folder is seen at once
+        dbHelper.insertJournal("Back at work", "Body", work);
+        repository.loadJournalPage(work, thisYear, null, 50, pages::add);
+        drainIo();
+        assertEquals(3, cache.misses());
+        assertEquals(2, pages.get(4).entries.size());
+    }
+
+    @Test
+    public void monthCounts_followInsertsEditsAndDeletes() {
+        long work = dbHelper.insertFolder("Work", "#F28BA8");
+        long home = dbHelper.insertFolder("Home", "#8BC3F2");
+        long a = dbHelper.insertJournal("A", "Body", work);
+        dbHelper.insertJournal("B", "Body", work);
+        dbHelper.insertJournal("C", "Body", home);
+
+        JournalFilter thisMonth = new JournalFilter(
+                TimestampCodec.local().year(System.currentTimeMillis()),
+                TimestampCodec.local().month(System.currentTimeMillis()));
+        assertEquals(3, dbHelper.getJournalCounts(DatabaseHelper.ALL_FOLDERS).count(thisMonth));
+        assertEquals(2, dbHelper.getJournalCounts(work).count(thisMonth));
+
+        dbHelper.updateJournal(a, "A2", "Body", null); // same month: nothing moves
+        assertEquals(2, dbHelper.getJournalCounts(work).total());
+
+        dbHelper.deleteJournal(a);
+        assertEquals(1, dbHelper.getJournalCounts(work).total());
+        assertEquals(2, dbHelper.getJournalCounts(DatabaseHelper.ALL_FOLDERS).total());
+
+        dbHelper.deleteFolder(home);
+        assertEquals(0, dbHelper.getJournalCounts(home).total());
+        assertTrue(dbHelper.getJournalCounts(home).years().isEmpty());
+    }
+
+    @Test
+    public void monthCounts_takeAnEntryOffTheMonthItWasCountedUnder() {
+        long work = dbHelper.insertFolder("Work", "#F28BA8");
+        long a = dbHelper.insertJournal("A", "Body", work);
+        long b = dbHelper.insertJournal("B", "Body", work);
+        assertEquals("keyed in local time as it is written",
+                DatabaseHelper.monthKey(TimestampCodec.local(), System.currentTimeMillis()),
+                longValue("SELECT month_key FROM journals WHERE id = " + a));
+
+        // As if both were written in a zone where it was already another
+        // year: the counts follow the stored key, not the local month
+        dbHelper.getWritableDatabase().execSQL("UPDATE journals SET month_key = 299901");
+        JournalFilter stored = new JournalFilter(2999, Calendar.JANUARY);
+        assertEquals(2, dbHelper.getJournalCounts(work).count(stored));
+
+        dbHelper.updateJournal(a, "A2", "Body", null);
+        assertEquals("an edit moves it to the month it is in now", 1, dbHelper.getJournalCounts(work).count(stored));
+        assertEquals(2, dbHelper.getJournalCounts(work).total());
+
+        dbHelper.deleteJournal(b);
+        assertEquals(0, dbHelper.getJournalCounts(work).count(stored));
+        assertFalse(dbHelper.getJournalCounts(work).years().contains(2999));
+        assertEquals(1, dbHelper.getJournalCounts(work).total());
+
+        assertEquals(0, longValue("SELECT COUNT(*) FROM journal_month_counts WHERE entries <= 0"));
+    }
+
+    @Test
+    public void deleteFolder_removesEverythingAndReportsProgress() {
+        long work = dbHelper.insertFolder("Work", "#F28BA8");
+        long home = dbHelper.insertFolder("Home", "#8BC3F2");
+        for (int i = 0; i < 1200; i++) {
+            dbHelper.insertJournal("Entry " + i, "searchable", work);
+        }
+        dbHelper.insertJournal("Keep", "searchable", home);
+
+        List<int[]> progress = new ArrayList<>();
+        List<Integer> removed = new ArrayList<>();
+        repository.deleteFolder(work, (done, total) -> progress.add(new int[]{ done, total }), removed::add);
+        drainIo();
+
+        assertEquals(Integer.valueOf(1), removed.get(0));
+        int[] last = progress.get(progress.size() - 1);
+        assertEquals(1200, last[0]);
+        assertEquals(1200, last[1]);
+        assertTrue("reported in chunks", progress.size() > 2);
+
+        assertEquals(0, dbHelper.getJournalPage(work, JournalFilter.NONE, null, 10).entries.size());
+        assertEquals(0, dbHelper.getJournalCounts(work).total());
+        assertEquals(1, dbHelper.searchJournals("searchable", 10).size());
+        assertNull(dbHelper.getFolder(work));
+    }
+
+    @Test
+    public void aReplayedFolderDelete_doesNotReportItsProgressTwice() {
+        long work = dbHelper.insertFolder("Work", "#F28BA8");
+        for (int i = 0; i < 600; i++) {
+            dbHelper.insertJournal("Entry " + i, "Body", work);
+        }
+
+        List<Integer> done = new ArrayList<>();
+        List<Integer> removed = new ArrayList<>();
+        List<Long> dangling = new ArrayList<>();
+        repository.deleteFolder(work, (d, total) -> done.add(d), removed::add);
+        // Rolls back the group, so the delete runs a second time on its own
+        repository.insertJournal(JournalRecord.now("Dangling", "Body", work + 100, null), dangling::add);
+        drainIo();
+
+        assertEquals(Integer.valueOf(1), removed.get(0));
+        assertEquals(Long.valueOf(-1), dangling.get(0));
+        for (int i = 1; i < done.size(); i++) {
+            assertTrue("never repeated or going back", done.get(i) > done.get(i - 1));
+        }
+        assertEquals(Integer.valueOf(600), done.get(done.size() - 1));
+    }
+
+    @Test
+    public void deletingFolderRow_cascadesToJournals() {
+        long work = dbHelper.insertFolder("Work", "#F28BA8");
+        long id = dbHelper.insertJournal("Entry", "Body", work);
+        dbHelper.getWritableDatabase().delete(DatabaseHelper.TABLE_FOLDERS,
+                DatabaseHelper.COLUMN_FOLDER_ID + "=?", new String[]{ String.valueOf(work) });
+        assertNull(dbHelper.getJournal(id));
+        assertEquals(-1, dbHelper.insertJournal("Dangling", "Body", work));
+    }
+
+    @Test
+    public void drafts_surviveUntilTheEntryIsSaved() {
+        long work = dbHelper.insertFolder("Work", "#F28BA8");
+        JournalDraft draft = new JournalDraft(JournalDraft.NEW_ENTRY, work, "Half", "written", "🙂 Calm");
+        repository.saveDraft(draft, null);
+        repository.saveDraft(new JournalDraft(JournalDraft.NEW_ENTRY, work, "Half", "written more", null), null);
+        drainIo();
+
+        // As a new activity would after a process kill
+        List<JournalDraft> loaded = new ArrayList<>();
+        repository.loadDraft(JournalDraft.NEW_ENTRY, work, loaded::add);
+        drainIo();
+        assertEquals("written more", loaded.get(0).content);
+        assertNull(loaded.get(0).mood);
+        assertEquals(JournalDraft.hash("Half", "written more", null), loaded.get(0).hash);
+
+        List<Long> ids = new ArrayList<>();
+        repository.insertJournal(JournalRecord.now("Half", "written more", work, null), draft.key(), ids::add);
+        drainIo();
+        assertNotEquals(-1L, (long) ids.get(0));
+        assertNull(dbHelper.getDraft(JournalDraft.NEW_ENTRY, work));
+
+        // Editing keeps its own draft until updated
+        long id = ids.get(0);
+        assertTrue(dbHelper.putDraft(new JournalDraft(id, work, "Half", "edited", null)));
+        assertEquals("edited", dbHelper.getDraft(id, work).content);
+        assertEquals(1, dbHelper.updateJournal(id, "Half", "edited", null, JournalDraft.key(id, work)));
+        assertNull(dbHelper.getDraft(id, work));
+    }
+
+    @Test
+    public void discardDraft_dropsOnlyThatDraft() {
+        long work = dbHelper.insertFolder("Work", "#F28BA8");
+        long id = dbHelper.insertJournal("Entry", "Body", work);
+        JournalDraft edit = new JournalDraft(id, work, "Entry", "Body, edited", null);
+        assertTrue(dbHelper.putDraft(edit));
+        assertTrue(dbHelper.putDraft(new JournalDraft(JournalDraft.NEW_ENTRY, work, "New", "", null)));
+
+        List<Integer> removed = new ArrayList<>();
+        repository.discardDraft(edit.key(), removed::add);
+        drainIo();
+        assertEquals(Integer.valueOf(1), removed.get(0));
+        assertNull(dbHelper.getDraft(id, work));
+        assertNotNull(dbHelper.getDraft(JournalDraft.NEW_ENTRY, work));
+        assertEquals("Body", dbHelper.getJournal(id).content);
+    }
+
+    @Test
+    public void drafts_goWithTheirEntryOrFolder() {
+        long work = dbHelper.insertFolder("Work", "#F28BA8");
+        long id = dbHelper.insertJournal("Entry", "Body", work);
+        assertTrue(dbHelper.putDraft(new JournalDraft(id, work, "Entry", "Body, edited", null)));
+        assertTrue(dbHelper.putDraft(new JournalDraft(JournalDraft.NEW_ENTRY, work, "New", "", null)));
+
+        dbHelper.deleteJournal(id);
+        assertNull(dbHelper.getDraft(id, work));
+        assertNotNull(dbHelper.getDraft(JournalDraft.NEW_ENTRY, work));
+        assertFalse("no draft for an entry that's gone",
+                dbHelper.putDraft(new JournalDraft(id, work, "Entry", "Body, edited", null)));
+
+        dbHelper.deleteFolder(work);
+        assertNull(dbHelper.getDraft(JournalDraft.NEW_ENTRY, work));
+        assertFalse("no draft for a folder that's gone",
+                dbHelper.putDraft(new JournalDraft(JournalDraft.NEW_ENTRY, work, "New", "", null)));
+    }
+
+    @Test
+    public void cancelledLoad_neverCallsBack() {
+        List<List<Folder>> results = new ArrayList<>();
+        Future<?> load = repository.loadFolders(results::add);
+        load.cancel(false);
+        drainIo();
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    public void close_dropsPendingAndLaterCallbacks() {
+        List<List<Folder>> results = new ArrayList<>();
+        repository.loadFolders(results::add);
+        repository.close();
+        repository.loadFolders(results::add);
+        drainIo();
+        assertTrue(results.isEmpty());
+    }
+}
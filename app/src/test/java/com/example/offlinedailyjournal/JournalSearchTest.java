@@ -0,0 +1,59 @@
+package com.example.offlinedailyjournal;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+public class JournalSearchTest {
+
+    @Test
+    public void matchQuery_prefixesLastTermAndDropsSyntax() {
+        assertEquals("morning run*", JournalSearch.toMatchQuery("Morning  RUN"));
+        assertEquals("cafe tea*", JournalSearch.toMatchQuery("\"cafe\" -tea"));
+        assertEquals("rock \"and\" roll*", JournalSearch.toMatchQuery("rock AND roll"));
+        assertNull(JournalSearch.toMatchQuery("  *:- "));
+    }
+
+    @Test
+    public void score_titleHitOutranksContentHit() {
+        // one phrase, two columns (title, content), 100 docs, 5 of them match
+        byte[] inTitle   = matchinfo(100, 4, 200, 4, 200, 1, 5, 5, 0, 0, 0);
+        byte[] inContent = matchinfo(100, 4, 200, 4, 200, 0, 0, 0, 1, 5, 5);
+        assertTrue(JournalSearch.score(inTitle) > JournalSearch.score(inContent));
+    }
+
+    @Test
+    public void score_rareTermOutranksCommonTerm() {
+        byte[] rare   = matchinfo(100, 4, 200, 4, 200, 0, 0, 0, 1, 2, 2);
+        byte[] common = matchinfo(100, 4, 200, 4, 200, 0, 0, 0, 1, 60, 40);
+        assertTrue(JournalSearch.score(rare) > JournalSearch.score(common));
+    }
+
+    @Test
+    public void parseSnippet_recordsHighlightRanges() {
+        JournalSearch.Snippet s = JournalSearch.parseSnippet(
+                "…a \u0002long\u0003 walk by the \u0002lake\u0003");
+        assertEquals("…a long walk by the lake", s.text);
+        assertArrayEquals(new int[]{ 3, 7, 20, 24 }, s.highlights);
+    }
+
+    /** pcnalx blob for one phrase over two columns. */
+    private static byte[] matchinfo(int docs, int avgTitle, int avgContent, int lenTitle, int lenContent,
+                                    int... hits) {
+        int[] ints = new int[3 + 2 + 2 + hits.length];
+        ints[0] = 1;
+        ints[1] = 2;
+        ints[2] = docs;
+        ints[3] = avgTitle;
+        ints[4] = avgContent;
+        ints[5] = lenTitle;
+        ints[6] = lenContent;
+        System.arraycopy(hits, 0, ints, 7, hits.length);
+        ByteBuffer buf = ByteBuffer.allocate(ints.length * 4).order(ByteOrder.nativeOrder());
+        for (int v : ints) buf.putInt(v);
+        return buf.array();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.offlinedailyjournal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class JournalSummaryTest {
+
+    @Test
+    public void shortContent_isItsOwnExcerpt() {
+        JournalSummary s = JournalSummary.of("Slept well.\n\n  Long walk\tafter lunch. ");
+        assertEquals("Slept well. Long walk after lunch.", s.excerpt);
+        assertEquals(6, s.words);
+        assertEquals(38, s.chars);
+    }
+
+    @Test
+    public void emptyContent() {
+        assertSame(JournalSummary.EMPTY, JournalSummary.of(""));
+        JournalSummary blank = JournalSummary.of(" \n ");
+        assertEquals("", blank.excerpt);
+        assertEquals(0, blank.words);
+        assertEquals(3, blank.chars);
+    }
+
+    @Test
+    public void longContent_isCutAtAWordBoundary() {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100; i++) content.append("word").append(i).append(' ');
+        JournalSummary s = JournalSummary.of(content.toString());
+
+        assertTrue(s.excerpt, s.excerpt.endsWith("…"));
+        String body = s.excerpt.substring(0, s.excerpt.length() - 1);
+        assertTrue(body.length() <= JournalSummary.EXCERPT_CHARS);
+        assertTrue("whole words only: " + body, content.toString().startsWith(body + " "));
+        assertEquals(100, s.words);
+        assertEquals(content.length(), s.chars);
+    }
+
+    @Test
+    public void oneHugeWord_isCutMidWord() {
+        StringBuilder content = new StringBuilder("Intro ");
+        for (int i = 0; i < 300; i++) content.append('a');
+        JournalSummary s = JournalSummary.of(content.toString());
+        assertEquals(JournalSummary.EXCERPT_CHARS + 1, s.excerpt.length());
+        assertTrue(s.excerpt.startsWith("Intro aaa"));
+        assertEquals(2, s.words);
+    }
+
+    @Test
+    public void exactlyFullContent_hasNoEllipsis() {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < JournalSummary.EXCERPT_CHARS; i++) content.append('x');
+        assertEquals(content.toString(), JournalSummary.of(content + "\n").excerpt);
+    }
+
+    @Test
+    public void emojiCountAsOneCharacterAndAreNeverSplit() {
+        JournalSummary s = JournalSummary.of("Great day 😀");
+        assertEquals(11, s.chars);
+        assertEquals(3, s.words);
+
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 200; i++) content.append("😀");
+        JournalSummary cut = JournalSummary.of(content.toString());
+        assertEquals(JournalSummary.EXCERPT_CHARS,
+                cut.excerpt.codePointCount(0, cut.excerpt.length()) - 1);
+        assertEquals(200, cut.chars);
+    }
+}
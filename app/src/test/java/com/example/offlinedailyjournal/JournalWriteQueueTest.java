@@ -0,0 +1,154 @@
+package com.example.offlinedailyjournal;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.*;
+
+/**
+ * The write queue against a real (Robolectric) database, with its drain
+ * loop queued on a test executor so everything submitted before
+ * {@link #drain()} forms one group.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class JournalWriteQueueTest {
+
+    private final Queue<Runnable> writerQueue = new ArrayDeque<>();
+    private DatabaseHelper dbHelper;
+    private JournalWriteQueue writes;
+    private long folderId;
+
+    @Before
+    public void setUp() {
+        dbHelper = new DatabaseHelper(ApplicationProvider.getApplicationContext());
+        writes   = new JournalWriteQueue(dbHelper, writerQueue::add, 0);
+        folderId = dbHelper.insertFolder("Work", "#F28BA8");
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    private void drain() {
+        Runnable r;
+        while ((r = writerQueue.poll()) != null) r.run();
+    }
+
+    private JournalRecord record(String title) {
+        return JournalRecord.now(title, "Body", folderId, null);
+    }
+
+    private int journalCount() {
+        return dbHelper.getJournalCounts(DatabaseHelper.ALL_FOLDERS).total();
+    }
+
+    @Test
+    public void aBurst_runsInOneTransaction() throws Exception {
+        List<CompletableFuture<Boolean>> inTransaction = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String title = "Entry " + i;
+            inTransaction.add(writes.submit(() -> {
+                dbHelper.insertJournal(record(title));
+                return dbHelper.getWritableDatabase().inTransaction();
+            }));
+        }
+        assertEquals("one drain loop for the burst", 1, writerQueue.size());
+        drain();
+
+        for (CompletableFuture<Boolean> f : inTransaction) assertTrue(f.get());
+        assertEquals(3, journalCount());
+
+        CompletableFuture<Boolean> alone = writes.submit(() -> dbHelper.getWritableDatabase().inTransaction());
+        drain();
+        assertTrue("a lone write gets a transaction of its own", alone.get());
+    }
+
+    @Test
+    public void aHelperThatRollsBack_isCaughtWithoutAPredicate() throws Exception {
+        long missingFolder = folderId + 100;
+        CompletableFuture<Long> before = writes.submit(() -> dbHelper.insertJournal(record("Before")));
+        CompletableFuture<Long> bad = writes.submit(
+                () -> dbHelper.insertJournal(JournalRecord.now("Dangling", "Body", missingFolder, null)));
+        CompletableFuture<Long> after = writes.submit(() -> dbHelper.insertJournal(record("After")));
+        drain();
+
+        assertEquals(-1L, (long) bad.get());
+        assertEquals("Before", dbHelper.getJournal(before.get()).title);
+        assertEquals("After", dbHelper.getJournal(after.get()).title);
+        assertEquals(2, journalCount());
+    }
+
+    @Test
+    public void aLoneWrite_isAllOrNothing() {
+        CompletableFuture<Long> failed = writes.submit(() -> {
+            dbHelper.insertJournal(record("Half"));
+            throw new IllegalStateException("after the insert");
+        });
+        drain();
+
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals(0, journalCount());
+    }
+
+    @Test
+    public void aRejectedWrite_doesNotUndoTheRestOfItsGroup() throws Exception {
+        long missingFolder = folderId + 100;
+        CompletableFuture<Long> before = writes.submit(() -> dbHelper.insertJournal(record("Before")), id -> id == -1);
+        CompletableFuture<Long> bad = writes.submit(
+                () -> dbHelper.insertJournal(JournalRecord.now("Dangling", "Body", missingFolder, null)), id -> id == -1);
+        CompletableFuture<Long> after = writes.submit(() -> dbHelper.insertJournal(record("After")), id -> id == -1);
+        drain();
+
+        assertEquals(-1L, (long) bad.get());
+        assertNotEquals(-1L, (long) before.get());
+        assertNotEquals(-1L, (long) after.get());
+        assertEquals("Before", dbHelper.getJournal(before.get()).title);
+        assertEquals("After", dbHelper.getJournal(after.get()).title);
+        assertEquals(2, journalCount());
+    }
+
+    @Test
+    public void aWriteThatThrows_failsOnlyItsOwnFuture() throws Exception {
+        CompletableFuture<Long> good = writes.submit(() -> dbHelper.insertJournal(record("Good")));
+        CompletableFuture<Long> bad = writes.submit(() -> {
+            throw new IllegalStateException("boom");
+        });
+        CompletableFuture<Long> after = writes.submit(() -> dbHelper.insertJournal(record("After")));
+        drain();
+
+        assertNotEquals(-1L, (long) good.get());
+        assertNotEquals(-1L, (long) after.get());
+        try {
+            bad.get();
+            fail("expected the write's own exception");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(2, journalCount());
+    }
+
+    @Test
+    public void aWriteCancelledWhileQueued_neverRuns() throws Exception {
+        CompletableFuture<Long> cancelled = writes.submit(() -> dbHelper.insertJournal(record("Cancelled")));
+        CompletableFuture<Long> kept = writes.submit(() -> dbHelper.insertJournal(record("Kept")));
+        cancelled.cancel(false);
+        drain();
+
+        assertTrue(kept.isDone());
+        assertEquals(1, journalCount());
+        assertEquals("Kept", dbHelper.getJournal(kept.get()).title);
+    }
+}
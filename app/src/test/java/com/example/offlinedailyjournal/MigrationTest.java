@@ -0,0 +1,256 @@
+package com.example.offlinedailyjournal;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Upgrades a fixture database from every historical schema version and
+ * checks that it ends up exactly like a freshly created one, with its rows
+ * intact. Fixtures live in src/test/resources/migrations, one per version
+ * (plus variants), written in that version's own DDL.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class MigrationTest {
+
+    /** Fixture name and the version it was written at. */
+    private static final Object[][] FIXTURES = {
+            { "v1", 1 }, { "v2", 2 }, { "v2_mood", 2 }, { "v3", 3 }, { "v4", 4 }, { "v5", 5 }, { "v6", 6 }, { "v7", 7 },
+            { "v8", 8 }, { "v9", 9 }, { "v10", 10 }, { "v11", 11 }, { "v12", 12 },
+    };
+
+    // Every fixture holds two folders and three journals, plus (before
+    // version 6) a fourth whose folder is gone
+    private static final int FOLDERS  = 2;
+    private static final int JOURNALS = 3;
+
+    private final Context context = ApplicationProvider.getApplicationContext();
+    private final List<DatabaseHelper> opened = new ArrayList<>();
+    private Map<String, String> freshSchema;
+
+    @Before
+    public void setUp() {
+        freshSchema = schema(open("fresh.db").getReadableDatabase());
+    }
+
+    @After
+    public void tearDown() {
+        for (DatabaseHelper helper : opened) helper.close();
+    }
+
+    @Test
+    public void migrations_areContiguousAndEndAtCurrentVersion() {
+        int expected = 2;
+        for (Migration m : DatabaseHelper.MIGRATIONS) {
+            assertEquals(m.toString(), expected++, m.version);
+        }
+        assertEquals(DatabaseHelper.DATABASE_VERSION, expected - 1);
+    }
+
+    @Test
+    public void everyOlderVersion_hasAFixture() {
+        for (int version = 1; version < DatabaseHelper.DATABASE_VERSION; version++) {
+            boolean found = false;
+            for (Object[] fixture : FIXTURES) found |= (int) fixture[1] == version;
+            assertTrue("no fixture for version " + version, found);
+        }
+    }
+
+    @Test
+    public void everyFixture_upgradesToTheFreshSchema() throws IOException {
+        for (Object[] fixture : FIXTURES) {
+            String name = (String) fixture[0];
+            SQLiteDatabase db = upgrade(name, (int) fixture[1]);
+
+            assertEquals(name, DatabaseHelper.DATABASE_VERSION, db.getVersion());
+            assertEquals(name, freshSchema, schema(db));
+            assertEquals(name, 0, count(db, "PRAGMA foreign_key_check"));
+        }
+    }
+
+    @Test
+    public void everyFixture_keepsRowsAndDropsOrphans() throws IOException {
+        for (Object[] fixture : FIXTURES) {
+            String name = (String) fixture[0];
+            SQLiteDatabase db = upgrade(name, (int) fixture[1]);
+
+            assertEquals(name, FOLDERS, count(db, "SELECT * FROM folders"));
+            assertEquals(name, JOURNALS, count(db, "SELECT * FROM journals"));
+            assertEquals(name, JOURNALS, count(db, "SELECT * FROM journals_fts"));
+            assertEquals(name, JOURNALS, longValue(db, "SELECT SUM(entries) FROM journal_month_counts"));
+            assertEquals(name, 0, count(db, "SELECT * FROM journals WHERE month_key = 0"));
+            assertEquals(name, 0, count(db, "SELECT * FROM journals"
+                    + " WHERE typeof(date_added) <> 'integer' OR typeof(date_modified) <> 'integer'"));
+            // Search still finds upgraded rows
+            assertEquals(name, 1, count(db, "SELECT * FROM journals_fts WHERE journals_fts MATCH 'river'"));
+        }
+    }
+
+    @Test
+    public void textDates_becomeLocalEpochMillis() throws IOException {
+        TimestampCodec codec = TimestampCodec.local();
+        for (Object[] fixture : FIXTURES) {
+            if ((int) fixture[1] >= 4) continue; // dates were text before version 4
+            String name = (String) fixture[0];
+            SQLiteDatabase db = upgrade(name, (int) fixture[1]);
+            assertEquals(name, codec.parse("2023-01-02 09:15:00"),
+                    longValue(db, "SELECT date_modified FROM journals WHERE id = 1"));
+            assertEquals(name, codec.parse("March 16, 2023 21:05"),
+                    longValue(db, "SELECT date_modified FROM journals WHERE id = 3"));
+        }
+    }
+
+    @Test
+    public void summaries_areFilledInForEveryRow() throws IOException {
+        for (Object[] fixture : FIXTURES) {
+            String name = (String) fixture[0];
+            SQLiteDatabase db = upgrade(name, (int) fixture[1]);
+            assertEquals(name, 0, count(db, "SELECT * FROM journals WHERE word_count = 0 OR char_count = 0"));
+            assertEquals(name, "5k along the river", stringValue(db, "SELECT excerpt FROM journals WHERE id = 2"));
+            assertEquals(name, 4, longValue(db, "SELECT word_count FROM journals WHERE id = 2"));
+        }
+    }
+
+    @Test
+    public void monthKeys_doNotPutEveryEntryInTheNextBackup() throws IOException {
+        SQLiteDatabase db = upgrade("v11", 11);
+        assertEquals(1, count(db, "SELECT * FROM journal_changes"));
+        assertEquals(3, longValue(db, "SELECT row_id FROM journal_changes"));
+    }
+
+    @Test
+    public void changeLog_keepsItsRowsAndRenumbersRewrites() throws IOException {
+        SQLiteDatabase db = upgrade("v12", 12);
+        assertEquals(3, longValue(db, "SELECT row_id FROM journal_changes"));
+        long seq = longValue(db, "SELECT seq FROM journal_changes");
+
+        db.execSQL("UPDATE journals SET title = 'Again' WHERE id = 3");
+        assertEquals(1, count(db, "SELECT * FROM journal_changes"));
+        assertTrue("written again, it's past what a running backup read",
+                longValue(db, "SELECT seq FROM journal_changes") > seq);
+    }
+
+    @Test
+    public void drafts_surviveTheUpgrade() throws IOException {
+        assertEquals(2, count(upgrade("v7", 7), "SELECT * FROM journal_drafts"));
+    }
+
+    @Test
+    public void moods_surviveWhereTheyExisted() throws IOException {
+        assertEquals(0, count(upgrade("v2", 2), "SELECT * FROM journals WHERE mood IS NOT NULL"));
+        assertEquals(2, count(upgrade("v2_mood", 2), "SELECT * FROM journals WHERE mood IS NOT NULL"));
+        assertEquals("✨ Excited", stringValue(upgrade("v5", 5), "SELECT mood FROM journals WHERE id = 2"));
+    }
+
+    // ---------------------------------------------------------------------
+
+    private DatabaseHelper open(String file) {
+        DatabaseHelper helper = new DatabaseHelper(context, file);
+        opened.add(helper);
+        return helper;
+    }
+
+    /** Build the fixture as that version would have left it, then let DatabaseHelper open it. */
+    private SQLiteDatabase upgrade(String fixture, int version) throws IOException {
+        String file = fixture + "-" + opened.size() + ".db";
+        context.deleteDatabase(file);
+        SQLiteDatabase old = SQLiteDatabase.openOrCreateDatabase(context.getDatabasePath(file), null);
+        try {
+            for (String statement : readFixture(fixture)) old.execSQL(statement);
+            assertEquals(fixture, version, old.getVersion());
+        } finally {
+            old.close();
+        }
+        return open(file).getWritableDatabase();
+    }
+
+    /** Statements from a fixture file; they are separated by blank lines, "--" lines are comments. */
+    private static List<String> readFixture(String name) throws IOException {
+        InputStream in = MigrationTest.class.getClassLoader().getResourceAsStream("migrations/" + name + ".sql");
+        assertNotNull("missing fixture " + name, in);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) > 0) bytes.write(buf, 0, n);
+        } finally {
+            in.close();
+        }
+
+        List<String> statements = new ArrayList<>();
+        for (String block : bytes.toString(StandardCharsets.UTF_8.name()).split("\\n\\s*\\n")) {
+            StringBuilder sql = new StringBuilder();
+            for (String line : block.split("\\n")) {
+                if (!line.trim().startsWith("--")) sql.append(line).append('\n');
+            }
+            if (sql.toString().trim().length() > 0) statements.add(sql.toString().trim());
+        }
+        return statements;
+    }
+
+    /**
+     * name -> CREATE statement for every table, index and trigger. Quotes
+     * are dropped because SQLite quotes a table's name after RENAME.
+     */
+    private static Map<String, String> schema(SQLiteDatabase db) {
+        Map<String, String> schema = new TreeMap<>();
+        Cursor c = db.rawQuery("SELECT type, name, sql FROM sqlite_master WHERE sql IS NOT NULL", null);
+        try {
+            while (c.moveToNext()) {
+                String sql = c.getString(2).replace("\"", "").replaceAll("\\s+", " ").trim();
+                schema.put(c.getString(0) + " " + c.getString(1), sql);
+            }
+        } finally {
+            c.close();
+        }
+        return schema;
+    }
+
+    private static int count(SQLiteDatabase db, String sql) {
+        Cursor c = db.rawQuery(sql, null);
+        try {
+            return c.getCount();
+        } finally {
+            c.close();
+        }
+    }
+
+    private static long longValue(SQLiteDatabase db, String sql) {
+        Cursor c = db.rawQuery(sql, null);
+        try {
+            assertTrue(sql, c.moveToFirst());
+            return c.getLong(0);
+        } finally {
+            c.close();
+        }
+    }
+
+    private static String stringValue(SQLiteDatabase db, String sql) {
+        Cursor c = db.rawQuery(sql, null);
+        try {
+            assertTrue(sql, c.moveToFirst());
+            return c.getString(0);
+        } finally {
+            c.close();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.offlinedailyjournal;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class StartupTimesTest {
+
+    private final Context context = ApplicationProvider.getApplicationContext();
+    private final StartupTimes times = new StartupTimes(context);
+
+    @Test
+    public void aLaunch_isTimedFromItsOrigin() {
+        times.begin(1_000, true);
+        times.firstFrame(1_300);
+        times.firstFrame(1_350);  // later frames don't count
+        assertTrue(times.dataShown(1_800));
+        assertFalse("the launch is over", times.dataShown(1_900));
+
+        List<StartupTimes.Launch> launches = times.recent();
+        assertEquals(1, launches.size());
+        assertTrue(launches.get(0).cold);
+        assertEquals(300, launches.get(0).firstFrameMillis);
+        assertEquals(800, launches.get(0).dataMillis);
+    }
+
+    @Test
+    public void dataBeforeAnyDraw_isAlsoTheFirstFrame() {
+        times.begin(5_000, false);
+        times.dataShown(5_120);
+        times.firstFrame(5_200);  // no launch to time any more
+
+        StartupTimes.Launch launch = times.recent().get(0);
+        assertFalse(launch.cold);
+        assertEquals(120, launch.firstFrameMillis);
+        assertEquals(120, launch.dataMillis);
+    }
+
+    @Test
+    public void theLastLaunches_areKept_newestFirst() {
+        for (int i = 0; i < StartupTimes.MAX_LAUNCHES + 5; i++) {
+            times.begin(0, i == 0);
+            times.firstFrame(100);
+            times.dataShown(200 + i);
+        }
+
+        List<StartupTimes.Launch> launches = new StartupTimes(context).recent();
+        assertEquals(StartupTimes.MAX_LAUNCHES, launches.size());
+        assertEquals(200 + StartupTimes.MAX_LAUNCHES + 4, launches.get(0).dataMillis);
+        assertFalse("the cold one has dropped off", launches.get(launches.size() - 1).cold);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.offlinedailyjournal;
+
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class TimestampCodecTest {
+
+    private static final String[] ZONES = { "UTC", "America/New_York", "Asia/Kolkata", "Australia/Lord_Howe" };
+
+    private static SimpleDateFormat fmt(String pattern, TimeZone zone) {
+        SimpleDateFormat f = new SimpleDateFormat(pattern, Locale.US);
+        f.setTimeZone(zone);
+        return f;
+    }
+
+    @Test
+    public void formatsMatchSimpleDateFormat() {
+        Random random = new Random(42);
+        for (String id : ZONES) {
+            TimeZone zone = TimeZone.getTimeZone(id);
+            TimestampCodec codec = new TimestampCodec(zone, Locale.US);
+            SimpleDateFormat header  = fmt("MMMM d", zone);
+            SimpleDateFormat display = fmt("MMMM d, yyyy HH:mm", zone);
+            SimpleDateFormat stamp   = fmt("MMMM dd, yyyy HH:mm", zone);
+            Calendar cal = Calendar.getInstance(zone, Locale.US);
+
+            for (int i = 0; i < 20_000; i++) {
+                // 1990..2060, the range journal dates actually fall in
+                long millis = 631_152_000_000L + (long) (random.nextDouble() * 2_208_988_800_000L);
+                Date date = new Date(millis);
+                cal.setTimeInMillis(millis);
+                assertEquals(header.format(date), codec.formatHeader(millis));
+                assertEquals(display.format(date), codec.formatDisplay(millis));
+                assertEquals(stamp.format(date), codec.formatStamp(millis));
+                assertEquals(cal.get(Calendar.YEAR), codec.year(millis));
+                assertEquals(cal.get(Calendar.MONTH), codec.month(millis));
+            }
+        }
+    }
+
+    @Test
+    public void parsesEveryStoredForm() throws ParseException {
+        TimeZone zone = TimeZone.getTimeZone("America/New_York");
+        TimestampCodec codec = new TimestampCodec(zone, Locale.US);
+
+        assertEquals(1_722_289_200_000L, codec.parse("1722289200000"));
+        assertEquals(fmt("yyyy-MM-dd HH:mm:ss", zone).parse("2024-03-10 01:59:30").getTime(),
+                codec.parse("2024-03-10 01:59:30"));
+        assertEquals(fmt("MMMM dd, yyyy HH:mm", zone).parse("July 09, 2025 22:40").getTime(),
+                codec.parse("July 09, 2025 22:40"));
+        assertEquals(codec.parse("July 09, 2025 22:40"), codec.parse("july 9, 2025 22:40"));
+    }
+
+    @Test
+    public void parsesIso8601AsOtherAppsExportIt() throws ParseException {
+        TimeZone zone = TimeZone.getTimeZone("America/New_York");
+        TimestampCodec codec = new TimestampCodec(zone, Locale.US);
+
+        assertEquals(1_722_289_200_000L, codec.parseIso8601("2024-07-29T21:40:00Z"));
+        assertEquals(1_722_289_200_123L, codec.parseIso8601("2024-07-29T21:40:00.123Z"));
+        assertEquals(1_722_289_200_500L, codec.parseIso8601("2024-07-29T21:40:00.5Z"));
+        assertEquals(1_722_289_200_000L, codec.parseIso8601("2024-07-30T03:10:00+05:30"));
+        assertEquals(1_722_289_200_000L, codec.parseIso8601("2024-07-29T17:40-0400"));
+        assertEquals(fmt("yyyy-MM-dd HH:mm", zone).parse("2024-07-29 17:40").getTime(),
+                codec.parseIso8601("2024-07-29T17:40"));
+        assertEquals(fmt("yyyy-MM-dd", zone).parse("2024-03-10").getTime(), codec.parseIso8601("2024-03-10"));
+        assertEquals(fmt("yyyy-MM-dd HH:mm", zone).parse("1969-07-20 16:17").getTime(),
+                codec.parseIso8601("1969-07-20T16:17"));
+        assertEquals(-1, codec.parseIso8601("1969-12-31T23:59:59.999Z"));
+
+        String[] bad = { null, "", "2024-07-29T", "2024-07-29T17", "2024-13-01", "2024-07-29T17:40Q",
+                "2024-07-29T17:40:00.Z", "2024-07-29T17:40+5:30", "July 09, 2025 22:40" };
+        for (String s : bad) {
+            assertEquals(s, Long.MIN_VALUE, codec.parseIso8601(s));
+        }
+    }
+
+    @Test
+    public void formatsIso8601ThatParsesBack() {
+        TimestampCodec kolkata = new TimestampCodec(TimeZone.getTimeZone("Asia/Kolkata"), Locale.US);
+        TimestampCodec utc = new TimestampCodec(TimeZone.getTimeZone("UTC"), Locale.US);
+        TimestampCodec newYork = new TimestampCodec(TimeZone.getTimeZone("America/New_York"), Locale.US);
+
+        assertEquals("2024-07-30T03:10:00+05:30", kolkata.formatIso8601(1_722_289_200_000L));
+        assertEquals("2024-07-29T21:40:00.007Z", utc.formatIso8601(1_722_289_200_007L));
+        assertEquals("2024-07-29T17:40:00.120-04:00", newYork.formatIso8601(1_722_289_200_120L));
+
+        long[] samples = { 0L, 1_722_289_200_123L, 1_710_054_000_000L, -86_400_001L };
+        for (long millis : samples) {
+            assertEquals(millis, newYork.parseIso8601(newYork.formatIso8601(millis)));
+        }
+    }
+
+    @Test
+    public void roundTripsStamp() {
+        TimestampCodec codec = new TimestampCodec(TimeZone.getTimeZone("Asia/Kolkata"), Locale.US);
+        long minute = 1_722_289_200_000L;
+        assertEquals(minute, codec.parse(codec.formatStamp(minute)));
+    }
+
+    @Test
+    public void malformedInputReturnsMinusOne() {
+        TimestampCodec codec = new TimestampCodec(TimeZone.getTimeZone("UTC"), Locale.US);
+        String[] bad = { null, "", "   ", "yesterday", "2024-13-01 00:00:00", "2024-01-01",
+                "Julember 09, 2025 22:40", "July 09 2025 22:40", "July 09, 2025 25:40", "-5" };
+        for (String s : bad) {
+            assertEquals(s, -1, codec.parse(s));
+        }
+    }
+
+    @Test
+    public void startOfMonthRollsIntoNextYear() {
+        TimeZone zone = TimeZone.getTimeZone("America/New_York");
+        TimestampCodec codec = new TimestampCodec(zone, Locale.US);
+        Calendar cal = Calendar.getInstance(zone, Locale.US);
+        cal.clear();
+        cal.set(2025, Calendar.JANUARY, 1);
+        assertEquals(cal.getTimeInMillis(), codec.startOfMonth(2024, 12));
+        cal.set(2024, Calendar.MARCH, 1);
+        assertEquals(cal.getTimeInMillis(), codec.startOfMonth(2024, Calendar.MARCH));
+    }
+
+    @Test
+    public void dayKeyChangesAtLocalMidnight() {
+        TimeZone zone = TimeZone.getTimeZone("Asia/Kolkata");
+        TimestampCodec codec = new TimestampCodec(zone, Locale.US);
+        long midnight = codec.startOfMonth(2024, Calendar.JULY);
+        assertEquals(codec.dayKey(midnight), codec.dayKey(midnight + 86_399_999L));
+        assertEquals(codec.dayKey(midnight) - 1, codec.dayKey(midnight - 1));
+    }
+}
@@ -0,0 +1,76 @@
+-- Version 11: change log for incremental backups (journal_changes, backup_state).
+-- One backup has been taken; journal 3 was edited since. Journal 1 has an
+-- unsaved edit waiting; folder 2 has a new entry in progress.
+-- Statements are separated by blank lines.
+
+CREATE TABLE IF NOT EXISTS folders (id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT NOT NULL, icon TEXT);
+
+CREATE TABLE IF NOT EXISTS journals (id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT NOT NULL, content TEXT NOT NULL, folder_id INTEGER, date_added INTEGER NOT NULL DEFAULT (strftime('%s','now') * 1000), date_modified INTEGER NOT NULL DEFAULT (strftime('%s','now') * 1000), mood TEXT, excerpt TEXT NOT NULL DEFAULT '', word_count INTEGER NOT NULL DEFAULT 0, char_count INTEGER NOT NULL DEFAULT 0, FOREIGN KEY(folder_id) REFERENCES folders(id) ON DELETE CASCADE);
+
+CREATE INDEX IF NOT EXISTS idx_journals_folder_modified ON journals(folder_id, date_modified);
+
+CREATE INDEX IF NOT EXISTS idx_journals_modified ON journals(date_modified);
+
+CREATE VIRTUAL TABLE IF NOT EXISTS journals_fts USING fts4(title, content, tokenize=unicode61);
+
+CREATE TRIGGER IF NOT EXISTS journals_fts_ai AFTER INSERT ON journals WHEN typeof(new.content) <> 'blob' BEGIN   INSERT INTO journals_fts(docid, title, content)   VALUES (new.id, new.title, new.content); END;
+
+CREATE TRIGGER IF NOT EXISTS journals_fts_au AFTER UPDATE OF title, content ON journals WHEN typeof(new.content) <> 'blob' BEGIN   UPDATE journals_fts SET title = new.title, content = new.content   WHERE docid = old.id; END;
+
+CREATE TRIGGER IF NOT EXISTS journals_fts_ad AFTER DELETE ON journals BEGIN   DELETE FROM journals_fts WHERE docid = old.id; END;
+
+CREATE TABLE IF NOT EXISTS journal_month_counts (folder_id INTEGER NOT NULL, year INTEGER NOT NULL, month INTEGER NOT NULL, entries INTEGER NOT NULL, PRIMARY KEY (folder_id, year, month)) WITHOUT ROWID;
+
+CREATE TRIGGER IF NOT EXISTS journal_months_ai AFTER INSERT ON journals BEGIN INSERT OR IGNORE INTO journal_month_counts VALUES (IFNULL(new.folder_id, 0), CAST(strftime('%Y', new.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER), CAST(strftime('%m', new.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER), 0); UPDATE journal_month_counts SET entries = entries + 1 WHERE folder_id = IFNULL(new.folder_id, 0) AND year = CAST(strftime('%Y', new.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER) AND month = CAST(strftime('%m', new.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER); END;
+
+CREATE TRIGGER IF NOT EXISTS journal_months_ad AFTER DELETE ON journals BEGIN UPDATE journal_month_counts SET entries = entries - 1 WHERE folder_id = IFNULL(old.folder_id, 0) AND year = CAST(strftime('%Y', old.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER) AND month = CAST(strftime('%m', old.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER); DELETE FROM journal_month_counts WHERE folder_id = IFNULL(old.folder_id, 0) AND year = CAST(strftime('%Y', old.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER) AND month = CAST(strftime('%m', old.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER) AND entries <= 0; END;
+
+CREATE TRIGGER IF NOT EXISTS journal_months_au AFTER UPDATE OF folder_id, date_modified ON journals WHEN old.folder_id IS NOT new.folder_id   OR strftime('%Y-%m', old.date_modified / 1000, 'unixepoch', 'localtime') <> strftime('%Y-%m', new.date_modified / 1000, 'unixepoch', 'localtime') BEGIN UPDATE journal_month_counts SET entries = entries - 1 WHERE folder_id = IFNULL(old.folder_id, 0) AND year = CAST(strftime('%Y', old.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER) AND month = CAST(strftime('%m', old.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER); DELETE FROM journal_month_counts WHERE folder_id = IFNULL(old.folder_id, 0) AND year = CAST(strftime('%Y', old.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER) AND month = CAST(strftime('%m', old.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER) AND entries <= 0;INSERT OR IGNORE INTO journal_month_counts VALUES (IFNULL(new.folder_id, 0), CAST(strftime('%Y', new.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER), CAST(strftime('%m', new.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER), 0); UPDATE journal_month_counts SET entries = entries + 1 WHERE folder_id = IFNULL(new.folder_id, 0) AND year = CAST(strftime('%Y', new.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER) AND month = CAST(strftime('%m', new.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER); END;
+
+CREATE TABLE IF NOT EXISTS journal_drafts (draft_key TEXT PRIMARY KEY, journal_id INTEGER REFERENCES journals(id) ON DELETE CASCADE, folder_id INTEGER REFERENCES folders(id) ON DELETE CASCADE, title TEXT NOT NULL, content TEXT NOT NULL, mood TEXT, content_hash INTEGER NOT NULL, date_saved INTEGER NOT NULL);
+
+CREATE INDEX IF NOT EXISTS idx_drafts_journal ON journal_drafts(journal_id);
+
+CREATE INDEX IF NOT EXISTS idx_drafts_folder ON journal_drafts(folder_id);
+
+CREATE TABLE IF NOT EXISTS journal_imports (import_key TEXT PRIMARY KEY, entries_done INTEGER NOT NULL, date_updated INTEGER NOT NULL);
+
+CREATE TABLE IF NOT EXISTS journal_changes (kind INTEGER NOT NULL, row_id INTEGER NOT NULL, PRIMARY KEY (kind, row_id)) WITHOUT ROWID;
+
+CREATE TABLE IF NOT EXISTS backup_state (chain TEXT NOT NULL, number INTEGER NOT NULL);
+
+CREATE TRIGGER IF NOT EXISTS folders_changes_ai AFTER INSERT ON folders BEGIN INSERT OR IGNORE INTO journal_changes (kind, row_id) VALUES (0, new.id); END;
+
+CREATE TRIGGER IF NOT EXISTS folders_changes_au AFTER UPDATE ON folders BEGIN INSERT OR IGNORE INTO journal_changes (kind, row_id) VALUES (0, old.id); INSERT OR IGNORE INTO journal_changes (kind, row_id) VALUES (0, new.id); END;
+
+CREATE TRIGGER IF NOT EXISTS folders_changes_ad AFTER DELETE ON folders BEGIN INSERT OR IGNORE INTO journal_changes (kind, row_id) VALUES (0, old.id); END;
+
+CREATE TRIGGER IF NOT EXISTS journals_changes_ai AFTER INSERT ON journals BEGIN INSERT OR IGNORE INTO journal_changes (kind, row_id) VALUES (1, new.id); END;
+
+CREATE TRIGGER IF NOT EXISTS journals_changes_au AFTER UPDATE ON journals BEGIN INSERT OR IGNORE INTO journal_changes (kind, row_id) VALUES (1, old.id); INSERT OR IGNORE INTO journal_changes (kind, row_id) VALUES (1, new.id); END;
+
+CREATE TRIGGER IF NOT EXISTS journals_changes_ad AFTER DELETE ON journals BEGIN INSERT OR IGNORE INTO journal_changes (kind, row_id) VALUES (1, old.id); END;
+
+INSERT INTO folders (id, name, icon) VALUES (1, 'Work', '#F28BA8');
+
+INSERT INTO folders (id, name, icon) VALUES (2, 'Personal', '#B2D7F3');
+
+INSERT INTO journals (id, title, content, folder_id, date_added, date_modified, mood, excerpt, word_count, char_count) VALUES (1, 'Monday', 'Started the new project', 1, 1672650900000, 1672650900000, '😀 Happy', 'Started the new project', 4, 23);
+
+INSERT INTO journals (id, title, content, folder_id, date_added, date_modified, mood, excerpt, word_count, char_count) VALUES (2, 'Run', '5k along the river', 2, 1678865400000, 1678865400000, '✨ Excited', '5k along the river', 4, 18);
+
+INSERT INTO journals (id, title, content, folder_id, date_added, date_modified, mood, excerpt, word_count, char_count) VALUES (3, 'Edited', 'Fixed a typo in the plan', 1, 1679000700000, 1679000700000, NULL, 'Fixed a typo in the plan', 6, 24);
+
+INSERT INTO journal_drafts (draft_key, journal_id, folder_id, title, content, mood, content_hash, date_saved) VALUES ('journal:1', 1, NULL, 'Monday', 'Started the new project, slowly', '😀 Happy', 1, 1679100000000);
+
+INSERT INTO journal_drafts (draft_key, journal_id, folder_id, title, content, mood, content_hash, date_saved) VALUES ('folder:2', NULL, 2, 'Half', 'written', NULL, 2, 1679100000000);
+
+INSERT INTO journal_imports (import_key, entries_done, date_updated) VALUES ('content://downloads/42:1048576', 2000, 1679100000000);
+
+DELETE FROM journal_changes;
+
+INSERT INTO backup_state (chain, number) VALUES ('3f2b9c1e', 1);
+
+INSERT INTO journal_changes (kind, row_id) VALUES (1, 3);
+
+PRAGMA user_version = 11;
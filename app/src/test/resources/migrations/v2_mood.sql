@@ -0,0 +1,23 @@
+-- Version 2 after the editor's ALTER TABLE added mood.
+-- Journal 4 points at a folder that no longer exists (old two-step folder delete).
+-- Statements are separated by blank lines.
+
+CREATE TABLE IF NOT EXISTS folders (id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT NOT NULL, icon TEXT);
+
+CREATE TABLE IF NOT EXISTS journals (id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT NOT NULL, content TEXT NOT NULL, folder_id INTEGER, date_added DATETIME DEFAULT CURRENT_TIMESTAMP, date_modified DATETIME DEFAULT CURRENT_TIMESTAMP, FOREIGN KEY(folder_id) REFERENCES folders(id));
+
+ALTER TABLE journals ADD COLUMN mood TEXT;
+
+INSERT INTO folders (id, name, icon) VALUES (1, 'Work', '#F28BA8');
+
+INSERT INTO folders (id, name, icon) VALUES (2, 'Personal', '#B2D7F3');
+
+INSERT INTO journals (id, title, content, folder_id, date_added, date_modified, mood) VALUES (1, 'Monday', 'Started the new project', 1, '2023-01-02 09:15:00', '2023-01-02 09:15:00', '😀 Happy');
+
+INSERT INTO journals (id, title, content, folder_id, date_added, date_modified, mood) VALUES (2, 'Run', '5k along the river', 2, '2023-03-15 07:30:00', '2023-03-15 07:30:00', '✨ Excited');
+
+INSERT INTO journals (id, title, content, folder_id, date_added, date_modified, mood) VALUES (3, 'Edited', 'Fixed a typo in the plan', 1, 'March 16, 2023 21:05', 'March 16, 2023 21:05', NULL);
+
+INSERT INTO journals (id, title, content, folder_id, date_added, date_modified, mood) VALUES (4, 'Lost', 'Its folder was deleted', 99, '2023-04-01 12:00:00', '2023-04-01 12:00:00', NULL);
+
+PRAGMA user_version = 2;
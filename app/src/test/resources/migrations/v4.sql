@@ -0,0 +1,33 @@
+-- Version 4: epoch-millis dates and date indexes.
+-- Journal 4 points at a folder that no longer exists (old two-step folder delete).
+-- Statements are separated by blank lines.
+
+CREATE TABLE IF NOT EXISTS folders (id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT NOT NULL, icon TEXT);
+
+CREATE TABLE IF NOT EXISTS journals (id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT NOT NULL, content TEXT NOT NULL, folder_id INTEGER, date_added INTEGER NOT NULL DEFAULT (strftime('%s','now') * 1000), date_modified INTEGER NOT NULL DEFAULT (strftime('%s','now') * 1000), mood TEXT, FOREIGN KEY(folder_id) REFERENCES folders(id));
+
+CREATE INDEX IF NOT EXISTS idx_journals_folder_modified ON journals(folder_id, date_modified);
+
+CREATE INDEX IF NOT EXISTS idx_journals_modified ON journals(date_modified);
+
+CREATE VIRTUAL TABLE IF NOT EXISTS journals_fts USING fts4(title, content, tokenize=unicode61);
+
+CREATE TRIGGER IF NOT EXISTS journals_fts_ai AFTER INSERT ON journals BEGIN   INSERT INTO journals_fts(docid, title, content)   VALUES (new.id, new.title, new.content); END;
+
+CREATE TRIGGER IF NOT EXISTS journals_fts_au AFTER UPDATE OF title, content ON journals BEGIN   UPDATE journals_fts SET title = new.title, content = new.content   WHERE docid = old.id; END;
+
+CREATE TRIGGER IF NOT EXISTS journals_fts_ad AFTER DELETE ON journals BEGIN   DELETE FROM journals_fts WHERE docid = old.id; END;
+
+INSERT INTO folders (id, name, icon) VALUES (1, 'Work', '#F28BA8');
+
+INSERT INTO folders (id, name, icon) VALUES (2, 'Personal', '#B2D7F3');
+
+INSERT INTO journals (id, title, content, folder_id, date_added, date_modified, mood) VALUES (1, 'Monday', 'Started the new project', 1, 1672650900000, 1672650900000, '😀 Happy');
+
+INSERT INTO journals (id, title, content, folder_id, date_added, date_modified, mood) VALUES (2, 'Run', '5k along the river', 2, 1678865400000, 1678865400000, '✨ Excited');
+
+INSERT INTO journals (id, title, content, folder_id, date_added, date_modified, mood) VALUES (3, 'Edited', 'Fixed a typo in the plan', 1, 1679000700000, 1679000700000, NULL);
+
+INSERT INTO journals (id, title, content, folder_id, date_added, date_modified, mood) VALUES (4, 'Lost', 'Its folder was deleted', 99, 1680350400000, 1680350400000, NULL);
+
+PRAGMA user_version = 4;
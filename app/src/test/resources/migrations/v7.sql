@@ -0,0 +1,49 @@
+-- Version 7: autosaved editor drafts.
+-- Journal 1 has an unsaved edit waiting; folder 2 has a new entry in progress.
+-- Statements are separated by blank lines.
+
+CREATE TABLE IF NOT EXISTS folders (id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT NOT NULL, icon TEXT);
+
+CREATE TABLE IF NOT EXISTS journals (id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT NOT NULL, content TEXT NOT NULL, folder_id INTEGER, date_added INTEGER NOT NULL DEFAULT (strftime('%s','now') * 1000), date_modified INTEGER NOT NULL DEFAULT (strftime('%s','now') * 1000), mood TEXT, FOREIGN KEY(folder_id) REFERENCES folders(id) ON DELETE CASCADE);
+
+CREATE INDEX IF NOT EXISTS idx_journals_folder_modified ON journals(folder_id, date_modified);
+
+CREATE INDEX IF NOT EXISTS idx_journals_modified ON journals(date_modified);
+
+CREATE VIRTUAL TABLE IF NOT EXISTS journals_fts USING fts4(title, content, tokenize=unicode61);
+
+CREATE TRIGGER IF NOT EXISTS journals_fts_ai AFTER INSERT ON journals BEGIN   INSERT INTO journals_fts(docid, title, content)   VALUES (new.id, new.title, new.content); END;
+
+CREATE TRIGGER IF NOT EXISTS journals_fts_au AFTER UPDATE OF title, content ON journals BEGIN   UPDATE journals_fts SET title = new.title, content = new.content   WHERE docid = old.id; END;
+
+CREATE TRIGGER IF NOT EXISTS journals_fts_ad AFTER DELETE ON journals BEGIN   DELETE FROM journals_fts WHERE docid = old.id; END;
+
+CREATE TABLE IF NOT EXISTS journal_month_counts (folder_id INTEGER NOT NULL, year INTEGER NOT NULL, month INTEGER NOT NULL, entries INTEGER NOT NULL, PRIMARY KEY (folder_id, year, month)) WITHOUT ROWID;
+
+CREATE TRIGGER IF NOT EXISTS journal_months_ai AFTER INSERT ON journals BEGIN INSERT OR IGNORE INTO journal_month_counts VALUES (IFNULL(new.folder_id, 0), CAST(strftime('%Y', new.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER), CAST(strftime('%m', new.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER), 0); UPDATE journal_month_counts SET entries = entries + 1 WHERE folder_id = IFNULL(new.folder_id, 0) AND year = CAST(strftime('%Y', new.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER) AND month = CAST(strftime('%m', new.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER); END;
+
+CREATE TRIGGER IF NOT EXISTS journal_months_ad AFTER DELETE ON journals BEGIN UPDATE journal_month_counts SET entries = entries - 1 WHERE folder_id = IFNULL(old.folder_id, 0) AND year = CAST(strftime('%Y', old.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER) AND month = CAST(strftime('%m', old.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER); DELETE FROM journal_month_counts WHERE folder_id = IFNULL(old.folder_id, 0) AND year = CAST(strftime('%Y', old.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER) AND month = CAST(strftime('%m', old.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER) AND entries <= 0; END;
+
+CREATE TRIGGER IF NOT EXISTS journal_months_au AFTER UPDATE OF folder_id, date_modified ON journals WHEN old.folder_id IS NOT new.folder_id   OR strftime('%Y-%m', old.date_modified / 1000, 'unixepoch', 'localtime') <> strftime('%Y-%m', new.date_modified / 1000, 'unixepoch', 'localtime') BEGIN UPDATE journal_month_counts SET entries = entries - 1 WHERE folder_id = IFNULL(old.folder_id, 0) AND year = CAST(strftime('%Y', old.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER) AND month = CAST(strftime('%m', old.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER); DELETE FROM journal_month_counts WHERE folder_id = IFNULL(old.folder_id, 0) AND year = CAST(strftime('%Y', old.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER) AND month = CAST(strftime('%m', old.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER) AND entries <= 0;INSERT OR IGNORE INTO journal_month_counts VALUES (IFNULL(new.folder_id, 0), CAST(strftime('%Y', new.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER), CAST(strftime('%m', new.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER), 0); UPDATE journal_month_counts SET entries = entries + 1 WHERE folder_id = IFNULL(new.folder_id, 0) AND year = CAST(strftime('%Y', new.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER) AND month = CAST(strftime('%m', new.date_modified / 1000, 'unixepoch', 'localtime') AS INTEGER); END;
+
+CREATE TABLE IF NOT EXISTS journal_drafts (draft_key TEXT PRIMARY KEY, journal_id INTEGER REFERENCES journals(id) ON DELETE CASCADE, folder_id INTEGER REFERENCES folders(id) ON DELETE CASCADE, title TEXT NOT NULL, content TEXT NOT NULL, mood TEXT, content_hash INTEGER NOT NULL, date_saved INTEGER NOT NULL);
+
+CREATE INDEX IF NOT EXISTS idx_drafts_journal ON journal_drafts(journal_id);
+
+CREATE INDEX IF NOT EXISTS idx_drafts_folder ON journal_drafts(folder_id);
+
+INSERT INTO folders (id, name, icon) VALUES (1, 'Work', '#F28BA8');
+
+INSERT INTO folders (id, name, icon) VALUES (2, 'Personal', '#B2D7F3');
+
+INSERT INTO journals (id, title, content, folder_id, date_added, date_modified, mood) VALUES (1, 'Monday', 'Started the new project', 1, 1672650900000, 1672650900000, '😀 Happy');
+
+INSERT INTO journals (id, title, content, folder_id, date_added, date_modified, mood) VALUES (2, 'Run', '5k along the river', 2, 1678865400000, 1678865400000, '✨ Excited');
+
+INSERT INTO journals (id, title, content, folder_id, date_added, date_modified, mood) VALUES (3, 'Edited', 'Fixed a typo in the plan', 1, 1679000700000, 1679000700000, NULL);
+
+INSERT INTO journal_drafts (draft_key, journal_id, folder_id, title, content, mood, content_hash, date_saved) VALUES ('journal:1', 1, NULL, 'Monday', 'Started the new project, slowly', '😀 Happy', 1, 1679100000000);
+
+INSERT INTO journal_drafts (draft_key, journal_id, folder_id, title, content, mood, content_hash, date_saved) VALUES ('folder:2', NULL, 2, 'Half', 'written', NULL, 2, 1679100000000);
+
+PRAGMA user_version = 7;
@@ -0,0 +1,181 @@
+package com.example.offlinedailyjournal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plain TEXT against {@link ContentCodec} storage for journal content, on
+ * a corpus shaped like real use: mostly short notes, plus a fifth of long
+ * dictated entries (2k-20k words). The corpus is written to a SQLite file
+ * through sqlite-jdbc, the same engine the app uses, and the file size is
+ * printed after setup for each threshold ("0" is compression off).
+ *
+ * readLong/writeLong are what opening and saving a long entry cost,
+ * including decompression and compression; each write commits on its own,
+ * as a save does. Only the journals table is modelled; the search index
+ * keeps its own uncompressed copy either way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentCompressionBenchmark {
+
+    static final int ENTRIES = 1000;
+
+    @Param({ "0", "4096" })
+    public int threshold;
+
+    private ContentCodec codec;
+    private File file;
+    private Connection db;
+    private PreparedStatement read;
+    private PreparedStatement write;
+    private String[] corpus;
+    private int[] longIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        codec  = new ContentCodec(threshold);
+        corpus = corpus(new Random(2024));
+
+        file = File.createTempFile("journal-bench", ".db");
+        db = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        try (Statement s = db.createStatement()) {
+            s.execute("CREATE TABLE journals (id INTEGER PRIMARY KEY, content TEXT NOT NULL)");
+        }
+        db.setAutoCommit(false);
+        List<Integer> longOnes = new ArrayList<>();
+        long rawBytes = 0;
+        try (PreparedStatement insert = db.prepareStatement("INSERT INTO journals (id, content) VALUES (?, ?)")) {
+            for (int id = 0; id < ENTRIES; id++) {
+                insert.setInt(1, id);
+                bindContent(insert, 2, corpus[id]);
+                insert.executeUpdate();
+                rawBytes += corpus[id].getBytes(StandardCharsets.UTF_8).length;
+                if (corpus[id].length() >= ContentCodec.DEFAULT_THRESHOLD) longOnes.add(id);
+            }
+        }
+        db.commit();
+        db.setAutoCommit(true);
+        try (Statement s = db.createStatement()) {
+            s.execute("VACUUM");
+        }
+        longIds = longOnes.stream().mapToInt(Integer::intValue).toArray();
+
+        System.out.printf("%n[threshold %d] %d entries, %d long; content %.1f MB; db file %.1f MB%n",
+                threshold, ENTRIES, longIds.length, rawBytes / 1e6, file.length() / 1e6);
+
+        read  = db.prepareStatement("SELECT content FROM journals WHERE id = ?");
+        write = db.prepareStatement("UPDATE journals SET content = ? WHERE id = ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        db.close();
+        if (!file.delete()) file.deleteOnExit();
+    }
+
+    private void bindContent(PreparedStatement statement, int index, String content) throws SQLException {
+        byte[] packed = codec.compress(content);
+        if (packed != null) statement.setBytes(index, packed); else statement.setString(index, content);
+    }
+
+    private int nextLongId() {
+        next = (next + 1) % longIds.length;
+        return longIds[next];
+    }
+
+    @Benchmark
+    public String readLong() throws SQLException {
+        read.setInt(1, nextLongId());
+        try (ResultSet rs = read.executeQuery()) {
+            rs.next();
+            Object value = rs.getObject(1);
+            return value instanceof byte[] ? ContentCodec.decompress((byte[]) value) : (String) value;
+        }
+    }
+
+    @Benchmark
+    public int writeLong() throws SQLException {
+        int id = nextLongId();
+        bindContent(write, 1, corpus[id]);
+        write.setInt(2, id);
+        return write.executeUpdate();
+    }
+
+    // ---------------------------------------------------------------------
+
+    private static final String[] WORDS = (
+            "I you we they he she it the a an and but so because then when after before while "
+            + "today yesterday tomorrow morning afternoon evening night week weekend month "
+            + "work meeting project deadline email call boss team office coffee lunch dinner "
+            + "walked ran drove cooked read wrote thought felt saw heard talked laughed cried slept "
+            + "happy tired anxious calm excited grateful sad angry proud nervous relieved "
+            + "mom dad sister brother friend partner kids dog cat neighbour doctor "
+            + "home park river beach store gym city train bus rain sun wind cold warm "
+            + "really very just still again finally almost never always maybe probably "
+            + "good bad long short new old big small quiet loud early late better worse "
+            + "about with without for from into over under around through between "
+            + "need want try remember forget plan hope wish decide start stop keep leave")
+            .split(" ");
+
+    /** Four short notes to each long dictated entry, in a repeatable order. */
+    private static String[] corpus(Random random) {
+        String[] entries = new String[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            int words = i % 5 == 4 ? 2000 + random.nextInt(18_000) : 30 + random.nextInt(270);
+            entries[i] = prose(random, words);
+        }
+        return entries;
+    }
+
+    static String prose(Random random, int words) {
+        StringBuilder text = new StringBuilder(words * 6);
+        int sentence = 0;
+        for (int w = 0; w < words; w++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (sentence == 0) {
+                text.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            } else {
+                text.append(word);
+            }
+            if (++sentence > 6 + random.nextInt(14)) {
+                text.append(random.nextInt(8) == 0 ? "!" : ".");
+                text.append(random.nextInt(6) == 0 ? "\n\n" : " ");
+                sentence = 0;
+            } else {
+                text.append(random.nextInt(10) == 0 ? ", " : " ");
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.offlinedailyjournal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full export as JournalExporter runs it: keyset-ordered chunks of
+ * {@link #CHUNK} rows joined to their folder names, compressed content
+ * inflated, each entry streamed through {@link JournalZipWriter} into a
+ * sink that drops the bytes.
+ *
+ * After each iteration it prints the throughput in MB/s of Markdown and
+ * manifest text, and the peak heap in use during the iteration above what
+ * was live before it. The two journal sizes differ tenfold; the peak
+ * should not. Run with a small heap (e.g. -Xmx64m in jvmArgs) to confirm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExportBenchmark {
+
+    /** JournalExporter.CHUNK; the exporter itself needs Android's SQLite. */
+    static final int CHUNK = 100;
+
+    @Param({ "2000", "20000" })
+    public int entries;
+
+    private File file;
+    private File spoolDir;
+    private Connection db;
+    private PreparedStatement chunk;
+    private final TimestampCodec codec = new TimestampCodec(TimeZone.getTimeZone("Europe/Berlin"), Locale.US);
+
+    private long textBytes;
+    private long startNanos;
+    private long baselineHeap;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        file = File.createTempFile("journal-export-bench", ".db");
+        spoolDir = file.getParentFile();
+        db = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        try (Statement s = db.createStatement()) {
+            s.execute("CREATE TABLE folders (id INTEGER PRIMARY KEY, name TEXT NOT NULL, icon TEXT)");
+            s.execute("CREATE TABLE journals (id INTEGER PRIMARY KEY, title TEXT NOT NULL, content TEXT NOT NULL,"
+                    + " folder_id INTEGER, date_added INTEGER NOT NULL, date_modified INTEGER NOT NULL, mood TEXT)");
+        }
+        db.setAutoCommit(false);
+        String[] folders = { "Work", "Home", "Travel", "Health", "Ideas", "Family" };
+        try (PreparedStatement insert = db.prepareStatement("INSERT INTO folders (id, name, icon) VALUES (?, ?, ?)")) {
+            for (int i = 0; i < folders.length; i++) {
+                insert.setInt(1, i + 1);
+                insert.setString(2, folders[i]);
+                insert.setString(3, "#B2D7F3");
+                insert.executeUpdate();
+            }
+        }
+        // Same mix as the compression benchmark: four short notes to each long entry
+        ContentCodec contentCodec = new ContentCodec(ContentCodec.DEFAULT_THRESHOLD);
+        Random random = new Random(2024);
+        long date = 1_722_289_200_000L;
+        try (PreparedStatement insert = db.prepareStatement("INSERT INTO journals"
+                + " (title, content, folder_id, date_added, date_modified, mood) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < entries; i++) {
+                String content = ContentCompressionBenchmark.prose(random,
+                        i % 5 == 4 ? 2000 + random.nextInt(18_000) : 30 + random.nextInt(270));
+                insert.setString(1, "Entry " + i);
+                byte[] packed = contentCodec.compress(content);
+                if (packed != null) insert.setBytes(2, packed); else insert.setString(2, content);
+                if (i % 7 == 6) insert.setNull(3, java.sql.Types.INTEGER); else insert.setInt(3, 1 + i % folders.length);
+                insert.setLong(4, date - i * 3_600_000L);
+                insert.setLong(5, date - i * 3_000_000L);
+                if (i % 3 == 0) insert.setString(6, "🙂 Calm"); else insert.setNull(6, java.sql.Types.VARCHAR);
+                insert.executeUpdate();
+            }
+        }
+        db.commit();
+        db.setAutoCommit(true);
+
+        chunk = db.prepareStatement("SELECT j.id, j.title, j.content, j.date_added, j.date_modified, j.mood, f.name"
+                + " FROM journals j LEFT JOIN folders f ON f.id = j.folder_id"
+                + " WHERE j.id > ? ORDER BY j.id LIMIT " + CHUNK);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        db.close();
+        if (!file.delete()) file.deleteOnExit();
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        System.gc();
+        baselineHeap = heapInUse();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+        startNanos = System.nanoTime();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportIteration() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+        System.out.printf("%n[%d entries] %.1f MB text, %.1f MB/s, peak heap %.1f MB over %.1f MB live%n",
+                entries, textBytes / 1e6, textBytes / 1e6 / seconds,
+                (peak - baselineHeap) / 1e6, baselineHeap / 1e6);
+    }
+
+    @Benchmark
+    public long export() throws IOException, SQLException {
+        try (JournalZipWriter zip = new JournalZipWriter(new DiscardingStream(), spoolDir, codec)) {
+            long afterId = 0;
+            int rows;
+            do {
+                rows = 0;
+                chunk.setLong(1, afterId);
+                try (ResultSet rs = chunk.executeQuery()) {
+                    while (rs.next()) {
+                        Object content = rs.getObject(3);
+                        afterId = rs.getLong(1);
+                        zip.add(afterId, rs.getString(7), rs.getString(2),
+                                content instanceof byte[] ? ContentCodec.decompress((byte[]) content) : (String) content,
+                                rs.getString(6), rs.getLong(4), rs.getLong(5));
+                        rows++;
+                    }
+                }
+            } while (rows == CHUNK);
+            zip.finish(System.currentTimeMillis());
+            textBytes = zip.textBytes();
+            return zip.zipBytes();
+        }
+    }
+
+    private static long heapInUse() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /** Stands in for the file the user picked; the zip is built in full, then dropped. */
+    private static final class DiscardingStream extends OutputStream {
+        @Override public void write(int b) {}
+        @Override public void write(byte[] b, int off, int len) {}
+    }
+}
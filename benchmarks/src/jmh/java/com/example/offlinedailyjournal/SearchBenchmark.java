@@ -0,0 +1,181 @@
+package com.example.offlinedailyjournal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A search as DatabaseHelper.searchJournals runs it, over {@link #ENTRIES}
+ * entries: the newest {@link JournalSearch#MAX_CANDIDATES} hits scored
+ * from matchinfo(), with their snippets, into a heap of the best
+ * {@link #LIMIT}, then titles and dates for those alone.
+ *
+ * The queries go from selective to broad. "lighthouse" is in one entry in
+ * a thousand; "river" is in about two thirds of them, and "walked riv",
+ * two words with the last as a prefix, in about half. Past the candidate
+ * bound, what is left to grow with the number of hits is reading their
+ * doclists, once per search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    static final int ENTRIES = 100_000;
+    /** A screenful of results. */
+    static final int LIMIT = 50;
+
+    @Param({ "lighthouse", "river", "walked riv" })
+    public String query;
+
+    private File file;
+    private Connection db;
+    private PreparedStatement candidates;
+    private String match;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        file = File.createTempFile("journal-search-bench", ".db");
+        db = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        try (Statement s = db.createStatement()) {
+            s.execute("CREATE TABLE journals (id INTEGER PRIMARY KEY, title TEXT NOT NULL, content TEXT NOT NULL,"
+                    + " date_modified INTEGER NOT NULL)");
+            s.execute("CREATE VIRTUAL TABLE journals_fts USING fts4(title, content, tokenize=unicode61)");
+        }
+        db.setAutoCommit(false);
+        // Short notes, with a longer entry in every twenty
+        Random random = new Random(2024);
+        long date = 1_722_289_200_000L;
+        try (PreparedStatement journal = db.prepareStatement(
+                     "INSERT INTO journals (id, title, content, date_modified) VALUES (?, ?, ?, ?)");
+             PreparedStatement index = db.prepareStatement(
+                     "INSERT INTO journals_fts (docid, title, content) VALUES (?, ?, ?)")) {
+            for (int i = 1; i <= ENTRIES; i++) {
+                String title = "Entry " + i;
+                String content = ContentCompressionBenchmark.prose(random,
+                        i % 20 == 0 ? 500 + random.nextInt(1500) : 30 + random.nextInt(270));
+                if (i % 1000 == 0) content += " The lighthouse was lit.";
+                journal.setInt(1, i);
+                journal.setString(2, title);
+                journal.setString(3, content);
+                journal.setLong(4, date - i * 3_000_000L);
+                journal.executeUpdate();
+                index.setInt(1, i);
+                index.setString(2, title);
+                index.setString(3, content);
+                index.executeUpdate();
+            }
+        }
+        try (Statement s = db.createStatement()) {
+            s.execute("INSERT INTO journals_fts(journals_fts) VALUES('optimize')");
+        }
+        db.commit();
+        db.setAutoCommit(true);
+
+        match = JournalSearch.toMatchQuery(query);
+        candidates = db.prepareStatement("SELECT docid, matchinfo(journals_fts, '" + JournalSearch.MATCHINFO_FORMAT + "')"
+                + ", snippet(journals_fts, ?, ?, '…', -1, 12)"
+                + " FROM journals_fts WHERE journals_fts MATCH ?"
+                + " ORDER BY docid DESC LIMIT " + JournalSearch.MAX_CANDIDATES);
+
+        int hits = hits();
+        List<JournalSearch.Result> results = search();
+        System.out.printf("%n[%s] %d hits, %d scored, %d shown%n", query, hits,
+                Math.min(hits, JournalSearch.MAX_CANDIDATES), results.size());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        db.close();
+        if (!file.delete()) file.deleteOnExit();
+    }
+
+    @Benchmark
+    public List<JournalSearch.Result> search() throws SQLException {
+        List<JournalSearch.Result> results = new ArrayList<>();
+
+        // 1) Score the newest hits, keeping the best LIMIT and their snippets in a min-heap
+        PriorityQueue<double[]> top = new PriorityQueue<>(LIMIT + 1, (a, b) -> Double.compare(a[0], b[0]));
+        Map<Long, String> snippets = new HashMap<>();
+        candidates.setString(1, JournalSearch.HIT_START);
+        candidates.setString(2, JournalSearch.HIT_END);
+        candidates.setString(3, match);
+        try (ResultSet rs = candidates.executeQuery()) {
+            while (rs.next()) {
+                double score = JournalSearch.score(rs.getBytes(2));
+                if (top.size() == LIMIT && score <= top.peek()[0]) continue;
+                long id = rs.getLong(1);
+                top.add(new double[]{ score, id });
+                snippets.put(id, rs.getString(3));
+                if (top.size() > LIMIT) snippets.remove((long) top.poll()[1]);
+            }
+        }
+        if (top.isEmpty()) return results;
+
+        int count = top.size();
+        long[] ids = new long[count];
+        Map<Long, Double> scores = new HashMap<>();
+        for (int i = count - 1; i >= 0; i--) {
+            double[] hit = top.poll();
+            ids[i] = (long) hit[1];
+            scores.put(ids[i], hit[0]);
+        }
+
+        // 2) Titles and dates for the winners only
+        Map<Long, JournalSearch.Result> byId = new HashMap<>();
+        try (Statement titles = db.createStatement();
+             ResultSet rs = titles.executeQuery("SELECT id, title, date_modified FROM journals"
+                     + " WHERE id IN (" + JournalSearch.idList(ids, count) + ")")) {
+            while (rs.next()) {
+                long id = rs.getLong(1);
+                JournalSearch.Snippet snippet = JournalSearch.parseSnippet(snippets.get(id));
+                byId.put(id, new JournalSearch.Result(id, rs.getString(2), rs.getLong(3),
+                        snippet.text, snippet.highlights, scores.get(id)));
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            JournalSearch.Result r = byId.get(ids[i]);
+            if (r != null) results.add(r);
+        }
+        return results;
+    }
+
+    private int hits() throws SQLException {
+        try (PreparedStatement count = db.prepareStatement(
+                "SELECT COUNT(*) FROM journals_fts WHERE journals_fts MATCH ?")) {
+            count.setString(1, match);
+            try (ResultSet rs = count.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+}
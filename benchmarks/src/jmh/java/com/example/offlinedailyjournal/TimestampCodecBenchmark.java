@@ -0,0 +1,130 @@
+package com.example.offlinedailyjournal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.text.DateFormatSymbols;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the journal lists spend on dates for a million rows: the old
+ * per-row path (SimpleDateFormat parse attempts, a new Calendar and a new
+ * DateFormatSymbols per row) against {@link TimestampCodec}.
+ *
+ * The "parse" pair starts from stored strings, as the lists did before
+ * dates became epoch millis; the "format" pair starts from millis, as they
+ * do now. Each invocation processes all {@link #ROWS} rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimestampCodecBenchmark {
+
+    static final int ROWS = 1_000_000;
+
+    // The list screens' old static formatters
+    private final SimpleDateFormat[] parseFormats = {
+            new SimpleDateFormat("MMMM dd, yyyy HH:mm", Locale.US),
+            new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US)
+    };
+    private final SimpleDateFormat headerFmt  = new SimpleDateFormat("MMMM d", Locale.US);
+    private final SimpleDateFormat displayFmt = new SimpleDateFormat("MMMM d, yyyy HH:mm", Locale.US);
+
+    private TimestampCodec codec;
+    private long[]   millis;
+    private String[] stored;
+
+    @Setup
+    public void setUp() {
+        Locale.setDefault(Locale.US);
+        codec  = TimestampCodec.local();
+        millis = new long[ROWS];
+        stored = new String[ROWS];
+        SimpleDateFormat iso = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
+        Random random = new Random(7);
+        long t = System.currentTimeMillis();
+        for (int i = 0; i < ROWS; i++) {
+            t -= random.nextInt(6 * 60 * 60 * 1000); // newest first, a few entries a day
+            millis[i] = t;
+            // Both historical string forms, as a pre-v4 database holds them
+            stored[i] = (i & 1) == 0 ? parseFormats[0].format(new Date(t)) : iso.format(new Date(t));
+        }
+    }
+
+    @Benchmark
+    public void parseLegacy(Blackhole bh) {
+        for (String ts : stored) {
+            Date parsed = null;
+            for (SimpleDateFormat pf : parseFormats) {
+                try { parsed = pf.parse(ts); break; }
+                catch (ParseException ignored) {}
+            }
+            if (parsed == null) continue;
+            Calendar cal = Calendar.getInstance();
+            cal.setTime(parsed);
+            bh.consume(String.valueOf(cal.get(Calendar.YEAR)));
+            bh.consume(new DateFormatSymbols().getMonths()[cal.get(Calendar.MONTH)]);
+            bh.consume(headerFmt.format(parsed));
+            bh.consume(displayFmt.format(parsed));
+        }
+    }
+
+    @Benchmark
+    public void parseCodec(Blackhole bh) {
+        for (String ts : stored) {
+            long t = codec.parse(ts);
+            if (t < 0) continue;
+            bh.consume(codec.year(t));
+            bh.consume(codec.monthName(codec.month(t)));
+            bh.consume(codec.formatHeader(t));
+            bh.consume(codec.formatDisplay(t));
+        }
+    }
+
+    @Benchmark
+    public void formatLegacy(Blackhole bh) {
+        Calendar cal = Calendar.getInstance();
+        long lastDay = Long.MIN_VALUE;
+        for (long t : millis) {
+            cal.setTimeInMillis(t);
+            long day = cal.get(Calendar.YEAR) * 1000L + cal.get(Calendar.DAY_OF_YEAR);
+            Date date = new Date(t);
+            if (day != lastDay) {
+                lastDay = day;
+                bh.consume(headerFmt.format(date));
+            }
+            bh.consume(displayFmt.format(date));
+        }
+    }
+
+    @Benchmark
+    public void formatCodec(Blackhole bh) {
+        long lastDay = Long.MIN_VALUE;
+        for (long t : millis) {
+            long day = codec.dayKey(t);
+            if (day != lastDay) {
+                lastDay = day;
+                bh.consume(codec.formatHeader(t));
+            }
+            bh.consume(codec.formatDisplay(t));
+        }
+    }
+}